@@ -9,8 +9,8 @@ allprojects {
 
     java {
         toolchain {
-            //languageVersion = JavaLanguageVersion.of(19)
-            languageVersion.set(JavaLanguageVersion.of(19))
+            //languageVersion = JavaLanguageVersion.of(21)
+            languageVersion.set(JavaLanguageVersion.of(21))
 
         }
     }
@@ -12,6 +12,10 @@ import jason.environment.Environment;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -29,40 +33,292 @@ import static env.utils.AbsoluteMovement.*;
  */
 public class BlackForestEnvironment extends Environment implements MapEnvironment {
 
+    /**
+     * The option disabling the optimistic reads of the percepts, which are then built while
+     * holding the whole map.
+     */
+    public static final String LOCKED_PERCEPTS_OPTION = "locked_percepts";
+    /**
+     * The option making the surrounding and in-range percepts read the world snapshot published
+     * at the end of the last tick instead of the live map.
+     */
+    public static final String SNAPSHOT_PERCEPTS_OPTION = "snapshot_percepts";
+    /**
+     * The option running the actions through a {@link TickEngine}, one tick per frame of the model.
+     */
+    public static final String TICK_ENGINE_OPTION = "tick_engine";
+    /**
+     * The option running the ticks of the engine back to back, as fast as possible.
+     */
+    public static final String UNTHROTTLED_TICKS_OPTION = "unthrottled_ticks";
+    /**
+     * The option executing every action on its own virtual thread, so that the agents waiting for
+     * a frame of the model do not hold a platform thread.
+     */
+    public static final String VIRTUAL_THREADS_OPTION = "virtual_threads";
+    /**
+     * The option making a single world thread apply every mutation of the map, through a
+     * {@link CommandQueueModel}.
+     */
+    public static final String COMMAND_QUEUE_OPTION = "command_queue";
+    /**
+     * The option recording the contention of the locks of the map, reported when the environment
+     * stops (see {@link LockMetrics}).
+     */
+    public static final String LOCK_METRICS_OPTION = "lock_metrics";
+    /**
+     * The option publishing the percepts of each agent as changes to the previously published
+     * ones, so that agents whose percepts didn't change skip the belief revision altogether.
+     */
+    public static final String DELTA_PERCEPTS_OPTION = "delta_percepts";
+    /**
+     * The option computing the percepts of all the agents in parallel at the end of every tick,
+     * from the snapshot just published, instead of on demand by each agent.  Only effective
+     * together with the {@value #TICK_ENGINE_OPTION} option, which defines the ticks.
+     */
+    public static final String PRECOMPUTED_PERCEPTS_OPTION = "precomputed_percepts";
+    /**
+     * The number of ticks (frames of the model) a dead agent waits before respawning.
+     */
+    public static final int RESPAWN_TICKS = 20;
+    private static final int PERCEPT_TASK_AGENTS = 2; // Agents below which a percept task is not split further
     private static final Random RAND = new Random();
     static Logger logger = Logger.getLogger(BlackForestEnvironment.class.getName());
     private MapModel model;
     private BlackForestView view;
     private long threadSleep, threadSleepRespawn;
+    private Set<String> options = Set.of();
+    private TickEngine tickEngine; // Null unless the tick engine option is set
+    private final MoveResolver moveResolver = new MoveResolver(); // Only used by the tick engine
+    private ExecutorService actionExecutor; // Null unless the virtual threads option is set
+    private final Map<String, Set<Literal>> publishedPercepts = new ConcurrentHashMap<>(); // Only used in delta mode
+    private ForkJoinPool perceptPool; // Null unless the precomputed percepts and tick engine options are set
+    private final AtomicReference<PerceptSlots> precomputedPercepts = new AtomicReference<>(PerceptSlots.NONE);
+    private final Set<Agent> respawning = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService respawnScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "respawn-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
 
 
     /**
      * Initializes the BlackForestEnvironment with the given parameters.
      * Sets up the model, view, and defines sleep intervals for agent actions.
      *
-     * @param args Array containing width and height of the environment.
+     * @param args Array containing width and height of the environment, optionally followed by
+     *             option flags (e.g. {@value #LOCKED_PERCEPTS_OPTION}, {@value #SNAPSHOT_PERCEPTS_OPTION},
+     *             {@value #TICK_ENGINE_OPTION}, {@value #VIRTUAL_THREADS_OPTION}, {@value #COMMAND_QUEUE_OPTION},
+     *             {@value #LOCK_METRICS_OPTION}, {@value #DELTA_PERCEPTS_OPTION},
+     *             {@value #PRECOMPUTED_PERCEPTS_OPTION}).
      */
     @Override
     public void init(final String[] args) {
-        this.model = new BlackForestModel(Integer.parseInt(args[0]), Integer.parseInt(args[1]), null);
+        this.options = new HashSet<>(Arrays.asList(args).subList(Math.min(2, args.length), args.length));
+        if (this.options.contains(COMMAND_QUEUE_OPTION)) {
+            CommandQueueModel commandQueueModel = new CommandQueueModel(Integer.parseInt(args[0]), Integer.parseInt(args[1]), null,
+                    CommandQueueModel.DEFAULT_CAPACITY);
+            commandQueueModel.start();
+            this.model = commandQueueModel;
+        } else {
+            this.model = new BlackForestModel(Integer.parseInt(args[0]), Integer.parseInt(args[1]), null);
+        }
+        this.model.getLockMetrics().setEnabled(this.options.contains(LOCK_METRICS_OPTION));
+        if (this.options.contains(PRECOMPUTED_PERCEPTS_OPTION)) {
+            if (this.options.contains(TICK_ENGINE_OPTION)) {
+                this.perceptPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+            } else {
+                logger.warning("The " + PRECOMPUTED_PERCEPTS_OPTION + " option requires the " + TICK_ENGINE_OPTION
+                        + " option, the percepts are computed on demand.");
+            }
+        }
         this.threadSleep = 1000L / this.model.getFPS(); // 1000ms / 4 = 250ms = 0.25s
-        this.threadSleepRespawn = threadSleep * 20; // 250ms * 60 = 15000ms = 15s
+        this.threadSleepRespawn = threadSleep * RESPAWN_TICKS; // 250ms * 20 = 5000ms = 5s
         this.view = new BlackForestView(model);
 
         this.model.setView(this.view);
 
         view.setVisible(true);
+
+        if (this.options.contains(TICK_ENGINE_OPTION)) {
+            this.tickEngine = new TickEngine(this.options.contains(UNTHROTTLED_TICKS_OPTION) ? 0 : threadSleep,
+                    this::endTick);
+            this.tickEngine.addStage(() -> this.model.resolveMoves(this.moveResolver));
+            this.tickEngine.addStage(this::deliverPrincesses);
+            this.tickEngine.start();
+        } else if (this.options.contains(VIRTUAL_THREADS_OPTION)) {
+            this.actionExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        }
+        this.model.setRespawnScheduler(this::scheduleTreeRespawn);
+    }
+
+    /**
+     * Completes the deliveries of the princesses carried to their destination during the tick, so
+     * that they are part of the snapshot published at its end and the percepts computed from it
+     * don't change the world (see {@link BlackForestModel#getClosestObjective(Agent)}).
+     */
+    private void deliverPrincesses() {
+        for (Agent agent : this.model.getAllAgents()) {
+            if (agent.getCarriedItem() instanceof Princess) {
+                this.model.deliverPrincess(agent);
+            }
+        }
+    }
+
+    /**
+     * Schedules the respawn of a destroyed tree as the respawn of the agents: after the ticks of
+     * the engine covering the delay or, without the engine, on the respawn scheduler.
+     *
+     * @param respawn     the respawn of the tree.
+     * @param delayMillis the delay in milliseconds.
+     */
+    private void scheduleTreeRespawn(Runnable respawn, long delayMillis) {
+        if (this.tickEngine != null) {
+            int ticks = (int) Math.max(1, delayMillis / threadSleep);
+            this.tickEngine.after(ticks).thenRun(() -> this.tickEngine.submit(() -> {
+                respawn.run();
+                return true;
+            }));
+        } else {
+            this.respawnScheduler.schedule(() -> {
+                respawn.run();
+                notifyModelChangedToView();
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
-     * Notifies the view that the model has changed.
-     * Used to refresh the GUI representation of the environment.
+     * Notifies the view that the model has changed: the model publishes a new snapshot of the
+     * world and the view is then refreshed.
      */
     @Override
     public void notifyModelChangedToView() {
+        this.model.publishSnapshot();
+        view.notifyModelChanged();
+    }
+
+    /**
+     * Ends a tick of the engine: the model publishes a new snapshot of the world, from which the
+     * percepts of the agents are precomputed, if enabled, and the view is then refreshed.  Run
+     * by the engine thread, so no action of the agents is applied in the meantime.
+     */
+    private void endTick() {
+        WorldSnapshot snapshot = this.model.publishSnapshot();
+        if (this.perceptPool != null) {
+            this.precomputePercepts(snapshot);
+        }
         view.notifyModelChanged();
     }
 
+    /**
+     * The percepts precomputed at the end of a tick, by agent name.
+     */
+    private static final class PerceptSlots {
+        private static final PerceptSlots NONE = new PerceptSlots(-1, Map.of());
+
+        private final long tick;
+        private final Map<String, List<Literal>> percepts;
+
+        /**
+         * Constructs new PerceptSlots.
+         *
+         * @param tick     The tick of the snapshot the percepts were computed from.
+         * @param percepts The percepts, by agent name.
+         */
+        private PerceptSlots(long tick, Map<String, List<Literal>> percepts) {
+            this.tick = tick;
+            this.percepts = percepts;
+        }
+    }
+
+    /**
+     * Computes the percepts of all the agents in the given snapshot in a single parallel pass,
+     * fanning them out over the percept pool, and publishes them as the slots returned by
+     * {@link #getPercepts(String)} until the next tick.  The slots only replace the published
+     * ones if they were computed from a later snapshot, so that a slow pass never overwrites the
+     * outcome of a newer one.  The agents that are not in the snapshot, or whose percepts could
+     * not be computed, have no slot and compute their percepts on demand.
+     *
+     * @param snapshot The snapshot of the world just published.
+     */
+    private void precomputePercepts(WorldSnapshot snapshot) {
+        WorldSnapshot.AgentState[] agents = snapshot.getAgents().toArray(WorldSnapshot.AgentState[]::new);
+        Map<String, List<Literal>> slots = new ConcurrentHashMap<>(agents.length * 2);
+
+        try {
+            this.perceptPool.invoke(new PerceptTask(agents, 0, agents.length, snapshot, slots));
+        } catch (RejectedExecutionException e) {
+            return; // The environment is stopping
+        }
+        this.precomputedPercepts.accumulateAndGet(new PerceptSlots(snapshot.getTick(), slots),
+                (published, computed) -> computed.tick > published.tick ? computed : published);
+    }
+
+    /**
+     * A fork/join task computing the percepts of a range of agents from a snapshot, splitting
+     * the range in halves down to {@value #PERCEPT_TASK_AGENTS} agents.  The pose of each agent
+     * is read from the snapshot; its objective and next step only take the shared locks of the
+     * map, so the tasks never wait on each other.
+     * <p>
+     * The objective and the next step are read from the live map, which matches the snapshot:
+     * the tasks run at the end of a tick, while the engine thread waits for them, and every
+     * change of the map goes through the engine, including the respawn of the trees and the
+     * delivery of the princesses, which are completed within the tick (see
+     * {@link #deliverPrincesses()}).  Should an agent nonetheless stand elsewhere than in the
+     * snapshot, its percepts are left to be computed on demand rather than mixing two states.
+     */
+    @SuppressWarnings("serial") // Never serialized
+    private final class PerceptTask extends RecursiveAction {
+        private final WorldSnapshot.AgentState[] agents;
+        private final int from, to;
+        private final WorldSnapshot snapshot;
+        private final Map<String, List<Literal>> slots;
+
+        /**
+         * Constructs a new PerceptTask.
+         *
+         * @param agents   The states of the agents in the snapshot.
+         * @param from     The index of the first agent of the range.
+         * @param to       The index past the last agent of the range.
+         * @param snapshot The snapshot of the world to read.
+         * @param slots    The map receiving the percepts, by agent name.
+         */
+        private PerceptTask(WorldSnapshot.AgentState[] agents, int from, int to, WorldSnapshot snapshot,
+                            Map<String, List<Literal>> slots) {
+            this.agents = agents;
+            this.from = from;
+            this.to = to;
+            this.snapshot = snapshot;
+            this.slots = slots;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > PERCEPT_TASK_AGENTS) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new PerceptTask(this.agents, this.from, middle, this.snapshot, this.slots),
+                        new PerceptTask(this.agents, middle, this.to, this.snapshot, this.slots));
+                return;
+            }
+
+            for (int i = this.from; i < this.to; i++) {
+                WorldSnapshot.AgentState state = this.agents[i];
+                Agent agent = state.getAgent();
+                if (!state.getPose().equals(agent.getPose())) {
+                    continue;
+                }
+                try {
+                    this.slots.put(agent.getName(), Stream.concat(
+                            personalBeliefsPercepts(agent, state.getPose()).stream(),
+                            snapshotPercepts(agent, this.snapshot).stream()
+                    ).collect(Collectors.toList()));
+                } catch (RuntimeException e) {
+                    logger.warning("Could not precompute the percepts of " + agent.getName() + ": " + e);
+                }
+            }
+        }
+    }
+
     /**
      * Initializes an agent if it does not already exist in the model.
      * If the agent exists, returns the existing agent. Otherwise, creates a new instance based on the agent's name pattern.
@@ -114,51 +370,140 @@ public class BlackForestEnvironment extends Environment implements MapEnvironmen
     /**
      * Retrieves the percepts (sensory information) for a given agent.
      * This includes personal beliefs, surrounding tiles, and objects within range.
+     * The surrounding and in-range percepts only read the map, so they are built optimistically,
+     * without blocking the other agents, unless the {@value #LOCKED_PERCEPTS_OPTION} option is set;
+     * with the {@value #SNAPSHOT_PERCEPTS_OPTION} option they are read from the last published
+     * snapshot, so that the percepts of all the agents within a tick are mutually consistent.
+     * With the {@value #PRECOMPUTED_PERCEPTS_OPTION} and {@value #TICK_ENGINE_OPTION} options, the
+     * percepts computed at the end of the last tick are returned instead, if any (see {@link #precomputePercepts(WorldSnapshot)}).
+     * With the {@value #DELTA_PERCEPTS_OPTION} option, the percepts are published as changes
+     * instead (see {@link #publishPerceptChanges(String, Collection)}).
      *
      * @param agentName The name of the agent whose percepts are retrieved.
-     * @return A collection of perceptual literals representing the agent's knowledge.
+     * @return A collection of perceptual literals representing the agent's knowledge, or
+     *         {@code null} in delta mode if they didn't change since the last call.
      */
     @Override
     public Collection<Literal> getPercepts(String agentName) {
         Agent agent = initializeAgentIfNeeded(agentName);
 
+        List<Literal> percepts = this.precomputedPercepts.get().percepts.get(agentName);
+        if (percepts == null) {
+            percepts = computePercepts(agent);
+        }
+
+        if (this.options.contains(DELTA_PERCEPTS_OPTION)) {
+            return publishPerceptChanges(agentName, percepts);
+        }
+        return percepts;
+    }
+
+    /**
+     * Computes the percepts of an agent on demand, reading the map as selected by the options
+     * (see {@link #getPercepts(String)}).
+     *
+     * @param agent The agent whose percepts are computed.
+     * @return A list of perceptual literals representing the agent's knowledge.
+     */
+    private List<Literal> computePercepts(Agent agent) {
+        Supplier<List<Literal>> mapPercepts = () -> Stream.concat(
+                surroundingPercepts(agent).stream(),
+                inRangePercepts(agent).stream()
+        ).collect(Collectors.toList());
+
+        Collection<Literal> worldPercepts;
+        if (this.options.contains(SNAPSHOT_PERCEPTS_OPTION)) {
+            worldPercepts = snapshotPercepts(agent, this.model.getSnapshot());
+        } else if (this.options.contains(LOCKED_PERCEPTS_OPTION)) {
+            worldPercepts = this.model.readLocked(mapPercepts);
+        } else {
+            worldPercepts = this.model.readOptimistically(mapPercepts);
+        }
+
         return Stream.concat(
                 personalBeliefsPercepts(agent).stream(),
-                Stream.concat(
-                        surroundingPercepts(agent).stream(),
-                        inRangePercepts(agent).stream()
-                )
+                worldPercepts.stream()
         ).collect(Collectors.toList());
     }
 
+    /**
+     * Publishes the percepts of an agent as changes to the ones it was given last time: only
+     * the percepts that disappeared are removed and only the new ones are added, through the
+     * percepts Jason keeps for each agent.  Jason then hands the percepts to the agent only if
+     * they changed, so most agents skip the belief revision in most cycles.
+     *
+     * @param agentName The name of the agent.
+     * @param percepts  The current percepts of the agent.
+     * @return The percepts of the agent as kept by Jason, or {@code null} if they didn't change.
+     */
+    private Collection<Literal> publishPerceptChanges(String agentName, Collection<Literal> percepts) {
+        Set<Literal> current = new HashSet<>(percepts);
+        Set<Literal> previous = this.publishedPercepts.getOrDefault(agentName, Set.of());
+
+        for (Literal percept : previous) {
+            if (!current.contains(percept)) {
+                removePercept(agentName, percept);
+            }
+        }
+        Literal[] added = current.stream()
+                .filter(percept -> !previous.contains(percept))
+                .toArray(Literal[]::new);
+        if (added.length > 0) {
+            addPercept(agentName, added);
+        }
+
+        this.publishedPercepts.put(agentName, current);
+        return super.getPercepts(agentName);
+    }
+
     /**
      * Computes the personal belief percepts of an agent.
-     * This includes position, orientation, objectives, and state information.
+     * This includes position, orientation, objectives, the next step along the shortest path
+     * towards the objective (when there is one), and state information.
      *
      * @param agent The agent whose beliefs are being computed.
      * @return A collection of literals representing the agent’s personal beliefs.
      */
     @Override
     public Collection<Literal> personalBeliefsPercepts(Agent agent) {
+        return personalBeliefsPercepts(agent, agent.getPose());
+    }
+
+    /**
+     * Computes the personal belief percepts of an agent standing at the given pose, e.g. the one
+     * captured in a snapshot.
+     *
+     * @param agent The agent whose beliefs are being computed.
+     * @param pose  The pose of the agent.
+     * @return A collection of literals representing the agent’s personal beliefs.
+     */
+    private Collection<Literal> personalBeliefsPercepts(Agent agent, Pose pose) {
         Collection<Literal> personalBeliefs = new ArrayList<>();
 
-        personalBeliefs.add(Literal.parseLiteral(String.format("position(%d, %d)", agent.getPose().getPosition().getX(), agent.getPose().getPosition().getY())));
-        personalBeliefs.add(Literal.parseLiteral(String.format("orientation(%s)", agent.getPose().getOrientation().name().toLowerCase())));
+        personalBeliefs.add(PerceptFactory.position(pose.getPosition().getX(), pose.getPosition().getY()));
+        personalBeliefs.add(PerceptFactory.orientation(pose.getOrientation()));
 
         Pair<String, Vector2D> closest_objective = this.model.getClosestObjective(agent);
-        if (agent.getPose().getPosition().equals(closest_objective.getSecond())) {
+        if (pose.getPosition().equals(closest_objective.getSecond())) {
             agent.setState(closest_objective.getFirst());
         }
 
-        personalBeliefs.add(Literal.parseLiteral(String.format("objective(%s)", closest_objective.getFirst())));
-        personalBeliefs.add(Literal.parseLiteral(String.format("objective_position(%d,%d)", closest_objective.getSecond().getX(), closest_objective.getSecond().getY())));
+        personalBeliefs.add(PerceptFactory.objective(closest_objective.getFirst()));
+        personalBeliefs.add(PerceptFactory.objectivePosition(closest_objective.getSecond().getX(), closest_objective.getSecond().getY()));
+        this.model.getNextStep(agent, closest_objective.getSecond())
+                .ifPresent(step -> personalBeliefs.add(PerceptFactory.nextStep(step)));
 
-        if (closest_objective.getFirst().equals("my_team_lost")) {
-            personalBeliefs.add(Literal.parseLiteral("state(lost)"));
-        } else if (closest_objective.getFirst().equals("my_team_won")) {
-            personalBeliefs.add(Literal.parseLiteral("state(win)"));
+        TeamSituation situation = this.model.getTeamSituation(agent.getTeam());
+        if (situation.hasLost()) {
+            personalBeliefs.add(PerceptFactory.state("lost"));
+        } else if (situation.hasWon()) {
+            personalBeliefs.add(PerceptFactory.state("win"));
         } else {
-            personalBeliefs.add(Literal.parseLiteral(String.format("state(%s)", agent.getState())));
+            personalBeliefs.add(PerceptFactory.state(agent.getState()));
+        }
+
+        if (this.respawning.contains(agent)) {
+            personalBeliefs.add(PerceptFactory.respawning());
         }
 
         return personalBeliefs;
@@ -179,11 +524,11 @@ public class BlackForestEnvironment extends Environment implements MapEnvironmen
                 .map(entry -> proximityPerceptFor(agent, entry.getKey(), entry.getValue()))
                 .collect(Collectors.toList());
 
-        surroundings.add(Literal.parseLiteral(String.format("zone_type(%s)", this.model.getCellByPosition(agent.getPose().getPosition()).getZoneType().name().toLowerCase())));
+        surroundings.add(PerceptFactory.zoneType(this.model.getCellByPosition(agent.getPose().getPosition()).getZoneType()));
 
         MapStructure structure = this.model.getCellByPosition(agent.getPose().getPosition()).getStructure();
         if (structure != null & (structure instanceof Bridge)) {
-            surroundings.add(Literal.parseLiteral(String.format("structure(%s, %d)", structure.getName().toLowerCase(), ((Bridge) structure).getSlipProbability())));
+            surroundings.add(PerceptFactory.bridge(structure.getName(), ((Bridge) structure).getSlipProbability()));
         }
 
         return surroundings;
@@ -200,29 +545,44 @@ public class BlackForestEnvironment extends Environment implements MapEnvironmen
     private Literal proximityPerceptFor(Agent agent, Direction direction, Vector2D position) {
         Cell surroundingCell = this.model.getCellByPosition(position);
 
-        if (surroundingCell == null || surroundingCell.getZoneType() == Zone.OUT_OF_MAP) {
-            return Literal.parseLiteral(String.format("obstacle(%s)", direction.name().toLowerCase()));
+        if (surroundingCell == null) {
+            return proximityPercept(agent, direction, Zone.OUT_OF_MAP, null, null, false, null);
         }
 
-        Agent neighbour_agent = surroundingCell.getAgent();
         MapStructure structure = surroundingCell.getStructure();
-        Resource resource = surroundingCell.getResource();
+        return proximityPercept(agent, direction, surroundingCell.getZoneType(), surroundingCell.getAgent(), structure,
+                structure instanceof Tree tree && tree.isDestroyed(), surroundingCell.getResource());
+    }
+
+    /**
+     * Generates a percept for the content of a cell located in a given direction relative to the agent.
+     *
+     * @param agent           The agent perceiving the environment.
+     * @param direction       The direction relative to the agent.
+     * @param zone            The zone of the cell.
+     * @param neighbour_agent The agent in the cell, or null if none.
+     * @param structure       The structure in the cell, or null if none.
+     * @param treeDestroyed   Whether the structure is a destroyed tree.
+     * @param resource        The resource in the cell, or null if none.
+     * @return A literal representing the percept in the given direction.
+     */
+    private Literal proximityPercept(Agent agent, Direction direction, Zone zone, Agent neighbour_agent,
+                                     MapStructure structure, boolean treeDestroyed, Resource resource) {
+        if (zone == Zone.OUT_OF_MAP) {
+            return PerceptFactory.obstacle(direction);
+        }
 
         if (neighbour_agent != null) {
-            if (agent.getTeam() == neighbour_agent.getTeam()) {
-                return Literal.parseLiteral(String.format("surrounding_ally(%s)", direction.name().toLowerCase()));
-            } else {
-                return Literal.parseLiteral(String.format("surrounding_enemy(%s)", direction.name().toLowerCase()));
-            }
+            return PerceptFactory.surroundingAgent(agent.getTeam() == neighbour_agent.getTeam(), direction);
         } else if (structure != null) {
-            if ((structure instanceof Tree tree) && tree.isDestroyed()) {
-                return Literal.parseLiteral(String.format("free(%s)", direction.name().toLowerCase()));
+            if (treeDestroyed) {
+                return PerceptFactory.free(direction);
             }
-            return Literal.parseLiteral(String.format("%s(%s)", structure.getClass().getSimpleName().toLowerCase(), direction.name().toLowerCase()));
+            return PerceptFactory.surroundingObject(structure.getClass(), direction);
         } else if (resource != null) {
-            return Literal.parseLiteral(String.format("%s(%s)", resource.getClass().getSimpleName().toLowerCase(), direction.name().toLowerCase()));
+            return PerceptFactory.surroundingObject(resource.getClass(), direction);
         } else {
-            return Literal.parseLiteral(String.format("free(%s)", direction.name().toLowerCase()));
+            return PerceptFactory.free(direction);
         }
     }
 
@@ -243,38 +603,30 @@ public class BlackForestEnvironment extends Environment implements MapEnvironmen
 
             // Add percepts for agents in range
             in_range.addAll(model.getAgentNeighbours(agent, agent.getAttackRange()).stream()
-                    .map(it -> {
-                        String relation = (it.getTeam() == agent.getTeam()) ? "ally_in_range" : "enemy_in_range";
-                        return String.format("%s(%s, %d)", relation, it.getName(), it.getHp());
-                    })
-                    .map(Literal::parseLiteral)
+                    .map(it -> PerceptFactory.agentInRange(it.getTeam() == agent.getTeam(), it.getName(), it.getHp()))
                     .collect(Collectors.toList()));
 
             // Add percepts for enemy gates in range
             in_range.addAll(model.getGateNeighbours(agent, "enemy", agent.getAttackRange()).stream()
-                    .map(gate -> String.format("enemy_gate_in_range(%s, %d)", gate.getName(), gate.getHp()))
-                    .map(Literal::parseLiteral)
+                    .map(gate -> PerceptFactory.gateInRange(false, gate.getName(), gate.getHp()))
                     .collect(Collectors.toList()));
 
             // Only gatherer agents perceive ally gate (to be repaired) and trees
             if (agent instanceof Gatherer) {
                 // Add percepts for ally gates in range
                 in_range.addAll(model.getGateNeighbours(agent, "ally", agent.getAttackRange()).stream()
-                        .map(gate -> String.format("ally_gate_in_range(%s, %d)", gate.getName(), gate.getHp()))
-                        .map(Literal::parseLiteral)
+                        .map(gate -> PerceptFactory.gateInRange(true, gate.getName(), gate.getHp()))
                         .collect(Collectors.toList()));
 
                 // Add percepts for trees in range
                 in_range.addAll(model.getTreeNeighbours(agent, agent.getAttackRange()).stream()
-                        .map(tree -> String.format("tree_in_range(%s, %d)", tree.getName(), tree.getHp()))
-                        .map(Literal::parseLiteral)
+                        .map(tree -> PerceptFactory.treeInRange(tree.getName(), tree.getHp()))
                         .collect(Collectors.toList()));
             }
 
             // Add percepts for princess in range
             in_range.addAll(model.getPrincessNeighbours(agent, "ally", 1).stream()
-                    .map(princess -> String.format("ally_princess_in_range(%s)", princess.getName()))
-                    .map(Literal::parseLiteral)
+                    .map(princess -> PerceptFactory.princessInRange(true, princess.getName()))
                     .collect(Collectors.toList()));
 
             // An agent perceives the enemy princes when she is outside of the base where she is prisoned
@@ -282,8 +634,7 @@ public class BlackForestEnvironment extends Environment implements MapEnvironmen
                     (this.model.getCellByPosition(agent.getPose().getPosition()).getZoneType() == Zone.RBASE))) {
 
                 in_range.addAll(model.getPrincessNeighbours(agent, "enemy", 1).stream()
-                        .map(princess -> String.format("enemy_princess_in_range(%s)", princess.getName()))
-                        .map(Literal::parseLiteral)
+                        .map(princess -> PerceptFactory.princessInRange(false, princess.getName()))
                         .collect(Collectors.toList()));
             }
         }
@@ -292,6 +643,68 @@ public class BlackForestEnvironment extends Environment implements MapEnvironmen
         return in_range;
     }
 
+    /**
+     * Computes the surrounding and in-range percepts of an agent from a snapshot of the world,
+     * with the same rules as {@link #surroundingPercepts(Agent)} and {@link #inRangePercepts(Agent)}.
+     *
+     * @param agent    The agent whose percepts are computed.
+     * @param snapshot The snapshot of the world to read.
+     * @return A collection of literals representing the agent's surroundings and the objects in range.
+     */
+    private Collection<Literal> snapshotPercepts(Agent agent, WorldSnapshot snapshot) {
+        Collection<Literal> percepts = new ArrayList<>();
+        WorldSnapshot.AgentState self = snapshot.getAgent(agent);
+        if (self == null) {
+            return percepts; // Not in the world yet at the end of the last tick
+        }
+
+        WorldGrid.Frozen grid = snapshot.getGrid();
+        Vector2D position = self.getPose().getPosition();
+        for (Direction direction : Direction.values()) {
+            Vector2D surrounding = position.afterStep(1, self.getPose().getOrientation().rotate(direction));
+            if (!snapshot.isInside(surrounding)) {
+                percepts.add(proximityPercept(agent, direction, Zone.OUT_OF_MAP, null, null, false, null));
+                continue;
+            }
+
+            int x = surrounding.getX(), y = surrounding.getY();
+            MapStructure structure = grid.getStructure(x, y);
+            percepts.add(proximityPercept(agent, direction, grid.getZone(x, y), grid.getAgent(x, y), structure,
+                    structure instanceof Tree && grid.isDestroyed(x, y), grid.getResource(x, y)));
+        }
+
+        Zone zone = grid.getZone(position.getX(), position.getY());
+        percepts.add(PerceptFactory.zoneType(zone));
+        if (grid.getStructure(position.getX(), position.getY()) instanceof Bridge bridge) {
+            percepts.add(PerceptFactory.bridge(bridge.getName(), bridge.getSlipProbability()));
+        }
+
+        if (self.getCarriedItem() instanceof Princess) {
+            return percepts;
+        }
+
+        snapshot.getAgentNeighbours(self, agent.getAttackRange()).forEach(it -> percepts.add(PerceptFactory.agentInRange(
+                it.getAgent().getTeam() == agent.getTeam(), it.getAgent().getName(), it.getHp())));
+        snapshot.getGateNeighbours(self, "enemy", agent.getAttackRange()).forEach(gate -> percepts.add(
+                PerceptFactory.gateInRange(false, gate.getStructure().getName(), gate.getHp())));
+
+        if (agent instanceof Gatherer) {
+            snapshot.getGateNeighbours(self, "ally", agent.getAttackRange()).forEach(gate -> percepts.add(
+                    PerceptFactory.gateInRange(true, gate.getStructure().getName(), gate.getHp())));
+            snapshot.getTreeNeighbours(self, agent.getAttackRange()).forEach(tree -> percepts.add(
+                    PerceptFactory.treeInRange(tree.getStructure().getName(), tree.getHp())));
+        }
+
+        snapshot.getPrincessNeighbours(self, "ally", 1).forEach(princess -> percepts.add(
+                PerceptFactory.princessInRange(true, princess.getResource().getName())));
+        if (zone != Zone.BBASE && zone != Zone.RBASE) {
+            snapshot.getPrincessNeighbours(self, "enemy", 1).forEach(princess -> percepts.add(
+                    PerceptFactory.princessInRange(false, princess.getResource().getName())));
+        }
+
+        return percepts;
+    }
+
     /**
      * Executes an action requested by an agent.
      * Handles movement, attacks, healing, picking up resources (princesses),
@@ -305,88 +718,225 @@ public class BlackForestEnvironment extends Environment implements MapEnvironmen
     public boolean executeAction(final String ag, final Structure action) {
         Agent agent = initializeAgentIfNeeded(ag);
 
-        final boolean result;
+        if (isRespawn(agent, action)) {
+            boolean result = startRespawn(agent);
+            notifyModelChangedToView();
+            return result; // The agent is reset in the background, once its cooldown expires
+        }
 
-        if (agent.getHp() <= 0 || action.toString().contains("respawn")) {
-            agent.setHp(0);
+        final boolean result = applyAction(agent, action);
+        notifyModelChangedToView();
 
-            result = model.spawnAgent(agent);
-            notifyModelChangedToView();
+        try {
+            Thread.sleep(threadSleep);
+        } catch (InterruptedException ignored) {
+        }
 
-            try {
-                Thread.sleep(threadSleepRespawn); // Proportional to normal sleep time
-            } catch (InterruptedException ignored) {
-            }
+        return result;
+    }
 
-            this.model.resetAgent(agent);
-            notifyModelChangedToView();
+    /**
+     * Schedules an action requested by an agent.  Without the tick engine, the action is executed
+     * by {@link #executeAction(String, Structure)} as usual, on a virtual thread of its own if the
+     * {@value #VIRTUAL_THREADS_OPTION} option is set; with the engine, the action is submitted to
+     * the engine and resolved with the other actions of the tick, and the agent is notified once
+     * the tick ends.  Moves are only proposed by the batch and resolved all together afterwards by
+     * a {@link MoveResolver}, so that simultaneous moves don't fail depending on thread timing.
+     *
+     * @param agName    The name of the agent performing the action.
+     * @param action    The action structure containing the action type and parameters.
+     * @param infraData The infrastructure data to hand back when the action is completed.
+     */
+    @Override
+    public void scheduleAction(final String agName, final Structure action, final Object infraData) {
+        if (this.tickEngine == null && this.actionExecutor == null) {
+            super.scheduleAction(agName, action, infraData);
+            return;
+        }
+        if (this.tickEngine == null) {
+            this.actionExecutor.execute(() -> {
+                boolean success = false;
+                try {
+                    success = executeAction(agName, action);
+                } finally {
+                    getEnvironmentInfraTier().actionExecuted(agName, action, success, infraData);
+                }
+            });
+            return;
+        }
 
-            return result;
+        Agent agent = initializeAgentIfNeeded(agName);
+
+        CompletableFuture<Boolean> result;
+        if (isRespawn(agent, action)) {
+            result = this.tickEngine.submit(() -> startRespawn(agent));
+        } else if (absoluteMovementActions.containsValue(action)) {
+            result = this.tickEngine.submitDeferred(() -> agent.getHp() > 0 ? proposeMove(agent, action) : () -> false);
+        } else {
+            result = this.tickEngine.submit(() -> agent.getHp() > 0 && applyAction(agent, action)); // Agents killed earlier in the tick can't act
         }
 
+        result.whenComplete((success, error) ->
+                getEnvironmentInfraTier().actionExecuted(agName, action, error == null && success, infraData));
+    }
 
-        if (absoluteMovementActions.containsValue(action)) {
-            if (action.equals(absoluteMovementActions.get("random"))) {
-                Direction randomAbsoluteDirection = getRandomAbsoluteDirection(agent);
-                result = model.moveAgent(agent, 1, randomAbsoluteDirection);
-                notifyModelChangedToView();
-            } else {
-                Direction absoluteDirection = getDirectionForAbsoluteMove(agent, action);
-                result = model.moveAgent(agent, 1, absoluteDirection);
+    /**
+     * Stops the tick engine or the action executor, if running, the percept pool and the world
+     * thread of the model, if any, and the respawn scheduler together with the environment.  The
+     * lock metrics, if recorded, are logged.
+     */
+    @Override
+    public void stop() {
+        if (this.model.getLockMetrics().isEnabled()) {
+            logger.info("Lock contention of the map:\n" + this.model.getLockMetrics().report());
+        }
+        if (this.tickEngine != null) {
+            this.tickEngine.stop();
+        }
+        if (this.actionExecutor != null) {
+            this.actionExecutor.shutdownNow();
+        }
+        if (this.perceptPool != null) {
+            this.perceptPool.shutdownNow();
+        }
+        if (this.model instanceof CommandQueueModel commandQueueModel) {
+            commandQueueModel.stop();
+        }
+        this.respawnScheduler.shutdownNow();
+        super.stop();
+    }
+
+    /**
+     * Takes a dead agent out of the map and schedules its respawn, without waiting for it: the
+     * agent is reset after {@value #RESPAWN_TICKS} ticks of the engine or, without the engine,
+     * after the same number of frames of the model.  Until then the agent perceives
+     * {@code respawning}.  Asking again for the respawn of an agent already respawning does nothing.
+     *
+     * @param agent The dead agent.
+     * @return True if the respawn is scheduled (or already was), false otherwise.
+     */
+    private boolean startRespawn(Agent agent) {
+        if (!this.respawning.add(agent)) {
+            return true;
+        }
+
+        agent.setHp(0);
+        boolean result = this.model.spawnAgent(agent);
+
+        if (this.tickEngine != null) {
+            this.tickEngine.after(RESPAWN_TICKS).thenRun(() -> this.tickEngine.submit(() -> completeRespawn(agent)));
+        } else {
+            this.respawnScheduler.schedule(() -> {
+                completeRespawn(agent);
                 notifyModelChangedToView();
-            }
+            }, threadSleepRespawn, TimeUnit.MILLISECONDS);
+        }
+
+        return result;
+    }
+
+    /**
+     * Brings a respawning agent back to life once its cooldown has expired.
+     *
+     * @param agent The respawning agent.
+     * @return True if the agent is reset, false otherwise.
+     */
+    private boolean completeRespawn(Agent agent) {
+        boolean result = this.model.resetAgent(agent);
+        this.respawning.remove(agent);
+        return result;
+    }
+
+    /**
+     * Checks whether an action makes the agent respawn, which is the case for any action of a
+     * dead agent.
+     *
+     * @param agent  The agent performing the action.
+     * @param action The action structure.
+     * @return True if the agent has to respawn, false otherwise.
+     */
+    private boolean isRespawn(Agent agent, Structure action) {
+        return agent.getHp() <= 0 || action.toString().contains("respawn");
+    }
+
+    /**
+     * Proposes the move of an agent to the move resolver of the tick engine.
+     *
+     * @param agent  The agent performing the move.
+     * @param action The movement action.
+     * @return The outcome of the move, known once the moves of the tick are resolved.
+     */
+    private BooleanSupplier proposeMove(Agent agent, Structure action) {
+        Pose pose = agent.getPose();
+        Orientation newOrientation = pose.getOrientation().rotate(getMoveDirection(agent, action));
+        return this.moveResolver.propose(agent, pose.getPosition().afterStep(1, newOrientation), newOrientation);
+    }
+
+    /**
+     * Returns the direction, relative to the agent, of a movement action.
+     *
+     * @param agent  The agent performing the move.
+     * @param action The movement action.
+     * @return The direction of the move.
+     */
+    private Direction getMoveDirection(Agent agent, Structure action) {
+        if (action.equals(absoluteMovementActions.get("random"))) {
+            return getRandomAbsoluteDirection(agent);
+        }
+        return getDirectionForAbsoluteMove(agent, action);
+    }
+
+    /**
+     * Applies an action to the model, without notifying the view nor waiting.
+     *
+     * @param agent  The agent performing the action.
+     * @param action The action structure containing the action type and parameters.
+     * @return True if the action is successfully applied, false otherwise.
+     */
+    private boolean applyAction(Agent agent, Structure action) {
+        final boolean result;
+
+        if (absoluteMovementActions.containsValue(action)) {
+            result = model.moveAgent(agent, 1, getMoveDirection(agent, action));
         } else if (action.toString().contains("attack_enemy")) {
             Optional<Agent> target = this.model.getAgentByName(action.getTerm(0).toString());
 
             boolean crit = Boolean.parseBoolean(action.getTerm(1).toString());
 
             result = model.attackAgent(agent, target.get(), crit);
-
-            notifyModelChangedToView();
         } else if (action.toString().contains("heal_ally")) {
             Optional<Agent> target = this.model.getAgentByName(action.getTerm(0).toString());
 
             result = model.healAgent(agent, target.get());
-
-            notifyModelChangedToView();
         } else if (action.toString().contains("attack_gate")) {
             Optional<Gate> target = this.model.getGateByName(action.getTerm(0).toString());
             if (target.get() == null) {
                 return false;
             }
             result = model.attackGate(agent, target.get());
-            notifyModelChangedToView();
         } else if (action.toString().contains("repair_gate")) {
             Optional<Gate> target = this.model.getGateByName(action.getTerm(0).toString());
             if (target.get() == null) {
                 return false;
             }
             result = model.repairGate(agent, target.get());
-            notifyModelChangedToView();
         } else if (action.toString().contains("attack_tree")) {
             Optional<Tree> target = this.model.getTreeByName(action.getTerm(0).toString());
             if (target.get() == null) {
                 return false;
             }
             result = model.attackTree(agent, target.get());
-            notifyModelChangedToView();
         } else if (action.toString().contains("pick_up_princess")) {
             Optional<Princess> target = this.model.getPrincessByName(action.getTerm(0).toString());
             if (target.get() == null) {
                 return false;
             }
             result = model.pickUpPrincess(agent, target.get());
-            notifyModelChangedToView();
         } else {
             logger.warning("Unknown action: " + action);
             return false;
         }
 
-        try {
-            Thread.sleep(threadSleep);
-        } catch (InterruptedException ignored) {
-        }
-
         return result;
     }
 }
\ No newline at end of file
@@ -7,9 +7,13 @@ import env.objects.resources.*;
 
 import javax.swing.*;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -20,29 +24,96 @@ import java.util.stream.Stream;
  *
  * This class provides essential functionalities such as pathfinding, obstacle detection,
  * and environmental state updates, making it a key component for the simulation logic.
+ *
+ * Concurrent access is guarded by {@link RegionLocks}: moves, attacks and heals between agents
+ * only lock the stripes of the map they touch, so they run in parallel when they happen in
+ * disjoint regions, while every other public operation locks the whole world, in shared mode
+ * when it only reads the map.  Read-only queries, such as the ones building the percepts, can
+ * also run optimistically through
+ * {@link #readOptimistically(Supplier)} without blocking any writer, or read the immutable
+ * {@link WorldSnapshot} published at the end of every tick (see {@link #publishSnapshot()}).
  */
 public class BlackForestGameMap {
+    private static final Logger LOGGER = Logger.getLogger(BlackForestGameMap.class.getName());
+
     private Boolean win = null;
+    private final AtomicLongArray objectiveVersions = new AtomicLongArray(4); // By team and role, bumped by the events that can alter their objectives
+    private final AtomicLongArray situationVersions = new AtomicLongArray(2); // By team, bumped by the events that can alter its situation
+    private final GameEventBus eventBus = new GameEventBus();
     private final int width, height, baseWidth, baseHeight, enoughWoodAmount = 5;
     private Vector2D bluePrincessSpawnPoint = null, redPrincessSpawnPoint = null;
-    private final AtomicInteger woodAmountBlue = new AtomicInteger(0), woodAmountRed = new AtomicInteger(0);
-    private final Cell[][] map;
-    private final Map<String, Agent> agentsList = Collections.synchronizedMap(new HashMap<>());
-    private final Map<String, MapStructure> structuresList = Collections.synchronizedMap(new HashMap<>());
-    private final Map<String, Resource> resourcesList = Collections.synchronizedMap(new HashMap<>());
+    private final TeamLedger teamLedger = new TeamLedger();
+    private volatile TeamSituation[] teamSituations = new TeamSituation[2]; // Blue and red, as of the situation versions they were computed at
+    private final WorldGrid grid;
+    private final Cell[][] map; // The views of the grid cells, never replaced after construction
+    private final Map<String, Agent> agentsList = new ConcurrentHashMap<>();
+    private final Map<String, MapStructure> structuresList = new ConcurrentHashMap<>();
+    private final Map<String, Resource> resourcesList = new ConcurrentHashMap<>();
+    private final LockMetrics lockMetrics = new LockMetrics();
+    private final MeteredLock registryLock = new MeteredLock(this.lockMetrics, "registry"); // Keeps the lists and the registries in step
+    private final TypeRegistry<MapStructure> structuresRegistry = new TypeRegistry<>();
+    private final TypeRegistry<Resource> resourcesRegistry = new TypeRegistry<>();
+    private final HandleRegistry<Agent> agentHandles = new HandleRegistry<>();
+    private final HandleRegistry<MapStructure> structureHandles = new HandleRegistry<>();
+    private final HandleRegistry<Resource> resourceHandles = new HandleRegistry<>();
+    private int gateB1Handle, gateB2Handle, gateR1Handle, gateR2Handle, princessBHandle, princessRHandle;
+    private final SpatialGrid<Agent> agentsGrid; // Guarded by its own lock, as moves in different regions update it concurrently
+    private final MeteredLock agentsGridLock = new MeteredLock(this.lockMetrics, "agentsGrid");
+    private final RegionLocks regionLocks;
+    private volatile WorldSnapshot snapshot; // The state of the world at the end of the last tick
+    private CellIndex cellIndex = null;
+    private DistanceFieldCache distanceFields = null;
+    private PathPlanner pathPlanner = null;
+    private HierarchicalPathPlanner hierarchicalPlanner = null;
+    private final Map<String, HierarchicalPathPlanner.Route> routes = new HashMap<>(); // Followed by each agent on large maps, guarded by the navigation lock
+    private final Map<String, Pair<Vector2D, Long>> unreachableTargets = new HashMap<>(); // By agent, with the graph version they were found on, guarded by the navigation lock
+    private volatile Executor mutationExecutor = Runnable::run; // Runs the changes not requested by any agent
+    private volatile Tree.RespawnScheduler respawnScheduler = Tree.DEFAULT_RESPAWN_SCHEDULER;
+    private final MeteredLock navigationLock = new MeteredLock(this.lockMetrics, "navigation"); // Guards the lazily filled planner caches among readers
+    private static final int HIERARCHICAL_PLANNING_MIN_CELLS = 64 * 64;
+    private static final String BLUE_GATES_OBJECTIVE = "gates_b", RED_GATES_OBJECTIVE = "gates_r",
+            BRIDGE_OBJECTIVE = "bridge", TREES_OBJECTIVE = "trees";
+    private static final Set<String> UNMEMOIZABLE_STATES = Set.of("choose_path"); // The next state is drawn at random
+    private static final List<Class<? extends GameEvent>> OBJECTIVE_EVENTS = List.of(GameEvent.GateDestroyed.class,
+            GameEvent.GateRepaired.class, GameEvent.TreeEvent.class, GameEvent.PrincessEvent.class,
+            GameEvent.WoodDeposited.class, GameEvent.GameWon.class);
+    private static final List<Class<? extends GameEvent>> SITUATION_EVENTS = List.of(GameEvent.GateDestroyed.class,
+            GameEvent.GateRepaired.class, GameEvent.PrincessPickedUp.class, GameEvent.PrincessDropped.class,
+            GameEvent.WoodDeposited.class, GameEvent.GameWon.class);
+    private static final int AGENTS_GRID_BUCKET_SIZE = 4;
     private static final Random RAND = new Random();
     private MapView view;
 
     public BlackForestGameMap(int width, int height, MapView view) {
         this.width = Objects.requireNonNull(width);
         this.height = Objects.requireNonNull(height);
+        this.grid = new WorldGrid(width, height);
         this.map = new Cell[width][height];
+        this.agentsGrid = new SpatialGrid<>(width, height, AGENTS_GRID_BUCKET_SIZE);
+        this.regionLocks = new RegionLocks(width, RegionLocks.DEFAULT_STRIPE_WIDTH, this.lockMetrics);
         this.view = view;
+        OBJECTIVE_EVENTS.forEach(type -> this.eventBus.subscribe(type, this::invalidateObjectives));
+        SITUATION_EVENTS.forEach(type -> this.eventBus.subscribe(type, this::invalidateSituations));
         this.baseWidth = this.getWidth() / 6;
         this.baseHeight = this.getHeight() / 4;
         createZones();
         addStructures();
         addResources();
+        this.cellIndex = new CellIndex(this.map);
+        this.distanceFields = new DistanceFieldCache(width, height, this::isWalkable);
+        this.pathPlanner = new PathPlanner(width, height, this::isWalkable);
+        if (width * height >= HIERARCHICAL_PLANNING_MIN_CELLS) {
+            this.hierarchicalPlanner = new HierarchicalPathPlanner(width, height,
+                    HierarchicalPathPlanner.DEFAULT_CLUSTER_SIZE, this::isWalkable);
+        }
+        registerDistanceObjectives();
+        this.gateB1Handle = this.structureHandles.getHandle("gate_b1");
+        this.gateB2Handle = this.structureHandles.getHandle("gate_b2");
+        this.gateR1Handle = this.structureHandles.getHandle("gate_r1");
+        this.gateR2Handle = this.structureHandles.getHandle("gate_r2");
+        this.princessBHandle = this.resourceHandles.getHandle("princess_b");
+        this.princessRHandle = this.resourceHandles.getHandle("princess_r");
+        this.publishSnapshot();
     }
 
     /**
@@ -69,37 +140,19 @@ public class BlackForestGameMap {
      * @param agent The agent to check.
      * @return {@code true} if the agent is present, {@code false} otherwise.
      */
-    private synchronized boolean containsAgent(Agent agent) {
-        synchronized (this.agentsList) {
-            return this.agentsList.containsKey(agent.getName());
-        }
+    private boolean containsAgent(Agent agent) {
+        return this.agentsList.containsKey(agent.getName());
     }
     /**
-     * Determines whether two agents are within a specified range of each other.
+     * Determines whether an agent already found within range of another one is eligible as its neighbour.
+     * Priests ignore allies at full HP, since they have nothing to heal.
      *
-     * @param agent The first agent.
-     * @param neighbour The second agent.
-     * @param range The maximum distance for them to be considered neighbors.
-     * @return {@code true} if the agents are within range and eligible as neighbors, {@code false} otherwise.
+     * @param agent The reference agent.
+     * @param neighbour The agent within range.
+     * @return {@code true} if the agents are eligible as neighbors, {@code false} otherwise.
      */
-    private boolean areAgentsNeighbours(Agent agent, Agent neighbour, int range) {
-        if (!containsAgent(agent) || !containsAgent(neighbour)) {
-            return false;
-        }
-
-        if ((agent instanceof Priest) & agent.getTeam() == neighbour.getTeam() & neighbour.getHp() == neighbour.getMaxHp()) {
-            return false;
-        }
-
-        BiFunction<Vector2D, Vector2D, Boolean> neighbourhoodFunction = (a, b) -> {
-            Vector2D distanceVector = b.minus(a);
-            return Math.abs(distanceVector.getX()) <= range
-                    && Math.abs(distanceVector.getY()) <= range;
-        };
-
-        Vector2D agentPosition = this.getAgentPosition(agent);
-        Vector2D neighbourPosition = this.getAgentPosition(neighbour);
-        return neighbourhoodFunction.apply(agentPosition, neighbourPosition);
+    private boolean areAgentsNeighbours(Agent agent, Agent neighbour) {
+        return !((agent instanceof Priest) & agent.getTeam() == neighbour.getTeam() & neighbour.getHp() == neighbour.getMaxHp());
     }
     /**
      * Ensures that the given agent exists in the agents list.
@@ -120,11 +173,9 @@ public class BlackForestGameMap {
      * @return The position of the agent as a {@link Vector2D}.
      * @throws IllegalArgumentException If the agent does not exist.
      */
-    private synchronized Vector2D getAgentPosition(Agent agent) {
-        synchronized (this.agentsList) {
-            this.ensureAgentExists(agent);
-            return this.agentsList.get(agent.getName()).getPose().getPosition();
-        }
+    private Vector2D getAgentPosition(Agent agent) {
+        this.ensureAgentExists(agent);
+        return this.agentsList.get(agent.getName()).getPose().getPosition();
     }
     /**
      * Retrieves the direction (orientation) of the given agent.
@@ -133,11 +184,9 @@ public class BlackForestGameMap {
      * @return The orientation of the agent.
      * @throws IllegalArgumentException If the agent does not exist.
      */
-    private synchronized Orientation getAgentDirection(Agent agent) {
-        synchronized (this.agentsList) {
-            this.ensureAgentExists(agent);
-            return this.agentsList.get(agent.getName()).getPose().getOrientation();
-        }
+    private Orientation getAgentDirection(Agent agent) {
+        this.ensureAgentExists(agent);
+        return this.agentsList.get(agent.getName()).getPose().getOrientation();
     }
     /**
      * Finds an agent located at a specific position.
@@ -145,11 +194,12 @@ public class BlackForestGameMap {
      * @param position The position to check.
      * @return An {@link Optional} containing the agent if found, or an empty {@link Optional} if no agent is present at the position.
      */
-    private synchronized Optional<Agent> getAgentByPosition(Vector2D position) {
-        synchronized (this.agentsList) {
-            return this.agentsList.values().stream()
-                    .filter(agent -> agent.getPose().getPosition().equals(position))
-                    .findFirst();
+    private Optional<Agent> getAgentByPosition(Vector2D position) {
+        this.agentsGridLock.lock();
+        try {
+            return this.agentsGrid.findAt(position);
+        } finally {
+            this.agentsGridLock.unlock();
         }
     }
     /**
@@ -158,10 +208,16 @@ public class BlackForestGameMap {
      * @param agent The agent whose position is to be updated.
      * @param position The new position of the agent.
      */
-    private synchronized void setAgentPosition(Agent agent, Vector2D position) {
+    private void setAgentPosition(Agent agent, Vector2D position) {
         Pose currentPose = this.agentsList.get(agent.getName()).getPose();
         agent.setPose(new Pose(position, currentPose.getOrientation()));
         this.agentsList.put(agent.getName(), agent);
+        this.agentsGridLock.lock();
+        try {
+            this.agentsGrid.put(agent, position);
+        } finally {
+            this.agentsGridLock.unlock();
+        }
     }
     /**
      * Sets the direction (orientation) of the given agent.
@@ -169,7 +225,7 @@ public class BlackForestGameMap {
      * @param agent The agent whose direction is to be updated.
      * @param orientation The new orientation of the agent.
      */
-    private synchronized void setAgentDirection(Agent agent, Orientation orientation) {
+    private void setAgentDirection(Agent agent, Orientation orientation) {
         Pose currentPose = this.agentsList.get(agent.getName()).getPose();
         agent.setPose(new Pose(currentPose.getPosition(), orientation));
         this.agentsList.put(agent.getName(), agent);
@@ -183,7 +239,7 @@ public class BlackForestGameMap {
      * @param orientation The new orientation of the agent.
      * @return {@code true} if the pose was successfully updated, {@code false} otherwise.
      */
-    private synchronized boolean setAgentPose(Agent agent, int x, int y, Orientation orientation) {
+    private boolean setAgentPose(Agent agent, int x, int y, Orientation orientation) {
         if (this.containsAgent(agent)) {
             this.setAgentDirection(agent, orientation);
             if (this.isPositionInside(x, y)) {
@@ -202,6 +258,13 @@ public class BlackForestGameMap {
 
         agent.setPose(new Pose(Vector2D.of(x, y), orientation));
         this.agentsList.put(agent.getName(), agent);
+        this.agentHandles.register(agent.getName(), agent);
+        this.agentsGridLock.lock();
+        try {
+            this.agentsGrid.put(agent, agent.getPose().getPosition());
+        } finally {
+            this.agentsGridLock.unlock();
+        }
 
         return true;
     }
@@ -213,7 +276,7 @@ public class BlackForestGameMap {
      * @param newOrientation The new orientation of the agent.
      * @return {@code true} if the pose was successfully updated, {@code false} otherwise.
      */
-    private synchronized boolean setAgentPose(Agent agent, Vector2D afterStep, Orientation newOrientation) {
+    private boolean setAgentPose(Agent agent, Vector2D afterStep, Orientation newOrientation) {
         return this.setAgentPose(agent, afterStep.getX(), afterStep.getY(), newOrientation);
     }
     /**
@@ -222,19 +285,23 @@ public class BlackForestGameMap {
      * @param agent The agent to remove.
      * @return True if the agent was successfully removed, false otherwise.
      */
-    private synchronized boolean removeAgent(Agent agent) {
+    private boolean removeAgent(Agent agent) {
         Cell agentCell = this.getCellByPosition(agent.getPose().getPosition());
         if (agentCell != null) {
             if (agentCell.getAgent() != null && agentCell.getAgent().getCarriedItem() != null) {
-                synchronized (this.resourcesList) {
-
-                    agentCell.setResource(agentCell.getAgent().getCarriedItem());
-                    agentCell.getAgent().stopCarrying(agentCell.getAgent().getCarriedItem());
+                agentCell.setResource(agentCell.getAgent().getCarriedItem());
+                agentCell.getAgent().stopCarrying(agentCell.getAgent().getCarriedItem());
 
-                    this.resourcesList.put(agentCell.getResource().getName(), agentCell.getResource());
-                }
+                this.registerResource(agentCell.getResource());
+                this.publishPrincessDropped(agentCell.getResource(), agent.getPose().getPosition());
             }
             agentCell.clearAgent();
+            this.agentsGridLock.lock();
+            try {
+                this.agentsGrid.remove(agent);
+            } finally {
+                this.agentsGridLock.unlock();
+            }
 
             return true;
         }
@@ -246,12 +313,12 @@ public class BlackForestGameMap {
      *
      * @return A set containing all agents.
      */
-    public synchronized Set<Agent> getAllAgents() {
-        synchronized (this.agentsList) {
+    public Set<Agent> getAllAgents() {
+        return this.regionLocks.withAllShared("getAllAgents", () -> {
             return this.agentsList.values()
                     .stream()
                     .collect(Collectors.toSet());
-        }
+        });
     }
     /**
      * Spawns an agent on a random cell at a designated team base. If its HP is less than 0,
@@ -260,28 +327,30 @@ public class BlackForestGameMap {
      * @param agent The agent to spawn.
      * @return True if the agent was successfully spawned, false otherwise.
      */
-    public synchronized boolean spawnAgent(Agent agent) {
-        boolean result;
-        synchronized (this.map) {
-            synchronized (this.agentsList) {
-                // If the agent's HP is 0 or less, perform respawn logic
-                if (agent.getHp() <= 0) {
-                    agent.setState("dead");
-                    this.removeAgent(agent);
-                } else {
-                    agent.setState("spawn");
-                }
-                Cell randomCell = getRandomCell(agent, (agent.getTeam() == true) ? Zone.RBASE : Zone.BBASE, false);
+    public boolean spawnAgent(Agent agent) {
+        return this.regionLocks.withAll("spawnAgent", () -> {
+            boolean result;
+            // If the agent's HP is 0 or less, perform respawn logic
+            if (agent.getHp() <= 0) {
+                agent.setState("dead");
+                this.removeAgent(agent);
+            } else {
+                agent.setState("spawn");
+            }
+            Cell randomCell = getRandomCell(agent, (agent.getTeam() == true) ? Zone.RBASE : Zone.BBASE, false);
 
-                if (randomCell != null) {
-                    result = setAgentPose(agent, randomCell.getX(), randomCell.getY(), Orientation.random());
-                } else {
-                    result = false;
-                }
+            if (randomCell != null) {
+                result = setAgentPose(agent, randomCell.getX(), randomCell.getY(), Orientation.random());
+            } else {
+                result = false;
+            }
 
-                return result;
+            if (result) {
+                this.forgetRoute(agent);
+                this.eventBus.publish(new GameEvent.AgentSpawned(agent, agent.getPose().getPosition()));
             }
-        }
+            return result;
+        });
     }
     /**
      * Resets an agent's state by restoring its HP to the maximum and setting it to the spawn state.
@@ -289,12 +358,12 @@ public class BlackForestGameMap {
      * @param agent The agent to reset.
      * @return True if the agent was successfully reset.
      */
-    public synchronized boolean resetAgent (Agent agent) {
-        synchronized (this.agentsList) {
+    public boolean resetAgent (Agent agent) {
+        return this.regionLocks.withAll("resetAgent", () -> {
             agent.setHp(agent.getMaxHp());
             agent.setState("spawn");
             return true;
-        }
+        });
     }
     /**
      * Moves an agent to a new position with a specified orientation, ensuring that the movement is valid.
@@ -304,50 +373,43 @@ public class BlackForestGameMap {
      * @param newOrientation The target orientation.
      * @return True if the agent was successfully moved, false otherwise.
      */
-    public synchronized boolean moveAgent(Agent agent, Vector2D newPosition, Orientation newOrientation) {
-        synchronized (this.map) {
-            synchronized (this.structuresList) {
-                synchronized (this.agentsList) {
-
-                    if (!isPositionInside(newPosition.getX(), newPosition.getY())) {
-                        return false;
-                    }
-
-                    Pose currentPose = agentsList.get(agent.getName()).getPose();
-
-                    Cell currentCell = this.getCellByPosition(currentPose.getPosition().getX(), currentPose.getPosition().getY());
-                    Cell targetCell = this.getCellByPosition(newPosition.getX(), newPosition.getY());
-
-                    if (targetCell.getZoneType() == Zone.OUT_OF_MAP) {
-                        return false;
-                    }
+    public boolean moveAgent(Agent agent, Vector2D newPosition, Orientation newOrientation) {
+        if (!isPositionInside(newPosition.getX(), newPosition.getY())) {
+            return false;
+        }
 
-                    if (targetCell.isOccupied(agent, null)) {
-                        return false;  // Target cell is occupied
-                    }
+        return this.withRegionOf("moveAgent", List.of(agent), List.of(newPosition), () -> {
+            Pose currentPose = agentsList.get(agent.getName()).getPose();
 
-                    // Update agent position
-                    this.setAgentPose(agent, newPosition, newOrientation);
+            Cell currentCell = this.getCellByPosition(currentPose.getPosition().getX(), currentPose.getPosition().getY());
+            Cell targetCell = this.getCellByPosition(newPosition.getX(), newPosition.getY());
 
-                    currentCell.setAgent(null);
-                    targetCell.setAgent(agent);
+            if (targetCell.getZoneType() == Zone.OUT_OF_MAP) {
+                return false;
+            }
 
-                    if (agent.getCarriedItem() != null) {
-                        synchronized (this.resourcesList) {
+            if (targetCell.isOccupied(agent, null)) {
+                return false;  // Target cell is occupied
+            }
 
-                            agent.getCarriedItem().setPose(new Pose(agent.getPose().getPosition(), Orientation.SOUTH));
-                            currentCell.setResource(null);
-                            targetCell.setResource(agent.getCarriedItem());
+            // Update agent position
+            this.setAgentPose(agent, newPosition, newOrientation);
 
-                            this.resourcesList.put(agent.getCarriedItem().getName(), agent.getCarriedItem());
+            currentCell.setAgent(null);
+            targetCell.setAgent(agent);
 
-                        }
-                    }
+            if (agent.getCarriedItem() != null) {
+                agent.getCarriedItem().setPose(new Pose(agent.getPose().getPosition(), Orientation.SOUTH));
+                currentCell.setResource(null);
+                targetCell.setResource(agent.getCarriedItem());
 
-                    return true;
-                }
+                this.registerResource(agent.getCarriedItem());
+                this.publishPrincessMoved(agent.getCarriedItem(), newPosition);
             }
-        }
+
+            this.eventBus.publish(new GameEvent.AgentMoved(agent, currentPose.getPosition(), newPosition));
+            return true;
+        });
     }
     /**
      * Moves an agent by a given step size in a specified direction.
@@ -357,13 +419,94 @@ public class BlackForestGameMap {
      * @param direction The direction in which to move.
      * @return True if the agent was successfully moved, false otherwise.
      */
-    public synchronized boolean moveAgent(Agent agent, int stepSize, Direction direction) {
+    public boolean moveAgent(Agent agent, int stepSize, Direction direction) {
         Pose currentPose = this.agentsList.get(agent.getName()).getPose();
         Orientation newOrientation = currentPose.getOrientation().rotate(direction);
 
         // Delegate to the main method
         return moveAgent(agent, currentPose.getPosition().afterStep(stepSize, newOrientation), newOrientation);
     }
+    /**
+     * Resolves together the moves proposed to the given resolver since the last call (see
+     * {@link MoveResolver}).  The moving agents are lifted from the map, together with their
+     * carried items, the moves are resolved against the rest of the map and every agent is put
+     * back, either on its target or on its original cell.  Dead agents don't move.
+     *
+     * @param resolver the resolver holding the proposed moves.
+     */
+    public void resolveMoves(MoveResolver resolver) {
+        List<MoveResolver.Intent> intents = resolver.drain();
+        if (intents.isEmpty()) {
+            return;
+        }
+
+        this.regionLocks.withAll("resolveMoves", () -> {
+            List<MoveResolver.Intent> lifted = new ArrayList<>();
+            for (MoveResolver.Intent intent : intents) {
+                Agent agent = intent.getAgent();
+                if (agent.getHp() > 0 && this.containsAgent(agent)) {
+                    this.liftAgent(agent);
+                    lifted.add(intent);
+                }
+            }
+
+            resolver.resolve(lifted, (agent, target) -> {
+                if (!this.isPositionInside(target.getX(), target.getY())) {
+                    return false;
+                }
+                Cell targetCell = this.getCellByPosition(target);
+                return targetCell.getZoneType() != Zone.OUT_OF_MAP && !targetCell.isOccupied(agent, null);
+            });
+
+            for (MoveResolver.Intent intent : lifted) {
+                Agent agent = intent.getAgent();
+                if (intent.isMoved()) {
+                    this.placeAgent(agent, intent.getTarget(), intent.getOrientation());
+                    this.eventBus.publish(new GameEvent.AgentMoved(agent, intent.getOrigin(), intent.getTarget()));
+                } else {
+                    this.placeAgent(agent, intent.getOrigin(), agent.getPose().getOrientation());
+                }
+            }
+        });
+    }
+    /**
+     * Takes a living agent, and the item it carries, off its cell while its move is resolved.
+     *
+     * @param agent The agent to lift.
+     */
+    private void liftAgent(Agent agent) {
+        Cell agentCell = this.getCellByPosition(agent.getPose().getPosition());
+        agentCell.clearAgent();
+        if (agent.getCarriedItem() != null) {
+            agentCell.setResource(null);
+        }
+        this.agentsGridLock.lock();
+        try {
+            this.agentsGrid.remove(agent);
+        } finally {
+            this.agentsGridLock.unlock();
+        }
+    }
+    /**
+     * Puts a lifted agent, and the item it carries, back on the map.
+     *
+     * @param agent The agent to place.
+     * @param position The position of the agent.
+     * @param orientation The orientation of the agent.
+     */
+    private void placeAgent(Agent agent, Vector2D position, Orientation orientation) {
+        this.setAgentPose(agent, position, orientation);
+        Cell agentCell = this.getCellByPosition(position);
+        agentCell.setAgent(agent);
+
+        if (agent.getCarriedItem() != null) {
+            agent.getCarriedItem().setPose(new Pose(position, Orientation.SOUTH));
+            agentCell.setResource(agent.getCarriedItem());
+
+            this.registerResource(agent.getCarriedItem());
+            this.publishPrincessMoved(agent.getCarriedItem(), position);
+        }
+    }
     /**
      * Makes an agent attack another agent, optionally performing a critical hit.
      *
@@ -372,8 +515,8 @@ public class BlackForestGameMap {
      * @param crit Whether the attack is a critical hit.
      * @return True if the attack was successful, false otherwise.
      */
-    public synchronized boolean attackAgent(Agent attacking_agent, Agent target, boolean crit) {
-        synchronized (this.agentsList) {
+    public boolean attackAgent(Agent attacking_agent, Agent target, boolean crit) {
+        return this.withRegionOf("attackAgent", List.of(attacking_agent, target), List.of(), () -> {
             if (target.getHp() > 0) {
                 int originalAttackPower = attacking_agent.getAttackPower();
 
@@ -388,12 +531,13 @@ public class BlackForestGameMap {
                 if (crit) {
                     attacking_agent.setAttackPower(originalAttackPower);
                 }
+                this.eventBus.publish(new GameEvent.AgentDamaged(target, attacking_agent, newHp));
                 return true;
 
             } else {
                 return false; }
-            }
-        }
+        });
+    }
     /**
      * Allows an agent to heal another agent if they are not already at full HP.
      *
@@ -401,8 +545,8 @@ public class BlackForestGameMap {
      * @param target The agent receiving the healing.
      * @return True if the healing was successful, false otherwise.
      */
-    public synchronized boolean healAgent(Agent healing_agent, Agent target) {
-        synchronized (this.agentsList) {
+    public boolean healAgent(Agent healing_agent, Agent target) {
+        return this.withRegionOf("healAgent", List.of(healing_agent, target), List.of(), () -> {
             if ((target.getHp()) > 0 && (target.getHp() < target.getMaxHp())) {
                 view.triggerAttackView(healing_agent.getPose().getPosition());
                 view.triggerHealView(target.getPose().getPosition());
@@ -413,11 +557,31 @@ public class BlackForestGameMap {
                 }
 
                 target.setHp(newHp);
+                this.eventBus.publish(new GameEvent.AgentHealed(target, healing_agent, newHp));
                 return true;
             } else {
                 return false;
             }
-        }
+        });
+    }
+    /**
+     * Runs an operation holding the regions of the map where the given agents stand, together
+     * with some additional positions.  An agent only moves while holding the region it stands
+     * in, so once its region is held it can't leave it; if one of the agents moved while the
+     * locks were being acquired, they are released and acquired again.
+     *
+     * @param operation the operation locking the region.
+     * @param agents the agents whose positions must be covered.
+     * @param positions the additional positions that must be covered.
+     * @param action the operation.
+     * @return the result of the operation.
+     */
+    private <T> T withRegionOf(String operation, List<Agent> agents, List<Vector2D> positions, Supplier<T> action) {
+        return this.regionLocks.withRegion(operation, () -> {
+            List<Vector2D> covered = new ArrayList<>(positions);
+            agents.forEach(agent -> covered.add(agent.getPose().getPosition()));
+            return covered;
+        }, action);
     }
     /**
      * Makes an agent attack a gate, dealing damage to it.
@@ -426,17 +590,22 @@ public class BlackForestGameMap {
      * @param target The gate being attacked.
      * @return True if the attack was successful, false otherwise.
      */
-    public synchronized boolean attackGate(Agent attacking_agent, Gate target) {
-        synchronized (this.structuresList) {
+    public boolean attackGate(Agent attacking_agent, Gate target) {
+        return this.regionLocks.withAll("attackGate", () -> {
             if (target.getHp() > 0) {
                 view.triggerAttackView(attacking_agent.getPose().getPosition());
                 view.triggerDamageView(target.getPose().getPosition());
                 target.takeDamage(attacking_agent.getAttackPower());
+                this.eventBus.publish(new GameEvent.GateDamaged(target, target.getHp()));
+                if (target.isDestroyed()) {
+                    onGateStateChanged(target);
+                    this.eventBus.publish(new GameEvent.GateDestroyed(target));
+                }
                 return true;
             } else {
                 return false;
             }
-        }
+        });
     }
     /**
      * Allows an agent (Instance of Gatherer) to repair a damaged or destroyed gate if sufficient resources are available.
@@ -445,33 +614,17 @@ public class BlackForestGameMap {
      * @param target The gate to repair.
      * @return True if the gate was successfully repaired, false otherwise.
      */
-    public synchronized boolean repairGate(Agent repairing_agent, Gate target) {
-        synchronized (this.structuresList) {
-            boolean isBlueTeam = !repairing_agent.getTeam();
-            boolean isRedTeam = repairing_agent.getTeam();
-
-            if (target.isDestroyed()) {
-                if (isBlueTeam) {
-                    synchronized (this.getWoodAmountBlue()) {
-                        if (this.getWoodAmountBlue().get() >= this.enoughWoodAmount) {
-                            target.repair();
-                            this.woodAmountBlue.addAndGet(-this.enoughWoodAmount);
-                            return true;
-                        }
-                    }
-                } else if (isRedTeam) {
-                    synchronized (this.getWoodAmountRed()) {
-                        if (this.getWoodAmountRed().get() >= this.enoughWoodAmount) {
-                            target.repair();
-                            this.woodAmountRed.addAndGet(-this.enoughWoodAmount);
-                            return true;
-                        }
-                    }
-                }
+    public boolean repairGate(Agent repairing_agent, Gate target) {
+        return this.regionLocks.withAll("repairGate", () -> {
+            if (target.isDestroyed() && this.teamLedger.trySpendWood(repairing_agent.getTeam(), this.enoughWoodAmount)) {
+                target.repair();
+                onGateStateChanged(target);
+                this.eventBus.publish(new GameEvent.GateRepaired(target));
+                return true;
             }
 
             return false;
-        }
+        });
     }
     /**
      * Makes an agent (Instance of Gatherer) attack a tree, reducing its HP and potentially converting it into wood resources.
@@ -480,21 +633,23 @@ public class BlackForestGameMap {
      * @param target The tree being attacked.
      * @return True if the attack was successful, false otherwise.
      */
-    public synchronized boolean attackTree(Agent attacking_agent, Tree target) {
-        synchronized (this.structuresList) {
+    public boolean attackTree(Agent attacking_agent, Tree target) {
+        return this.regionLocks.withAll("attackTree", () -> {
             if (target.getHp() > 0) {
                 view.triggerAttackView(attacking_agent.getPose().getPosition());
                 view.triggerDamageView(target.getPose().getPosition());
                 target.takeDamage(attacking_agent.getAttackPower());
                 if (target.getHp() == 0) {
                     addWood(attacking_agent);
+                    onTreeStateChanged(target);
+                    this.eventBus.publish(new GameEvent.TreeFelled(target, attacking_agent));
                 }
 
                 return true;
             } else {
                 return false;
             }
-        }
+        });
     }
     /**
      * Allows an agent to pick up a princess if she is not already being carried.
@@ -503,53 +658,127 @@ public class BlackForestGameMap {
      * @param target The princess being picked up.
      * @return True if the princess was successfully picked up, false otherwise.
      */
-    public synchronized boolean pickUpPrincess(Agent agent, Princess target) {
-        synchronized (this.map) {
-            synchronized (agentsList) {
-                synchronized (resourcesList) {
-                    if (!target.isCarried()) {
-                        Vector2D p_pos = target.getPose().getPosition();
-                        agent.startCarrying(target);
-                        target.setPose(agent.getPose());
-                        this.getCellByPosition(p_pos).clearResource();
-                        this.getCellByPosition(agent.getPose().getPosition()).setResource(target);
-
-                        this.agentsList.put(agent.getName(), agent);
-                        this.resourcesList.put(target.getName(), target);
-                        return true;
-                    } else {
-                        return false;
-                    }
-                }
+    public boolean pickUpPrincess(Agent agent, Princess target) {
+        return this.regionLocks.withAll("pickUpPrincess", () -> {
+            if (!target.isCarried()) {
+                Vector2D p_pos = target.getPose().getPosition();
+                agent.startCarrying(target);
+                target.setPose(agent.getPose());
+                this.getCellByPosition(p_pos).clearResource();
+                this.getCellByPosition(agent.getPose().getPosition()).setResource(target);
+
+                this.agentsList.put(agent.getName(), agent);
+                this.registerResource(target);
+                this.eventBus.publish(new GameEvent.PrincessPickedUp(target, agent));
+                return true;
+            } else {
+                return false;
             }
+        });
+    }
+    /**
+     * Completes the delivery of the princess carried by an agent, applying the outcome that the
+     * objective computation only reports: an agent bringing its own princess back into its base
+     * wins the game, while an agent bringing the enemy princess onto her spawn point drops her
+     * there.  Does nothing if the agent is not delivering a princess.
+     *
+     * @param agent The agent carrying the princess.
+     * @return True if the delivery was completed, false otherwise.
+     */
+    public boolean deliverPrincess(Agent agent) {
+        if (!(agent.getCarriedItem() instanceof Princess)) {
+            return false;
         }
+        return this.regionLocks.withAll("deliverPrincess", () -> {
+            Vector2D agent_position = agent.getPose().getPosition();
+            Cell agent_cell = getCellByPosition(agent_position);
+            Zone allyBase = agent.getTeam() ? Zone.RBASE : Zone.BBASE;
+            if (!(agent.getCarriedItem() instanceof Princess princess) || agent_cell.getZoneType() != allyBase) {
+                return false;
+            }
+
+            if (princess.getTeam() == agent.getTeam()) {
+                if (this.win != null) {
+                    return false;
+                }
+                this.win = agent.getTeam(); // false blue team, true red team
+                this.eventBus.publish(new GameEvent.GameWon(agent.getTeam()));
+                String winningTeam = this.win ? "Red Team" : "Blue Team";
+                LOGGER.info("Game Over! " + winningTeam + " wins!");
+
+                SwingUtilities.invokeLater(() -> ConfigWindow.showGameResult(winningTeam));
+                return true;
+            }
+
+            Vector2D enemyPrincessSpawnPoint = agent.getTeam() ? bluePrincessSpawnPoint : redPrincessSpawnPoint;
+            if (!agent_position.equals(enemyPrincessSpawnPoint)) {
+                return false;
+            }
+            agent_cell.setResource(princess);
+            agent.stopCarrying(princess);
+
+            this.registerResource(princess);
+            this.agentsList.put(agent.getName(), agent);
+            this.publishPrincessDropped(princess, agent_position);
+            return true;
+        });
     }
     /**
-     * Retrieves an agent by its name.
+     * Retrieves an agent by its name with a single lookup in the agents list.
      *
      * @param agName The name of the agent.
      * @return An optional containing the agent if found, or empty if no agent matches the name.
      */
-    public synchronized Optional<Agent> getAgentByName(String agName) {
-        synchronized (this.agentsList) {
-            return this.agentsList.values().stream()
-                    .filter(entry -> agName.equals(entry.getName()))
-                    .findFirst();
-        }
+    public Optional<Agent> getAgentByName(String agName) {
+        return Optional.ofNullable(this.agentsList.get(agName));
+    }
+    /**
+     * Retrieves the interned handle of an agent, which can be cached by callers and later
+     * resolved with {@link #getAgentByHandle(int)} without any hashing.
+     *
+     * @param agName The name of the agent.
+     * @return The handle of the agent, or {@link HandleRegistry#NO_HANDLE} if the agent was never spawned.
+     */
+    public int getAgentHandle(String agName) {
+        return this.agentHandles.getHandle(agName);
+    }
+    /**
+     * Retrieves an agent by its interned handle.
+     *
+     * @param handle The handle of the agent.
+     * @return An optional containing the agent if the handle is valid, or empty otherwise.
+     */
+    public Optional<Agent> getAgentByHandle(int handle) {
+        return Optional.ofNullable(this.agentHandles.get(handle));
     }
     /**
      * Retrieves a set of agents that are within a specified range of the given agent.
+     * Only the buckets of the agents spatial grid overlapping the range are inspected.
      *
      * @param agent The reference agent.
      * @param range The maximum distance to check.
      * @return A set of neighboring agents.
      */
     public Set<Agent> getAgentNeighbours(Agent agent, int range) {
-        return this.getAllAgents().stream()
-                .filter(it -> it.getHp() > 0)
-                .filter(it -> !it.equals(agent))
-                .filter(other -> this.areAgentsNeighbours(agent, other, range))
-                .collect(Collectors.toSet());
+        return this.regionLocks.read("getAgentNeighbours", () -> {
+            List<Agent> inRange;
+            this.agentsGridLock.lock(); // The grid is updated concurrently by the moves of every region
+            try {
+                Vector2D agentPosition = this.agentsGrid.getPosition(agent);
+                inRange = agentPosition == null ? List.of() : this.agentsGrid.queryRange(agentPosition, range);
+            } finally {
+                this.agentsGridLock.unlock();
+            }
+            if (inRange.isEmpty() || !containsAgent(agent)) {
+                return Collections.emptySet();
+            }
+
+            return inRange.stream()
+                    .filter(it -> it.getHp() > 0)
+                    .filter(it -> !it.equals(agent))
+                    .filter(other -> this.areAgentsNeighbours(agent, other))
+                    .collect(Collectors.toSet());
+        });
     }
     /**
      * Retrieves a set of gates that are within a specified range of the given agent, based on team affiliation.
@@ -560,76 +789,43 @@ public class BlackForestGameMap {
      * @return A set of gates matching the criteria.
      */
     public Set<Gate> getGateNeighbours(Agent agent, String team, int range) {
-        boolean isBlueTeam = !agent.getTeam(); // True if the agent is on the blue team
-        boolean isRedTeam = agent.getTeam();   // True if the agent is on the red team
         boolean isEnemyTeam = team.equals("enemy"); // True if searching for enemy gates
         boolean isAllyTeam = team.equals("ally");   // True if searching for ally gates
-        boolean hasEnoughWoodBlue = this.isEnoughWoodBlue(); // Blue team has enough wood
-        boolean hasEnoughWoodRed = this.isEnoughWoodRed();   // Red team has enough wood
-        boolean hasEnoughWood = (isBlueTeam && hasEnoughWoodBlue) || (isRedTeam && hasEnoughWoodRed); // Current team has enough wood
+        boolean hasEnoughWood = this.getTeamSituation(agent.getTeam()).hasEnoughWood(); // Current team has enough wood
 
         if (isEnemyTeam) {
             return this.getAllStructures(Gate.class).stream()
                     .filter(gate -> !gate.getTeam().equals(agent.getTeam())) // Only enemy gates
                     .filter(gate -> this.isStructureInRange(agent, gate, range)) // Within range
-                    .map(gate -> (Gate) gate) // Cast to Gate
                     .collect(Collectors.toSet());
         } else if (isAllyTeam && hasEnoughWood) {
             return this.getAllStructures(Gate.class).stream()
                     .filter(gate -> gate.getTeam().equals(agent.getTeam())) // Only ally gates
 //                    .filter(gate -> this.getCellByPosition(gate.getPose().getPosition()).isOccupied(agent, null))
                     .filter(gate -> this.isStructureInRange(agent, gate, range)) // Within range
-                    .map(gate -> (Gate) gate) // Cast to Gate
                     .collect(Collectors.toSet());
         }
 
         return this.getAllStructures(Gate.class).stream()
                 .filter(gate -> this.isStructureInRange(agent, gate, range)) // Within range
-                .map(gate -> (Gate) gate) // Cast to Gate
                 .collect(Collectors.toSet());
     }
     /**
-     * Retrieves a set of trees that are within a specified range of the given agent.
+     * Retrieves a set of trees that are within a specified range of the given agent.  No tree is
+     * returned while the agent's team should rather repair its gates, while a princess is being
+     * carried and when the team has wood to spare (see {@link TeamSituation#shouldIgnoreTrees()}).
      *
      * @param agent The reference agent.
      * @param range The maximum distance to check.
      * @return A set of neighboring trees.
      */
     public Set<Tree> getTreeNeighbours(Agent agent, int range) {
-        boolean isBlueTeam = !agent.getTeam(); // True if the agent is on the blue team
-        boolean isRedTeam = agent.getTeam();   // True if the agent is on the red team
-
-        // Gate destruction status
-        boolean isBlueGateDestroyed = this.getGateByName("gate_b1").get().isDestroyed() ||
-                this.getGateByName("gate_b2").get().isDestroyed();
-        boolean isRedGateDestroyed = this.getGateByName("gate_r1").get().isDestroyed() ||
-                this.getGateByName("gate_r2").get().isDestroyed();
-        boolean isAnyGateDestroyed = isBlueGateDestroyed || isRedGateDestroyed;
-
-        // Princess carrying status
-        boolean isBluePrincessCarried = this.getPrincessByName("princess_b").get().isCarried();
-        boolean isRedPrincessCarried = this.getPrincessByName("princess_r").get().isCarried();
-        boolean isAnyPrincessCarried = isBluePrincessCarried || isRedPrincessCarried;
-
-        // Wood availability
-        boolean hasEnoughWoodBlue = this.isEnoughWoodBlue();
-        boolean hasEnoughWoodRed = this.isEnoughWoodRed();
-        boolean hasDoubleWoodBlue = this.getWoodAmountBlue().get() >= 2 * this.enoughWoodAmount;
-        boolean hasDoubleWoodRed = this.getWoodAmountRed().get() >= 2 * this.enoughWoodAmount;
-
-        // Conditions to avoid trees
-        boolean shouldAvoidTreesForGateRepair = (isBlueTeam && hasEnoughWoodBlue && isBlueGateDestroyed) ||
-                (isRedTeam && hasEnoughWoodRed && isRedGateDestroyed);
-        boolean shouldAvoidTreesForPrincess = isAnyPrincessCarried;
-        boolean shouldAvoidTreesForExcessWood = (isBlueTeam && hasDoubleWoodBlue) || (isRedTeam && hasDoubleWoodRed);
-
-        if (shouldAvoidTreesForGateRepair || shouldAvoidTreesForPrincess || shouldAvoidTreesForExcessWood) {
+        if (this.getTeamSituation(agent.getTeam()).shouldIgnoreTrees()) {
             return Collections.emptySet();
         }
 
         return this.getAllStructures(Tree.class).stream()
                 .filter(tree -> this.isStructureInRange(agent, tree, range))
-                .map(tree -> (Tree) tree) // Cast to Tree
                 .collect(Collectors.toSet());
     }
     /**
@@ -648,19 +844,16 @@ public class BlackForestGameMap {
             return this.getAllResources(Princess.class).stream()
                     .filter(princess -> princess.getTeam() == agent.getTeam())
                     .filter(princess -> this.isResourceInRange(agent, princess, range)) // Within range
-                    .map(princess -> (Princess) princess)
                     .collect(Collectors.toSet());
         } else if (isEnemyTeam) {
             return this.getAllResources(Princess.class).stream()
                     .filter(princess -> princess.getTeam() != agent.getTeam())
                     .filter(princess -> this.isResourceInRange(agent, princess, range)) // Within range
-                    .map(princess -> (Princess) princess)
                     .collect(Collectors.toSet());
         }
 
         return this.getAllResources(Princess.class).stream()
                 .filter(princess -> this.isResourceInRange(agent, princess, range)) // Within range
-                .map(princess -> (Princess) princess)
                 .collect(Collectors.toSet());
 
     }
@@ -678,6 +871,154 @@ public class BlackForestGameMap {
                 v -> pos.afterStep(1, dir.rotate(v))
         ));
     }
+    /**
+     * Computes the next step an agent should take to walk the shortest path towards a target.
+     * On the default maps the step follows the flow field of the target for the agent's team,
+     * which is computed once per target and then shared by every agent heading there, so each
+     * step is a constant-time lookup.  A carried princess is instead a target moving at every
+     * step, whose flow field would be recomputed over the whole map each time: the step towards
+     * her is taken from a path planned with {@link #findPath(Agent, Vector2D)}'s planner, which
+     * only explores the cells between the agent and the princess.
+     * <p>
+     * On large maps, where a flow field would cover the whole map for every target, every agent
+     * follows instead a hierarchical route (see {@link HierarchicalPathPlanner}), planned once and
+     * then walked one step at a time: it is only planned again when the target changes, when the
+     * agent leaves it or when a gate or tree changes state.  The suggested cell is always one the
+     * agent can currently move into.
+     *
+     * @param agent The agent to guide.
+     * @param target The position the agent is heading to.
+     * @return An optional containing the absolute movement ("up", "down", "left" or "right") to perform,
+     *         or empty if the target is reached, unreachable or the next cell on the path is busy.
+     */
+    public Optional<String> getNextStep(Agent agent, Vector2D target) {
+        return this.regionLocks.withAllShared("getNextStep", () -> {
+            Vector2D position = agent.getPose().getPosition();
+            if (position.equals(target) || !this.isPositionInside(target.getX(), target.getY())) {
+                return Optional.empty();
+            }
+
+            DistanceField.Walkability enterable = (x, y) -> {
+                Cell cell = this.map[x][y];
+                return cell.getZoneType() != Zone.OUT_OF_MAP && !cell.isOccupied(agent, null);
+            };
+
+            Vector2D next;
+            this.navigationLock.lock();
+            try {
+                if (this.hierarchicalPlanner != null) {
+                    next = this.followRoute(agent, position, target)
+                            .filter(step -> enterable.isWalkable(step.getX(), step.getY()))
+                            .orElse(null);
+                } else if (this.isCarriedPrincessAt(target)) {
+                    next = this.pathPlanner.findPath(position, target, agent.getTeam())
+                            .filter(path -> !path.isEmpty())
+                            .map(path -> path.get(0))
+                            .filter(step -> enterable.isWalkable(step.getX(), step.getY()))
+                            .orElse(null);
+                } else {
+                    next = this.distanceFields.getTowards(target, agent.getTeam()).getNextStep(position, enterable);
+                }
+            } finally {
+                this.navigationLock.unlock();
+            }
+            if (next == null) {
+                return Optional.empty();
+            }
+
+            int dx = next.getX() - position.getX();
+            int dy = next.getY() - position.getY();
+            return Optional.of(dx > 0 ? "right" : dx < 0 ? "left" : dy > 0 ? "down" : "up");
+        });
+    }
+    /**
+     * Finds the shortest walkable route from the agent's position to a target, as seen by the
+     * agent's team (own gates can be crossed, enemy gates only once destroyed).  Routes are cached
+     * and only recomputed when a gate or tree along (or possibly shortening) them changes state.
+     * On large maps the route is planned hierarchically and then fully refined.
+     *
+     * @param agent The agent that has to walk the route.
+     * @param target The position to reach.
+     * @return An optional containing the positions to walk through, from the first step up to the target,
+     *         or empty if the target can't be reached.
+     */
+    public Optional<List<Vector2D>> findPath(Agent agent, Vector2D target) {
+        return this.regionLocks.withAllShared("findPath", () -> {
+            this.navigationLock.lock();
+            try {
+                if (this.hierarchicalPlanner != null) {
+                    return this.hierarchicalPlanner.findRoute(agent.getPose().getPosition(), target, agent.getTeam())
+                            .flatMap(HierarchicalPathPlanner.Route::refineAll);
+                }
+                return this.pathPlanner.findPath(agent.getPose().getPosition(), target, agent.getTeam());
+            } finally {
+                this.navigationLock.unlock();
+            }
+        });
+    }
+    /**
+     * Returns the next cell of the hierarchical route followed by an agent, planning the route
+     * again if the agent has none towards the target, if it left its route or if the route is no
+     * longer current.  A target found unreachable is not searched again (which would explore the
+     * whole abstract graph) until the graph changes.  Must be called holding the navigation lock.
+     *
+     * @param agent The walking agent.
+     * @param position The position of the agent.
+     * @param target The position to reach.
+     * @return An optional containing the next cell of the route, or empty if the target can't be reached.
+     */
+    private Optional<Vector2D> followRoute(Agent agent, Vector2D position, Vector2D target) {
+        HierarchicalPathPlanner.Route route = this.routes.get(agent.getName());
+        if (route != null && route.isCurrent() && route.getGoal().equals(target)) {
+            Optional<Vector2D> next = route.nextStep(position);
+            if (next.isPresent()) {
+                return next;
+            }
+        }
+
+        long version = this.hierarchicalPlanner.getVersion(agent.getTeam());
+        Pair<Vector2D, Long> unreachable = this.unreachableTargets.get(agent.getName());
+        if (unreachable != null && unreachable.getFirst().equals(target) && unreachable.getSecond() == version) {
+            return Optional.empty();
+        }
+
+        route = this.hierarchicalPlanner.findRoute(position, target, agent.getTeam()).orElse(null);
+        if (route == null) {
+            this.routes.remove(agent.getName());
+            this.unreachableTargets.put(agent.getName(), new Pair<>(target, version));
+            return Optional.empty();
+        }
+        this.routes.put(agent.getName(), route);
+        this.unreachableTargets.remove(agent.getName());
+        return route.nextStep(position);
+    }
+    /**
+     * Forgets the hierarchical route followed by an agent and the target it found unreachable,
+     * both only valid from the positions the agent walked to: spawning moves it elsewhere.
+     *
+     * @param agent The agent.
+     */
+    private void forgetRoute(Agent agent) {
+        this.navigationLock.lock();
+        try {
+            this.routes.remove(agent.getName());
+            this.unreachableTargets.remove(agent.getName());
+        } finally {
+            this.navigationLock.unlock();
+        }
+    }
+    /**
+     * Checks whether the given position is the one of a princess currently carried by an agent.
+     *
+     * @param position The position to check.
+     * @return True if a carried princess is at the position, false otherwise.
+     */
+    private boolean isCarriedPrincessAt(Vector2D position) {
+        return Stream.of(this.princessBHandle, this.princessRHandle)
+                .map(handle -> this.getResourceByHandle(handle, Princess.class))
+                .flatMap(Optional::stream)
+                .anyMatch(princess -> princess.isCarried() && princess.getPose().getPosition().equals(position));
+    }
 
 
 
@@ -703,72 +1044,95 @@ public class BlackForestGameMap {
      * @param stateName the state associated with the found resource
      * @return a Pair containing the state name and the position of the closest resource, or null if no resource is found
      */
-    private synchronized Pair<String, Vector2D> findClosestResource(Agent agent, Class<? extends Resource> resourceClass, Predicate<Resource> filter, String stateName) {
-        synchronized (this.map) {
-            List<Cell> resources = getAllCells(
-                    null,
-                    null, null,
-                    resourceClass, filter, // No resource filtering
-                    null, null, // No agent filtering
-                    true
-            );
-
-
-            Vector2D agentPosition = agent.getPose().getPosition();
-            Vector2D closestPosition = null;
-            double minDistance = Double.MAX_VALUE;
-
-            for (Cell cell : resources) {
-                double distance = calculateDistance(agentPosition, cell.getPosition());
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    closestPosition = cell.getPosition();
-                }
-            }
+    private Pair<String, Vector2D> findClosestResource(Agent agent, Class<? extends Resource> resourceClass, Predicate<Resource> filter, String stateName) {
+        List<Cell> resources = getAllCells(
+                null,
+                null, null,
+                resourceClass, filter, // No resource filtering
+                null, null, // No agent filtering
+                true
+        );
 
-            return closestPosition != null ? new Pair<>(stateName, closestPosition) : null;
-        }
+        return findClosestCell(agent, resources, stateName);
     }
     /**
-     * Finds the closest structure of a given type that satisfies a specified filter.
+     * Finds the closest gate of the given team, measured in walking distance from the agent.
+     *
+     * @param agent the agent searching for the gate
+     * @param gateTeam the team the gate belongs to ({@code false} for blue, {@code true} for red)
+     * @param stateName the state associated with the found gate
+     * @return a Pair containing the state name and the position of the closest gate, or null if there are no gates
+     */
+    private Pair<String, Vector2D> findClosestGate(Agent agent, boolean gateTeam, String stateName) {
+        return findClosestByWalk(agent, gateTeam ? RED_GATES_OBJECTIVE : BLUE_GATES_OBJECTIVE, stateName);
+    }
+    /**
+     * Finds the closest {@link Empty} structure with the given type tag (e.g. "base_b", "half"),
+     * measured in walking distance from the agent.
      *
      * @param agent the agent searching for the structure
-     * @param structureClass the class type of the structure to find
-     * @param filter a predicate to filter the structures
+     * @param type the type tag of the empty structure
      * @param stateName the state associated with the found structure
      * @return a Pair containing the state name and the position of the closest structure, or null if no structure is found
      */
-    private synchronized Pair<String, Vector2D> findClosestStructure(Agent agent, Class<? extends MapStructure> structureClass, Predicate<MapStructure> filter, String stateName) {
-        synchronized (this.map) {
-            Predicate<MapStructure> combinedFilter = structure -> {
-                if (structure instanceof Tree tree) {
-                    return !tree.isDestroyed() && (filter == null || filter.test(structure));
-                }
-                return filter == null || filter.test(structure);
-            };
-
-            List<Cell> structures = getAllCells(
-                    null,
-                    structureClass, combinedFilter,
-                    null, null, // No resource filtering
-                    null, null, // No agent filtering
-                    true
-            );
-
-            Vector2D agentPosition = agent.getPose().getPosition();
-            Vector2D closestPosition = null;
-            double minDistance = Double.MAX_VALUE;
-
-            for (Cell cell : structures) {
-                double distance = calculateDistance(agentPosition, cell.getPosition());
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    closestPosition = cell.getPosition();
+    private Pair<String, Vector2D> findClosestEmpty(Agent agent, String type, String stateName) {
+        return findClosestByWalk(agent, type, stateName);
+    }
+    /**
+     * Finds the source of an objective closest to the agent in walking distance, reading it from
+     * the precomputed distance field of the agent's team.  If none of the sources can be reached
+     * (e.g. they lie behind intact enemy gates), the closest one in a straight line is returned.
+     *
+     * @param agent the agent searching for the objective
+     * @param objective the name of the objective registered in the distance fields
+     * @param stateName the state associated with the found objective
+     * @return a Pair containing the state name and the position of the closest source, or null if the objective has no sources
+     */
+    private Pair<String, Vector2D> findClosestByWalk(Agent agent, String objective, String stateName) {
+        Vector2D agentPosition = agent.getPose().getPosition();
+        Vector2D closestPosition;
+        this.navigationLock.lock();
+        try {
+            closestPosition = this.distanceFields.get(objective, agent.getTeam()).getNearestSource(agentPosition);
+
+            if (closestPosition == null) {
+                double minDistance = Double.MAX_VALUE;
+                for (Vector2D source : this.distanceFields.getSources(objective)) {
+                    double distance = calculateDistance(agentPosition, source);
+                    if (distance < minDistance) {
+                        minDistance = distance;
+                        closestPosition = source;
+                    }
                 }
             }
+        } finally {
+            this.navigationLock.unlock();
+        }
 
-            return closestPosition != null ? new Pair<>(stateName, closestPosition) : null;
+        return closestPosition != null ? new Pair<>(stateName, closestPosition) : null;
+    }
+    /**
+     * Finds the cell closest to the agent among the given candidates.
+     *
+     * @param agent the agent searching for the cell
+     * @param cells the candidate cells
+     * @param stateName the state associated with the found cell
+     * @return a Pair containing the state name and the position of the closest cell, or null if there are no candidates
+     */
+    private Pair<String, Vector2D> findClosestCell(Agent agent, Collection<Cell> cells, String stateName) {
+        Vector2D agentPosition = agent.getPose().getPosition();
+        Vector2D closestPosition = null;
+        double minDistance = Double.MAX_VALUE;
+
+        for (Cell cell : cells) {
+            double distance = calculateDistance(agentPosition, cell.getPosition());
+            if (distance < minDistance) {
+                minDistance = distance;
+                closestPosition = cell.getPosition();
+            }
         }
+
+        return closestPosition != null ? new Pair<>(stateName, closestPosition) : null;
     }
     /**
      * Determines the fallback action for an agent when no specific task is available.
@@ -780,7 +1144,7 @@ public class BlackForestGameMap {
      * and the agent's current position as a {@code Vector2D}. Returns {@code null} if no suitable
      * fallback action can be determined.
      */
-    private synchronized Pair<String, Vector2D> fallbackPlanGeneral(Agent agent) {
+    private Pair<String, Vector2D> fallbackPlanGeneral(Agent agent) {
         Vector2D agent_position = agent.getPose().getPosition();
 
         agent.setState("fallback_general");
@@ -838,7 +1202,7 @@ public class BlackForestGameMap {
      * and the agent's current position as a {@code Vector2D}. Returns {@code null} if no suitable
      * fallback action can be determined.
      */
-    private synchronized Pair<String, Vector2D> fallbackPlanRescueAllyPrincess(Agent agent) {
+    private Pair<String, Vector2D> fallbackPlanRescueAllyPrincess(Agent agent) {
         Vector2D agent_position = agent.getPose().getPosition();
         Cell agent_cell = getCellByPosition(agent_position);
 
@@ -870,36 +1234,25 @@ public class BlackForestGameMap {
         // The agent is on the left side of the map
 
         if (isInAllyBase) {
-            this.win = agent.getTeam(); // false blue team, true red team
-            if (this.win != null) {
-                String winningTeam = this.win ? "Red Team" : "Blue Team";
-                System.out.println("Game Over! " + winningTeam + " wins!");
-
-                SwingUtilities.invokeLater(() -> ConfigWindow.showGameResult(winningTeam));
-            }
-            return new Pair<>("game_win", agent_position);
+            return new Pair<>("game_win", agent_position); // The win itself is declared by deliverPrincess
         } else if (isInEnemyBase) {
             if (isTeamBlue) {
-                return findClosestStructure(agent, Empty.class,
-                        empty -> ((Empty) empty).getType().equals("base_r"), "choose_path_back");
+                return findClosestEmpty(agent, "base_r", "choose_path_back");
             } else if (isTeamRed) {
-                return findClosestStructure(agent, Empty.class,
-                        empty -> ((Empty) empty).getType().equals("base_b"), "choose_path_back");
+                return findClosestEmpty(agent, "base_b", "choose_path_back");
             }
         } else if (isOnTheMiddle || isOnBridge) {
-            return findClosestStructure(agent, Gate.class,
-                    gate -> ((Gate) gate).getTeam().equals(agent.getTeam()), "back_to_base");
+            return findClosestGate(agent, agent.getTeam(), "back_to_base");
         } else if (((isOnRightSide & isTeamBlue) || (isOnLeftSide & isTeamRed))) {
 
             if (isOnUpperSide) {
-                return findClosestStructure(agent, Empty.class, empty -> ((Empty) empty).getType() == "half", "land_passage_reached_back");
+                return findClosestEmpty(agent, "half", "land_passage_reached_back");
             } else if (isOnLowerSide) {
-                return findClosestStructure(agent, Bridge.class, null, "bridge_reached_back");
+                return findClosestByWalk(agent, BRIDGE_OBJECTIVE, "bridge_reached_back");
             }
 
         } else if ((isOnLeftSide & isTeamBlue) || (isOnRightSide & isTeamRed)) {
-            return findClosestStructure(agent, Gate.class,
-                    gate -> ((Gate) gate).getTeam().equals(agent.getTeam()), "back_to_base");
+            return findClosestGate(agent, agent.getTeam(), "back_to_base");
         }
 
         return null;
@@ -912,7 +1265,7 @@ public class BlackForestGameMap {
      * and the agent's current position as a {@code Vector2D}. Returns {@code null} if no suitable
      * fallback action can be determined.
      */
-    private synchronized Pair<String, Vector2D> fallbackPlanCaptureEnemyPrincess(Agent agent) {
+    private Pair<String, Vector2D> fallbackPlanCaptureEnemyPrincess(Agent agent) {
         Vector2D agent_position = agent.getPose().getPosition();
         Cell agent_cell = getCellByPosition(agent_position);
 
@@ -943,58 +1296,25 @@ public class BlackForestGameMap {
 
         if (isInAllyBase) {
             if (isTeamBlue) {
-                Pair<String, Vector2D> result = findClosestStructure(agent, Empty.class, empty -> ((Empty) empty).getType() == "empty_pr", "spawn");
-
-                if (agent_position.equals(redPrincessSpawnPoint)) {
-                    if (agent.getCarriedItem() != null) {
-                        agent_cell.setResource(agent.getCarriedItem());
-                        agent.stopCarrying(agent.getCarriedItem());
-
-                        synchronized (this.resourcesList) {
-                            this.resourcesList.put(agent_cell.getResource().getName(), agent_cell.getResource());
-                        }
-                        synchronized (this.agentsList) {
-                            this.agentsList.put(agent.getName(), agent);
-                        }
-                    }
-                }
-                return result;
+                return findClosestEmpty(agent, "empty_pr", "spawn"); // The princess is dropped by deliverPrincess
             } else if (isTeamRed) {
-                Pair<String, Vector2D> result = findClosestStructure(agent, Empty.class, empty -> ((Empty) empty).getType() == "empty_pb", "spawn");
-
-                if (agent_position.equals(bluePrincessSpawnPoint)) {
-                    if (agent.getCarriedItem() != null) {
-                        agent_cell.setResource(agent.getCarriedItem());
-                        agent.stopCarrying(agent.getCarriedItem());
-
-                        synchronized (this.resourcesList) {
-                            this.resourcesList.put(agent_cell.getResource().getName(), agent_cell.getResource());
-                        }
-                        synchronized (this.agentsList) {
-                            this.agentsList.put(agent.getName(), agent);
-                        }
-                    }
-                }
-                return result;
+                return findClosestEmpty(agent, "empty_pb", "spawn"); // The princess is dropped by deliverPrincess
             }
         } else if (isOnTheMiddle || isOnBridge) {
-            return findClosestStructure(agent, Gate.class,
-                    gate -> ((Gate) gate).getTeam().equals(agent.getTeam()), "back_to_base");
+            return findClosestGate(agent, agent.getTeam(), "back_to_base");
         } else if ((isOnRightSide & isTeamBlue) || (isOnLeftSide & isTeamRed)) {
 
             if (isOnUpperSide) {
-                return findClosestStructure(agent, Empty.class, empty -> ((Empty) empty).getType() == "half", "land_passage_reached_back");
+                return findClosestEmpty(agent, "half", "land_passage_reached_back");
             } else if (isOnLowerSide) {
-                return findClosestStructure(agent, Bridge.class, null, "bridge_reached_back");
+                return findClosestByWalk(agent, BRIDGE_OBJECTIVE, "bridge_reached_back");
             }
 
         } else if ((isOnLeftSide & isTeamBlue) || (isOnRightSide & isTeamRed)) {
             if (isTeamBlue) {
-                return findClosestStructure(agent, Gate.class,
-                        gate -> ((Gate) gate).getTeam().equals(agent.getTeam()), "back_to_base");
+                return findClosestGate(agent, agent.getTeam(), "back_to_base");
             } else if (isTeamRed) {
-                return findClosestStructure(agent, Gate.class,
-                        gate -> ((Gate) gate).getTeam().equals(agent.getTeam()), "back_to_base");
+                return findClosestGate(agent, agent.getTeam(), "back_to_base");
             }
         }
 
@@ -1009,11 +1329,11 @@ public class BlackForestGameMap {
      * @return a {@code Pair} containing the next state name and target position, or {@code null} if no
      *         princess-related action is applicable.
      */
-    private synchronized Pair<String, Vector2D> handlePrincessScenarios(Agent agent) {
+    private Pair<String, Vector2D> handlePrincessScenarios(Agent agent) {
         Vector2D agent_position = agent.getPose().getPosition();
 
-        Optional<Princess> princessB = this.getPrincessByName("princess_b");
-        Optional<Princess> princessR = this.getPrincessByName("princess_r");
+        Optional<Princess> princessB = this.getResourceByHandle(this.princessBHandle, Princess.class);
+        Optional<Princess> princessR = this.getResourceByHandle(this.princessRHandle, Princess.class);
 
         boolean isOnRightSidePB = agent_position.getX() > princessB.get().getPose().getPosition().getX();
         boolean isOnLeftSidePB = agent_position.getX() <= princessB.get().getPose().getPosition().getX();
@@ -1048,11 +1368,9 @@ public class BlackForestGameMap {
 
             // CAPTURE ENEMY PRINCESS
             if (isTeamRed && isBlueOutsideRedBase && isInRedBase) {
-                return findClosestStructure(agent, Empty.class,
-                        empty -> ((Empty) empty).getType().equals("base_r"), "capture_enemy_princess");
+                return findClosestEmpty(agent, "base_r", "capture_enemy_princess");
             } else if (isTeamBlue && isRedOutsideBlueBase && isInBlueBase) {
-                return findClosestStructure(agent, Empty.class,
-                        empty -> ((Empty) empty).getType().equals("base_b"), "capture_enemy_princess");
+                return findClosestEmpty(agent, "base_b", "capture_enemy_princess");
             } else if ((isTeamRed && isBlueOutsideRedBase) || (isTeamBlue && isRedOutsideBlueBase)) {
                 return findClosestResource(agent, Princess.class,
                         princess -> ((Princess) princess).getTeam() != agent.getTeam(),
@@ -1063,11 +1381,9 @@ public class BlackForestGameMap {
             // Ally princess is being carried by teammate and the agent is in enemies base
             // We avoid to check if agent is in enemy base and enemy princess as well because it would mean the game is over
             if ((isBlueCarried && isTeamBlue && isInRedBase)) {
-                return findClosestStructure(agent, Empty.class,
-                        empty -> ((Empty) empty).getType().equals("base_r"), "rescue_ally_princess");
+                return findClosestEmpty(agent, "base_r", "rescue_ally_princess");
             } else if ((isRedCarried && isTeamRed && isInBlueBase)) {
-                return findClosestStructure(agent, Empty.class,
-                        empty -> ((Empty) empty).getType().equals("base_b"), "rescue_ally_princess");
+                return findClosestEmpty(agent, "base_b", "rescue_ally_princess");
             }
 
             // Ally princess is outside enemy base, either carried or dropped, so stay behind the princess
@@ -1089,11 +1405,11 @@ public class BlackForestGameMap {
      * @return a {@code Pair} containing the next state name and target position for gate repair, or
      *         {@code null} if no gate-related action is applicable (e.g., no destroyed gates or not enough wood).
      */
-    private synchronized Pair<String, Vector2D> handleGatesScenarios(Agent agent) {
-        Optional<Gate> gate_b1 = this.getGateByName("gate_b1");
-        Optional<Gate> gate_b2 = this.getGateByName("gate_b2");
-        Optional<Gate> gate_r1 = this.getGateByName("gate_r1");
-        Optional<Gate> gate_r2 = this.getGateByName("gate_r2");
+    private Pair<String, Vector2D> handleGatesScenarios(Agent agent) {
+        Optional<Gate> gate_b1 = this.getStructureByHandle(this.gateB1Handle, Gate.class);
+        Optional<Gate> gate_b2 = this.getStructureByHandle(this.gateB2Handle, Gate.class);
+        Optional<Gate> gate_r1 = this.getStructureByHandle(this.gateR1Handle, Gate.class);
+        Optional<Gate> gate_r2 = this.getStructureByHandle(this.gateR2Handle, Gate.class);
 
         if (gate_b1.isPresent() && gate_b2.isPresent() && gate_r1.isPresent() && gate_r2.isPresent()
                 && !(agent.getCarriedItem() instanceof Princess)) {
@@ -1112,29 +1428,25 @@ public class BlackForestGameMap {
 
 
             if (isTeamBlue) {
-                synchronized (this.getWoodAmountBlue()) {
-                    if (isBlueGateDestroyed && this.getWoodAmountBlue().get() >= this.enoughWoodAmount) {
-                        if (isGateB1Destroyed) {
-                            Vector2D gate_b1_pos = gate_b1.get().getPose().getPosition();
-                            return new Pair<>("repair_destroyed_gate", new Vector2D(gate_b1_pos.getX() + 1, gate_b1_pos.getY() - 1));
-                        } else if (isGateB2Destroyed) {
-                            Vector2D gate_b2_pos = gate_b2.get().getPose().getPosition();
-                            return new Pair<>("repair_destroyed_gate", new Vector2D(gate_b2_pos.getX() + 1, gate_b2_pos.getY() + 1));
-                        }
+                if (isBlueGateDestroyed && this.getWoodAmountBlue() >= this.enoughWoodAmount) {
+                    if (isGateB1Destroyed) {
+                        Vector2D gate_b1_pos = gate_b1.get().getPose().getPosition();
+                        return new Pair<>("repair_destroyed_gate", new Vector2D(gate_b1_pos.getX() + 1, gate_b1_pos.getY() - 1));
+                    } else if (isGateB2Destroyed) {
+                        Vector2D gate_b2_pos = gate_b2.get().getPose().getPosition();
+                        return new Pair<>("repair_destroyed_gate", new Vector2D(gate_b2_pos.getX() + 1, gate_b2_pos.getY() + 1));
                     }
                 }
             }
 
             if (isTeamRed) {
-                synchronized (this.getWoodAmountRed()) {
-                    if (isRedGateDestroyed && this.getWoodAmountRed().get() >= this.enoughWoodAmount) {
-                        if (isGateR1Destroyed) {
-                            Vector2D gate_r1_pos = gate_r1.get().getPose().getPosition();
-                            return new Pair<>("repair_destroyed_gate", new Vector2D(gate_r1_pos.getX() - 1, gate_r1_pos.getY() - 1));
-                        } else if (isGateR2Destroyed) {
-                            Vector2D gate_r2_pos = gate_r2.get().getPose().getPosition();
-                            return new Pair<>("repair_destroyed_gate", new Vector2D(gate_r2_pos.getX() - 1, gate_r2_pos.getY() + 1));
-                        }
+                if (isRedGateDestroyed && this.getWoodAmountRed() >= this.enoughWoodAmount) {
+                    if (isGateR1Destroyed) {
+                        Vector2D gate_r1_pos = gate_r1.get().getPose().getPosition();
+                        return new Pair<>("repair_destroyed_gate", new Vector2D(gate_r1_pos.getX() - 1, gate_r1_pos.getY() - 1));
+                    } else if (isGateR2Destroyed) {
+                        Vector2D gate_r2_pos = gate_r2.get().getPose().getPosition();
+                        return new Pair<>("repair_destroyed_gate", new Vector2D(gate_r2_pos.getX() - 1, gate_r2_pos.getY() + 1));
                     }
                 }
             }
@@ -1152,98 +1464,96 @@ public class BlackForestGameMap {
      * @return a {@code Pair} containing the next state name and target position, or {@code null} if no
      *         objective can be determined (e.g., invalid state).
      */
-    public synchronized Pair<String, Vector2D> getClosestObjectiveSoldier(Agent agent) {
+    public Pair<String, Vector2D> getClosestObjectiveSoldier(Agent agent) {
+        return this.regionLocks.withAllShared("getClosestObjectiveSoldier", () -> {
 
-        if (this.win != null) {
-            if (agent.getTeam() == this.win) {
-                return new Pair<>("my_team_won", agent.getPose().getPosition());
-            } else {
-                return new Pair<>("my_team_lost", agent.getPose().getPosition());
+            if (this.win != null) {
+                if (agent.getTeam() == this.win) {
+                    return new Pair<>("my_team_won", agent.getPose().getPosition());
+                } else {
+                    return new Pair<>("my_team_lost", agent.getPose().getPosition());
+                }
             }
-        }
 
-        Pair<String, Vector2D> princessScenario = handlePrincessScenarios(agent);
-        if (princessScenario != null) {
-            return princessScenario;
-        }
+            Pair<String, Vector2D> princessScenario = handlePrincessScenarios(agent);
+            if (princessScenario != null) {
+                return princessScenario;
+            }
 
-        switch (agent.getState()) {
-            case "spawn":
-                return findClosestStructure(agent, Gate.class,
-                        gate -> ((Gate) gate).getTeam() == agent.getTeam(), "exit_from_ally_base");
+            switch (agent.getState()) {
+                case "spawn":
+                    return findClosestGate(agent, agent.getTeam(), "exit_from_ally_base");
 
-            case "exit_from_ally_base":
-                if (!agent.getTeam()) {
-                    return findClosestStructure(agent, Empty.class,
-                            empty -> ((Empty) empty).getType().equals("base_b"), "choose_path");
-                } else if (agent.getTeam()) {
-                    return findClosestStructure(agent, Empty.class,
-                            empty -> ((Empty) empty).getType().equals("base_r"), "choose_path");
-                }
+                case "exit_from_ally_base":
+                    if (!agent.getTeam()) {
+                        return findClosestEmpty(agent, "base_b", "choose_path");
+                    } else if (agent.getTeam()) {
+                        return findClosestEmpty(agent, "base_r", "choose_path");
+                    }
 
-            case "choose_path":
-                if (RAND.nextDouble() < agent.getLandProbability()) {
-                    return new Pair("towards_land_passage", agent.getPose().getPosition());
-                } else {
-                    return new Pair("towards_bridge", agent.getPose().getPosition());
-                }
+                case "choose_path":
+                    if (RAND.nextDouble() < agent.getLandProbability()) {
+                        return new Pair("towards_land_passage", agent.getPose().getPosition());
+                    } else {
+                        return new Pair("towards_bridge", agent.getPose().getPosition());
+                    }
 
-            case "towards_land_passage":
-                return findClosestStructure(agent, Empty.class, empty -> ((Empty) empty).getType() == "half", "land_passage_reached");
+                case "towards_land_passage":
+                    return findClosestEmpty(agent, "half", "land_passage_reached");
 
-            case "towards_bridge":
-                Cell cell = this.getCellByPosition(agent.getPose().getPosition());
-                boolean isOnBridge = cell.getStructure() != null && (cell.getStructure() instanceof Bridge);
+                case "towards_bridge":
+                    Cell cell = this.getCellByPosition(agent.getPose().getPosition());
+                    boolean isOnBridge = cell.getStructure() != null && (cell.getStructure() instanceof Bridge);
 
-                if (isOnBridge) {
-                    return new Pair<>("bridge_reached", agent.getPose().getPosition());
-                }
-                return findClosestStructure(agent, Bridge.class, null, "bridge_reached");
+                    if (isOnBridge) {
+                        return new Pair<>("bridge_reached", agent.getPose().getPosition());
+                    }
+                    return findClosestByWalk(agent, BRIDGE_OBJECTIVE, "bridge_reached");
 
-            case "land_passage_reached", "bridge_reached":
-                return findClosestStructure(agent, Gate.class,
-                        gate -> ((Gate) gate).getTeam() != agent.getTeam(), "enemy_gate_reached");
+                case "land_passage_reached", "bridge_reached":
+                    return findClosestGate(agent, !agent.getTeam(), "enemy_gate_reached");
 
-            case "enemy_gate_reached":
-                return findClosestResource(agent, Princess.class,
-                        princess -> ((Princess) princess).getTeam() == agent.getTeam(), "ally_princess_reached");
+                case "enemy_gate_reached":
+                    return findClosestResource(agent, Princess.class,
+                            princess -> ((Princess) princess).getTeam() == agent.getTeam(), "ally_princess_reached");
 
-            case "rescue_ally_princess":
-                if (this.win == null) {
-                    //I was an agent following my princess while being rescued and the princess fell of one of my teammates
+                case "rescue_ally_princess":
+                    if (this.win == null) {
+                        //I was an agent following my princess while being rescued and the princess fell of one of my teammates
 
-                    return fallbackPlanGeneral(agent);
+                        return fallbackPlanGeneral(agent);
 
-                } else if ((!this.win && !agent.getTeam()) || (this.win && agent.getTeam())) {
-                    //I was an agent following my princess while being rescued and the princess arrived at its base
+                    } else if ((!this.win && !agent.getTeam()) || (this.win && agent.getTeam())) {
+                        //I was an agent following my princess while being rescued and the princess arrived at its base
 
-                    return new Pair<>("my_team_won", agent.getPose().getPosition());
-                } else if ((!this.win && agent.getTeam()) || (this.win && !agent.getTeam())) {
-                    //I was an agent following my princess while being rescued and the princess arrived at its base
+                        return new Pair<>("my_team_won", agent.getPose().getPosition());
+                    } else if ((!this.win && agent.getTeam()) || (this.win && !agent.getTeam())) {
+                        //I was an agent following my princess while being rescued and the princess arrived at its base
 
-                    return new Pair<>("my_team_lost", agent.getPose().getPosition());
-                }
+                        return new Pair<>("my_team_lost", agent.getPose().getPosition());
+                    }
 
-            case "capture_enemy_princess":
-                if (this.win == null) {
-                    //I was an agent following enemy princess while being rescued and the princess fell of one of my enemies
+                case "capture_enemy_princess":
+                    if (this.win == null) {
+                        //I was an agent following enemy princess while being rescued and the princess fell of one of my enemies
 
-                    return fallbackPlanGeneral(agent);
+                        return fallbackPlanGeneral(agent);
 
-                } else if ((!this.win && agent.getTeam()) || (this.win && !agent.getTeam())) {
-                    //I was an agent following enemy princess while being rescued and the princess arrived at its base
+                    } else if ((!this.win && agent.getTeam()) || (this.win && !agent.getTeam())) {
+                        //I was an agent following enemy princess while being rescued and the princess arrived at its base
 
-                    return new Pair<>("my_team_lost", agent.getPose().getPosition());
-                } else if ((!this.win && !agent.getTeam()) || (this.win && agent.getTeam())) {
-                    //I was an agent following my princess while being rescued and the princess arrived at its base
+                        return new Pair<>("my_team_lost", agent.getPose().getPosition());
+                    } else if ((!this.win && !agent.getTeam()) || (this.win && agent.getTeam())) {
+                        //I was an agent following my princess while being rescued and the princess arrived at its base
 
-                    return new Pair<>("my_team_won", agent.getPose().getPosition());
-                }
+                        return new Pair<>("my_team_won", agent.getPose().getPosition());
+                    }
 
-            default:
-                return new Pair<>("dead", agent.getPose().getPosition());
+                default:
+                    return new Pair<>("dead", agent.getPose().getPosition());
 
-        }
+            }
+        });
     }
     /**
      * Determines the closest objective for a gatherer agent based on its current state and the game's
@@ -1255,138 +1565,170 @@ public class BlackForestGameMap {
      * @return a {@code Pair} containing the next state name and target position, or {@code null} if no
      *         objective can be determined (e.g., invalid state).
      */
-    public synchronized Pair<String, Vector2D> getClosestObjectiveGatherer(Agent agent) {
+    public Pair<String, Vector2D> getClosestObjectiveGatherer(Agent agent) {
+        return this.regionLocks.withAllShared("getClosestObjectiveGatherer", () -> {
 
-        if (this.win != null) {
-            if (agent.getTeam() == this.win) {
-                return new Pair<>("my_team_won", agent.getPose().getPosition());
-            } else {
-                return new Pair<>("my_team_lost", agent.getPose().getPosition());
+            if (this.win != null) {
+                if (agent.getTeam() == this.win) {
+                    return new Pair<>("my_team_won", agent.getPose().getPosition());
+                } else {
+                    return new Pair<>("my_team_lost", agent.getPose().getPosition());
+                }
             }
-        }
 
-        Pair<String, Vector2D> princessScenario = handlePrincessScenarios(agent);
-        if (princessScenario != null) {
-            return princessScenario;
-        }
+            Pair<String, Vector2D> princessScenario = handlePrincessScenarios(agent);
+            if (princessScenario != null) {
+                return princessScenario;
+            }
 
-        Pair<String, Vector2D> gatesScenario = handleGatesScenarios(agent);
-        if (gatesScenario != null) {
-            return gatesScenario;
-        }
+            Pair<String, Vector2D> gatesScenario = handleGatesScenarios(agent);
+            if (gatesScenario != null) {
+                return gatesScenario;
+            }
 
-        switch (agent.getState()) {
-            case "spawn", "repairing_gate":
-                return findClosestStructure(agent, Gate.class,
-                        gate -> ((Gate) gate).getTeam() == agent.getTeam(), "exit_from_ally_base");
+            switch (agent.getState()) {
+                case "spawn", "repairing_gate":
+                    return findClosestGate(agent, agent.getTeam(), "exit_from_ally_base");
 
-            case "exit_from_ally_base":
-                if (!agent.getTeam()) {
-                    return findClosestStructure(agent, Empty.class,
-                            empty -> ((Empty) empty).getType().equals("base_b"), "gather_wood");
-                } else if (agent.getTeam()) {
-                    return findClosestStructure(agent, Empty.class,
-                            empty -> ((Empty) empty).getType().equals("base_r"), "gather_wood");
-                }
+                case "exit_from_ally_base":
+                    if (!agent.getTeam()) {
+                        return findClosestEmpty(agent, "base_b", "gather_wood");
+                    } else if (agent.getTeam()) {
+                        return findClosestEmpty(agent, "base_r", "gather_wood");
+                    }
 
-            case "gather_wood":
+                case "gather_wood":
 
-                if (!agent.getTeam()) {
-                    synchronized (this.getWoodAmountBlue()) { // Maybe check if the princess is carried?
-                        if (!agent.getTeam() && this.getWoodAmountBlue().get() >= (this.enoughWoodAmount * 2)) { // If agent is blue and there is enough wood
+                    if (!agent.getTeam()) { // Maybe check if the princess is carried?
+                        if (!agent.getTeam() && this.getWoodAmountBlue() >= (this.enoughWoodAmount * 2)) { // If agent is blue and there is enough wood
                             return new Pair("choose_path", agent.getPose().getPosition());
                         }
                     }
-                }
 
-                if (agent.getTeam()) {
-                    synchronized (this.getWoodAmountRed()) {
-                        if (this.getWoodAmountRed().get() >= (this.enoughWoodAmount * 2)) { // Else if agent is red and there is enough wood
+                    if (agent.getTeam()) {
+                        if (this.getWoodAmountRed() >= (this.enoughWoodAmount * 2)) { // Else if agent is red and there is enough wood
                             return new Pair("choose_path", agent.getPose().getPosition());
                         }
                     }
-                }
 
-                return findClosestStructure(agent, Tree.class, null, "tree_reached");
+                    return findClosestByWalk(agent, TREES_OBJECTIVE, "tree_reached");
 
-            case "tree_reached":
-                return new Pair("gather_wood", agent.getPose().getPosition());
+                case "tree_reached":
+                    return new Pair("gather_wood", agent.getPose().getPosition());
 
-            case "repair_destroyed_gate":
-                return new Pair("gather_wood", agent.getPose().getPosition());
+                case "repair_destroyed_gate":
+                    return new Pair("gather_wood", agent.getPose().getPosition());
 
-            case "choose_path":
-                if (RAND.nextDouble() < agent.getLandProbability()) {
-                    return new Pair("towards_land_passage", agent.getPose().getPosition());
-                } else {
-                    return new Pair("towards_bridge", agent.getPose().getPosition());
-                }
+                case "choose_path":
+                    if (RAND.nextDouble() < agent.getLandProbability()) {
+                        return new Pair("towards_land_passage", agent.getPose().getPosition());
+                    } else {
+                        return new Pair("towards_bridge", agent.getPose().getPosition());
+                    }
 
-            case "towards_land_passage":
-                return findClosestStructure(agent, Empty.class, empty -> ((Empty) empty).getType() == "half", "land_passage_reached");
+                case "towards_land_passage":
+                    return findClosestEmpty(agent, "half", "land_passage_reached");
 
-            case "towards_bridge":
-                Cell cell = this.getCellByPosition(agent.getPose().getPosition());
-                boolean isOnBridge = cell.getStructure() != null && (cell.getStructure() instanceof Bridge);
+                case "towards_bridge":
+                    Cell cell = this.getCellByPosition(agent.getPose().getPosition());
+                    boolean isOnBridge = cell.getStructure() != null && (cell.getStructure() instanceof Bridge);
 
-                if (isOnBridge) {
-                    return new Pair<>("bridge_reached", agent.getPose().getPosition());
-                }
-                return findClosestStructure(agent, Bridge.class, null, "bridge_reached");
+                    if (isOnBridge) {
+                        return new Pair<>("bridge_reached", agent.getPose().getPosition());
+                    }
+                    return findClosestByWalk(agent, BRIDGE_OBJECTIVE, "bridge_reached");
 
-            case "land_passage_reached", "bridge_reached":
-                return findClosestStructure(agent, Gate.class,
-                        gate -> ((Gate) gate).getTeam() != agent.getTeam(), "enemy_gate_reached");
+                case "land_passage_reached", "bridge_reached":
+                    return findClosestGate(agent, !agent.getTeam(), "enemy_gate_reached");
 
-            case "enemy_gate_reached":
-                return findClosestResource(agent, Princess.class,
-                        princess -> ((Princess) princess).getTeam() == agent.getTeam(), "ally_princess_reached");
+                case "enemy_gate_reached":
+                    return findClosestResource(agent, Princess.class,
+                            princess -> ((Princess) princess).getTeam() == agent.getTeam(), "ally_princess_reached");
 
-            case "rescue_ally_princess":
-                if (this.win == null) {
-                    //I was an agent following my princess while being rescued and the princess fell of one of my teammates
+                case "rescue_ally_princess":
+                    if (this.win == null) {
+                        //I was an agent following my princess while being rescued and the princess fell of one of my teammates
 
-                    return fallbackPlanGeneral(agent);
+                        return fallbackPlanGeneral(agent);
 
-                } else if ((!this.win && !agent.getTeam()) || (this.win && agent.getTeam())) {
-                    //I was an agent following my princess while being rescued and the princess arrived at its base
+                    } else if ((!this.win && !agent.getTeam()) || (this.win && agent.getTeam())) {
+                        //I was an agent following my princess while being rescued and the princess arrived at its base
 
-                    return new Pair<>("my_team_won", agent.getPose().getPosition());
-                } else if ((!this.win && agent.getTeam()) || (this.win && !agent.getTeam())) {
-                    //I was an agent following my princess while being rescued and the princess arrived at its base
+                        return new Pair<>("my_team_won", agent.getPose().getPosition());
+                    } else if ((!this.win && agent.getTeam()) || (this.win && !agent.getTeam())) {
+                        //I was an agent following my princess while being rescued and the princess arrived at its base
 
-                    return new Pair<>("my_team_lost", agent.getPose().getPosition());
-                }
+                        return new Pair<>("my_team_lost", agent.getPose().getPosition());
+                    }
 
-            case "capture_enemy_princess":
-                if (this.win == null) {
-                    //I was an agent following enemy princess while being rescued and the princess fell of one of my enemies
+                case "capture_enemy_princess":
+                    if (this.win == null) {
+                        //I was an agent following enemy princess while being rescued and the princess fell of one of my enemies
 
-                    return fallbackPlanGeneral(agent);
+                        return fallbackPlanGeneral(agent);
 
-                } else if ((!this.win && agent.getTeam()) || (this.win && !agent.getTeam())) {
-                    //I was an agent following enemy princess while being rescued and the princess arrived at its base
+                    } else if ((!this.win && agent.getTeam()) || (this.win && !agent.getTeam())) {
+                        //I was an agent following enemy princess while being rescued and the princess arrived at its base
 
-                    return new Pair<>("my_team_lost", agent.getPose().getPosition());
-                } else if ((!this.win && !agent.getTeam()) || (this.win && agent.getTeam())) {
-                    //I was an agent following my princess while being rescued and the princess arrived at its base
+                        return new Pair<>("my_team_lost", agent.getPose().getPosition());
+                    } else if ((!this.win && !agent.getTeam()) || (this.win && agent.getTeam())) {
+                        //I was an agent following my princess while being rescued and the princess arrived at its base
 
-                    return new Pair<>("my_team_won", agent.getPose().getPosition());
-                }
+                        return new Pair<>("my_team_won", agent.getPose().getPosition());
+                    }
 
-            default:
-                return new Pair<>("dead", agent.getPose().getPosition());
-            }
+                default:
+                    return new Pair<>("dead", agent.getPose().getPosition());
+                }
+        });
     }
     /**
      * Determines the closest objective for the given agent, dispatching to the appropriate handler
      * method based on the agent's type (soldier or gatherer).
+     * <p>
+     * The computation only reads the map, so it runs in parallel for different agents; the
+     * deliveries of the princesses it reports are applied by {@link #deliverPrincess(Agent)}.
+     * <p>
+     * The result is memoized in the agent together with its position, state and carried item and
+     * with the current objective version of its team and role, and reused until any of them
+     * changes.  Results whose
+     * computation changed the agent's state (the fallback plans) or that are drawn at random are
+     * never memoized.
+     *
+     * @param agent the agent for which to determine the closest objective
+     * @return a {@code Pair} containing the next state name and target position, or {@code null} if the
+     *         agent type is not recognized.
+     */
+    public Pair<String, Vector2D> getClosestObjective(Agent agent) {
+        return this.regionLocks.withAllShared("getClosestObjective", () -> {
+            Vector2D position = agent.getPose().getPosition();
+            String state = agent.getState();
+            Resource carriedItem = agent.getCarriedItem();
+            int versionSlot = objectiveVersionSlot(agent.getTeam(), agent instanceof Gatherer);
+            long version = this.objectiveVersions.get(versionSlot);
+
+            ObjectiveMemo memo = agent.getObjectiveMemo();
+            if (memo != null && memo.matches(position, state, carriedItem, version)) {
+                return memo.getObjective();
+            }
+
+            Pair<String, Vector2D> objective = this.computeClosestObjective(agent);
+            if (objective != null && !UNMEMOIZABLE_STATES.contains(state)
+                    && Objects.equals(state, agent.getState()) && version == this.objectiveVersions.get(versionSlot)) {
+                agent.setObjectiveMemo(new ObjectiveMemo(position, state, carriedItem, version, objective));
+            }
+            return objective;
+        });
+    }
+    /**
+     * Computes the closest objective for the given agent from scratch, dispatching to the
+     * appropriate handler method based on the agent's type (soldier or gatherer).
      *
      * @param agent the agent for which to determine the closest objective
      * @return a {@code Pair} containing the next state name and target position, or {@code null} if the
      *         agent type is not recognized.
      */
-    public synchronized Pair<String, Vector2D> getClosestObjective(Agent agent) {
+    private Pair<String, Vector2D> computeClosestObjective(Agent agent) {
         if (!(agent instanceof Gatherer)) {
             return getClosestObjectiveSoldier(agent);
         } else if (agent instanceof Gatherer) {
@@ -1410,91 +1752,294 @@ public class BlackForestGameMap {
      *                               spawn the princess.
      */
     private void spawnPrincess(boolean team) {
-        synchronized (this.map) {
-            synchronized (this.structuresList) {
-                Zone opponentBaseZone = team ? Zone.BBASE : Zone.RBASE;
-
-                // Get all cells in the opponent's base zone
-                List<Cell> allCellsInBaseZone = getAllCells(
-                        opponentBaseZone,
-                        null, null,
-                        null, null,
-                        null, null,
-                        true
-                );
-
-                if (allCellsInBaseZone.isEmpty()) {
-                    throw new IllegalStateException("No available cells in the opponent's base zone to spawn the Princess.");
-                }
-
-                // Determine the target column for spawning
-                int targetColumn = team ? 0 : this.getWidth() - 1; // First column for BBASE, last column for RBASE
+        Zone opponentBaseZone = team ? Zone.BBASE : Zone.RBASE;
 
-                // Filter cells to only those in the designated column
-                List<Cell> availableCells = allCellsInBaseZone.stream()
-                        .filter(cell -> cell.getX() == targetColumn)
-                        .toList();
+        // Get all cells in the opponent's base zone
+        List<Cell> allCellsInBaseZone = getAllCells(
+                opponentBaseZone,
+                null, null,
+                null, null,
+                null, null,
+                true
+        );
 
-                if (availableCells.isEmpty()) {
-                    throw new IllegalStateException("No available cells in the designated column to spawn the Princess.");
-                }
+        if (allCellsInBaseZone.isEmpty()) {
+            throw new IllegalStateException("No available cells in the opponent's base zone to spawn the Princess.");
+        }
 
-                // Randomly select a cell and spawn the princess
-                Cell randomCell = availableCells.get(RAND.nextInt(availableCells.size()));
-                Vector2D princessSpawnPoint = randomCell.getPosition();
-                String name = team ? "princess_r" : "princess_b";
-                if (name == "princess_r") {
-                    Empty empty_pr = new Empty(new Pose(princessSpawnPoint, Orientation.SOUTH), "empty_pr");
-                    this.getCellByPosition(princessSpawnPoint).setStructure(empty_pr);
-                    structuresList.put("empty_pr", empty_pr);
+        // Determine the target column for spawning
+        int targetColumn = team ? 0 : this.getWidth() - 1; // First column for BBASE, last column for RBASE
 
-                    redPrincessSpawnPoint = princessSpawnPoint;
-                } else if (name == "princess_b" ) {
-                    Empty empty_pb = new Empty(new Pose(princessSpawnPoint, Orientation.SOUTH), "empty_pb");
-                    this.getCellByPosition(princessSpawnPoint).setStructure(empty_pb);
-                    structuresList.put("empty_pb", empty_pb);
+        // Filter cells to only those in the designated column
+        List<Cell> availableCells = allCellsInBaseZone.stream()
+                .filter(cell -> cell.getX() == targetColumn)
+                .toList();
 
-                    bluePrincessSpawnPoint = princessSpawnPoint;
+        if (availableCells.isEmpty()) {
+            throw new IllegalStateException("No available cells in the designated column to spawn the Princess.");
+        }
 
-                }
-                Princess princess = new Princess(
-                        name,
-                        team,
-                        new Pose(princessSpawnPoint, Orientation.SOUTH)
-                );
+        // Randomly select a cell and spawn the princess
+        Cell randomCell = availableCells.get(RAND.nextInt(availableCells.size()));
+        Vector2D princessSpawnPoint = randomCell.getPosition();
+        String name = team ? "princess_r" : "princess_b";
+        if (name == "princess_r") {
+            Empty empty_pr = new Empty(new Pose(princessSpawnPoint, Orientation.SOUTH), "empty_pr");
+            this.getCellByPosition(princessSpawnPoint).setStructure(empty_pr);
+            this.registerStructure("empty_pr", empty_pr);
+
+            redPrincessSpawnPoint = princessSpawnPoint;
+        } else if (name == "princess_b" ) {
+            Empty empty_pb = new Empty(new Pose(princessSpawnPoint, Orientation.SOUTH), "empty_pb");
+            this.getCellByPosition(princessSpawnPoint).setStructure(empty_pb);
+            this.registerStructure("empty_pb", empty_pb);
+
+            bluePrincessSpawnPoint = princessSpawnPoint;
+
+        }
+        Princess princess = new Princess(
+                name,
+                team,
+                new Pose(princessSpawnPoint, Orientation.SOUTH)
+        );
 
-                randomCell.setResource(princess);
-                resourcesList.put(princess.getName(), princess);
-                System.out.println("Princess spawned at: " + randomCell.getX() + ", " + randomCell.getY());
-            }
+        randomCell.setResource(princess);
+        this.registerResource(princess);
+        LOGGER.info("Princess spawned at: " + randomCell.getX() + ", " + randomCell.getY());
+    }
+    /**
+     * Adds a structure to the structures list, to the registry of its type and interns its key.
+     *
+     * @param key       the key identifying the structure in the structures list.
+     * @param structure the structure to add.
+     */
+    private void registerStructure(String key, MapStructure structure) {
+        this.registryLock.lock();
+        try {
+            this.structuresList.put(key, structure);
+            this.structuresRegistry.register(key, structure);
+            this.structureHandles.register(key, structure);
+        } finally {
+            this.registryLock.unlock();
         }
     }
     /**
-     * Retrieves all structures of a specific class from the structures list.
+     * Adds (or updates) a resource in the resources list, in the registry of its type and interns
+     * its name.
      *
-     * @param structureClass the class of the structures to retrieve (e.g., {@code Gate.class}).
-     * @return a {@code Set} containing all structures of the specified class on the map.
+     * @param resource the resource to add.
      */
-    private synchronized Set<MapStructure> getAllStructures(Class<? extends MapStructure> structureClass) {
-        synchronized (this.structuresList) {
-            return this.structuresList.values()
-                    .stream()
-                    .filter(structure -> structureClass.isInstance(structure))
-                    .collect(Collectors.toSet());
+    private void registerResource(Resource resource) {
+        this.registryLock.lock();
+        try {
+            this.resourcesList.put(resource.getName(), resource);
+            this.resourcesRegistry.register(resource.getName(), resource);
+            this.resourceHandles.register(resource.getName(), resource);
+        } finally {
+            this.registryLock.unlock();
         }
     }
     /**
-     * Retrieves all resources of a specific class from the resources list.
+     * Retrieves all structures of a specific class from the per-type structures registry.
+     *
+     * @param structureClass the class of the structures to retrieve (e.g., {@code Gate.class}).
+     * @return a read-only view of all structures of the specified class on the map.
+     */
+    private <S extends MapStructure> Collection<S> getAllStructures(Class<S> structureClass) {
+        return this.structuresRegistry.getAll(structureClass);
+    }
+    /**
+     * Retrieves all resources of a specific class from the per-type resources registry.
      *
      * @param resourceClass the class of the resources to retrieve (e.g., {@code Princess.class}).
-     * @return a {@code Set} containing all resources of the specified class on the map.
+     * @return a read-only view of all resources of the specified class on the map.
      */
-    private synchronized Set<Resource> getAllResources(Class<? extends Resource> resourceClass) {
-        synchronized (this.resourcesList) {
-            return this.resourcesList.values()
-                    .stream()
-                    .filter(resource -> resourceClass.isInstance(resource))
-                    .collect(Collectors.toSet());
+    private <R extends Resource> Collection<R> getAllResources(Class<R> resourceClass) {
+        return this.resourcesRegistry.getAll(resourceClass);
+    }
+    /**
+     * Registers the objectives whose walking distances are precomputed in the distance fields:
+     * the gates of each team, the bridge, the trees still standing and every type of
+     * {@link Empty} anchor (base exits, land passage, princess spawn points).
+     */
+    private void registerDistanceObjectives() {
+        List<Vector2D> blueGates = new ArrayList<>(), redGates = new ArrayList<>();
+        for (Gate gate : this.getAllStructures(Gate.class)) {
+            (gate.getTeam() ? redGates : blueGates).add(gate.getPose().getPosition());
+        }
+
+        this.distanceFields.registerObjective(BLUE_GATES_OBJECTIVE, () -> blueGates);
+        this.distanceFields.registerObjective(RED_GATES_OBJECTIVE, () -> redGates);
+
+        List<Vector2D> bridges = positionsOf(this.cellIndex.getCellsWithStructure(Bridge.class));
+        this.distanceFields.registerObjective(BRIDGE_OBJECTIVE, () -> bridges);
+
+        for (String type : this.cellIndex.getEmptyTypes()) {
+            List<Vector2D> anchors = positionsOf(this.cellIndex.getEmptyCells(type));
+            this.distanceFields.registerObjective(type, () -> anchors);
+        }
+
+        this.distanceFields.registerObjective(TREES_OBJECTIVE, () -> this.getAllStructures(Tree.class).stream()
+                .filter(tree -> !tree.isDestroyed())
+                .map(tree -> tree.getPose().getPosition())
+                .collect(Collectors.toList()));
+    }
+    /**
+     * Collects the positions of the given cells.
+     *
+     * @param cells the cells.
+     * @return a list with the position of each cell, in the same order.
+     */
+    private static List<Vector2D> positionsOf(Collection<Cell> cells) {
+        List<Vector2D> positions = new ArrayList<>(cells.size());
+        for (Cell cell : cells) {
+            positions.add(cell.getPosition());
+        }
+        return positions;
+    }
+    /**
+     * Records a change of the world that can alter the objective of some agent, making the
+     * memoized objectives of the affected agents stale.  The wood deposited by a team only
+     * matters to its gatherers, while a gate or tree changing state (and with it the walking
+     * distances), a princess moving or the winner changing matter to every agent.  Run on every
+     * event of {@link #OBJECTIVE_EVENTS}.
+     *
+     * @param event the event.
+     */
+    private void invalidateObjectives(GameEvent event) {
+        if (event instanceof GameEvent.WoodDeposited deposit) {
+            this.objectiveVersions.incrementAndGet(objectiveVersionSlot(deposit.getTeam(), true));
+            return;
+        }
+        for (int slot = 0; slot < this.objectiveVersions.length(); slot++) {
+            this.objectiveVersions.incrementAndGet(slot);
+        }
+    }
+    /**
+     * Records a change of the world that can alter the situation of some team, making it stale.
+     * A gate changing state or wood being deposited only matters to the team owning the gate or
+     * the wood, while a princess being picked up or dropped or the winner changing matter to both.
+     * Run on every event of {@link #SITUATION_EVENTS}.
+     *
+     * @param event the event.
+     */
+    private void invalidateSituations(GameEvent event) {
+        if (event instanceof GameEvent.GateEvent gateEvent) {
+            this.situationVersions.incrementAndGet(gateEvent.getGate().getTeam() ? 1 : 0);
+        } else if (event instanceof GameEvent.WoodDeposited deposit) {
+            this.situationVersions.incrementAndGet(deposit.getTeam() ? 1 : 0);
+        } else {
+            this.situationVersions.incrementAndGet(0);
+            this.situationVersions.incrementAndGet(1);
+        }
+    }
+    /**
+     * Returns the slot of the objective version of the agents of a team and role.
+     *
+     * @param team     the team of the agents.
+     * @param gatherer whether the agents are gatherers.
+     * @return the slot in the objective versions.
+     */
+    private static int objectiveVersionSlot(boolean team, boolean gatherer) {
+        return (team ? 2 : 0) + (gatherer ? 1 : 0);
+    }
+    /**
+     * Publishes the move of a carried item along with the agent carrying it, if it is a princess.
+     *
+     * @param item the carried item.
+     * @param position the new position of the item.
+     */
+    private void publishPrincessMoved(Resource item, Vector2D position) {
+        if (item instanceof Princess princess) {
+            this.eventBus.publish(new GameEvent.PrincessMoved(princess, position));
+        }
+    }
+    /**
+     * Publishes the drop of a carried item, if it is a princess.
+     *
+     * @param item the dropped item.
+     * @param position the position the item was dropped at.
+     */
+    private void publishPrincessDropped(Resource item, Vector2D position) {
+        if (item instanceof Princess princess) {
+            this.eventBus.publish(new GameEvent.PrincessDropped(princess, position));
+        }
+    }
+    /**
+     * Retrieves the bus on which the map publishes a {@link GameEvent} for every change it applies
+     * (agents spawning, moving, being damaged or healed, gates damaged, destroyed or repaired,
+     * trees felled or grown back, princesses picked up, moved or dropped, wood gathered, game won).
+     * The events are published once the change is applied, while the map is still locked.
+     *
+     * @return the event bus.
+     */
+    public GameEventBus getEventBus() {
+        return this.eventBus;
+    }
+    /**
+     * Sets the executor applying the changes of the map that no agent requests, such as the
+     * respawn of the trees, whose timers expire on the threads of the respawn scheduler.  By
+     * default the changes are applied by those threads.
+     *
+     * @param mutationExecutor the executor of the changes.
+     */
+    public void setMutationExecutor(Executor mutationExecutor) {
+        this.mutationExecutor = mutationExecutor;
+    }
+    /**
+     * Sets the scheduler timing the respawn of the destroyed trees.  Once a timer expires, the
+     * respawn is applied through the mutation executor (see {@link #setMutationExecutor(Executor)})
+     * while holding the whole world.
+     *
+     * @param respawnScheduler the scheduler of the respawns.
+     */
+    public void setRespawnScheduler(Tree.RespawnScheduler respawnScheduler) {
+        this.respawnScheduler = respawnScheduler;
+    }
+    /**
+     * Updates the navigation data after a gate has been destroyed or repaired.  A gate is always
+     * walkable for its own team, so only the opposing team is affected.
+     *
+     * @param gate the gate whose state changed.
+     */
+    private void onGateStateChanged(Gate gate) {
+        Vector2D position = gate.getPose().getPosition();
+        this.grid.refresh(position.getX(), position.getY());
+        onWalkabilityChanged(position.getX(), position.getY(), !gate.getTeam(), gate.isDestroyed());
+    }
+    /**
+     * Updates the navigation data after a tree has been cut down or has respawned.  The tree
+     * changes walkability for both teams and stops (or starts again) being a gathering target.
+     *
+     * @param tree the tree whose state changed.
+     */
+    private void onTreeStateChanged(Tree tree) {
+        Vector2D position = tree.getPose().getPosition();
+        this.grid.refresh(position.getX(), position.getY());
+
+        for (boolean team : new boolean[]{false, true}) {
+            onWalkabilityChanged(position.getX(), position.getY(), team, tree.isDestroyed());
+        }
+        this.distanceFields.invalidateObjective(TREES_OBJECTIVE);
+    }
+    /**
+     * Propagates a change of walkability of a single cell to the distance fields, to the cached
+     * paths and (on large maps) to the hierarchical graph of the given team.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @param team the team for which the walkability changed.
+     * @param opened {@code true} if the cell became walkable, {@code false} if it became blocked.
+     */
+    private void onWalkabilityChanged(int x, int y, boolean team, boolean opened) {
+        if (opened) {
+            this.distanceFields.cellOpened(x, y, team);
+        } else {
+            this.distanceFields.cellBlocked(x, y, team);
+        }
+        this.pathPlanner.cellChanged(x, y, team, opened);
+        if (this.hierarchicalPlanner != null) {
+            this.hierarchicalPlanner.cellChanged(x, y, team);
         }
     }
     /**
@@ -1503,10 +2048,8 @@ public class BlackForestGameMap {
      * @param structure the structure to check for existence.
      * @return {@code true} if the structure exists on the map, {@code false} otherwise.
      */
-    private synchronized boolean containsStructure(MapStructure structure) {
-        synchronized (this.structuresList) {
-            return this.structuresList.containsKey(structure.getName());
-        }
+    private boolean containsStructure(MapStructure structure) {
+        return this.structuresList.containsKey(structure.getName());
     }
     /**
      * Checks if a specific resource exists on the resources list.
@@ -1514,10 +2057,8 @@ public class BlackForestGameMap {
      * @param resource the resource to check for existence.
      * @return {@code true} if the resource exists on the map, {@code false} otherwise.
      */
-    private synchronized boolean containsResource(Resource resource) {
-        synchronized (this.resourcesList) {
-            return this.resourcesList.containsKey(resource.getName());
-        }
+    private boolean containsResource(Resource resource) {
+        return this.resourcesList.containsKey(resource.getName());
     }
     /**
      * Checks if a structure is within a specified range of an agent.
@@ -1568,88 +2109,160 @@ public class BlackForestGameMap {
     /**
      * Gets the current amount of wood held by the red team.
      *
-     * @return an {@code AtomicInteger} representing the red team's wood amount.
+     * @return the red team's wood amount.
      */
-    public synchronized AtomicInteger getWoodAmountRed() {
-        return this.woodAmountRed;
+    public int getWoodAmountRed() {
+        return this.teamLedger.getWood(true);
     }
     /**
      * Gets the current amount of wood held by the blue team.
      *
-     * @return an {@code AtomicInteger} representing the blue team's wood amount.
+     * @return the blue team's wood amount.
      */
-    public synchronized AtomicInteger getWoodAmountBlue() {
-        return this.woodAmountBlue;
+    public int getWoodAmountBlue() {
+        return this.teamLedger.getWood(false);
     }
     /**
-     * Checks if the red team has enough wood (greater than or equal to the required amount).
+     * Gets the ledger of the resources held by the teams, which can be read and updated without
+     * locking the map.
      *
-     * @return {@code true} if the red team has enough wood, {@code false} otherwise.
+     * @return the team ledger.
      */
-    private synchronized boolean isEnoughWoodRed() { return (this.getWoodAmountRed().get() >= this.enoughWoodAmount); }
+    public TeamLedger getTeamLedger() {
+        return this.teamLedger;
+    }
     /**
-     * Checks if the blue team has enough wood (greater than or equal to the required amount).
+     * Retrieves the situation of a team: the facts shared by all its agents (gates destroyed,
+     * princesses carried, wood, outcome of the game).  The situation of each team is reused
+     * until one of the {@link #SITUATION_EVENTS} concerning that team is published, so each of
+     * these facts is looked up once per change rather than once per agent and query.
      *
-     * @return {@code true} if the blue team has enough wood, {@code false} otherwise.
+     * @param team the team ({@code false} for blue, {@code true} for red).
+     * @return the current situation of the team.
      */
-    private synchronized boolean isEnoughWoodBlue() { return (this.getWoodAmountBlue().get() >= this.enoughWoodAmount); }
+    public TeamSituation getTeamSituation(boolean team) {
+        int index = team ? 1 : 0;
+        TeamSituation[] situations = this.teamSituations;
+        long version = this.situationVersions.get(index);
+        if (situations[index] == null || situations[index].getVersion() != version) {
+            situations = situations.clone();
+            situations[index] = this.computeTeamSituation(team, version);
+            this.teamSituations = situations; // A benign race: at worst equal situations are computed twice
+        }
+        return situations[index];
+    }
+    /**
+     * Computes the situation of a team at the given situation version.  If the situation changes
+     * meanwhile, the version is bumped again and the result is discarded at the next lookup.
+     *
+     * @param team    the team ({@code false} for blue, {@code true} for red).
+     * @param version the situation version of the team read before computing.
+     * @return the situation of the team.
+     */
+    private TeamSituation computeTeamSituation(boolean team, long version) {
+        boolean isGateDestroyed = team
+                ? this.isGateDestroyed(this.gateR1Handle) || this.isGateDestroyed(this.gateR2Handle)
+                : this.isGateDestroyed(this.gateB1Handle) || this.isGateDestroyed(this.gateB2Handle);
+        boolean isAnyPrincessCarried = this.isPrincessCarried(this.princessBHandle) || this.isPrincessCarried(this.princessRHandle);
+
+        return new TeamSituation(team, version, isGateDestroyed, isAnyPrincessCarried,
+                team ? this.getWoodAmountRed() : this.getWoodAmountBlue(), this.enoughWoodAmount, this.win);
+    }
+    /**
+     * Checks whether the gate with the given handle exists and is destroyed.
+     *
+     * @param handle the handle of the gate.
+     * @return {@code true} if the gate is destroyed, {@code false} otherwise.
+     */
+    private boolean isGateDestroyed(int handle) {
+        return this.getStructureByHandle(handle, Gate.class).map(Gate::isDestroyed).orElse(false);
+    }
+    /**
+     * Checks whether the princess with the given handle exists and is being carried.
+     *
+     * @param handle the handle of the princess.
+     * @return {@code true} if the princess is carried, {@code false} otherwise.
+     */
+    private boolean isPrincessCarried(int handle) {
+        return this.getResourceByHandle(handle, Princess.class).map(Princess::isCarried).orElse(false);
+    }
     /**
      * Adds wood to the appropriate team's wood count based on the agent's team.
      *
      * @param agent the agent that gathered the wood.
      */
-    private synchronized void addWood(Agent agent) {
-        if (!agent.getTeam()) {
-            synchronized (this.woodAmountBlue) {
-                woodAmountBlue.incrementAndGet();
-            }
-        } else if (agent.getTeam()) {
-            synchronized (this.woodAmountRed) {
-                woodAmountRed.incrementAndGet();
-            }
-        }
+    private void addWood(Agent agent) {
+        int wood = this.teamLedger.depositWood(agent.getTeam(), 1);
+        this.eventBus.publish(new GameEvent.WoodDeposited(agent.getTeam(), wood));
     }
     /**
-     * Retrieves a gate by its name.
+     * Retrieves a gate by its name with a single lookup in the structure handles.
      *
      * @param gName the name of the gate to retrieve.
      * @return an {@code Optional} containing the gate if found, or an empty {@code Optional} if not.
      */
-    public synchronized Optional<Gate> getGateByName(String gName) {
-        synchronized (this.structuresList) {
-            return this.getAllStructures(Gate.class).stream()
-                    .filter(entry -> gName.equals(entry.getName()))
-                    .map(gate -> (Gate) gate) // Cast to Gate
-                    .findFirst();
-        }
+    public Optional<Gate> getGateByName(String gName) {
+        return this.getStructureByHandle(this.structureHandles.getHandle(gName), Gate.class);
     }
     /**
-     * Retrieves a tree by its name.
+     * Retrieves a tree by its name with a single lookup in the structure handles.
      *
      * @param tName the name of the tree to retrieve.
      * @return an {@code Optional} containing the tree if found, or an empty {@code Optional} if not.
      */
-    public synchronized Optional<Tree> getTreeByName(String tName) {
-        synchronized (this.structuresList) {
-            return this.getAllStructures(Tree.class).stream()
-                    .filter(entry -> tName.equals(entry.getName()))
-                    .map(tree -> (Tree) tree) // Cast to Tree
-                    .findFirst();
-        }
+    public Optional<Tree> getTreeByName(String tName) {
+        return this.getStructureByHandle(this.structureHandles.getHandle(tName), Tree.class);
     }
     /**
-     * Retrieves a princess by her name.
+     * Retrieves a princess by her name with a single lookup in the resource handles.
      *
      * @param pName the name of the princess to retrieve.
      * @return an {@code Optional} containing the princess if found, or an empty {@code Optional} if not.
      */
-    public synchronized Optional<Princess> getPrincessByName(String pName) {
-        synchronized (this.resourcesList) {
-            return this.getAllResources(Princess.class).stream()
-                    .filter(entry -> pName.equals(entry.getName()))
-                    .map(princess -> (Princess) princess) // Cast to Princess
-                    .findFirst();
-        }
+    public Optional<Princess> getPrincessByName(String pName) {
+        return this.getResourceByHandle(this.resourceHandles.getHandle(pName), Princess.class);
+    }
+    /**
+     * Retrieves the interned handle of a structure (gate, tree, wall...), which can be cached by
+     * callers and later resolved with {@link #getStructureByHandle(int, Class)}.
+     *
+     * @param name the name of the structure.
+     * @return the handle of the structure, or {@link HandleRegistry#NO_HANDLE} if it does not exist.
+     */
+    public int getStructureHandle(String name) {
+        return this.structureHandles.getHandle(name);
+    }
+    /**
+     * Retrieves a structure by its interned handle.
+     *
+     * @param handle         the handle of the structure.
+     * @param structureClass the expected class of the structure (e.g., {@code Gate.class}).
+     * @return an {@code Optional} containing the structure, or an empty {@code Optional} if the handle
+     *         is not valid or refers to a structure of a different class.
+     */
+    public <S extends MapStructure> Optional<S> getStructureByHandle(int handle, Class<S> structureClass) {
+        return this.structureHandles.get(handle, structureClass);
+    }
+    /**
+     * Retrieves the interned handle of a resource (e.g. a princess), which can be cached by callers
+     * and later resolved with {@link #getResourceByHandle(int, Class)}.
+     *
+     * @param name the name of the resource.
+     * @return the handle of the resource, or {@link HandleRegistry#NO_HANDLE} if it does not exist.
+     */
+    public int getResourceHandle(String name) {
+        return this.resourceHandles.getHandle(name);
+    }
+    /**
+     * Retrieves a resource by its interned handle.
+     *
+     * @param handle        the handle of the resource.
+     * @param resourceClass the expected class of the resource (e.g., {@code Princess.class}).
+     * @return an {@code Optional} containing the resource, or an empty {@code Optional} if the handle
+     *         is not valid or refers to a resource of a different class.
+     */
+    public <R extends Resource> Optional<R> getResourceByHandle(int handle, Class<R> resourceClass) {
+        return this.resourceHandles.get(handle, resourceClass);
     }
 
 
@@ -1679,16 +2292,15 @@ public class BlackForestGameMap {
      * @return A {@code List} of cells filtered according to the specified criteria, ordered in
      *         raster scan order (row by row, left to right).
      */
-    public synchronized List<Cell> getAllCells(
+    public List<Cell> getAllCells(
             Zone zoneType,
             Class<? extends MapStructure> structureClass, Predicate<MapStructure> structurePredicate,
             Class<? extends Resource> resourceClass, Predicate<Resource> resourcePredicate,
             Class<? extends Agent> agentClass, Predicate<Agent> agentPredicate,
             boolean includeMatching) {
 
-        synchronized (this.map) {
-            return Arrays.stream(map)
-                    .flatMap(Arrays::stream)
+        return this.regionLocks.withAllShared("getAllCells", () -> {
+            return candidateCells(zoneType, structureClass, resourceClass, includeMatching).stream()
                     .filter(cell -> {
                         boolean matches = true;
 
@@ -1712,7 +2324,43 @@ public class BlackForestGameMap {
                         return includeMatching == matches;
                     })
                     .collect(Collectors.toList());
+        });
+    }
+    /**
+     * Selects the smallest set of cells that can satisfy a {@link #getAllCells} query, using the
+     * precomputed cell index for the static criteria (zone type and structure class) and the
+     * resources registry for the resource class.  The remaining, dynamic criteria are evaluated by
+     * the caller on the returned candidates.  Complement queries and queries issued while the map
+     * is still being built fall back to the whole map.
+     *
+     * @param zoneType       the zone type criterion, or {@code null}.
+     * @param structureClass the structure class criterion, or {@code null}.
+     * @param resourceClass  the resource class criterion, or {@code null}.
+     * @param includeMatching whether the query returns the matching cells or their complement.
+     * @return the candidate cells, in the same order as the full map traversal.
+     */
+    private List<Cell> candidateCells(Zone zoneType, Class<? extends MapStructure> structureClass,
+                                      Class<? extends Resource> resourceClass, boolean includeMatching) {
+        if (this.cellIndex == null) {
+            return Arrays.stream(map).flatMap(Arrays::stream).collect(Collectors.toList());
+        }
+        if (!includeMatching) {
+            return this.cellIndex.getAllCells();
+        }
+        if (structureClass != null) {
+            return this.cellIndex.getCellsWithStructure(structureClass);
         }
+        if (resourceClass != null) {
+            return this.getAllResources(resourceClass).stream()
+                    .map(resource -> this.getCellByPosition(resource.getPose().getPosition()))
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .collect(Collectors.toList());
+        }
+        if (zoneType != null) {
+            return this.cellIndex.getCellsInZone(zoneType);
+        }
+        return this.cellIndex.getAllCells();
     }
     /**
      * Retrieves the cell at the specified coordinates.
@@ -1722,13 +2370,11 @@ public class BlackForestGameMap {
      * @return the {@code Cell} at the specified coordinates, or {@code null} if the coordinates are
      *         outside the map boundaries.
      */
-    public synchronized Cell getCellByPosition(int x, int y) {
-        synchronized (this.map) {
-            if (!this.isPositionInside(x, y)) {
-                return null;
-            }
-            return map[x][y];
+    public Cell getCellByPosition(int x, int y) {
+        if (!this.isPositionInside(x, y)) {
+            return null;
         }
+        return map[x][y]; // The cells never change after construction, only their content does
     }
     /**
      * Retrieves the cell at the specified position.
@@ -1737,9 +2383,67 @@ public class BlackForestGameMap {
      * @return the {@code Cell} at the specified position, or {@code null} if the position is
      *         outside the map boundaries.
      */
-    public synchronized Cell getCellByPosition(Vector2D position) {
+    public Cell getCellByPosition(Vector2D position) {
         return this.getCellByPosition(position.getX(), position.getY());
     }
+    /**
+     * Runs a read-only query over the map without blocking the agents acting on it: the query is
+     * validated against the writes made while it ran, and run again if any happened (see
+     * {@link RegionLocks#read(String, Supplier)}).  The query may therefore be run several times and must
+     * not modify the map.
+     *
+     * @param reader the read-only query.
+     * @param <T> the type of the result.
+     * @return the result of the query, consistent with a state of the map.
+     */
+    public <T> T readOptimistically(Supplier<T> reader) {
+        return this.regionLocks.read("readOptimistically", reader);
+    }
+    /**
+     * Runs a read-only query over the map holding the whole world in shared mode, excluding every
+     * operation writing the map while it runs.
+     *
+     * @param reader the read-only query.
+     * @param <T> the type of the result.
+     * @return the result of the query.
+     */
+    public <T> T readLocked(Supplier<T> reader) {
+        return this.regionLocks.withAllShared("readLocked", () -> {
+            return reader.get();
+        });
+    }
+    /**
+     * Ends a tick, publishing an immutable snapshot of the current state of the world.  Only the
+     * parts of the world changed since the previous snapshot are copied, the rest is shared with it.
+     *
+     * @return the published snapshot.
+     */
+    public WorldSnapshot publishSnapshot() {
+        return this.regionLocks.withAll("publishSnapshot", () -> {
+            this.snapshot = WorldSnapshot.capture(this.snapshot, this.grid, this.agentsList, this.structuresList,
+                    this.resourcesList, this.getWoodAmountBlue(), this.getWoodAmountRed(), this.win,
+                    this.getTeamSituation(false), this.getTeamSituation(true));
+            return this.snapshot;
+        });
+    }
+    /**
+     * Retrieves the contention metrics of the locks of the map, recorded per operation once
+     * enabled.
+     *
+     * @return the lock metrics.
+     */
+    public LockMetrics getLockMetrics() {
+        return this.lockMetrics;
+    }
+    /**
+     * Retrieves the snapshot of the world published at the end of the last tick.  Reading it
+     * never contends with the agents acting on the map.
+     *
+     * @return the last published snapshot.
+     */
+    public WorldSnapshot getSnapshot() {
+        return this.snapshot;
+    }
     /**
      * Retrieves a random unoccupied cell within the specified zone.  Optionally, the cell can be
      * restricted to one of the four corners of the zone.
@@ -1751,7 +2455,7 @@ public class BlackForestGameMap {
      * @return a random unoccupied {@code Cell} within the specified zone, or {@code null} if no
      *         such cell exists.
      */
-    private synchronized Cell getRandomCell(Agent agent, Zone zone, boolean corner) {
+    private Cell getRandomCell(Agent agent, Zone zone, boolean corner) {
         // Get all unoccupied cells in the specified zone
         List<Cell> availableCells = getAllCells(
                 zone,
@@ -1844,6 +2548,18 @@ public class BlackForestGameMap {
 
     }
 
+    /**
+     * Checks if the terrain at the given coordinates can be walked through by an agent of the
+     * given team (see {@link Cell#isWalkableFor(boolean)}).  Agents and resources are ignored.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @param team the team of the walking agent.
+     * @return {@code true} if the position is inside the map and walkable, {@code false} otherwise.
+     */
+    public boolean isWalkable(int x, int y, boolean team) {
+        return this.isPositionInside(x, y) && this.grid.isWalkable(x, y, team);
+    }
     /**
      * Checks if a given position is within the boundaries of the map.
      *
@@ -1894,8 +2610,8 @@ public class BlackForestGameMap {
         // Set base zones
         for (int x = 0; x < baseWidth; x++) {
             for (int y = baseHeight; y < this.getHeight() - baseHeight; y++) {
-                map[x][y] = new Cell(Zone.BBASE, x, y);
-                map[this.getWidth() - x - 1][this.getHeight() - y - 1] = new Cell(Zone.RBASE, this.getWidth() - x - 1, this.getHeight() - y - 1);
+                map[x][y] = this.grid.reset(x, y, Zone.BBASE);
+                map[this.getWidth() - x - 1][this.getHeight() - y - 1] = this.grid.reset(this.getWidth() - x - 1, this.getHeight() - y - 1, Zone.RBASE);
             }
         }
 
@@ -1903,12 +2619,12 @@ public class BlackForestGameMap {
 
         for (int x = 0; x < baseWidth + 1; x++) {
             for (int y = 0; y < baseHeight - 1; y++) {
-                map[x][y] = new Cell(Zone.OUT_OF_MAP, x, y);
-                map[x][this.getHeight() - y - 1] = new Cell(Zone.OUT_OF_MAP, x, this.getHeight() - y - 1);
+                map[x][y] = this.grid.reset(x, y, Zone.OUT_OF_MAP);
+                map[x][this.getHeight() - y - 1] = this.grid.reset(x, this.getHeight() - y - 1, Zone.OUT_OF_MAP);
 
                 int mirroredX = this.getWidth() - x - 1;
-                map[mirroredX][y] = new Cell(Zone.OUT_OF_MAP, mirroredX, y);
-                map[mirroredX][this.getHeight() - y - 1] = new Cell(Zone.OUT_OF_MAP, mirroredX, this.getHeight() - y - 1);
+                map[mirroredX][y] = this.grid.reset(mirroredX, y, Zone.OUT_OF_MAP);
+                map[mirroredX][this.getHeight() - y - 1] = this.grid.reset(mirroredX, this.getHeight() - y - 1, Zone.OUT_OF_MAP);
             }
         }
 
@@ -1921,7 +2637,7 @@ public class BlackForestGameMap {
 
         for (int x = centerX - 1; x <= centerX + 1; x++) {
             for (int y = 0; y < this.getHeight(); y++) {
-                map[x][y] = new Cell(Zone.OUT_OF_MAP, x, y);
+                map[x][y] = this.grid.reset(x, y, Zone.OUT_OF_MAP);
             }
         }
 
@@ -1943,20 +2659,20 @@ public class BlackForestGameMap {
             }
 
             if (map[x][crossableY1] != null && map[x][crossableY1].getZoneType() == Zone.OUT_OF_MAP) {
-                map[x][crossableY1] = new Cell(Zone.BATTLEFIELD, x, crossableY1);
+                map[x][crossableY1] = this.grid.reset(x, crossableY1, Zone.BATTLEFIELD);
             }
             if (map[x][crossableY2] != null && map[x][crossableY2].getZoneType() == Zone.OUT_OF_MAP) {
-                map[x][crossableY2] = new Cell(Zone.BATTLEFIELD, x, crossableY2);
+                map[x][crossableY2] = this.grid.reset(x, crossableY2, Zone.BATTLEFIELD);
             }
             if (map[x][crossableY3] != null && map[x][crossableY3].getZoneType() == Zone.OUT_OF_MAP) {
-                map[x][crossableY3] = new Cell(Zone.BATTLEFIELD, x, crossableY3);
+                map[x][crossableY3] = this.grid.reset(x, crossableY3, Zone.BATTLEFIELD);
             }
         }
 
         for (int x = 0; x < this.getWidth(); x++) {
             for (int y = 0; y < this.getHeight(); y++) {
                 if (map[x][y] == null) {
-                    map[x][y] = new Cell(Zone.BATTLEFIELD, x, y);
+                    map[x][y] = this.grid.reset(x, y, Zone.BATTLEFIELD);
                 }
             }
 
@@ -1965,17 +2681,17 @@ public class BlackForestGameMap {
                 if (map[x][crossableY1] != null) {
                     Empty empty1 = new Empty(new Pose(new Vector2D(x, crossableY1), Orientation.SOUTH), "half");
                     map[x][crossableY1].setStructure(empty1);
-                    structuresList.put("empty_" + x + "_" + crossableY1, empty1);
+                    this.registerStructure("empty_" + x + "_" + crossableY1, empty1);
                 }
                 if (map[x][crossableY2] != null) {
                     Empty empty2 = new Empty(new Pose(new Vector2D(x, crossableY2), Orientation.SOUTH), "half");
                     map[x][crossableY2].setStructure(empty2);
-                    structuresList.put("empty_" + x + "_" + crossableY2, empty2);
+                    this.registerStructure("empty_" + x + "_" + crossableY2, empty2);
                 }
                 if (map[x][crossableY3] != null) {
                     Empty empty3 = new Empty(new Pose(new Vector2D(x, crossableY3), Orientation.SOUTH), "half");
                     map[x][crossableY3].setStructure(empty3);
-                    structuresList.put("empty_" + x + "_" + crossableY3, empty3);
+                    this.registerStructure("empty_" + x + "_" + crossableY3, empty3);
                 }
                 flagPlaced = true;
             }
@@ -2000,19 +2716,19 @@ public class BlackForestGameMap {
                         map[x][y].setZoneType(Zone.BBASE);
                         map[x][y + 1].setZoneType(Zone.BBASE);
 
-                        structuresList.put(gate1.getName(), gate1);
-                        structuresList.put(gate2.getName(), gate2);
+                        this.registerStructure(gate1.getName(), gate1);
+                        this.registerStructure(gate2.getName(), gate2);
 
                         Empty empty1 = new Empty(new Pose(new Vector2D(x + 2, y), Orientation.SOUTH), "base_b");
                         Empty empty2 = new Empty(new Pose(new Vector2D(x + 2, y + 1), Orientation.SOUTH), "base_b");
                         map[x+2][y].setStructure(empty1);
                         map[x+2][y + 2].setStructure(empty2);
-                        structuresList.put("empty_" + (x + 2) + "_" + y, empty1);
-                        structuresList.put("empty_" + (x + 2) + "_" + (y + 1), empty2);
+                        this.registerStructure("empty_" + (x + 2) + "_" + y, empty1);
+                        this.registerStructure("empty_" + (x + 2) + "_" + (y + 1), empty2);
                     } else if (y != this.getHeight() / 2) {
                         Wall wall = new Wall("wall_b" + blueWallsIdx, false, new Pose(new Vector2D(x, y), Orientation.SOUTH));
                         map[x][y].setStructure(wall);
-                        structuresList.put(wall.getName(), wall);
+                        this.registerStructure(wall.getName(), wall);
                         blueWallsIdx++;
                     }
                 }
@@ -2032,19 +2748,19 @@ public class BlackForestGameMap {
                         map[x][y].setZoneType(Zone.RBASE);
                         map[x][y + 1].setZoneType(Zone.RBASE);
 
-                        structuresList.put(gate1.getName(), gate1);
-                        structuresList.put(gate2.getName(), gate2);
+                        this.registerStructure(gate1.getName(), gate1);
+                        this.registerStructure(gate2.getName(), gate2);
 
                         Empty empty1 = new Empty(new Pose(new Vector2D(x - 2, y), Orientation.SOUTH), "base_r");
                         Empty empty2 = new Empty(new Pose(new Vector2D(x - 2, y + 1), Orientation.SOUTH), "base_r");
                         map[x-2][y].setStructure(empty1);
                         map[x-2][y + 2].setStructure(empty2);
-                        structuresList.put("empty_" + (x - 2) + "_" + y, empty1);
-                        structuresList.put("empty_" + (x - 2) + "_" + (y + 1), empty2);
+                        this.registerStructure("empty_" + (x - 2) + "_" + y, empty1);
+                        this.registerStructure("empty_" + (x - 2) + "_" + (y + 1), empty2);
                     } else if (y != this.getHeight() / 2) {
                         Wall wall = new Wall("wall_r" + redWallsIdx, true, new Pose(new Vector2D(x, y), Orientation.SOUTH));
                         map[x][y].setStructure(wall);
-                        structuresList.put(wall.getName(), wall);
+                        this.registerStructure(wall.getName(), wall);
                         redWallsIdx++;
                     }
                 }
@@ -2064,7 +2780,7 @@ public class BlackForestGameMap {
                 Bridge bridge = new Bridge(10, new Pose(new Vector2D(x, y), Orientation.SOUTH));
                 map[x][y].setStructure(bridge);
                 map[x][y].setZoneType(Zone.BATTLEFIELD);
-                structuresList.put("bridge_" + x + "_" + y, bridge);
+                this.registerStructure("bridge_" + x + "_" + y, bridge);
             }
         }
     }
@@ -2171,7 +2887,14 @@ public class BlackForestGameMap {
             // Place tree
             Tree tree = new Tree("tree_" + i, 50, 30000, new Pose(selectedPos, Orientation.SOUTH));
             selectedCell.setStructure(tree);
-            structuresList.put(tree.getName(), tree);
+            tree.setRespawnScheduler((respawn, delayMillis) -> this.respawnScheduler.schedule(
+                    () -> this.mutationExecutor.execute(() -> this.regionLocks.withAll("respawnTree", respawn)),
+                    delayMillis));
+            tree.setRespawnListener(() -> {
+                this.onTreeStateChanged(tree);
+                this.eventBus.publish(new GameEvent.TreeRespawned(tree));
+            });
+            this.registerStructure(tree.getName(), tree);
 
             removeAdjacentCells(spawnablePositions, selectedPos);
         }
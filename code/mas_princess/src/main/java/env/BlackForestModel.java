@@ -7,7 +7,8 @@ import env.objects.resources.*;
 
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 /**
  * The `BlackForestModel` class represents the underlying data and logic for the Black Forest simulation.
@@ -27,6 +28,13 @@ public class BlackForestModel implements MapModel {
         this.gameMap = new BlackForestGameMap(width, height, view);
     }
 
+    /**
+     * @see BlackForestGameMap#setMutationExecutor(Executor)
+     */
+    protected void setMutationExecutor(Executor mutationExecutor) {
+        this.gameMap.setMutationExecutor(mutationExecutor);
+    }
+
     /**
      * @see BlackForestGameMap#getWidth()
      */
@@ -92,6 +100,13 @@ public class BlackForestModel implements MapModel {
     public boolean moveAgent(Agent agent, int stepSize, Direction direction) {
         return this.gameMap.moveAgent(agent, stepSize, direction);
     }
+    /**
+     * @see BlackForestGameMap#resolveMoves(MoveResolver)
+     */
+    @Override
+    public void resolveMoves(MoveResolver resolver) {
+        this.gameMap.resolveMoves(resolver);
+    }
     /**
      * @see BlackForestGameMap#attackGate(Agent, Gate)
      */
@@ -118,6 +133,13 @@ public class BlackForestModel implements MapModel {
      */
     @Override
     public boolean pickUpPrincess(Agent agent, Princess target) {return this.gameMap.pickUpPrincess(agent, target);}
+    /**
+     * @see BlackForestGameMap#deliverPrincess(Agent)
+     */
+    @Override
+    public boolean deliverPrincess(Agent agent) {
+        return this.gameMap.deliverPrincess(agent);
+    }
     /**
      * @see BlackForestGameMap#getAgentByName(String)
      */
@@ -125,6 +147,20 @@ public class BlackForestModel implements MapModel {
     public Optional<Agent> getAgentByName(String agName) {
         return this.gameMap.getAgentByName(agName);
     }
+    /**
+     * @see BlackForestGameMap#getAgentHandle(String)
+     */
+    @Override
+    public int getAgentHandle(String agName) {
+        return this.gameMap.getAgentHandle(agName);
+    }
+    /**
+     * @see BlackForestGameMap#getAgentByHandle(int)
+     */
+    @Override
+    public Optional<Agent> getAgentByHandle(int handle) {
+        return this.gameMap.getAgentByHandle(handle);
+    }
     /**
      * @see BlackForestGameMap#getAgentNeighbours(Agent, int)
      */
@@ -161,11 +197,33 @@ public class BlackForestModel implements MapModel {
         return this.gameMap.getAgentSurroundingPositions(agent);
     }
     /**
+     * Determines the closest objective of an agent and then completes the delivery of the
+     * princess it carries, if the objective reports one.
+     *
      * @see BlackForestGameMap#getClosestObjective(Agent)
+     * @see #deliverPrincess(Agent)
      */
     @Override
     public Pair<String, Vector2D> getClosestObjective(Agent agent) {
-        return this.gameMap.getClosestObjective(agent);
+        Pair<String, Vector2D> objective = this.gameMap.getClosestObjective(agent);
+        if (agent.getCarriedItem() instanceof Princess) {
+            this.deliverPrincess(agent);
+        }
+        return objective;
+    }
+    /**
+     * @see BlackForestGameMap#getNextStep(Agent, Vector2D)
+     */
+    @Override
+    public Optional<String> getNextStep(Agent agent, Vector2D target) {
+        return this.gameMap.getNextStep(agent, target);
+    }
+    /**
+     * @see BlackForestGameMap#findPath(Agent, Vector2D)
+     */
+    @Override
+    public Optional<List<Vector2D>> findPath(Agent agent, Vector2D target) {
+        return this.gameMap.findPath(agent, target);
     }
 
     // Artifacts management
@@ -173,16 +231,37 @@ public class BlackForestModel implements MapModel {
      * @see BlackForestGameMap#getWoodAmountRed()
      */
     @Override
-    public AtomicInteger getWoodAmountRed() {
+    public int getWoodAmountRed() {
         return gameMap.getWoodAmountRed();
     }
     /**
      * @see BlackForestGameMap#getWoodAmountBlue()
      */
     @Override
-    public AtomicInteger getWoodAmountBlue() {
+    public int getWoodAmountBlue() {
         return gameMap.getWoodAmountBlue();
     }
+    /**
+     * @see BlackForestGameMap#getTeamLedger()
+     */
+    @Override
+    public TeamLedger getTeamLedger() {
+        return gameMap.getTeamLedger();
+    }
+    /**
+     * @see BlackForestGameMap#getTeamSituation(boolean)
+     */
+    @Override
+    public TeamSituation getTeamSituation(boolean team) {
+        return gameMap.getTeamSituation(team);
+    }
+    /**
+     * @see BlackForestGameMap#getEventBus()
+     */
+    @Override
+    public GameEventBus getEventBus() {
+        return gameMap.getEventBus();
+    }
     /**
      * @see BlackForestGameMap#getGateByName(String)
      */
@@ -201,6 +280,34 @@ public class BlackForestModel implements MapModel {
     @Override
     public Optional<Princess> getPrincessByName(String pName)
     { return this.gameMap.getPrincessByName(pName); }
+    /**
+     * @see BlackForestGameMap#getStructureHandle(String)
+     */
+    @Override
+    public int getStructureHandle(String name) {
+        return this.gameMap.getStructureHandle(name);
+    }
+    /**
+     * @see BlackForestGameMap#getStructureByHandle(int, Class)
+     */
+    @Override
+    public <S extends MapStructure> Optional<S> getStructureByHandle(int handle, Class<S> structureClass) {
+        return this.gameMap.getStructureByHandle(handle, structureClass);
+    }
+    /**
+     * @see BlackForestGameMap#getResourceHandle(String)
+     */
+    @Override
+    public int getResourceHandle(String name) {
+        return this.gameMap.getResourceHandle(name);
+    }
+    /**
+     * @see BlackForestGameMap#getResourceByHandle(int, Class)
+     */
+    @Override
+    public <R extends Resource> Optional<R> getResourceByHandle(int handle, Class<R> resourceClass) {
+        return this.gameMap.getResourceByHandle(handle, resourceClass);
+    }
 
     // Map
     /**
@@ -210,6 +317,41 @@ public class BlackForestModel implements MapModel {
     public Cell getCellByPosition(Vector2D position) {
         return this.gameMap.getCellByPosition(position);
     }
+    /**
+     * @see BlackForestGameMap#readOptimistically(Supplier)
+     */
+    @Override
+    public <T> T readOptimistically(Supplier<T> reader) {
+        return this.gameMap.readOptimistically(reader);
+    }
+    /**
+     * @see BlackForestGameMap#readLocked(Supplier)
+     */
+    @Override
+    public <T> T readLocked(Supplier<T> reader) {
+        return this.gameMap.readLocked(reader);
+    }
+    /**
+     * @see BlackForestGameMap#publishSnapshot()
+     */
+    @Override
+    public WorldSnapshot publishSnapshot() {
+        return this.gameMap.publishSnapshot();
+    }
+    /**
+     * @see BlackForestGameMap#getSnapshot()
+     */
+    @Override
+    public WorldSnapshot getSnapshot() {
+        return this.gameMap.getSnapshot();
+    }
+    /**
+     * @see BlackForestGameMap#getLockMetrics()
+     */
+    @Override
+    public LockMetrics getLockMetrics() {
+        return this.gameMap.getLockMetrics();
+    }
     /**
      * @see BlackForestGameMap#setView(MapView)
      */
@@ -217,5 +359,12 @@ public class BlackForestModel implements MapModel {
     public void setView(MapView view) {
         this.gameMap.setView(view);
     }
+    /**
+     * @see BlackForestGameMap#setRespawnScheduler(Tree.RespawnScheduler)
+     */
+    @Override
+    public void setRespawnScheduler(Tree.RespawnScheduler respawnScheduler) {
+        this.gameMap.setRespawnScheduler(respawnScheduler);
+    }
 
 }
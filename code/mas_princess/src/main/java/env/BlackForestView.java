@@ -11,6 +11,7 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -40,6 +41,7 @@ public class BlackForestView extends JFrame implements MapView {
     private final Map<String, ImageIcon> princessSprites = new HashMap<>();
 
     private JLabel woodBlueLabel, woodRedLabel, princessBlueLabel, princessRedLabel;
+    private final AtomicBoolean resourcesChanged = new AtomicBoolean(true); // Set by the events shown in the resource panel
     private JProgressBar gateB1HpBar, gateB2HpBar, gateR1HpBar, gateR2HpBar;
     private int outOfMapAnimationFrame = 0; // Track animation frame for OUT_OF_MAP zone
     private final ImageIcon[] outOfMapSprites = new ImageIcon[2]; // Hold river sprites for animation
@@ -65,6 +67,12 @@ public class BlackForestView extends JFrame implements MapView {
     public BlackForestView(MapModel model) {
         this.model = Objects.requireNonNull(model);
 
+        // Refresh the resource panel only after the changes it shows
+        model.getEventBus().subscribe(GameEvent.GateEvent.class, event -> resourcesChanged.set(true));
+        model.getEventBus().subscribe(GameEvent.PrincessPickedUp.class, event -> resourcesChanged.set(true));
+        model.getEventBus().subscribe(GameEvent.PrincessDropped.class, event -> resourcesChanged.set(true));
+        model.getEventBus().subscribe(GameEvent.WoodDeposited.class, event -> resourcesChanged.set(true));
+
         // Load sprites for zones and agents
         loadSprites();
         animationTimer.start();
@@ -330,9 +338,13 @@ public class BlackForestView extends JFrame implements MapView {
     }
     /**
      * Refreshes the background of the map, updating the icons for zones, agents, and resources.
+     * The map is rendered from the snapshot published at the end of the last tick, so that it
+     * never shows a half-applied action and never waits for the agents acting on the model.
      */
     private void refreshBackground() {
         Map<Vector2D, String> entitiesNamesToRender = new HashMap<>();
+        WorldSnapshot snapshot = model.getSnapshot();
+        WorldGrid.Frozen grid = snapshot.getGrid();
 
         for (int y = 0; y < model.getHeight(); y++) {
             for (int x = 0; x < model.getWidth(); x++) {
@@ -340,31 +352,27 @@ public class BlackForestView extends JFrame implements MapView {
                 JLabel cellLabel = cellsGrid.get(position);
 
                 if (cellLabel != null) {
-                    Cell cell = model.getCellByPosition(position);
-                    Zone zoneType = cell.getZoneType();
+                    Zone zoneType = grid.getZone(x, y);
                     ImageIcon zoneSprite;
 
 
                     // Handle animation for OUT_OF_MAP zone
                     if (zoneType == Zone.OUT_OF_MAP) {
-                        boolean isBridge = cell.getStructure() instanceof Bridge;
-                        Zone effectiveZoneType = isBridge ? Zone.OUT_OF_MAP : cell.getZoneType();
-
-                        boolean hasBattlefieldN = y > 0 && (model.getCellByPosition(Vector2D.of(x, y - 1)).getStructure() instanceof Bridge
+                        boolean hasBattlefieldN = y > 0 && (grid.getStructure(x, y - 1) instanceof Bridge
                                 ? Zone.OUT_OF_MAP
-                                : model.getCellByPosition(Vector2D.of(x, y - 1)).getZoneType()) == Zone.BATTLEFIELD;
+                                : grid.getZone(x, y - 1)) == Zone.BATTLEFIELD;
 
-                        boolean hasBattlefieldS = y < model.getHeight() - 1 && (model.getCellByPosition(Vector2D.of(x, y + 1)).getStructure() instanceof Bridge
+                        boolean hasBattlefieldS = y < model.getHeight() - 1 && (grid.getStructure(x, y + 1) instanceof Bridge
                                 ? Zone.OUT_OF_MAP
-                                : model.getCellByPosition(Vector2D.of(x, y + 1)).getZoneType()) == Zone.BATTLEFIELD;
+                                : grid.getZone(x, y + 1)) == Zone.BATTLEFIELD;
 
-                        boolean hasBattlefieldE = x < model.getWidth() - 1 && (model.getCellByPosition(Vector2D.of(x + 1, y)).getStructure() instanceof Bridge
+                        boolean hasBattlefieldE = x < model.getWidth() - 1 && (grid.getStructure(x + 1, y) instanceof Bridge
                                 ? Zone.OUT_OF_MAP
-                                : model.getCellByPosition(Vector2D.of(x + 1, y)).getZoneType()) == Zone.BATTLEFIELD;
+                                : grid.getZone(x + 1, y)) == Zone.BATTLEFIELD;
 
-                        boolean hasBattlefieldW = x > 0 && (model.getCellByPosition(Vector2D.of(x - 1, y)).getStructure() instanceof Bridge
+                        boolean hasBattlefieldW = x > 0 && (grid.getStructure(x - 1, y) instanceof Bridge
                                 ? Zone.OUT_OF_MAP
-                                : model.getCellByPosition(Vector2D.of(x - 1, y)).getZoneType()) == Zone.BATTLEFIELD;
+                                : grid.getZone(x - 1, y)) == Zone.BATTLEFIELD;
 
                         if (hasBattlefieldS && !hasBattlefieldN && !hasBattlefieldE && !hasBattlefieldW) zoneSprite = outOfMapSpritesS[outOfMapAnimationFrame];
                         else if (hasBattlefieldN && !hasBattlefieldS && !hasBattlefieldE && !hasBattlefieldW) zoneSprite = new ImageIcon(getClass().getResource("/sprites/river_s.png"));
@@ -384,9 +392,9 @@ public class BlackForestView extends JFrame implements MapView {
                     ImageIcon combinedImage = new ImageIcon(createImageWithTransparency(null, zoneSprite.getImage()));
 
                     // Render structures, resources, and agents
-                    MapStructure structure = cell.getStructure();
+                    MapStructure structure = grid.getStructure(x, y);
                     if (structure != null) {
-                        ImageIcon structureIcon = getStructureIcon(structure);
+                        ImageIcon structureIcon = getStructureIcon(structure, grid.isDestroyed(x, y));
                         if (structureIcon != null) {
                             combinedImage = new ImageIcon(createImageWithTransparency(combinedImage, structureIcon.getImage()));
                         }
@@ -400,9 +408,10 @@ public class BlackForestView extends JFrame implements MapView {
                         }
                     }
 
-                    Resource resource = cell.getResource();
+                    Resource resource = grid.getResource(x, y);
                     if (resource != null) {
-                        if (resource instanceof Princess princess && !princess.isCarried()) {
+                        WorldSnapshot.ResourceState resourceState = snapshot.getResource(resource.getName());
+                        if (resource instanceof Princess princess && resourceState != null && !resourceState.isCarried()) {
                             String teamColor = princess.getTeam() ? "red" : "blue";
                             ImageIcon princessIcon = princessSprites.get(teamColor);
                             if (princessIcon != null) {
@@ -424,9 +433,10 @@ public class BlackForestView extends JFrame implements MapView {
                         }
                     }
 
-                    Agent agent = cell.getAgent();
-                    if (agent != null && agent.getHp() > 0) {
-                        ImageIcon agentIcon = getAgentIcon(agent);
+                    Agent agent = grid.getAgent(x, y);
+                    WorldSnapshot.AgentState agentState = snapshot.getAgent(agent);
+                    if (agentState != null && agentState.getHp() > 0) {
+                        ImageIcon agentIcon = getAgentIcon(agent, agentState.getPose(), agentState.getCarriedItem() != null);
                         if (agentIcon != null) {
                             combinedImage = new ImageIcon(createImageWithTransparency(combinedImage, agentIcon.getImage()));
                         }
@@ -459,11 +469,11 @@ public class BlackForestView extends JFrame implements MapView {
      * Gets the appropriate icon for a given structure.
      *
      * @param structure The structure instance.
+     * @param isDestroyed Whether the structure is destroyed.
      * @return The ImageIcon for the structure.
      */
-    private ImageIcon getStructureIcon(MapStructure structure) {
+    private ImageIcon getStructureIcon(MapStructure structure, boolean isDestroyed) {
         if (structure instanceof Gate gate) {
-            boolean isDestroyed = gate.isDestroyed();
             boolean isRedTeam = gate.getTeam(); // 'True' means red team, 'false' means blue
 
             if (isDestroyed) {
@@ -479,8 +489,8 @@ public class BlackForestView extends JFrame implements MapView {
             return new ImageIcon(getClass().getResource("/sprites/wall.png"));
         } else if (structure instanceof Bridge) {
             return new ImageIcon(getClass().getResource("/sprites/bridge.png"));
-        } else if (structure instanceof Tree tree) {
-            if (tree.isDestroyed()) {
+        } else if (structure instanceof Tree) {
+            if (isDestroyed) {
                 return new ImageIcon(getClass().getResource("/sprites/cuttree.png"));
             } else {
                 return new ImageIcon(getClass().getResource("/sprites/tree.png"));
@@ -496,7 +506,17 @@ public class BlackForestView extends JFrame implements MapView {
      * @return The ImageIcon for the agent, or null if not found.
      */
     private ImageIcon getAgentIcon(Agent agent) {
-        Pose pose = agent.getPose();
+        return getAgentIcon(agent, agent.getPose(), agent.getCarriedItem() != null);
+    }
+    /**
+     * Gets the appropriate icon for an agent in the given pose, handling animation frames.
+     *
+     * @param agent The agent.
+     * @param pose The pose of the agent.
+     * @param carrying Whether the agent is carrying an item.
+     * @return The ImageIcon for the agent, or null if not found.
+     */
+    private ImageIcon getAgentIcon(Agent agent, Pose pose, boolean carrying) {
         if (pose == null) return null;
 
         AgentKey key = new AgentKey(agent.getClass(), agent.getTeam(), pose.getOrientation());
@@ -507,7 +527,7 @@ public class BlackForestView extends JFrame implements MapView {
         ImageIcon baseIcon = sprites.get(frame % sprites.size());
 
         // If the agent is carrying an item, add overlay
-        Image finalImage = (agent.getCarriedItem() != null)
+        Image finalImage = carrying
                 ? createImageWithTransparency(baseIcon, crownIcon.getImage()) // Apply overlay
                 : baseIcon.getImage();
 
@@ -764,8 +784,8 @@ public class BlackForestView extends JFrame implements MapView {
      * Updates the resource panel with the latest information from the game model.
      */
     private void updateResourcePanel() {
-        woodBlueLabel.setText(String.valueOf(model.getWoodAmountBlue().get()));
-        woodRedLabel.setText(String.valueOf(model.getWoodAmountRed().get()));
+        woodBlueLabel.setText(String.valueOf(model.getWoodAmountBlue()));
+        woodRedLabel.setText(String.valueOf(model.getWoodAmountRed()));
 
         if (model.getPrincessByName("princess_b").get().isCarried()) {
             princessBlueLabel.setText("Picked Up");
@@ -983,14 +1003,17 @@ public class BlackForestView extends JFrame implements MapView {
         showTemporaryEffect(position, "/sprites/heal.png", 250);
     }
     /**
-     * Notifies the view that the model has changed, triggering updates to the UI.
+     * Notifies the view that the model has changed, triggering updates to the UI.  The resource
+     * panel is only updated if one of the events it shows was published since its last update.
      */
     @Override
     public void notifyModelChanged() {
         SwingUtilities.invokeLater(() -> {
             refreshBackground();
             updateAgentList();
-            updateResourcePanel(); // New method to refresh wood count
+            if (resourcesChanged.getAndSet(false)) {
+                updateResourcePanel(); // New method to refresh wood count
+            }
         });
     }
 }
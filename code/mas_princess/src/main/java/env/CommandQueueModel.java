@@ -0,0 +1,312 @@
+package env;
+
+import env.agents.*;
+import env.objects.resources.*;
+import env.objects.structures.*;
+import env.utils.*;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+/**
+ * A {@link BlackForestModel} in which a single world thread performs every mutation of the map.
+ * <p>
+ * The mutating calls (spawning, resetting, moving, attacking, healing, repairing, picking up and
+ * delivering princesses) are not run by the calling thread: they are enqueued as commands in a
+ * bounded {@link MpscRingBuffer} and applied one at a time, in enqueue order, by the world thread.
+ * The callers only pay for the enqueue and then wait on the completion handle of their command
+ * (see {@link #submit(BooleanSupplier)}); the blocking methods of {@link MapModel} simply wait for
+ * it.  The changes no agent requests, such as the respawn of the trees, are enqueued and waited
+ * for the same way by the threads of their timers, so that they are complete by the time those
+ * threads move on (e.g. within the tick of the engine that applies them).  Since the map is only ever written by one thread, its locks are
+ * never contended by writers and no two mutations can wait on each other.  Read-only calls,
+ * including the computation of the objectives, are still served by the calling thread.
+ */
+public class CommandQueueModel extends BlackForestModel {
+    /**
+     * The default number of commands the queue can hold.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final long FULL_QUEUE_BACKOFF_NANOS = 10_000;
+    private static final Logger LOGGER = Logger.getLogger(CommandQueueModel.class.getName());
+
+    private final MpscRingBuffer<Command> commands;
+    private final Thread worldThread;
+    private volatile boolean running, stopped;
+    private volatile boolean idle; // Whether the world thread is (about to be) parked on an empty queue
+
+    /**
+     * A mutation waiting to be applied by the world thread.
+     */
+    private static final class Command {
+        private final BooleanSupplier mutation;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean(); // Whether it was already applied or cancelled
+
+        /**
+         * Constructs a new Command.
+         *
+         * @param mutation the mutation, returning whether it succeeded.
+         */
+        private Command(BooleanSupplier mutation) {
+            this.mutation = mutation;
+        }
+
+        /**
+         * Claims the command, so that it is either applied or cancelled, exactly once.
+         *
+         * @return {@code true} if the caller claimed the command, {@code false} if it was already claimed.
+         */
+        private boolean claim() {
+            return this.claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * Cancels the command, unless it was already claimed.
+         */
+        private void cancel() {
+            if (this.claim()) {
+                this.result.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Constructs a new CommandQueueModel, whose world thread is not started yet.
+     *
+     * @param width    the width of the map.
+     * @param height   the height of the map.
+     * @param view     the view of the map.
+     * @param capacity the number of commands the queue can hold.
+     */
+    public CommandQueueModel(int width, int height, MapView view, int capacity) {
+        super(width, height, view);
+        this.commands = new MpscRingBuffer<>(capacity);
+        this.worldThread = new Thread(this::run, "world-writer");
+        this.worldThread.setDaemon(true);
+        this.setMutationExecutor(mutation -> this.await(() -> {
+            mutation.run();
+            return true;
+        }));
+    }
+
+    /**
+     * Starts the world thread.
+     */
+    public void start() {
+        this.running = true;
+        this.worldThread.start();
+    }
+
+    /**
+     * Stops the world thread once the commands already enqueued are applied.  Commands submitted
+     * afterwards are cancelled.
+     */
+    public void stop() {
+        this.stopped = true;
+        this.running = false;
+        LockSupport.unpark(this.worldThread);
+    }
+
+    /**
+     * Enqueues a mutation of the map, to be applied by the world thread.  If the queue is full,
+     * the caller waits for the world thread to make room.  Mutations submitted by the world thread
+     * itself are applied immediately.
+     *
+     * @param mutation the mutation, returning whether it succeeded.
+     * @return the completion handle, completed with the result of the mutation once applied.
+     */
+    public CompletableFuture<Boolean> submit(BooleanSupplier mutation) {
+        Command command = new Command(mutation);
+        if (Thread.currentThread() == this.worldThread) {
+            apply(command);
+            return command.result;
+        }
+
+        while (!this.stopped && !this.commands.offer(command)) {
+            LockSupport.unpark(this.worldThread);
+            LockSupport.parkNanos(FULL_QUEUE_BACKOFF_NANOS);
+        }
+        if (this.stopped) {
+            // The world thread may have drained the queue before the offer: the command is
+            // cancelled here, unless the world thread claimed it first
+            command.cancel();
+            return command.result;
+        }
+        if (this.idle) {
+            LockSupport.unpark(this.worldThread);
+        }
+        return command.result;
+    }
+
+    /**
+     * The loop of the world thread: applies the commands in enqueue order, parking while the
+     * queue is empty.
+     */
+    private void run() {
+        while (true) {
+            Command command = this.commands.poll();
+            if (command != null) {
+                apply(command);
+                continue;
+            }
+            if (!this.running) {
+                break;
+            }
+
+            this.idle = true;
+            if (this.commands.isEmpty() && this.running) {
+                LockSupport.park(this);
+            }
+            this.idle = false;
+        }
+
+        for (Command command; (command = this.commands.poll()) != null; ) {
+            command.cancel();
+        }
+    }
+
+    /**
+     * Applies a command and completes its handle, unless the command was already cancelled.
+     *
+     * @param command the command.
+     */
+    private static void apply(Command command) {
+        if (!command.claim()) {
+            return;
+        }
+        try {
+            command.result.complete(command.mutation.getAsBoolean());
+        } catch (RuntimeException e) {
+            command.result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Submits a mutation and waits for its result, rethrowing the exceptions it raised.
+     *
+     * @param mutation the mutation, returning whether it succeeded.
+     * @return the result of the mutation, {@code false} if it was cancelled.
+     */
+    private boolean await(BooleanSupplier mutation) {
+        try {
+            return this.submit(mutation).join();
+        } catch (CancellationException e) {
+            LOGGER.warning("Command cancelled, the world thread is stopped.");
+            return false;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Spawns an agent on the world thread.
+     *
+     * @see BlackForestGameMap#spawnAgent(Agent)
+     */
+    @Override
+    public boolean spawnAgent(Agent agent) {
+        return this.await(() -> super.spawnAgent(agent));
+    }
+    /**
+     * Resets an agent on the world thread.
+     *
+     * @see BlackForestGameMap#resetAgent(Agent)
+     */
+    @Override
+    public boolean resetAgent(Agent agent) {
+        return this.await(() -> super.resetAgent(agent));
+    }
+    /**
+     * Makes an agent attack another one on the world thread.
+     *
+     * @see BlackForestGameMap#attackAgent(Agent, Agent, boolean)
+     */
+    @Override
+    public boolean attackAgent(Agent attacking_agent, Agent target, boolean crit) {
+        return this.await(() -> super.attackAgent(attacking_agent, target, crit));
+    }
+    /**
+     * Makes an agent heal another one on the world thread.
+     *
+     * @see BlackForestGameMap#healAgent(Agent, Agent)
+     */
+    @Override
+    public boolean healAgent(Agent healing_agent, Agent target) {
+        return this.await(() -> super.healAgent(healing_agent, target));
+    }
+    /**
+     * Moves an agent on the world thread.
+     *
+     * @see BlackForestGameMap#moveAgent(Agent, int, Direction)
+     */
+    @Override
+    public boolean moveAgent(Agent agent, int stepSize, Direction direction) {
+        return this.await(() -> super.moveAgent(agent, stepSize, direction));
+    }
+    /**
+     * Resolves the proposed moves on the world thread.
+     *
+     * @see BlackForestGameMap#resolveMoves(MoveResolver)
+     */
+    @Override
+    public void resolveMoves(MoveResolver resolver) {
+        this.await(() -> {
+            super.resolveMoves(resolver);
+            return true;
+        });
+    }
+    /**
+     * Makes an agent attack a gate on the world thread.
+     *
+     * @see BlackForestGameMap#attackGate(Agent, Gate)
+     */
+    @Override
+    public boolean attackGate(Agent attacking_agent, Gate target) {
+        return this.await(() -> super.attackGate(attacking_agent, target));
+    }
+    /**
+     * Makes an agent repair a gate on the world thread.
+     *
+     * @see BlackForestGameMap#repairGate(Agent, Gate)
+     */
+    @Override
+    public boolean repairGate(Agent attacking_agent, Gate target) {
+        return this.await(() -> super.repairGate(attacking_agent, target));
+    }
+    /**
+     * Makes an agent attack a tree on the world thread.
+     *
+     * @see BlackForestGameMap#attackTree(Agent, Tree)
+     */
+    @Override
+    public boolean attackTree(Agent attacking_agent, Tree target) {
+        return this.await(() -> super.attackTree(attacking_agent, target));
+    }
+    /**
+     * Makes an agent pick up a princess on the world thread.
+     *
+     * @see BlackForestGameMap#pickUpPrincess(Agent, Princess)
+     */
+    @Override
+    public boolean pickUpPrincess(Agent agent, Princess target) {
+        return this.await(() -> super.pickUpPrincess(agent, target));
+    }
+    /**
+     * Completes the delivery of a princess on the world thread.
+     *
+     * @see BlackForestGameMap#deliverPrincess(Agent)
+     */
+    @Override
+    public boolean deliverPrincess(Agent agent) {
+        return this.await(() -> super.deliverPrincess(agent));
+    }
+}
@@ -24,8 +24,15 @@ public class ConfigWindow extends JFrame {
     private JTextField widthField, heightField;
     private JComboBox<Integer> gathererBlue, archerBlue, warriorBlue, priestBlue;
     private JComboBox<Integer> gathererRed, archerRed, warriorRed, priestRed;
+    private JComboBox<String> executionModeBox;
     private JButton startGameButton;
 
+    // Execution modes, with the environment option each one sets
+    private static final String[] EXECUTION_MODES = {"Platform threads", "Virtual threads", "Tick engine"};
+    private static final String[] EXECUTION_MODE_OPTIONS = {null, BlackForestEnvironment.VIRTUAL_THREADS_OPTION, BlackForestEnvironment.TICK_ENGINE_OPTION};
+    private static final int DEFAULT_AGENT_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    private int agentPoolSize = DEFAULT_AGENT_POOL_SIZE; // Reasoning threads shared by the agents out of the platform threads mode
+
     // Directory paths
     static File projectRoot = new File(System.getProperty("user.dir")).getParentFile();
     File mas2jFile = new File(projectRoot, "mas_princess/mas_princess.mas2j");
@@ -44,7 +51,7 @@ public class ConfigWindow extends JFrame {
      */
     public ConfigWindow() {
         setTitle("Game Configuration");
-        setSize(800, 700);
+        setSize(800, 760);
         setLayout(new BorderLayout());
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
@@ -126,6 +133,16 @@ public class ConfigWindow extends JFrame {
 
         centerPanel.add(teamPanel, BorderLayout.CENTER); // Team composition below dimensions
 
+        // Execution Mode Panel
+        JPanel executionPanel = new JPanel(new GridLayout(1, 2, 10, 10));
+        executionPanel.setBorder(BorderFactory.createTitledBorder("Execution Mode"));
+
+        executionPanel.add(new JLabel("Agent Actions:"));
+        executionModeBox = new JComboBox<>(EXECUTION_MODES);
+        executionPanel.add(executionModeBox);
+
+        centerPanel.add(executionPanel, BorderLayout.SOUTH); // Execution mode below the team settings
+
         mainPanel.add(centerPanel, BorderLayout.CENTER); // Add the combined panel to mainPanel
 
         // Bottom Panel for Start Game Button
@@ -221,7 +238,7 @@ public class ConfigWindow extends JFrame {
             agentCounts.put("priest_r", (Integer) priestRed.getSelectedItem());
 
             String agentsConfig = generateAgentConfig(agentCounts);
-            updateMas2jFile(width, height, agentsConfig);
+            updateMas2jFile(width, height, agentsConfig, executionModeBox.getSelectedIndex());
             ConfigWindow.this.dispose();
 
             try {
@@ -279,6 +296,9 @@ public class ConfigWindow extends JFrame {
         configProps.setProperty("warrior_red", warriorRed.getSelectedItem().toString());
         configProps.setProperty("priest_red", priestRed.getSelectedItem().toString());
 
+        configProps.setProperty("execution_mode", String.valueOf(executionModeBox.getSelectedIndex()));
+        configProps.setProperty("agent_pool_size", String.valueOf(agentPoolSize));
+
         try (FileOutputStream out = new FileOutputStream(configFile)) {
             configProps.store(out, null);
         } catch (IOException e) {
@@ -308,19 +328,30 @@ public class ConfigWindow extends JFrame {
                 warriorRed.setSelectedItem(Integer.parseInt(configProps.getProperty("warrior_red", "0")));
                 priestRed.setSelectedItem(Integer.parseInt(configProps.getProperty("priest_red", "0")));
 
+                int executionMode = Integer.parseInt(configProps.getProperty("execution_mode", "0"));
+                executionModeBox.setSelectedIndex(executionMode >= 0 && executionMode < EXECUTION_MODES.length ? executionMode : 0);
+
+                // The pool size can only be tuned in the file, e.g. to leave cores to other processes
+                int poolSize = Integer.parseInt(configProps.getProperty("agent_pool_size", String.valueOf(DEFAULT_AGENT_POOL_SIZE)));
+                agentPoolSize = poolSize > 0 ? poolSize : DEFAULT_AGENT_POOL_SIZE;
+
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
     }
     /**
-     * Updates the MAS2J file with new dimensions and agent configuration.
+     * Updates the MAS2J file with new dimensions, agent configuration and execution mode.
+     * Out of the platform threads mode, the agents share a pool of reasoning threads instead of
+     * holding one thread each; the pool has one thread per available processor, unless the
+     * {@code agent_pool_size} property of the configuration file says otherwise.
      *
      * @param width         The width of the map.
      * @param height        The height of the map.
      * @param agentsConfig  The agent configuration string.
+     * @param executionMode The index of the selected execution mode in {@link #EXECUTION_MODES}.
      */
-    private void updateMas2jFile(int width, int height, String agentsConfig) {
+    private void updateMas2jFile(int width, int height, String agentsConfig, int executionMode) {
         try {
             File mas2jFile = new File(MAS2J_FILE_PATH);
             if (!mas2jFile.exists()) {
@@ -328,10 +359,13 @@ public class ConfigWindow extends JFrame {
                 return;
             }
 
+            String option = EXECUTION_MODE_OPTIONS[executionMode];
+
             StringBuilder newContent = new StringBuilder();
             newContent.append("MAS princess {\n")
-                    .append("\tinfrastructure: Centralised\n")
-                    .append("\tenvironment: env.BlackForestEnvironment(").append(width).append(", ").append(height).append(")\n")
+                    .append("\tinfrastructure: Centralised").append(option == null ? "" : "(pool, " + agentPoolSize + ")").append("\n")
+                    .append("\tenvironment: env.BlackForestEnvironment(").append(width).append(", ").append(height)
+                    .append(option == null ? "" : ", " + option).append(")\n")
                     .append("\tagents:\n").append(agentsConfig)
                     .append("\taslSourcePath:\n\t\"src/main/asl\";\n}");
 
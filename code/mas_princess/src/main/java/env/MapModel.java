@@ -1,12 +1,13 @@
 package env;
 
 import env.objects.resources.Princess;
+import env.objects.resources.Resource;
 import env.utils.*;
 import env.agents.*;
 import env.objects.structures.*;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * The MapModel interface defines the behavior of the game map model.
@@ -28,28 +29,47 @@ public interface MapModel {
     boolean attackAgent(Agent attacking_agent, Agent target, boolean crit);
     boolean healAgent(Agent attacking_agent, Agent target);
     boolean moveAgent(Agent agent, int stepSize, Direction direction);
+    void resolveMoves(MoveResolver resolver);
     boolean attackGate(Agent attacking_agent, Gate target);
     boolean repairGate(Agent attacking_agent, Gate target);
     boolean attackTree(Agent attacking_agent, Tree target);
     boolean pickUpPrincess(Agent agent, Princess target);
+    boolean deliverPrincess(Agent agent);
     Optional<Agent> getAgentByName(String agName);
+    int getAgentHandle(String agName);
+    Optional<Agent> getAgentByHandle(int handle);
     Set<Agent> getAgentNeighbours(Agent agent, int range);
     Set<Gate> getGateNeighbours(Agent agent, String team, int range);
     Set<Tree> getTreeNeighbours(Agent agent, int range);
     Set<Princess> getPrincessNeighbours(Agent agent, String team, int range);
     Map<Direction, Vector2D> getAgentSurroundingPositions(Agent agent);
     Pair<String, Vector2D> getClosestObjective(Agent agent);
+    Optional<String> getNextStep(Agent agent, Vector2D target);
+    Optional<List<Vector2D>> findPath(Agent agent, Vector2D target);
 
 
     // Artifacts management
-    AtomicInteger getWoodAmountBlue();
-    AtomicInteger getWoodAmountRed();
+    int getWoodAmountBlue();
+    int getWoodAmountRed();
+    TeamLedger getTeamLedger();
+    TeamSituation getTeamSituation(boolean team);
+    GameEventBus getEventBus();
     Optional<Gate> getGateByName(String gName);
     Optional<Tree> getTreeByName(String tName);
     Optional<Princess> getPrincessByName(String pName);
+    int getStructureHandle(String name);
+    <S extends MapStructure> Optional<S> getStructureByHandle(int handle, Class<S> structureClass);
+    int getResourceHandle(String name);
+    <R extends Resource> Optional<R> getResourceByHandle(int handle, Class<R> resourceClass);
 
     // Map
     Cell getCellByPosition(Vector2D position);
+    <T> T readOptimistically(Supplier<T> reader);
+    <T> T readLocked(Supplier<T> reader);
+    WorldSnapshot publishSnapshot();
+    WorldSnapshot getSnapshot();
+    LockMetrics getLockMetrics();
     void setView(MapView view);
+    void setRespawnScheduler(Tree.RespawnScheduler respawnScheduler);
 
 }
\ No newline at end of file
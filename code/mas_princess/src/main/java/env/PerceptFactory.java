@@ -0,0 +1,286 @@
+package env;
+
+import env.utils.Direction;
+import env.utils.Orientation;
+import env.utils.Zone;
+import jason.asSyntax.ASSyntax;
+import jason.asSyntax.Atom;
+import jason.asSyntax.Literal;
+import jason.asSyntax.NumberTerm;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the percepts of the agents directly as terms, without formatting and parsing strings.
+ * <p>
+ * The percepts drawn from a finite vocabulary (e.g. {@code free(left)}, {@code zone_type(river)},
+ * {@code orientation(north)}, {@code objective(gather_wood)}) are built once and shared, while
+ * the others are assembled from cached atoms (names) and number terms (coordinates, hp).  The
+ * shared literals must not be modified: Jason copies the percepts before annotating them.
+ */
+public final class PerceptFactory {
+    private static final int CACHED_NUMBERS = 1024;
+
+    private static final Map<String, Atom> ATOMS = new ConcurrentHashMap<>();
+    private static final Map<String, Literal> UNARY = new ConcurrentHashMap<>(); // By functor and argument
+    private static final Map<String, Map<Direction, Literal>> DIRECTIONAL = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, String> FUNCTORS = new ConcurrentHashMap<>();
+    private static final NumberTerm[] NUMBERS = new NumberTerm[CACHED_NUMBERS];
+    private static final Literal RESPAWNING = ASSyntax.createLiteral("respawning");
+
+    /**
+     * Not instantiable.
+     */
+    private PerceptFactory() {
+    }
+
+    /**
+     * Returns the atom with the given name.
+     *
+     * @param name the name, a valid atom.
+     * @return the cached atom.
+     */
+    public static Atom atom(String name) {
+        return ATOMS.computeIfAbsent(name, ASSyntax::createAtom);
+    }
+
+    /**
+     * Returns the number term of an integer.
+     *
+     * @param value the integer.
+     * @return the number term, cached for small non-negative values.
+     */
+    public static NumberTerm number(int value) {
+        if (value < 0 || value >= CACHED_NUMBERS) {
+            return ASSyntax.createNumber(value);
+        }
+
+        NumberTerm number = NUMBERS[value];
+        if (number == null) {
+            number = ASSyntax.createNumber(value);
+            NUMBERS[value] = number; // A benign race: at worst an equal term is created twice
+        }
+        return number;
+    }
+
+    /**
+     * Returns the shared literal with one atom argument, e.g. {@code state(spawn)}.
+     *
+     * @param functor  the functor.
+     * @param argument the argument, a valid atom.
+     * @return the shared literal.
+     */
+    private static Literal unary(String functor, String argument) {
+        return UNARY.computeIfAbsent(functor + '(' + argument + ')', key -> ASSyntax.createLiteral(functor, atom(argument)));
+    }
+
+    /**
+     * Returns the shared literal of a functor applied to a direction, e.g. {@code free(left)}.
+     *
+     * @param functor   the functor.
+     * @param direction the direction.
+     * @return the shared literal.
+     */
+    private static Literal directional(String functor, Direction direction) {
+        return DIRECTIONAL.computeIfAbsent(functor, key -> {
+            Map<Direction, Literal> literals = new EnumMap<>(Direction.class);
+            for (Direction value : Direction.values()) {
+                literals.put(value, ASSyntax.createLiteral(functor, atom(value.name().toLowerCase())));
+            }
+            return literals;
+        }).get(direction);
+    }
+
+    /**
+     * Returns the functor naming the objects of a class in the percepts, i.e. its lowercase
+     * simple name (e.g. {@code tree}, {@code princess}).
+     *
+     * @param type the class of the objects.
+     * @return the functor.
+     */
+    private static String functorOf(Class<?> type) {
+        return FUNCTORS.computeIfAbsent(type, key -> key.getSimpleName().toLowerCase());
+    }
+
+    /**
+     * Returns the percept {@code position(X, Y)}.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return the percept.
+     */
+    public static Literal position(int x, int y) {
+        return ASSyntax.createLiteral("position", number(x), number(y));
+    }
+
+    /**
+     * Returns the percept {@code orientation(O)}.
+     *
+     * @param orientation the orientation of the agent.
+     * @return the percept.
+     */
+    public static Literal orientation(Orientation orientation) {
+        return unary("orientation", orientation.name().toLowerCase());
+    }
+
+    /**
+     * Returns the percept {@code objective(Name)}.
+     *
+     * @param objective the name of the objective.
+     * @return the percept.
+     */
+    public static Literal objective(String objective) {
+        return unary("objective", objective);
+    }
+
+    /**
+     * Returns the percept {@code objective_position(X, Y)}.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return the percept.
+     */
+    public static Literal objectivePosition(int x, int y) {
+        return ASSyntax.createLiteral("objective_position", number(x), number(y));
+    }
+
+    /**
+     * Returns the percept {@code next_step(Step)}.
+     *
+     * @param step the next step.
+     * @return the percept.
+     */
+    public static Literal nextStep(String step) {
+        return unary("next_step", step);
+    }
+
+    /**
+     * Returns the percept {@code state(State)}.
+     *
+     * @param state the state of the agent.
+     * @return the percept.
+     */
+    public static Literal state(String state) {
+        return unary("state", state);
+    }
+
+    /**
+     * Returns the percept {@code respawning}.
+     *
+     * @return the percept.
+     */
+    public static Literal respawning() {
+        return RESPAWNING;
+    }
+
+    /**
+     * Returns the percept {@code zone_type(Zone)}.
+     *
+     * @param zone the zone the agent stands in.
+     * @return the percept.
+     */
+    public static Literal zoneType(Zone zone) {
+        return unary("zone_type", zone.name().toLowerCase());
+    }
+
+    /**
+     * Returns the percept {@code structure(Name, SlipProbability)}, perceived on a bridge.
+     *
+     * @param name the name of the perceived object.
+     * @param slipProbability the slip probability of the bridge.
+     * @return the percept.
+     */
+    public static Literal bridge(String name, int slipProbability) {
+        return ASSyntax.createLiteral("structure", atom(name.toLowerCase()), number(slipProbability));
+    }
+
+    /**
+     * Returns the percept {@code obstacle(Direction)}.
+     *
+     * @param direction the direction, relative to the agent.
+     * @return the percept.
+     */
+    public static Literal obstacle(Direction direction) {
+        return directional("obstacle", direction);
+    }
+
+    /**
+     * Returns the percept {@code free(Direction)}.
+     *
+     * @param direction the direction, relative to the agent.
+     * @return the percept.
+     */
+    public static Literal free(Direction direction) {
+        return directional("free", direction);
+    }
+
+    /**
+     * Returns the percept {@code surrounding_ally(Direction)} or {@code surrounding_enemy(Direction)}.
+     *
+     * @param ally whether the object belongs to the team of the agent.
+     * @param direction the direction, relative to the agent.
+     * @return the percept.
+     */
+    public static Literal surroundingAgent(boolean ally, Direction direction) {
+        return directional(ally ? "surrounding_ally" : "surrounding_enemy", direction);
+    }
+
+    /**
+     * Returns the percept of an object of the given class in a direction, e.g. {@code tree(left)}.
+     *
+     * @param type the class of the object.
+     * @param direction the direction, relative to the agent.
+     * @return the percept.
+     */
+    public static Literal surroundingObject(Class<?> type, Direction direction) {
+        return directional(functorOf(type), direction);
+    }
+
+    /**
+     * Returns the percept {@code ally_in_range(Name, Hp)} or {@code enemy_in_range(Name, Hp)}.
+     *
+     * @param ally whether the object belongs to the team of the agent.
+     * @param name the name of the perceived object.
+     * @param hp the hp of the perceived object.
+     * @return the percept.
+     */
+    public static Literal agentInRange(boolean ally, String name, int hp) {
+        return ASSyntax.createLiteral(ally ? "ally_in_range" : "enemy_in_range", atom(name), number(hp));
+    }
+
+    /**
+     * Returns the percept {@code ally_gate_in_range(Name, Hp)} or {@code enemy_gate_in_range(Name, Hp)}.
+     *
+     * @param ally whether the object belongs to the team of the agent.
+     * @param name the name of the perceived object.
+     * @param hp the hp of the perceived object.
+     * @return the percept.
+     */
+    public static Literal gateInRange(boolean ally, String name, int hp) {
+        return ASSyntax.createLiteral(ally ? "ally_gate_in_range" : "enemy_gate_in_range", atom(name), number(hp));
+    }
+
+    /**
+     * Returns the percept {@code tree_in_range(Name, Hp)}.
+     *
+     * @param name the name of the perceived object.
+     * @param hp the hp of the perceived object.
+     * @return the percept.
+     */
+    public static Literal treeInRange(String name, int hp) {
+        return ASSyntax.createLiteral("tree_in_range", atom(name), number(hp));
+    }
+
+    /**
+     * Returns the percept {@code ally_princess_in_range(Name)} or {@code enemy_princess_in_range(Name)}.
+     *
+     * @param ally whether the object belongs to the team of the agent.
+     * @param name the name of the perceived object.
+     * @return the percept.
+     */
+    public static Literal princessInRange(boolean ally, String name) {
+        return unary(ally ? "ally_princess_in_range" : "enemy_princess_in_range", name);
+    }
+}
@@ -1,6 +1,7 @@
 package env.agents;
 
 import env.objects.resources.Resource;
+import env.utils.ObjectiveMemo;
 import env.utils.Pose;
 
 /**
@@ -11,7 +12,7 @@ import env.utils.Pose;
 public abstract class Agent extends jason.asSemantics.Agent {
     private String name;
     private boolean team;  // True for team 1, false for team 2
-    private String state;
+    private volatile String state; // Set by the objective computation, which runs under shared locks
     private int hp;                   // Health points
     private int max_hp;
     private int attackRange;          // Attack range
@@ -19,6 +20,7 @@ public abstract class Agent extends jason.asSemantics.Agent {
     private double landProbability;    // Probability of choosing the land path
     private Pose pose;                // Agent's position and orientation
     private Resource carriedResource;
+    private volatile ObjectiveMemo objectiveMemo; // Last objective computed by the map for this agent
 
     /**
      * Constructs a new Agent with the specified properties.
@@ -219,6 +221,24 @@ public abstract class Agent extends jason.asSemantics.Agent {
         this.pose = pose;
     }
 
+    /**
+     * Returns the last objective computed for the agent, with the inputs it was computed from.
+     *
+     * @return the memoized objective, or {@code null} if none was computed yet.
+     */
+    public ObjectiveMemo getObjectiveMemo() {
+        return this.objectiveMemo;
+    }
+
+    /**
+     * Sets the last objective computed for the agent.
+     *
+     * @param objectiveMemo the memoized objective, or {@code null} to forget it.
+     */
+    public void setObjectiveMemo(ObjectiveMemo objectiveMemo) {
+        this.objectiveMemo = objectiveMemo;
+    }
+
     /**
      * Returns a string representation of the agent.
      *
@@ -2,13 +2,39 @@ package env.objects.structures;
 
 import env.utils.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Represents a tree structure on the map. Trees are breakable but not repairable, and they
  * respawn after a certain duration when destroyed.
  */
 public class Tree extends BreakableStructure {
+    /**
+     * The scheduler used unless another one is set: the respawn runs on a thread of the common
+     * pool once the delay expires.
+     */
+    public static final RespawnScheduler DEFAULT_RESPAWN_SCHEDULER = (respawn, delayMillis) ->
+            CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS).execute(respawn);
+
     private final int respawnDuration;
     private boolean respawning = false;
+    private Runnable respawnListener = null;
+    private RespawnScheduler respawnScheduler = DEFAULT_RESPAWN_SCHEDULER;
+
+    /**
+     * Schedules the respawn of a destroyed tree.
+     */
+    @FunctionalInterface
+    public interface RespawnScheduler {
+        /**
+         * Schedules the respawn of a tree, to be run once the given delay expires.
+         *
+         * @param respawn     the respawn of the tree.
+         * @param delayMillis the delay in milliseconds.
+         */
+        void schedule(Runnable respawn, long delayMillis);
+    }
 
     /**
      * Constructs a new Tree with the specified name, maximum life points, respawn duration, and pose.
@@ -33,6 +59,26 @@ public class Tree extends BreakableStructure {
         return this.respawning;
     }
 
+    /**
+     * Sets the callback invoked right after the tree respawns, within the same task of the
+     * respawn scheduler, so that whoever depends on its walkability can be notified.
+     *
+     * @param respawnListener the callback to invoke, or {@code null} to remove it.
+     */
+    public void setRespawnListener(Runnable respawnListener) {
+        this.respawnListener = respawnListener;
+    }
+
+    /**
+     * Sets the scheduler running the respawn of the tree once its respawn duration expires, e.g.
+     * to apply it on the thread (or under the lock) performing the other changes of the map.
+     *
+     * @param respawnScheduler the scheduler of the respawn.
+     */
+    public void setRespawnScheduler(RespawnScheduler respawnScheduler) {
+        this.respawnScheduler = respawnScheduler;
+    }
+
     /**
      * Inflicts damage to the tree. If the damage destroys the tree, a respawn timer is started.
      *
@@ -55,14 +101,7 @@ public class Tree extends BreakableStructure {
     private void startRespawnTimer() {
         setWalkable(true); //Make it walkable when destroyed
         respawning = true;
-        new Thread(() -> {
-            try {
-                Thread.sleep(respawnDuration);  // Wait before respawning
-            } catch (InterruptedException e) {
-                e.printStackTrace(); // Consider proper logging in a real application
-            }
-            respawn();
-        }).start();
+        respawnScheduler.schedule(this::respawn, respawnDuration);
     }
 
     /**
@@ -71,5 +110,10 @@ public class Tree extends BreakableStructure {
     private void respawn() {
         setHp(getMaxHp());
         setWalkable(false); //Make it not walkable when respawned
+
+        Runnable listener = this.respawnListener;
+        if (listener != null) {
+            listener.run();
+        }
     }
 }
\ No newline at end of file
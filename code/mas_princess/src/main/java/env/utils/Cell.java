@@ -8,29 +8,28 @@ import env.objects.structures.*;
  * Represents a single cell on the game map.  Each cell can contain a zone type, a structure,
  * a resource, and an agent.  This class manages the state of the cell and provides methods for
  * interacting with its contents.
+ * <p>
+ * A cell holds no state of its own: it is a view over the arrays of the {@link WorldGrid} it
+ * belongs to, which creates exactly one view per cell.
  */
 public class Cell {
+    private final WorldGrid grid;
     private final int x;
     private final int y;
-    private Zone zoneType;
-    private MapStructure structure;
-    private Resource resource;
-    private Agent agent;
+    private final Vector2D position;
 
     /**
-     * Constructs a new Cell with the specified zone type and coordinates.
+     * Constructs the view of the cell of the given grid at the specified coordinates.
      *
-     * @param zoneType the type of zone this cell belongs to.
-     * @param x        the x-coordinate of the cell.
-     * @param y        the y-coordinate of the cell.
+     * @param grid the grid storing the content of the cell.
+     * @param x    the x-coordinate of the cell.
+     * @param y    the y-coordinate of the cell.
      */
-    public Cell(Zone zoneType, int x, int y) {
-        this.zoneType = zoneType;
-        this.structure = null; // No structure by default
-        this.resource = null;  // No resource by default
-        this.agent = null; // No agent by default
+    Cell(WorldGrid grid, int x, int y) {
+        this.grid = grid;
         this.x = x;
         this.y = y;
+        this.position = new Vector2D(x, y); // Vector2D is immutable, so it can be shared
     }
 
     /**
@@ -57,7 +56,7 @@ public class Cell {
      * @return a {@code Vector2D} representing the cell's position.
      */
     public Vector2D getPosition() {
-        return new Vector2D(x, y);
+        return this.position;
     }
 
     /**
@@ -66,7 +65,7 @@ public class Cell {
      * @return the zone type.
      */
     public Zone getZoneType() {
-        return zoneType;
+        return this.grid.getZone(this.x, this.y);
     }
 
     /**
@@ -75,7 +74,7 @@ public class Cell {
      * @param zoneType the new zone type.
      */
     public void setZoneType(Zone zoneType) {
-        this.zoneType = zoneType;
+        this.grid.setZone(this.x, this.y, zoneType);
     }
 
     /**
@@ -84,7 +83,7 @@ public class Cell {
      * @return the structure, or {@code null} if no structure is present.
      */
     public MapStructure getStructure() {
-        return structure;
+        return this.grid.getStructure(this.x, this.y);
     }
 
     /**
@@ -96,11 +95,11 @@ public class Cell {
      */
     public void setStructure(MapStructure structure) {
         if (structure == null) {
-            this.structure = null;
+            this.grid.setStructure(this.x, this.y, null);
         } else if (this.isOccupied(null, null)) {
             throw new IllegalStateException("A cell cannot contain both a structure, a resource or an agent.");
         } else {
-            this.structure = structure;
+            this.grid.setStructure(this.x, this.y, structure);
         }
     }
 
@@ -110,7 +109,7 @@ public class Cell {
      * @return the resource, or {@code null} if no resource is present.
      */
     public Resource getResource() {
-        return resource;
+        return this.grid.getResource(this.x, this.y);
     }
 
     /**
@@ -122,11 +121,11 @@ public class Cell {
      */
     public void setResource(Resource resource) {
         if (resource == null) {
-            this.resource = null;
+            this.grid.setResource(this.x, this.y, null);
         } else if (this.isOccupied(null, resource)) {
             throw new IllegalStateException("A cell cannot contain both a structure, a resource or an agent.");
         } else {
-            this.resource = resource;
+            this.grid.setResource(this.x, this.y, resource);
         }
     }
 
@@ -136,7 +135,7 @@ public class Cell {
      * @return the agent, or {@code null} if no agent is present.
      */
     public Agent getAgent() {
-        return this.agent;
+        return this.grid.getAgent(this.x, this.y);
     }
 
     /**
@@ -148,11 +147,11 @@ public class Cell {
      */
     public void setAgent(Agent agent) {
         if (agent == null) {
-            this.agent = null;
+            this.grid.setAgent(this.x, this.y, null);
         } else if (this.isOccupied(agent, null)) {
             throw new IllegalStateException("A cell cannot contain both a structure, a resource or an agent.");
         } else {
-            this.agent = agent;
+            this.grid.setAgent(this.x, this.y, agent);
         }
     }
 
@@ -165,8 +164,12 @@ public class Cell {
      * @return {@code true} if the cell is occupied, {@code false} otherwise.
      */
     public boolean isOccupied(Agent movingAgent, Resource movingResource) {
+        MapStructure structure = this.getStructure();
+        Resource resource = this.getResource();
+        Agent agent = this.getAgent();
+
         // Check if the cell is completely empty
-        if (this.agent == null && this.structure == null && this.resource == null) {
+        if (agent == null && structure == null && resource == null) {
             return false;
         }
 
@@ -208,25 +211,38 @@ public class Cell {
         return true;
     }
 
+    /**
+     * Checks if the terrain of this cell can be walked through by an agent of the given team,
+     * ignoring agents and resources (which move and don't block navigation permanently).  Cells
+     * outside the map and walls are never walkable, trees are walkable only while destroyed and
+     * gates are walkable for their own team or once destroyed.
+     *
+     * @param team the team of the walking agent ({@code false} for blue, {@code true} for red).
+     * @return {@code true} if the terrain of the cell is walkable, {@code false} otherwise.
+     */
+    public boolean isWalkableFor(boolean team) {
+        return this.grid.isWalkable(this.x, this.y, team);
+    }
+
     /**
      * Clears the agent from this cell.
      */
     public void clearAgent() {
-        this.agent = null;
+        this.grid.setAgent(this.x, this.y, null);
     }
 
     /**
      * Clears the structure from this cell.
      */
     public void clearStructure() {
-        this.structure = null;
+        this.grid.setStructure(this.x, this.y, null);
     }
 
     /**
      * Clears the resource from this cell.
      */
     public void clearResource() {
-        this.resource = null;
+        this.grid.setResource(this.x, this.y, null);
     }
 
     /**
@@ -235,7 +251,7 @@ public class Cell {
      * @return a character symbol for the zone type.
      */
     private char getZoneSymbol() {
-        return switch (zoneType) {
+        return switch (this.getZoneType()) {
             case BBASE -> '1';
             case RBASE -> '2';
             case BATTLEFIELD -> 'F';
@@ -250,10 +266,10 @@ public class Cell {
      * @return a character symbol for the structure, or ' ' if no structure is present.
      */
     private char getStructureSymbol() {
-        if (structure instanceof Gate) return 'G';
-        if (structure instanceof Wall) return 'M';
-        if (structure instanceof Bridge) return 'B';
-        if (structure instanceof Empty) return 'E';
+        if (this.getStructure() instanceof Gate) return 'G';
+        if (this.getStructure() instanceof Wall) return 'M';
+        if (this.getStructure() instanceof Bridge) return 'B';
+        if (this.getStructure() instanceof Empty) return 'E';
         return ' ';
     }
 
@@ -263,7 +279,7 @@ public class Cell {
      * @return a character symbol for the resource, or ' ' if no resource is present.
      */
     private char getResourceSymbol() {
-        if (resource instanceof Princess) return 'P';
+        if (this.getResource() instanceof Princess) return 'P';
         return ' ';
     }
 
@@ -273,10 +289,10 @@ public class Cell {
      * @return a character symbol for the agent, or ' ' if no agent is present.
      */
     private char getAgentSymbol() {
-        if (agent instanceof Warrior) return 'W';
-        if (agent instanceof Archer) return 'A';
-        if (agent instanceof Gatherer) return 'H';
-        if (agent instanceof Priest) return 'D';
+        if (this.getAgent() instanceof Warrior) return 'W';
+        if (this.getAgent() instanceof Archer) return 'A';
+        if (this.getAgent() instanceof Gatherer) return 'H';
+        if (this.getAgent() instanceof Priest) return 'D';
         return ' ';
     }
 
@@ -287,11 +303,11 @@ public class Cell {
      */
     @Override
     public String toString() {
-        if (resource != null) {
+        if (this.getResource() != null) {
             return String.valueOf(getResourceSymbol());
-        } else if (structure != null) {
+        } else if (this.getStructure() != null) {
             return String.valueOf(getStructureSymbol());
-        } else if (agent != null) {
+        } else if (this.getAgent() != null) {
             return String.valueOf(getAgentSymbol());
         }
         return String.valueOf(getZoneSymbol());
@@ -0,0 +1,113 @@
+package env.utils;
+
+import env.objects.structures.*;
+
+import java.util.*;
+
+/**
+ * A precomputed index over the cells of the game map.  Cells are grouped by zone type, by the
+ * class of the structure they contain and by the type tag of their {@link Empty} structure, so
+ * that cell queries only need to inspect the cells that can possibly match instead of the whole
+ * map.
+ * <p>
+ * Zones and structures are placed while the map is built and never move afterwards, so the index
+ * is computed once.  Dynamic properties of the indexed cells (occupancy, destroyed trees, carried
+ * resources...) are not part of the index and must be evaluated at query time.
+ */
+public class CellIndex {
+    private final List<Cell> allCells;
+    private final Map<Zone, List<Cell>> cellsByZone = new EnumMap<>(Zone.class);
+    private final Map<Class<? extends MapStructure>, List<Cell>> cellsByStructure = new HashMap<>();
+    private final Map<String, List<Cell>> cellsByEmptyType = new HashMap<>();
+
+    /**
+     * Builds the index of the given map.  Cells are indexed in the same order in which the map
+     * is traversed (column by column, top to bottom).
+     *
+     * @param map the cells of the map, indexed as {@code map[x][y]}.
+     */
+    public CellIndex(Cell[][] map) {
+        List<Cell> cells = new ArrayList<>();
+
+        for (Cell[] column : map) {
+            for (Cell cell : column) {
+                cells.add(cell);
+                this.cellsByZone.computeIfAbsent(cell.getZoneType(), zone -> new ArrayList<>()).add(cell);
+
+                MapStructure structure = cell.getStructure();
+                if (structure != null) {
+                    this.cellsByStructure.computeIfAbsent(structure.getClass(), type -> new ArrayList<>()).add(cell);
+
+                    if (structure instanceof Empty empty) {
+                        this.cellsByEmptyType.computeIfAbsent(empty.getType(), type -> new ArrayList<>()).add(cell);
+                    }
+                }
+            }
+        }
+
+        this.allCells = Collections.unmodifiableList(cells);
+        this.cellsByZone.replaceAll((zone, zoneCells) -> Collections.unmodifiableList(zoneCells));
+        this.cellsByStructure.replaceAll((type, structureCells) -> Collections.unmodifiableList(structureCells));
+        this.cellsByEmptyType.replaceAll((type, emptyCells) -> Collections.unmodifiableList(emptyCells));
+    }
+
+    /**
+     * Returns every cell of the map.
+     *
+     * @return a read-only list of all the cells.
+     */
+    public List<Cell> getAllCells() {
+        return this.allCells;
+    }
+
+    /**
+     * Returns the cells belonging to the given zone.
+     *
+     * @param zone the zone type.
+     * @return a read-only list of the cells of the zone (empty if there are none).
+     */
+    public List<Cell> getCellsInZone(Zone zone) {
+        return this.cellsByZone.getOrDefault(zone, Collections.emptyList());
+    }
+
+    /**
+     * Returns the cells containing a structure of the given class (or of one of its subclasses).
+     *
+     * @param structureClass the class of the structure.
+     * @return a read-only list of the cells containing such a structure.
+     */
+    public List<Cell> getCellsWithStructure(Class<? extends MapStructure> structureClass) {
+        List<Cell> cells = this.cellsByStructure.get(structureClass);
+        if (cells != null) {
+            return cells;
+        }
+
+        List<Cell> result = new ArrayList<>();
+        this.cellsByStructure.forEach((type, structureCells) -> {
+            if (structureClass.isAssignableFrom(type)) {
+                result.addAll(structureCells);
+            }
+        });
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns the cells containing an {@link Empty} structure with the given type tag
+     * (e.g. "base_b", "half", "empty_pr").
+     *
+     * @param type the type tag of the empty structure.
+     * @return a read-only list of the cells containing such a structure.
+     */
+    public List<Cell> getEmptyCells(String type) {
+        return this.cellsByEmptyType.getOrDefault(type, Collections.emptyList());
+    }
+
+    /**
+     * Returns the type tags of all the {@link Empty} structures placed on the map.
+     *
+     * @return a read-only set of the type tags.
+     */
+    public Set<String> getEmptyTypes() {
+        return Collections.unmodifiableSet(this.cellsByEmptyType.keySet());
+    }
+}
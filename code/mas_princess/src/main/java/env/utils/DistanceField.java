@@ -0,0 +1,262 @@
+package env.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A multi-source BFS distance field over the game map.  For every cell it stores the walking
+ * distance (in 4-connected steps) to the closest of a set of source cells, together with the
+ * source that distance refers to, so that "closest objective" queries become a single array read.
+ * <p>
+ * Cells are stored in primitive arrays indexed as {@code x * height + y}, i.e. in the same
+ * column-major order as the map.  Sources are always expanded, even when their own cell is not
+ * walkable (e.g. a tree or an enemy gate), because the agent only needs to reach their border.
+ * <p>
+ * This class is not thread-safe: callers are expected to guard it with the lock protecting the map.
+ */
+public class DistanceField {
+    /**
+     * The distance of the cells from which no source can be reached.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final int[][] STEPS = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}};
+
+    /**
+     * Tells whether a cell of the map can be walked through.
+     */
+    @FunctionalInterface
+    public interface Walkability {
+        /**
+         * Checks if the cell at the given coordinates can be walked through.
+         *
+         * @param x the x-coordinate of the cell.
+         * @param y the y-coordinate of the cell.
+         * @return {@code true} if the cell is walkable, {@code false} otherwise.
+         */
+        boolean isWalkable(int x, int y);
+    }
+
+    private final int width;
+    private final int height;
+    private final int[] distances;
+    private final int[] nearestSources;
+    private final boolean[] sources;
+    private final int[] queue;
+
+    /**
+     * Constructs an empty DistanceField (every cell unreachable) for a map of the given size.
+     *
+     * @param width  the width of the map.
+     * @param height the height of the map.
+     */
+    public DistanceField(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.distances = new int[width * height];
+        this.nearestSources = new int[width * height];
+        this.sources = new boolean[width * height];
+        this.queue = new int[width * height];
+        Arrays.fill(this.distances, UNREACHABLE);
+        Arrays.fill(this.nearestSources, -1);
+    }
+
+    /**
+     * Recomputes the whole field from scratch with a multi-source BFS.  When two sources are at
+     * the same distance from a cell, the one that comes first in {@code sourcePositions} wins.
+     *
+     * @param sourcePositions the positions of the sources.
+     * @param walkability     the walkability of the cells.
+     */
+    public void compute(Collection<Vector2D> sourcePositions, Walkability walkability) {
+        Arrays.fill(this.distances, UNREACHABLE);
+        Arrays.fill(this.nearestSources, -1);
+        Arrays.fill(this.sources, false);
+
+        int head = 0, tail = 0;
+        for (Vector2D position : sourcePositions) {
+            if (!this.isInside(position.getX(), position.getY())) {
+                continue;
+            }
+            int index = this.index(position.getX(), position.getY());
+            if (!this.sources[index]) {
+                this.sources[index] = true;
+                this.distances[index] = 0;
+                this.nearestSources[index] = index;
+                this.queue[tail++] = index;
+            }
+        }
+
+        this.propagate(head, tail, walkability);
+    }
+
+    /**
+     * Updates the field after a cell became walkable.  Opening a cell can only shorten distances,
+     * so the improvement is propagated from that cell alone instead of recomputing the field.
+     *
+     * @param x           the x-coordinate of the opened cell.
+     * @param y           the y-coordinate of the opened cell.
+     * @param walkability the walkability of the cells, already reflecting the change.
+     */
+    public void openCell(int x, int y, Walkability walkability) {
+        if (!this.isInside(x, y)) {
+            return;
+        }
+        int index = this.index(x, y);
+
+        if (!this.sources[index]) {
+            for (int[] step : STEPS) {
+                int nx = x + step[0], ny = y + step[1];
+                if (this.isInside(nx, ny)) {
+                    int neighbour = this.index(nx, ny);
+                    if (this.distances[neighbour] != UNREACHABLE && this.distances[neighbour] + 1 < this.distances[index]) {
+                        this.distances[index] = this.distances[neighbour] + 1;
+                        this.nearestSources[index] = this.nearestSources[neighbour];
+                    }
+                }
+            }
+        }
+
+        if (this.distances[index] != UNREACHABLE) {
+            this.queue[0] = index;
+            this.propagate(0, 1, walkability);
+        }
+    }
+
+    /**
+     * Checks whether blocking the given cell could lengthen some distance of the field, that is
+     * whether the cell is currently crossed by the field (reachable and not a source).
+     *
+     * @param x the x-coordinate of the blocked cell.
+     * @param y the y-coordinate of the blocked cell.
+     * @return {@code true} if the field must be recomputed, {@code false} otherwise.
+     */
+    public boolean isAffectedByBlocking(int x, int y) {
+        if (!this.isInside(x, y)) {
+            return false;
+        }
+        int index = this.index(x, y);
+        return !this.sources[index] && this.distances[index] != UNREACHABLE;
+    }
+
+    /**
+     * Returns the walking distance from the given cell to the closest source.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @return the distance, or {@link #UNREACHABLE} if no source can be reached.
+     */
+    public int getDistance(int x, int y) {
+        return this.isInside(x, y) ? this.distances[this.index(x, y)] : UNREACHABLE;
+    }
+
+    /**
+     * Returns the source closest (in walking distance) to the given position.  If the position
+     * itself is not part of the field (e.g. an agent standing on a gate), its walkable neighbours
+     * are used instead.
+     *
+     * @param position the position to start from.
+     * @return the position of the closest source, or {@code null} if no source can be reached.
+     */
+    public Vector2D getNearestSource(Vector2D position) {
+        int x = position.getX(), y = position.getY();
+        if (!this.isInside(x, y)) {
+            return null;
+        }
+
+        int best = this.index(x, y);
+        for (int[] step : STEPS) {
+            int nx = x + step[0], ny = y + step[1];
+            if (this.isInside(nx, ny)) {
+                int neighbour = this.index(nx, ny);
+                if (this.distances[neighbour] != UNREACHABLE
+                        && (this.distances[best] == UNREACHABLE || this.distances[neighbour] + 1 < this.distances[best])) {
+                    best = neighbour;
+                }
+            }
+        }
+
+        int source = this.nearestSources[best];
+        return source < 0 ? null : Vector2D.of(source / this.height, source % this.height);
+    }
+
+    /**
+     * Returns the neighbour of the given position that gets closest to the sources, following
+     * the field downhill.  Only neighbours strictly closer than the position itself and currently
+     * enterable are considered, so a step is never suggested into a dead end or a busy cell.
+     *
+     * @param position  the position to start from.
+     * @param enterable tells whether a neighbouring cell can be entered right now.
+     * @return the position of the next step, or {@code null} if there is no downhill step available.
+     */
+    public Vector2D getNextStep(Vector2D position, Walkability enterable) {
+        int x = position.getX(), y = position.getY();
+        if (!this.isInside(x, y)) {
+            return null;
+        }
+
+        int bestDistance = this.distances[this.index(x, y)];
+        Vector2D best = null;
+        for (int[] step : STEPS) {
+            int nx = x + step[0], ny = y + step[1];
+            if (this.isInside(nx, ny)) {
+                int distance = this.distances[this.index(nx, ny)];
+                if (distance < bestDistance && enterable.isWalkable(nx, ny)) {
+                    bestDistance = distance;
+                    best = Vector2D.of(nx, ny);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Expands the BFS frontier stored in {@code queue[head..tail)} over the walkable cells,
+     * lowering the distances that can be improved.
+     *
+     * @param head        the index of the first queued cell.
+     * @param tail        the index after the last queued cell.
+     * @param walkability the walkability of the cells.
+     */
+    private void propagate(int head, int tail, Walkability walkability) {
+        while (head < tail) {
+            int current = this.queue[head++];
+            int cx = current / this.height, cy = current % this.height;
+            int next = this.distances[current] + 1;
+
+            for (int[] step : STEPS) {
+                int nx = cx + step[0], ny = cy + step[1];
+                if (this.isInside(nx, ny) && walkability.isWalkable(nx, ny)) {
+                    int neighbour = this.index(nx, ny);
+                    if (next < this.distances[neighbour]) {
+                        this.distances[neighbour] = next;
+                        this.nearestSources[neighbour] = this.nearestSources[current];
+                        this.queue[tail++] = neighbour;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the array index of the given coordinates.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return the index of the cell in the field arrays.
+     */
+    private int index(int x, int y) {
+        return x * this.height + y;
+    }
+
+    /**
+     * Checks whether the given coordinates fall inside the map.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return {@code true} if the coordinates are inside the map, {@code false} otherwise.
+     */
+    private boolean isInside(int x, int y) {
+        return x >= 0 && y >= 0 && x < this.width && y < this.height;
+    }
+}
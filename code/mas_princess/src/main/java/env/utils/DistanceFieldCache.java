@@ -0,0 +1,188 @@
+package env.utils;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Keeps one {@link DistanceField} per objective and per team.  Objectives are registered by name
+ * together with a supplier of their source positions; each field is computed lazily on first use
+ * and then kept up to date as the walkability of single cells changes:
+ * <ul>
+ *     <li>a cell becoming walkable is propagated incrementally into the computed fields;</li>
+ *     <li>a cell becoming blocked only discards the fields actually crossing that cell;</li>
+ *     <li>a change of the sources of an objective discards the fields of that objective.</li>
+ * </ul>
+ * Walkability depends on the team of the walking agent (own gates can be crossed, enemy gates
+ * can't), which is why every objective has a separate field for each team.
+ * <p>
+ * Besides the registered objectives, the cache also keeps flow fields towards single target
+ * positions (see {@link #getTowards(Vector2D, boolean)}), evicting the least recently used ones
+ * once {@link #MAX_TARGET_FIELDS} is exceeded.
+ * <p>
+ * This class is not thread-safe: callers are expected to guard it with the lock protecting the map.
+ */
+public class DistanceFieldCache {
+    /**
+     * The maximum number of single-target fields kept in the cache.
+     */
+    public static final int MAX_TARGET_FIELDS = 64;
+
+    /**
+     * Tells whether a cell of the map can be walked through by an agent of a given team.
+     */
+    @FunctionalInterface
+    public interface TeamWalkability {
+        /**
+         * Checks if the cell at the given coordinates can be walked through by the given team.
+         *
+         * @param x    the x-coordinate of the cell.
+         * @param y    the y-coordinate of the cell.
+         * @param team the team of the walking agent.
+         * @return {@code true} if the cell is walkable, {@code false} otherwise.
+         */
+        boolean isWalkable(int x, int y, boolean team);
+    }
+
+    private final int width;
+    private final int height;
+    private final TeamWalkability walkability;
+    private final Map<String, Supplier<Collection<Vector2D>>> objectives = new HashMap<>();
+    private final Map<String, DistanceField[]> fields = new HashMap<>();
+    private final Map<Integer, DistanceField> targetFields = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, DistanceField> eldest) {
+            return size() > MAX_TARGET_FIELDS;
+        }
+    };
+
+    /**
+     * Constructs a new DistanceFieldCache for a map of the given size.
+     *
+     * @param width       the width of the map.
+     * @param height      the height of the map.
+     * @param walkability the walkability of the cells of the map.
+     */
+    public DistanceFieldCache(int width, int height, TeamWalkability walkability) {
+        this.width = width;
+        this.height = height;
+        this.walkability = walkability;
+    }
+
+    /**
+     * Registers an objective whose distance fields can then be queried.
+     *
+     * @param objective the name of the objective.
+     * @param sources   the supplier of the current source positions of the objective.
+     */
+    public void registerObjective(String objective, Supplier<Collection<Vector2D>> sources) {
+        this.objectives.put(objective, sources);
+        this.fields.remove(objective);
+    }
+
+    /**
+     * Retrieves the distance field of an objective for the given team, computing it if needed.
+     *
+     * @param objective the name of the objective.
+     * @param team      the team of the walking agent.
+     * @return the distance field.
+     * @throws IllegalArgumentException if the objective was never registered.
+     */
+    public DistanceField get(String objective, boolean team) {
+        Supplier<Collection<Vector2D>> sources = this.objectives.get(objective);
+        if (sources == null) {
+            throw new IllegalArgumentException("Unknown objective: " + objective);
+        }
+
+        DistanceField[] teamFields = this.fields.computeIfAbsent(objective, key -> new DistanceField[2]);
+        int slot = team ? 1 : 0;
+        if (teamFields[slot] == null) {
+            DistanceField field = new DistanceField(this.width, this.height);
+            field.compute(sources.get(), (x, y) -> this.walkability.isWalkable(x, y, team));
+            teamFields[slot] = field;
+        }
+        return teamFields[slot];
+    }
+
+    /**
+     * Retrieves the flow field leading to a single target position for the given team, computing
+     * it if needed.  Following the neighbour with the lowest distance from any cell of the field
+     * walks the shortest path to the target.
+     *
+     * @param target the target position.
+     * @param team   the team of the walking agent.
+     * @return the distance field towards the target.
+     */
+    public DistanceField getTowards(Vector2D target, boolean team) {
+        int key = ((target.getX() * this.height + target.getY()) << 1) | (team ? 1 : 0);
+
+        DistanceField field = this.targetFields.get(key);
+        if (field == null) {
+            field = new DistanceField(this.width, this.height);
+            field.compute(List.of(target), (x, y) -> this.walkability.isWalkable(x, y, team));
+            this.targetFields.put(key, field);
+        }
+        return field;
+    }
+
+    /**
+     * Retrieves the current source positions of an objective.
+     *
+     * @param objective the name of the objective.
+     * @return the source positions, or an empty collection if the objective was never registered.
+     */
+    public Collection<Vector2D> getSources(String objective) {
+        Supplier<Collection<Vector2D>> sources = this.objectives.get(objective);
+        return sources != null ? sources.get() : Collections.emptyList();
+    }
+
+    /**
+     * Discards the fields of an objective whose sources changed, so that they get recomputed on
+     * the next query.
+     *
+     * @param objective the name of the objective.
+     */
+    public void invalidateObjective(String objective) {
+        this.fields.remove(objective);
+    }
+
+    /**
+     * Notifies that a cell became walkable for the given team.
+     *
+     * @param x    the x-coordinate of the cell.
+     * @param y    the y-coordinate of the cell.
+     * @param team the team for which the cell became walkable.
+     */
+    public void cellOpened(int x, int y, boolean team) {
+        int slot = team ? 1 : 0;
+        DistanceField.Walkability teamWalkability = (cx, cy) -> this.walkability.isWalkable(cx, cy, team);
+
+        for (DistanceField[] teamFields : this.fields.values()) {
+            if (teamFields[slot] != null) {
+                teamFields[slot].openCell(x, y, teamWalkability);
+            }
+        }
+        this.targetFields.forEach((key, field) -> {
+            if ((key & 1) == slot) {
+                field.openCell(x, y, teamWalkability);
+            }
+        });
+    }
+
+    /**
+     * Notifies that a cell became blocked for the given team.
+     *
+     * @param x    the x-coordinate of the cell.
+     * @param y    the y-coordinate of the cell.
+     * @param team the team for which the cell became blocked.
+     */
+    public void cellBlocked(int x, int y, boolean team) {
+        int slot = team ? 1 : 0;
+        for (DistanceField[] teamFields : this.fields.values()) {
+            if (teamFields[slot] != null && teamFields[slot].isAffectedByBlocking(x, y)) {
+                teamFields[slot] = null;
+            }
+        }
+        this.targetFields.entrySet().removeIf(entry ->
+                (entry.getKey() & 1) == slot && entry.getValue().isAffectedByBlocking(x, y));
+    }
+}
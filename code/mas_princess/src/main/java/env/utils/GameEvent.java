@@ -0,0 +1,501 @@
+package env.utils;
+
+import env.agents.Agent;
+import env.objects.resources.Princess;
+import env.objects.structures.Gate;
+import env.objects.structures.Tree;
+
+/**
+ * A change of the game world, published by the map on its {@link GameEventBus} once the change
+ * is applied.  Events are grouped by the entity they concern ({@link AgentEvent},
+ * {@link GateEvent}, {@link TreeEvent}, {@link PrincessEvent}), so that a consumer can subscribe
+ * either to a single kind of change or to every change of a kind of entity.
+ * <p>
+ * Events are immutable, but the entities they reference are the live ones: their state may have
+ * changed again by the time a consumer reads it.
+ */
+public abstract class GameEvent {
+
+    /**
+     * A change of an agent.
+     */
+    public abstract static class AgentEvent extends GameEvent {
+        private final Agent agent;
+
+        /**
+         * Constructs a new AgentEvent.
+         *
+         * @param agent the agent that changed.
+         */
+        protected AgentEvent(Agent agent) {
+            this.agent = agent;
+        }
+
+        /**
+         * Returns the agent that changed.
+         *
+         * @return the agent.
+         */
+        public Agent getAgent() {
+            return this.agent;
+        }
+    }
+
+    /**
+     * An agent was (re)spawned in its base.
+     */
+    public static final class AgentSpawned extends AgentEvent {
+        private final Vector2D position;
+
+        /**
+         * Constructs a new AgentSpawned event.
+         *
+         * @param agent    the spawned agent.
+         * @param position the position it was spawned at.
+         */
+        public AgentSpawned(Agent agent, Vector2D position) {
+            super(agent);
+            this.position = position;
+        }
+
+        /**
+         * Returns the position the agent was spawned at.
+         *
+         * @return the position.
+         */
+        public Vector2D getPosition() {
+            return this.position;
+        }
+    }
+
+    /**
+     * An agent moved from one cell to another.
+     */
+    public static final class AgentMoved extends AgentEvent {
+        private final Vector2D from, to;
+
+        /**
+         * Constructs a new AgentMoved event.
+         *
+         * @param agent the moved agent.
+         * @param from  the position it left.
+         * @param to    the position it reached.
+         */
+        public AgentMoved(Agent agent, Vector2D from, Vector2D to) {
+            super(agent);
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Returns the position the agent left.
+         *
+         * @return the previous position.
+         */
+        public Vector2D getFrom() {
+            return this.from;
+        }
+
+        /**
+         * Returns the position the agent reached.
+         *
+         * @return the new position.
+         */
+        public Vector2D getTo() {
+            return this.to;
+        }
+    }
+
+    /**
+     * An agent was damaged by another one.
+     */
+    public static final class AgentDamaged extends AgentEvent {
+        private final Agent attacker;
+        private final int hp;
+
+        /**
+         * Constructs a new AgentDamaged event.
+         *
+         * @param agent    the damaged agent.
+         * @param attacker the attacking agent.
+         * @param hp       the hp of the damaged agent after the attack.
+         */
+        public AgentDamaged(Agent agent, Agent attacker, int hp) {
+            super(agent);
+            this.attacker = attacker;
+            this.hp = hp;
+        }
+
+        /**
+         * Returns the attacking agent.
+         *
+         * @return the attacker.
+         */
+        public Agent getAttacker() {
+            return this.attacker;
+        }
+
+        /**
+         * Returns the hp of the damaged agent after the attack, not positive if it died.
+         *
+         * @return the hp.
+         */
+        public int getHp() {
+            return this.hp;
+        }
+    }
+
+    /**
+     * An agent was healed by another one.
+     */
+    public static final class AgentHealed extends AgentEvent {
+        private final Agent healer;
+        private final int hp;
+
+        /**
+         * Constructs a new AgentHealed event.
+         *
+         * @param agent  the healed agent.
+         * @param healer the healing agent.
+         * @param hp     the hp of the healed agent after the healing.
+         */
+        public AgentHealed(Agent agent, Agent healer, int hp) {
+            super(agent);
+            this.healer = healer;
+            this.hp = hp;
+        }
+
+        /**
+         * Returns the healing agent.
+         *
+         * @return the healer.
+         */
+        public Agent getHealer() {
+            return this.healer;
+        }
+
+        /**
+         * Returns the hp of the healed agent after the healing.
+         *
+         * @return the hp.
+         */
+        public int getHp() {
+            return this.hp;
+        }
+    }
+
+    /**
+     * A change of a gate.
+     */
+    public abstract static class GateEvent extends GameEvent {
+        private final Gate gate;
+
+        /**
+         * Constructs a new GateEvent.
+         *
+         * @param gate the gate that changed.
+         */
+        protected GateEvent(Gate gate) {
+            this.gate = gate;
+        }
+
+        /**
+         * Returns the gate that changed.
+         *
+         * @return the gate.
+         */
+        public Gate getGate() {
+            return this.gate;
+        }
+    }
+
+    /**
+     * A gate was damaged, possibly destroying it (see {@link GateDestroyed}).
+     */
+    public static final class GateDamaged extends GateEvent {
+        private final int hp;
+
+        /**
+         * Constructs a new GateDamaged event.
+         *
+         * @param gate the damaged gate.
+         * @param hp   the hp of the gate after the attack.
+         */
+        public GateDamaged(Gate gate, int hp) {
+            super(gate);
+            this.hp = hp;
+        }
+
+        /**
+         * Returns the hp of the gate after the attack.
+         *
+         * @return the hp.
+         */
+        public int getHp() {
+            return this.hp;
+        }
+    }
+
+    /**
+     * A gate was destroyed, opening the way to the opposing team.
+     */
+    public static final class GateDestroyed extends GateEvent {
+        /**
+         * Constructs a new GateDestroyed event.
+         *
+         * @param gate the destroyed gate.
+         */
+        public GateDestroyed(Gate gate) {
+            super(gate);
+        }
+    }
+
+    /**
+     * A destroyed gate was repaired by its team, spending wood.
+     */
+    public static final class GateRepaired extends GateEvent {
+        /**
+         * Constructs a new GateRepaired event.
+         *
+         * @param gate the repaired gate.
+         */
+        public GateRepaired(Gate gate) {
+            super(gate);
+        }
+    }
+
+    /**
+     * A change of a tree.
+     */
+    public abstract static class TreeEvent extends GameEvent {
+        private final Tree tree;
+
+        /**
+         * Constructs a new TreeEvent.
+         *
+         * @param tree the tree that changed.
+         */
+        protected TreeEvent(Tree tree) {
+            this.tree = tree;
+        }
+
+        /**
+         * Returns the tree that changed.
+         *
+         * @return the tree.
+         */
+        public Tree getTree() {
+            return this.tree;
+        }
+    }
+
+    /**
+     * A tree was cut down by a gatherer.
+     */
+    public static final class TreeFelled extends TreeEvent {
+        private final Agent agent;
+
+        /**
+         * Constructs a new TreeFelled event.
+         *
+         * @param tree  the felled tree.
+         * @param agent the gatherer that cut it down.
+         */
+        public TreeFelled(Tree tree, Agent agent) {
+            super(tree);
+            this.agent = agent;
+        }
+
+        /**
+         * Returns the gatherer that cut the tree down.
+         *
+         * @return the agent.
+         */
+        public Agent getAgent() {
+            return this.agent;
+        }
+    }
+
+    /**
+     * A felled tree grew back.
+     */
+    public static final class TreeRespawned extends TreeEvent {
+        /**
+         * Constructs a new TreeRespawned event.
+         *
+         * @param tree the respawned tree.
+         */
+        public TreeRespawned(Tree tree) {
+            super(tree);
+        }
+    }
+
+    /**
+     * A change of a princess.
+     */
+    public abstract static class PrincessEvent extends GameEvent {
+        private final Princess princess;
+
+        /**
+         * Constructs a new PrincessEvent.
+         *
+         * @param princess the princess that changed.
+         */
+        protected PrincessEvent(Princess princess) {
+            this.princess = princess;
+        }
+
+        /**
+         * Returns the princess that changed.
+         *
+         * @return the princess.
+         */
+        public Princess getPrincess() {
+            return this.princess;
+        }
+    }
+
+    /**
+     * A princess was picked up by an agent.
+     */
+    public static final class PrincessPickedUp extends PrincessEvent {
+        private final Agent agent;
+
+        /**
+         * Constructs a new PrincessPickedUp event.
+         *
+         * @param princess the princess.
+         * @param agent    the agent carrying her.
+         */
+        public PrincessPickedUp(Princess princess, Agent agent) {
+            super(princess);
+            this.agent = agent;
+        }
+
+        /**
+         * Returns the agent carrying the princess.
+         *
+         * @return the agent.
+         */
+        public Agent getAgent() {
+            return this.agent;
+        }
+    }
+
+    /**
+     * A carried princess moved along with the agent carrying her.
+     */
+    public static final class PrincessMoved extends PrincessEvent {
+        private final Vector2D position;
+
+        /**
+         * Constructs a new PrincessMoved event.
+         *
+         * @param princess the princess.
+         * @param position her new position.
+         */
+        public PrincessMoved(Princess princess, Vector2D position) {
+            super(princess);
+            this.position = position;
+        }
+
+        /**
+         * Returns the new position of the princess.
+         *
+         * @return the position.
+         */
+        public Vector2D getPosition() {
+            return this.position;
+        }
+    }
+
+    /**
+     * A carried princess was dropped, either because the agent carrying her died or because she
+     * was brought back to her spawn point.
+     */
+    public static final class PrincessDropped extends PrincessEvent {
+        private final Vector2D position;
+
+        /**
+         * Constructs a new PrincessDropped event.
+         *
+         * @param princess the princess.
+         * @param position the position she was dropped at.
+         */
+        public PrincessDropped(Princess princess, Vector2D position) {
+            super(princess);
+            this.position = position;
+        }
+
+        /**
+         * Returns the position the princess was dropped at.
+         *
+         * @return the position.
+         */
+        public Vector2D getPosition() {
+            return this.position;
+        }
+    }
+
+    /**
+     * A team gathered wood.
+     */
+    public static final class WoodDeposited extends GameEvent {
+        private final boolean team;
+        private final int wood;
+
+        /**
+         * Constructs a new WoodDeposited event.
+         *
+         * @param team the team ({@code false} for blue, {@code true} for red).
+         * @param wood the wood held by the team after the deposit.
+         */
+        public WoodDeposited(boolean team, int wood) {
+            this.team = team;
+            this.wood = wood;
+        }
+
+        /**
+         * Returns the team that gathered the wood.
+         *
+         * @return the team ({@code false} for blue, {@code true} for red).
+         */
+        public boolean getTeam() {
+            return this.team;
+        }
+
+        /**
+         * Returns the wood held by the team after the deposit.
+         *
+         * @return the amount of wood.
+         */
+        public int getWood() {
+            return this.wood;
+        }
+    }
+
+    /**
+     * A team won the game by bringing the enemy princess into its base.
+     */
+    public static final class GameWon extends GameEvent {
+        private final boolean team;
+
+        /**
+         * Constructs a new GameWon event.
+         *
+         * @param team the winning team ({@code false} for blue, {@code true} for red).
+         */
+        public GameWon(boolean team) {
+            this.team = team;
+        }
+
+        /**
+         * Returns the winning team.
+         *
+         * @return the team ({@code false} for blue, {@code true} for red).
+         */
+        public boolean getTeam() {
+            return this.team;
+        }
+    }
+}
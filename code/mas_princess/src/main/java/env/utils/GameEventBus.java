@@ -0,0 +1,64 @@
+package env.utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Delivers the {@link GameEvent}s published by the map to the consumers subscribed to them.
+ * <p>
+ * Consumers subscribe to a type of event and receive the events of that type and of all its
+ * subtypes, e.g. subscribing to {@link GameEvent.GateEvent} delivers every change of a gate.
+ * Events are delivered synchronously, on the publishing thread and in subscription order, while
+ * the map still holds the locks of the change: consumers must therefore be quick and must not
+ * wait for other threads.  A consumer throwing an exception doesn't prevent the delivery to the
+ * others.
+ * <p>
+ * Subscribing, unsubscribing and publishing can be done by any thread at any time.
+ */
+public class GameEventBus {
+    private static final Logger LOGGER = Logger.getLogger(GameEventBus.class.getName());
+
+    private final Map<Class<?>, List<Consumer<GameEvent>>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribes a consumer to a type of event.
+     *
+     * @param type     the type of the events, including its subtypes.
+     * @param consumer the consumer of the events.
+     * @param <E>      the type of the events.
+     * @return a handle cancelling the subscription when run.
+     */
+    public <E extends GameEvent> Runnable subscribe(Class<E> type, Consumer<? super E> consumer) {
+        Consumer<GameEvent> subscriber = event -> consumer.accept(type.cast(event));
+        List<Consumer<GameEvent>> consumers = this.subscribers.computeIfAbsent(type, key -> new CopyOnWriteArrayList<>());
+        consumers.add(subscriber);
+        return () -> consumers.remove(subscriber);
+    }
+
+    /**
+     * Delivers an event to the consumers subscribed to its type or to one of its supertypes,
+     * the most specific first.
+     *
+     * @param event the event.
+     */
+    public void publish(GameEvent event) {
+        for (Class<?> type = event.getClass(); type != Object.class; type = type.getSuperclass()) {
+            List<Consumer<GameEvent>> consumers = this.subscribers.get(type);
+            if (consumers == null) {
+                continue;
+            }
+
+            for (Consumer<GameEvent> consumer : consumers) {
+                try {
+                    consumer.accept(event);
+                } catch (RuntimeException e) {
+                    LOGGER.warning("A consumer of " + event.getClass().getSimpleName() + " failed: " + e);
+                }
+            }
+        }
+    }
+}
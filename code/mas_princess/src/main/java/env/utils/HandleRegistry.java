@@ -0,0 +1,127 @@
+package env.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A registry that interns the names of entities into dense integer handles.  Looking an entity
+ * up by name costs a single hash probe, while looking it up by handle is a plain array access,
+ * so callers that repeatedly need the same entity can resolve its handle once and cache it.
+ * <p>
+ * Handles are assigned sequentially starting from 0 and are never reused: registering again an
+ * already known name keeps its handle and only replaces the associated entity.
+ *
+ * @param <T> the type of the registered entities.
+ */
+public class HandleRegistry<T> {
+    /**
+     * The value returned for names that were never registered.
+     */
+    public static final int NO_HANDLE = -1;
+
+    private final Map<String, Integer> handles = new ConcurrentHashMap<>();
+    private volatile Object[] entities = new Object[16];
+    private volatile int size = 0;
+    private final ReentrantLock lock = new ReentrantLock(); // Does not pin virtual threads, unlike a monitor
+
+    /**
+     * Registers an entity under the given name, interning the name if it is new.  Registering
+     * again the entity already associated to a name (e.g. a carried princess at every move of
+     * its carrier) takes no lock.
+     *
+     * @param name   the name of the entity.
+     * @param entity the entity to register.
+     * @return the handle associated to the name.
+     */
+    public int register(String name, T entity) {
+        Integer known = this.handles.get(name);
+        if (known != null && this.entities[known] == entity) {
+            return known;
+        }
+
+        this.lock.lock();
+        try {
+            Integer handle = this.handles.get(name);
+            Object[] current = this.entities;
+
+            if (handle == null) {
+                handle = this.size;
+                if (handle >= current.length) {
+                    current = Arrays.copyOf(current, current.length * 2);
+                }
+                current[handle] = entity;
+                this.entities = current; // Publishes the new entry to the readers
+                this.handles.put(name, handle);
+                this.size = handle + 1;
+            } else {
+                current[handle] = entity;
+                this.entities = current; // Publishes the replaced entry to the readers
+            }
+
+            return handle;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the handle interned for the given name.
+     *
+     * @param name the name to look up.
+     * @return the handle of the name, or {@link #NO_HANDLE} if it was never registered.
+     */
+    public int getHandle(String name) {
+        return this.handles.getOrDefault(name, NO_HANDLE);
+    }
+
+    /**
+     * Retrieves the entity associated to the given handle.
+     *
+     * @param handle the handle of the entity.
+     * @return the entity, or {@code null} if the handle is not valid.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int handle) {
+        Object[] current = this.entities;
+        if (handle < 0 || handle >= current.length) {
+            return null;
+        }
+        return (T) current[handle];
+    }
+
+    /**
+     * Retrieves the entity registered under the given name.
+     *
+     * @param name the name of the entity.
+     * @return the entity, or {@code null} if no entity was registered under that name.
+     */
+    public T get(String name) {
+        return this.get(this.getHandle(name));
+    }
+
+    /**
+     * Retrieves the entity associated to the given handle if it is an instance of the given type.
+     *
+     * @param handle the handle of the entity.
+     * @param type   the expected type of the entity.
+     * @param <S>    the expected type of the entity.
+     * @return an {@link Optional} containing the entity, or empty if the handle is not valid or the
+     *         entity has a different type.
+     */
+    public <S extends T> Optional<S> get(int handle, Class<S> type) {
+        T entity = this.get(handle);
+        return type.isInstance(entity) ? Optional.of(type.cast(entity)) : Optional.empty();
+    }
+
+    /**
+     * Returns the number of interned names.
+     *
+     * @return the number of handles assigned so far.
+     */
+    public int size() {
+        return this.size;
+    }
+}
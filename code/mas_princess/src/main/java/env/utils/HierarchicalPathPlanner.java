@@ -0,0 +1,727 @@
+package env.utils;
+
+import java.util.*;
+
+/**
+ * A hierarchical path planner (HPA*) for large maps.  The grid is split into square clusters and,
+ * for each team, an abstract graph is precomputed:
+ * <ul>
+ *     <li>on every border shared by two clusters, each run of cells walkable on both sides becomes
+ *     an entrance with one transition (in its middle) or two (at its ends, for long runs);</li>
+ *     <li>the cells of the transitions are the nodes of the graph, linked across the border with
+ *     cost 1 and, inside each cluster, with the walking distance between them.</li>
+ * </ul>
+ * Queries connect start and goal to the nodes of their clusters and search the abstract graph,
+ * whose size only depends on the number of clusters.  The concrete cells of a {@link Route} are
+ * only computed (within a single cluster) when its next segment is requested.
+ * <p>
+ * When the walkability of a cell changes, only the borders of its cluster and the intra-cluster
+ * edges of that cluster and of its neighbours are rebuilt, and the routes planned before for the
+ * team are reported as no longer current (see {@link Route#isCurrent()}).  A route that is still
+ * current can be followed one step at a time (see {@link Route#nextStep(Vector2D)}), so that an
+ * agent only plans again when the map changes or when it leaves the route.
+ * <p>
+ * This class is not thread-safe: callers are expected to guard it (and the routes it returns)
+ * with the lock protecting the map.
+ */
+public class HierarchicalPathPlanner {
+    /**
+     * The default side length of a cluster.
+     */
+    public static final int DEFAULT_CLUSTER_SIZE = 10;
+
+    private static final int MAX_SINGLE_TRANSITION_LENGTH = 6;
+    private static final int[][] STEPS = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}};
+
+    private final int width;
+    private final int height;
+    private final int clusterSize;
+    private final int clusterColumns;
+    private final int clusterRows;
+    private final DistanceFieldCache.TeamWalkability walkability;
+    private final AbstractGraph[] graphs = new AbstractGraph[2];
+    private final long[] versions = new long[2]; // By team, bumped whenever its graph is rebuilt
+
+    /**
+     * The abstract graph of a single team.
+     */
+    private static final class AbstractGraph {
+        private final boolean team;
+        private final Map<Integer, List<int[]>> transitionsByBorder = new HashMap<>();
+        private final Map<Integer, Map<Integer, Integer>> interEdges = new HashMap<>();
+        private final Map<Integer, Map<Integer, Integer>> intraEdges = new HashMap<>();
+        private final Map<Integer, Set<Integer>> nodesByCluster = new HashMap<>();
+
+        /**
+         * Constructs an empty abstract graph.
+         *
+         * @param team the team the graph is built for.
+         */
+        private AbstractGraph(boolean team) {
+            this.team = team;
+        }
+    }
+
+    /**
+     * A route found by the planner, made of waypoints (the start, the crossed transitions and the
+     * goal) whose concrete cells are computed lazily, one segment at a time.
+     */
+    public final class Route {
+        private final int[] waypoints;
+        private final boolean team;
+        private final long version;
+        private final ArrayDeque<Vector2D> ahead = new ArrayDeque<>(); // Refined cells not walked yet
+        private Vector2D reached;
+        private int nextWaypoint = 1;
+
+        /**
+         * Constructs a new Route through the given waypoints.
+         *
+         * @param waypoints the indexes of the waypoint cells, from the start to the goal.
+         * @param team      the team of the walking agent.
+         */
+        private Route(int[] waypoints, boolean team) {
+            this.waypoints = waypoints;
+            this.team = team;
+            this.version = getVersion(team);
+            this.reached = toPosition(waypoints[0]);
+        }
+
+        /**
+         * Returns the goal of the route.
+         *
+         * @return the goal position.
+         */
+        public Vector2D getGoal() {
+            return toPosition(this.waypoints[this.waypoints.length - 1]);
+        }
+
+        /**
+         * Checks whether the route was planned on the current abstract graph, i.e. no cell of the
+         * map changed its walkability for the team since then.
+         *
+         * @return {@code true} if the route is up to date, {@code false} if it should be planned again.
+         */
+        public boolean isCurrent() {
+            return this.version == getVersion(this.team);
+        }
+
+        /**
+         * Returns the next cell to walk into from a position along the route, refining the next
+         * segment only once the cells refined so far have been walked.  A route is meant to be
+         * either followed step by step with this method or refined with {@link #nextSegment()}.
+         *
+         * @param position the current position of the walking agent: the last cell reached along
+         *                 the route, or any of the cells ahead if the agent moved since.
+         * @return an {@link Optional} containing the next cell, or empty if the position is off
+         *         the route or the route is complete or broken (in which case it should be planned again).
+         */
+        public Optional<Vector2D> nextStep(Vector2D position) {
+            if (!position.equals(this.reached)) {
+                if (!this.ahead.contains(position)) {
+                    return Optional.empty();
+                }
+                while (!this.ahead.peekFirst().equals(position)) {
+                    this.ahead.removeFirst();
+                }
+                this.reached = this.ahead.removeFirst();
+            }
+            if (this.ahead.isEmpty()) {
+                this.ahead.addAll(this.nextSegment());
+            }
+            return Optional.ofNullable(this.ahead.peekFirst());
+        }
+
+        /**
+         * Returns the waypoints of the route, from the start to the goal.
+         *
+         * @return the list of the waypoints.
+         */
+        public List<Vector2D> getWaypoints() {
+            List<Vector2D> positions = new ArrayList<>(this.waypoints.length);
+            for (int waypoint : this.waypoints) {
+                positions.add(toPosition(waypoint));
+            }
+            return positions;
+        }
+
+        /**
+         * Checks whether there are segments still to be refined.
+         *
+         * @return {@code true} if the goal has not been reached by the refined segments yet.
+         */
+        public boolean hasNextSegment() {
+            return this.nextWaypoint < this.waypoints.length;
+        }
+
+        /**
+         * Refines the next segment of the route, i.e. the cells leading from the current waypoint
+         * to the following one.
+         *
+         * @return the cells of the segment, excluding its first waypoint and including the last
+         *         one; an empty list if the route is complete or the segment is no longer walkable
+         *         (in which case the route should be planned again).
+         */
+        public List<Vector2D> nextSegment() {
+            if (!this.hasNextSegment()) {
+                return Collections.emptyList();
+            }
+            int from = this.waypoints[this.nextWaypoint - 1];
+            int to = this.waypoints[this.nextWaypoint];
+            this.nextWaypoint++;
+
+            if (clusterOf(from) != clusterOf(to)) {
+                return List.of(toPosition(to));
+            }
+            LocalSearch search = new LocalSearch(from, clusterOf(from), this.team, to);
+            List<Vector2D> segment = search.pathTo(to);
+            if (segment == null) {
+                this.nextWaypoint = this.waypoints.length;
+                return Collections.emptyList();
+            }
+            return segment;
+        }
+
+        /**
+         * Refines all the remaining segments of the route.
+         *
+         * @return an {@link Optional} containing the remaining cells up to the goal, or empty if
+         *         the route is broken.
+         */
+        public Optional<List<Vector2D>> refineAll() {
+            List<Vector2D> path = new ArrayList<>();
+            while (this.hasNextSegment()) {
+                List<Vector2D> segment = this.nextSegment();
+                if (segment.isEmpty()) {
+                    return Optional.empty();
+                }
+                path.addAll(segment);
+            }
+            return Optional.of(path);
+        }
+    }
+
+    /**
+     * A breadth-first search confined to a single cluster.  The source is always expanded and a
+     * given target cell is always accepted, even when they are not walkable.
+     */
+    private final class LocalSearch {
+        private final int minX, minY, boxHeight;
+        private final int[] distances;
+        private final int[] parents;
+
+        /**
+         * Runs the search from a cell of the given cluster.
+         *
+         * @param source        the index of the cell to start from.
+         * @param cluster       the cluster the search is confined to.
+         * @param team          the team of the walking agent.
+         * @param allowedTarget the index of a cell accepted even if not walkable, or -1 for none.
+         */
+        private LocalSearch(int source, int cluster, boolean team, int allowedTarget) {
+            this.minX = (cluster % clusterColumns) * clusterSize;
+            this.minY = (cluster / clusterColumns) * clusterSize;
+            int maxX = Math.min(width, this.minX + clusterSize);
+            int maxY = Math.min(height, this.minY + clusterSize);
+            this.boxHeight = maxY - this.minY;
+            this.distances = new int[(maxX - this.minX) * this.boxHeight];
+            this.parents = new int[this.distances.length];
+            Arrays.fill(this.distances, -1);
+
+            int[] queue = new int[this.distances.length];
+            int head = 0, tail = 0;
+            int start = this.local(source);
+            this.distances[start] = 0;
+            this.parents[start] = -1;
+            queue[tail++] = start;
+
+            while (head < tail) {
+                int current = queue[head++];
+                int cx = this.minX + current / this.boxHeight, cy = this.minY + current % this.boxHeight;
+                if (index(cx, cy) == allowedTarget && current != start) {
+                    continue; // The target may not be walkable: never expand through it
+                }
+                for (int[] step : STEPS) {
+                    int nx = cx + step[0], ny = cy + step[1];
+                    if (nx < this.minX || ny < this.minY || nx >= maxX || ny >= maxY) {
+                        continue;
+                    }
+                    int neighbour = (nx - this.minX) * this.boxHeight + (ny - this.minY);
+                    if (this.distances[neighbour] == -1
+                            && (index(nx, ny) == allowedTarget || walkability.isWalkable(nx, ny, team))) {
+                        this.distances[neighbour] = this.distances[current] + 1;
+                        this.parents[neighbour] = current;
+                        queue[tail++] = neighbour;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Converts a cell index of the map into an index local to the cluster.
+         *
+         * @param cell the index of the cell in the map.
+         * @return the index of the cell in the search arrays.
+         */
+        private int local(int cell) {
+            return (cell / height - this.minX) * this.boxHeight + (cell % height - this.minY);
+        }
+
+        /**
+         * Returns the walking distance from the source to a cell of the cluster.
+         *
+         * @param cell the index of the cell in the map.
+         * @return the distance, or -1 if the cell can't be reached within the cluster.
+         */
+        private int distanceTo(int cell) {
+            return this.distances[this.local(cell)];
+        }
+
+        /**
+         * Rebuilds the path from the source to a cell of the cluster.
+         *
+         * @param cell the index of the cell in the map.
+         * @return the path, excluding the source and including the cell, or {@code null} if the
+         *         cell can't be reached within the cluster.
+         */
+        private List<Vector2D> pathTo(int cell) {
+            int current = this.local(cell);
+            if (this.distances[current] == -1) {
+                return null;
+            }
+            LinkedList<Vector2D> path = new LinkedList<>();
+            for (; this.parents[current] != -1; current = this.parents[current]) {
+                path.addFirst(Vector2D.of(this.minX + current / this.boxHeight, this.minY + current % this.boxHeight));
+            }
+            return new ArrayList<>(path);
+        }
+    }
+
+    /**
+     * Constructs a new HierarchicalPathPlanner and precomputes the abstract graphs of both teams.
+     *
+     * @param width       the width of the map.
+     * @param height      the height of the map.
+     * @param clusterSize the side length of a cluster.
+     * @param walkability the walkability of the cells of the map.
+     * @throws IllegalArgumentException if any of the sizes is not positive.
+     */
+    public HierarchicalPathPlanner(int width, int height, int clusterSize, DistanceFieldCache.TeamWalkability walkability) {
+        if (width <= 0 || height <= 0 || clusterSize <= 0) {
+            throw new IllegalArgumentException("Map dimensions and cluster size must be positive.");
+        }
+        this.width = width;
+        this.height = height;
+        this.clusterSize = clusterSize;
+        this.clusterColumns = (width + clusterSize - 1) / clusterSize;
+        this.clusterRows = (height + clusterSize - 1) / clusterSize;
+        this.walkability = walkability;
+
+        for (boolean team : new boolean[]{false, true}) {
+            AbstractGraph graph = new AbstractGraph(team);
+            this.graphs[team ? 1 : 0] = graph;
+
+            for (int cluster = 0; cluster < this.clusterColumns * this.clusterRows; cluster++) {
+                if (cluster % this.clusterColumns + 1 < this.clusterColumns) {
+                    this.buildBorder(graph, cluster, cluster + 1);
+                }
+                if (cluster / this.clusterColumns + 1 < this.clusterRows) {
+                    this.buildBorder(graph, cluster, cluster + this.clusterColumns);
+                }
+            }
+            for (int cluster = 0; cluster < this.clusterColumns * this.clusterRows; cluster++) {
+                this.buildIntraEdges(graph, cluster);
+            }
+        }
+    }
+
+    /**
+     * Finds a route between two positions for an agent of the given team.
+     *
+     * @param start the starting position.
+     * @param goal  the goal position.
+     * @param team  the team of the walking agent.
+     * @return an {@link Optional} containing the route, or empty if the goal can't be reached.
+     */
+    public Optional<Route> findRoute(Vector2D start, Vector2D goal, boolean team) {
+        if (!this.isInside(start.getX(), start.getY()) || !this.isInside(goal.getX(), goal.getY())) {
+            return Optional.empty();
+        }
+        int source = this.index(start.getX(), start.getY());
+        int target = this.index(goal.getX(), goal.getY());
+        if (source == target) {
+            return Optional.of(new Route(new int[]{source}, team));
+        }
+
+        AbstractGraph graph = this.graphs[team ? 1 : 0];
+        if (this.clusterOf(source) == this.clusterOf(target)
+                && new LocalSearch(source, this.clusterOf(source), team, target).distanceTo(target) != -1) {
+            return Optional.of(new Route(new int[]{source, target}, team));
+        }
+
+        Map<Integer, int[]> startEdges = this.endpointEdges(graph, source, target);
+        Map<Integer, int[]> goalEdges = this.endpointEdges(graph, target, source);
+        int[] waypoints = this.searchAbstract(graph, source, target, startEdges, goalEdges);
+        return waypoints == null ? Optional.empty() : Optional.of(new Route(waypoints, team));
+    }
+
+    /**
+     * Returns the version of the abstract graph of a team, bumped whenever the walkability of one
+     * of its cells changes: a goal found unreachable stays so until the version changes.
+     *
+     * @param team the team of the abstract graph.
+     * @return the current version of the graph.
+     */
+    public long getVersion(boolean team) {
+        return this.versions[team ? 1 : 0];
+    }
+
+    /**
+     * Notifies that the walkability of a cell changed for the given team, rebuilding the borders
+     * of its cluster and the intra-cluster edges of that cluster and of its neighbours.
+     *
+     * @param x    the x-coordinate of the cell.
+     * @param y    the y-coordinate of the cell.
+     * @param team the team for which the walkability changed.
+     */
+    public void cellChanged(int x, int y, boolean team) {
+        if (!this.isInside(x, y)) {
+            return;
+        }
+        AbstractGraph graph = this.graphs[team ? 1 : 0];
+        this.versions[team ? 1 : 0]++;
+        int cluster = this.clusterOf(this.index(x, y));
+        int column = cluster % this.clusterColumns, row = cluster / this.clusterColumns;
+
+        List<Integer> affected = new ArrayList<>(List.of(cluster));
+        if (column > 0) {
+            this.buildBorder(graph, cluster - 1, cluster);
+            affected.add(cluster - 1);
+        }
+        if (column + 1 < this.clusterColumns) {
+            this.buildBorder(graph, cluster, cluster + 1);
+            affected.add(cluster + 1);
+        }
+        if (row > 0) {
+            this.buildBorder(graph, cluster - this.clusterColumns, cluster);
+            affected.add(cluster - this.clusterColumns);
+        }
+        if (row + 1 < this.clusterRows) {
+            this.buildBorder(graph, cluster, cluster + this.clusterColumns);
+            affected.add(cluster + this.clusterColumns);
+        }
+        affected.forEach(affectedCluster -> this.buildIntraEdges(graph, affectedCluster));
+    }
+
+    /**
+     * Computes the temporary edges connecting an endpoint of a query (start or goal) to the
+     * abstract graph, i.e. its walking distance to the nodes of its cluster and to the other
+     * endpoint, if it lies in the same cluster.  An endpoint that is not walkable itself (e.g. a
+     * tree on a cluster border) can also be reached from its walkable neighbours in the adjacent
+     * clusters: in that case the edge goes through that neighbour, recorded as an extra waypoint.
+     *
+     * @param graph    the abstract graph of the walking team.
+     * @param endpoint the cell of the endpoint.
+     * @param other    the cell of the other endpoint.
+     * @return a map from the connected cells to their {cost, extra waypoint (or -1)}.
+     */
+    private Map<Integer, int[]> endpointEdges(AbstractGraph graph, int endpoint, int other) {
+        Map<Integer, int[]> edges = new HashMap<>();
+        this.addLocalEdges(graph, endpoint, other, 0, -1, edges);
+
+        int x = endpoint / this.height, y = endpoint % this.height;
+        if (!this.walkability.isWalkable(x, y, graph.team)) {
+            for (int[] step : STEPS) {
+                int nx = x + step[0], ny = y + step[1];
+                if (this.isInside(nx, ny) && this.walkability.isWalkable(nx, ny, graph.team)) {
+                    int neighbour = this.index(nx, ny);
+                    if (this.clusterOf(neighbour) != this.clusterOf(endpoint)) {
+                        this.addLocalEdges(graph, neighbour, other, 1, neighbour, edges);
+                    }
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Adds the edges from a cell to the nodes of its cluster (and to {@code other}, if it lies in
+     * the same cluster), keeping the cheapest one for each destination.
+     *
+     * @param graph  the abstract graph of the walking team.
+     * @param from   the cell the local search starts from.
+     * @param other  the other endpoint of the query.
+     * @param extra  the cost to add to every edge.
+     * @param via    the extra waypoint of the edges, or -1 if none (dropped on the edge reaching it).
+     * @param edges  the map collecting the edges.
+     */
+    private void addLocalEdges(AbstractGraph graph, int from, int other, int extra, int via, Map<Integer, int[]> edges) {
+        int cluster = this.clusterOf(from);
+        LocalSearch search = new LocalSearch(from, cluster, graph.team, other);
+
+        List<Integer> destinations = new ArrayList<>(graph.nodesByCluster.getOrDefault(cluster, Collections.emptySet()));
+        if (this.clusterOf(other) == cluster) {
+            destinations.add(other);
+        }
+        for (int destination : destinations) {
+            int distance = search.distanceTo(destination);
+            if (distance != -1) {
+                int[] known = edges.get(destination);
+                if (known == null || distance + extra < known[0]) {
+                    edges.put(destination, new int[]{distance + extra, destination == via ? -1 : via});
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs A* on the abstract graph, extended with the temporary edges of start and goal.
+     *
+     * @param graph      the abstract graph of the walking team.
+     * @param source     the cell of the start.
+     * @param target     the cell of the goal.
+     * @param startEdges the edges from the start (see {@link #endpointEdges(AbstractGraph, int, int)}).
+     * @param goalEdges  the edges from the goal, walked backwards.
+     * @return the waypoints from start to goal, or {@code null} if the goal can't be reached.
+     */
+    private int[] searchAbstract(AbstractGraph graph, int source, int target,
+                                 Map<Integer, int[]> startEdges, Map<Integer, int[]> goalEdges) {
+        Map<Integer, Integer> costs = new HashMap<>();
+        Map<Integer, Integer> parents = new HashMap<>();
+        Map<Integer, Integer> vias = new HashMap<>();
+        PriorityQueue<int[]> open = new PriorityQueue<>(Comparator.comparingInt(entry -> entry[0]));
+
+        costs.put(source, 0);
+        open.add(new int[]{this.heuristic(source, target), 0, source});
+
+        while (!open.isEmpty()) {
+            int[] entry = open.poll();
+            int current = entry[2];
+            if (entry[1] > costs.get(current)) {
+                continue; // Stale entry
+            }
+            if (current == target) {
+                LinkedList<Integer> path = new LinkedList<>();
+                for (Integer node = target; node != null; node = parents.get(node)) {
+                    path.addFirst(node);
+                    Integer via = vias.get(node);
+                    if (via != null && via != -1) {
+                        path.addFirst(via);
+                    }
+                }
+                return path.stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            Map<Integer, int[]> neighbours = new HashMap<>();
+            graph.intraEdges.getOrDefault(current, Collections.emptyMap())
+                    .forEach((node, cost) -> neighbours.put(node, new int[]{cost, -1}));
+            graph.interEdges.getOrDefault(current, Collections.emptyMap())
+                    .forEach((node, cost) -> neighbours.putIfAbsent(node, new int[]{cost, -1}));
+            if (current == source) {
+                startEdges.forEach(neighbours::putIfAbsent);
+            }
+            int[] toGoal = goalEdges.get(current);
+            if (toGoal != null) {
+                neighbours.put(target, toGoal);
+            }
+
+            for (Map.Entry<Integer, int[]> edge : neighbours.entrySet()) {
+                int neighbour = edge.getKey();
+                int cost = entry[1] + edge.getValue()[0];
+                Integer known = costs.get(neighbour);
+                if (known == null || cost < known) {
+                    costs.put(neighbour, cost);
+                    parents.put(neighbour, current);
+                    vias.put(neighbour, edge.getValue()[1]);
+                    open.add(new int[]{cost + this.heuristic(neighbour, target), cost, neighbour});
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Recomputes the transitions on the border between two adjacent clusters.
+     *
+     * @param graph  the abstract graph to update.
+     * @param first  the cluster on the left of (or above) the border.
+     * @param second the cluster on the right of (or below) the border.
+     */
+    private void buildBorder(AbstractGraph graph, int first, int second) {
+        List<int[]> previous = graph.transitionsByBorder.remove(first * this.clusterColumns * this.clusterRows + second);
+        if (previous != null) {
+            for (int[] transition : previous) {
+                this.removeEdge(graph.interEdges, transition[0], transition[1]);
+                this.removeEdge(graph.interEdges, transition[1], transition[0]);
+            }
+        }
+
+        boolean horizontal = second == first + 1;
+        int firstX = (first % this.clusterColumns) * this.clusterSize;
+        int firstY = (first / this.clusterColumns) * this.clusterSize;
+        int length = horizontal
+                ? Math.min(this.height, firstY + this.clusterSize) - firstY
+                : Math.min(this.width, firstX + this.clusterSize) - firstX;
+
+        List<int[]> transitions = new ArrayList<>();
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = false;
+            if (i < length) {
+                int ax = horizontal ? firstX + this.clusterSize - 1 : firstX + i;
+                int ay = horizontal ? firstY + i : firstY + this.clusterSize - 1;
+                int bx = horizontal ? ax + 1 : ax;
+                int by = horizontal ? ay : ay + 1;
+                open = this.walkability.isWalkable(ax, ay, graph.team) && this.walkability.isWalkable(bx, by, graph.team);
+            }
+            if (open && runStart == -1) {
+                runStart = i;
+            } else if (!open && runStart != -1) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 < MAX_SINGLE_TRANSITION_LENGTH) {
+                    transitions.add(this.transitionAt(horizontal, firstX, firstY, (runStart + runEnd) / 2));
+                } else {
+                    transitions.add(this.transitionAt(horizontal, firstX, firstY, runStart));
+                    transitions.add(this.transitionAt(horizontal, firstX, firstY, runEnd));
+                }
+                runStart = -1;
+            }
+        }
+
+        for (int[] transition : transitions) {
+            graph.interEdges.computeIfAbsent(transition[0], node -> new HashMap<>()).put(transition[1], 1);
+            graph.interEdges.computeIfAbsent(transition[1], node -> new HashMap<>()).put(transition[0], 1);
+        }
+        graph.transitionsByBorder.put(first * this.clusterColumns * this.clusterRows + second, transitions);
+    }
+
+    /**
+     * Computes the pair of cells of a transition at the given offset along a border.
+     *
+     * @param horizontal whether the second cluster is on the right of the first one.
+     * @param firstX     the x-coordinate of the top-left cell of the first cluster.
+     * @param firstY     the y-coordinate of the top-left cell of the first cluster.
+     * @param offset     the offset of the transition along the border.
+     * @return the cells of the transition, the one in the first cluster first.
+     */
+    private int[] transitionAt(boolean horizontal, int firstX, int firstY, int offset) {
+        if (horizontal) {
+            int x = firstX + this.clusterSize - 1, y = firstY + offset;
+            return new int[]{this.index(x, y), this.index(x + 1, y)};
+        }
+        int x = firstX + offset, y = firstY + this.clusterSize - 1;
+        return new int[]{this.index(x, y), this.index(x, y + 1)};
+    }
+
+    /**
+     * Recomputes the nodes of a cluster and the walking distances between them.
+     *
+     * @param graph   the abstract graph to update.
+     * @param cluster the cluster to rebuild.
+     */
+    private void buildIntraEdges(AbstractGraph graph, int cluster) {
+        for (int node : graph.nodesByCluster.getOrDefault(cluster, Collections.emptySet())) {
+            graph.intraEdges.remove(node);
+        }
+
+        Set<Integer> nodes = new HashSet<>();
+        int column = cluster % this.clusterColumns, row = cluster / this.clusterColumns;
+        int clusters = this.clusterColumns * this.clusterRows;
+        List<List<int[]>> borders = new ArrayList<>();
+        if (column > 0) borders.add(graph.transitionsByBorder.get((cluster - 1) * clusters + cluster));
+        if (column + 1 < this.clusterColumns) borders.add(graph.transitionsByBorder.get(cluster * clusters + cluster + 1));
+        if (row > 0) borders.add(graph.transitionsByBorder.get((cluster - this.clusterColumns) * clusters + cluster));
+        if (row + 1 < this.clusterRows) borders.add(graph.transitionsByBorder.get(cluster * clusters + cluster + this.clusterColumns));
+        for (List<int[]> transitions : borders) {
+            if (transitions != null) {
+                for (int[] transition : transitions) {
+                    for (int cell : transition) {
+                        if (this.clusterOf(cell) == cluster) {
+                            nodes.add(cell);
+                        }
+                    }
+                }
+            }
+        }
+        graph.nodesByCluster.put(cluster, nodes);
+
+        for (int node : nodes) {
+            LocalSearch search = new LocalSearch(node, cluster, graph.team, -1);
+            for (int other : nodes) {
+                if (other != node && search.distanceTo(other) != -1) {
+                    graph.intraEdges.computeIfAbsent(node, key -> new HashMap<>()).put(other, search.distanceTo(other));
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a directed edge from an adjacency map.
+     *
+     * @param edges the adjacency map.
+     * @param from  the origin of the edge.
+     * @param to    the destination of the edge.
+     */
+    private void removeEdge(Map<Integer, Map<Integer, Integer>> edges, int from, int to) {
+        Map<Integer, Integer> neighbours = edges.get(from);
+        if (neighbours != null) {
+            neighbours.remove(to);
+            if (neighbours.isEmpty()) {
+                edges.remove(from);
+            }
+        }
+    }
+
+    /**
+     * Computes the cluster containing a cell.
+     *
+     * @param cell the index of the cell.
+     * @return the index of the cluster (row-major).
+     */
+    private int clusterOf(int cell) {
+        return ((cell % this.height) / this.clusterSize) * this.clusterColumns + (cell / this.height) / this.clusterSize;
+    }
+
+    /**
+     * Computes the Manhattan distance between two cells.
+     *
+     * @param from the index of the first cell.
+     * @param to   the index of the second cell.
+     * @return the Manhattan distance.
+     */
+    private int heuristic(int from, int to) {
+        return Math.abs(from / this.height - to / this.height) + Math.abs(from % this.height - to % this.height);
+    }
+
+    /**
+     * Converts a cell index into its position.
+     *
+     * @param cell the index of the cell.
+     * @return the position of the cell.
+     */
+    private Vector2D toPosition(int cell) {
+        return Vector2D.of(cell / this.height, cell % this.height);
+    }
+
+    /**
+     * Computes the array index of the given coordinates.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return the index of the cell.
+     */
+    private int index(int x, int y) {
+        return x * this.height + y;
+    }
+
+    /**
+     * Checks whether the given coordinates fall inside the map.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return {@code true} if the coordinates are inside the map, {@code false} otherwise.
+     */
+    private boolean isInside(int x, int y) {
+        return x >= 0 && y >= 0 && x < this.width && y < this.height;
+    }
+}
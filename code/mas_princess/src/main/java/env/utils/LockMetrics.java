@@ -0,0 +1,358 @@
+package env.utils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention metrics of the locks guarding the game map, kept per guarded operation (e.g.
+ * {@code moveAgent}, {@code getAllCells}, {@code getClosestObjective}).  For every operation the
+ * metrics count the acquisitions and record, as totals, maxima and histograms, how long the
+ * threads waited to acquire the lock and how long they held it.  Optimistic reads additionally
+ * count their retries and their fallbacks to read locks.
+ * <p>
+ * Recording is lock-free and can be switched on and off at any time; while disabled, the cost of
+ * the instrumentation is a single volatile read per acquisition.
+ */
+public class LockMetrics {
+    /**
+     * The wait, in nanoseconds, above which an acquisition is counted as contended.
+     */
+    public static final long CONTENDED_THRESHOLD_NANOS = 1_000;
+
+    private final Map<String, Stats> operations = new ConcurrentHashMap<>();
+    private volatile boolean enabled;
+
+    /**
+     * A histogram of durations, with one bucket per power of two of nanoseconds: bucket {@code i}
+     * counts the durations in {@code [2^(i-1), 2^i)}, bucket {@code 0} the null ones.
+     */
+    public static final class Histogram {
+        /**
+         * The number of buckets.
+         */
+        public static final int BUCKETS = 64;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        /**
+         * Records a duration.
+         *
+         * @param nanos the duration in nanoseconds.
+         */
+        private void record(long nanos) {
+            this.counts.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos))));
+        }
+
+        /**
+         * Returns the number of durations recorded in a bucket.
+         *
+         * @param bucket the index of the bucket.
+         * @return the count of the bucket.
+         */
+        public long getCount(int bucket) {
+            return this.counts.get(bucket);
+        }
+
+        /**
+         * Returns the (exclusive) upper bound of the durations of a bucket.
+         *
+         * @param bucket the index of the bucket.
+         * @return the upper bound in nanoseconds.
+         */
+        public static long getUpperBound(int bucket) {
+            return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+        }
+
+        /**
+         * Returns an upper bound of the given percentile of the recorded durations, accurate
+         * within a factor of two.
+         *
+         * @param percentile the percentile, between {@code 0} and {@code 100}.
+         * @return the upper bound in nanoseconds, or {@code 0} if nothing was recorded.
+         */
+        public long getPercentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += this.counts.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += this.counts.get(i);
+                if (seen >= Math.max(1, rank)) {
+                    return getUpperBound(i);
+                }
+            }
+            return getUpperBound(BUCKETS - 1);
+        }
+    }
+
+    /**
+     * The metrics of a single guarded operation.
+     */
+    public static final class Stats {
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder contended = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAdder holdNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final AtomicLong maxHoldNanos = new AtomicLong();
+        private final LongAdder optimisticRetries = new LongAdder();
+        private final LongAdder fallbacks = new LongAdder();
+        private final Histogram waitHistogram = new Histogram();
+        private final Histogram holdHistogram = new Histogram();
+
+        /**
+         * Records the wait of an acquisition.
+         *
+         * @param nanos the wait in nanoseconds.
+         */
+        private void recordWait(long nanos) {
+            this.acquisitions.increment();
+            if (nanos > CONTENDED_THRESHOLD_NANOS) {
+                this.contended.increment();
+            }
+            this.waitNanos.add(nanos);
+            this.maxWaitNanos.accumulateAndGet(nanos, Math::max);
+            this.waitHistogram.record(nanos);
+        }
+
+        /**
+         * Records how long a lock was held.
+         *
+         * @param nanos the hold time in nanoseconds.
+         */
+        private void recordHold(long nanos) {
+            this.holdNanos.add(nanos);
+            this.maxHoldNanos.accumulateAndGet(nanos, Math::max);
+            this.holdHistogram.record(nanos);
+        }
+
+        /**
+         * Returns the number of acquisitions.
+         *
+         * @return the acquisitions.
+         */
+        public long getAcquisitions() {
+            return this.acquisitions.sum();
+        }
+
+        /**
+         * Returns the number of acquisitions that waited more than
+         * {@link #CONTENDED_THRESHOLD_NANOS}.
+         *
+         * @return the contended acquisitions.
+         */
+        public long getContended() {
+            return this.contended.sum();
+        }
+
+        /**
+         * Returns the total time spent waiting for the lock.
+         *
+         * @return the total wait in nanoseconds.
+         */
+        public long getTotalWaitNanos() {
+            return this.waitNanos.sum();
+        }
+
+        /**
+         * Returns the total time the lock was held.
+         *
+         * @return the total hold time in nanoseconds.
+         */
+        public long getTotalHoldNanos() {
+            return this.holdNanos.sum();
+        }
+
+        /**
+         * Returns the longest wait for the lock.
+         *
+         * @return the longest wait in nanoseconds.
+         */
+        public long getMaxWaitNanos() {
+            return this.maxWaitNanos.get();
+        }
+
+        /**
+         * Returns the longest time the lock was held.
+         *
+         * @return the longest hold time in nanoseconds.
+         */
+        public long getMaxHoldNanos() {
+            return this.maxHoldNanos.get();
+        }
+
+        /**
+         * Returns the number of optimistic reads that had to be retried.
+         *
+         * @return the retries.
+         */
+        public long getOptimisticRetries() {
+            return this.optimisticRetries.sum();
+        }
+
+        /**
+         * Returns the number of optimistic reads that fell back to read locks.
+         *
+         * @return the fallbacks.
+         */
+        public long getFallbacks() {
+            return this.fallbacks.sum();
+        }
+
+        /**
+         * Returns the histogram of the waits for the lock.
+         *
+         * @return the wait histogram.
+         */
+        public Histogram getWaitHistogram() {
+            return this.waitHistogram;
+        }
+
+        /**
+         * Returns the histogram of the times the lock was held.
+         *
+         * @return the hold histogram.
+         */
+        public Histogram getHoldHistogram() {
+            return this.holdHistogram;
+        }
+    }
+
+    /**
+     * Checks whether the metrics are being recorded.
+     *
+     * @return {@code true} if recording is enabled, {@code false} otherwise.
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Enables or disables the recording of the metrics.  The metrics recorded so far are kept.
+     *
+     * @param enabled whether to record the metrics.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Marks the start of an acquisition.
+     *
+     * @return the start instant, or {@code 0} if recording is disabled.
+     */
+    public long startAcquisition() {
+        return this.enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records an acquisition, started at the given instant, that just completed.
+     *
+     * @param operation the guarded operation.
+     * @param start     the instant returned by {@link #startAcquisition()}.
+     * @return the acquisition instant, to pass to {@link #released(String, long)}, or {@code 0}
+     *         if the acquisition is not being recorded.
+     */
+    public long acquired(String operation, long start) {
+        if (start == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        this.getStats(operation).recordWait(now - start);
+        return now;
+    }
+
+    /**
+     * Records the release of a lock acquired at the given instant.
+     *
+     * @param operation the guarded operation.
+     * @param acquired  the instant returned by {@link #acquired(String, long)}.
+     */
+    public void released(String operation, long acquired) {
+        if (acquired != 0) {
+            this.getStats(operation).recordHold(System.nanoTime() - acquired);
+        }
+    }
+
+    /**
+     * Records a retry of an optimistic read.
+     *
+     * @param operation the guarded operation.
+     */
+    public void optimisticRetry(String operation) {
+        if (this.enabled) {
+            this.getStats(operation).optimisticRetries.increment();
+        }
+    }
+
+    /**
+     * Records an optimistic read falling back to read locks.
+     *
+     * @param operation the guarded operation.
+     */
+    public void fallback(String operation) {
+        if (this.enabled) {
+            this.getStats(operation).fallbacks.increment();
+        }
+    }
+
+    /**
+     * Returns the metrics of an operation, creating them if needed.
+     *
+     * @param operation the guarded operation.
+     * @return the metrics of the operation.
+     */
+    public Stats getStats(String operation) {
+        return this.operations.computeIfAbsent(operation, name -> new Stats());
+    }
+
+    /**
+     * Returns the metrics of every operation recorded so far.
+     *
+     * @return a read-only view of the metrics, by operation.
+     */
+    public Map<String, Stats> getAllStats() {
+        return Collections.unmodifiableMap(this.operations);
+    }
+
+    /**
+     * Discards every metric recorded so far.
+     */
+    public void reset() {
+        this.operations.clear();
+    }
+
+    /**
+     * Formats the metrics as a table, one operation per line, the most waited-for first.  Times
+     * are in microseconds.
+     *
+     * @return the report.
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder(String.format("%-28s %10s %9s %10s %10s %10s %10s %10s %10s %8s %8s%n",
+                "operation", "count", "contended", "wait avg", "wait p99", "wait max", "hold avg", "hold p99", "hold max",
+                "retries", "fallback"));
+
+        this.operations.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Stats> entry) -> entry.getValue().getTotalWaitNanos()).reversed())
+                .forEach(entry -> {
+                    Stats stats = entry.getValue();
+                    long count = Math.max(1, stats.getAcquisitions());
+                    report.append(String.format("%-28s %10d %8.1f%% %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f %8d %8d%n",
+                            entry.getKey(), stats.getAcquisitions(), 100.0 * stats.getContended() / count,
+                            stats.getTotalWaitNanos() / 1e3 / count, stats.getWaitHistogram().getPercentile(99) / 1e3,
+                            stats.getMaxWaitNanos() / 1e3, stats.getTotalHoldNanos() / 1e3 / count,
+                            stats.getHoldHistogram().getPercentile(99) / 1e3, stats.getMaxHoldNanos() / 1e3,
+                            stats.getOptimisticRetries(), stats.getFallbacks()));
+                });
+        return report.toString();
+    }
+}
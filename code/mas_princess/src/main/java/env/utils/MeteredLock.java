@@ -0,0 +1,49 @@
+package env.utils;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link ReentrantLock} recording its contention in {@link LockMetrics}, under a fixed
+ * operation name.  Only the outermost acquisition of a reentrant hold is recorded.
+ */
+public class MeteredLock {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LockMetrics metrics;
+    private final String operation;
+    private long acquired; // Only accessed by the thread holding the lock
+
+    /**
+     * Constructs a new MeteredLock.
+     *
+     * @param metrics   the metrics receiving the waits and hold times.
+     * @param operation the name under which they are recorded.
+     */
+    public MeteredLock(LockMetrics metrics, String operation) {
+        this.metrics = metrics;
+        this.operation = operation;
+    }
+
+    /**
+     * Acquires the lock, waiting if needed.
+     */
+    public void lock() {
+        if (this.lock.isHeldByCurrentThread()) {
+            this.lock.lock();
+            return;
+        }
+
+        long start = this.metrics.startAcquisition();
+        this.lock.lock();
+        this.acquired = this.metrics.acquired(this.operation, start);
+    }
+
+    /**
+     * Releases the lock.
+     */
+    public void unlock() {
+        if (this.lock.getHoldCount() == 1) {
+            this.metrics.released(this.operation, this.acquired);
+        }
+        this.lock.unlock();
+    }
+}
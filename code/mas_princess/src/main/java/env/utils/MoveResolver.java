@@ -0,0 +1,217 @@
+package env.utils;
+
+import env.agents.Agent;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Resolves the moves of a tick together instead of one at a time.  The moves proposed during a
+ * tick are collected as intents and, at the end of the batch, resolved in a single pass:
+ * <ol>
+ *     <li>intents whose target can't be entered at all (terrain, structures, idle agents) fail;</li>
+ *     <li>when several agents target the same cell, the cell goes to the agent with the highest
+ *     priority: agents carrying an item first, then the agents that lost the most consecutive
+ *     contests, then the agents with the lowest name;</li>
+ *     <li>an agent moving into a cell left by another moving agent follows it, so queues advance
+ *     all at once, and closed chains (swaps and rotations) move together.</li>
+ * </ol>
+ * The outcome therefore depends only on the intents of the tick and on the state of the map,
+ * never on the order in which the agent threads happen to submit them.
+ * <p>
+ * Instances are not thread-safe: intents must be proposed and resolved by the thread running the
+ * ticks (see {@link TickEngine}).
+ */
+public class MoveResolver {
+    private static final Comparator<Intent> PRIORITY = Comparator
+            .comparing((Intent intent) -> intent.agent.getCarriedItem() == null)
+            .thenComparing(intent -> -intent.waited)
+            .thenComparing(intent -> intent.agent.getName());
+
+    private final List<Intent> pending = new ArrayList<>();
+    private final Set<Agent> proposing = new HashSet<>();
+    private final Map<Agent, Integer> waiting = new HashMap<>(); // Consecutive contests lost by each agent
+
+    /**
+     * The move an agent intends to perform during a tick.
+     */
+    public static final class Intent {
+        private final Agent agent;
+        private final Vector2D target;
+        private final Orientation orientation;
+        private Vector2D origin;
+        private int waited;
+        private boolean moved;
+
+        /**
+         * Constructs a new Intent.
+         *
+         * @param agent       the moving agent.
+         * @param target      the position the agent wants to reach.
+         * @param orientation the orientation of the agent once moved.
+         */
+        private Intent(Agent agent, Vector2D target, Orientation orientation) {
+            this.agent = agent;
+            this.target = target;
+            this.orientation = orientation;
+        }
+
+        /**
+         * Returns the moving agent.
+         *
+         * @return the agent.
+         */
+        public Agent getAgent() {
+            return this.agent;
+        }
+
+        /**
+         * Returns the position the agent wants to reach.
+         *
+         * @return the target position.
+         */
+        public Vector2D getTarget() {
+            return this.target;
+        }
+
+        /**
+         * Returns the orientation of the agent once moved.
+         *
+         * @return the orientation.
+         */
+        public Orientation getOrientation() {
+            return this.orientation;
+        }
+
+        /**
+         * Returns the position of the agent when the intent was resolved.
+         *
+         * @return the origin, or {@code null} if the intent was not resolved yet.
+         */
+        public Vector2D getOrigin() {
+            return this.origin;
+        }
+
+        /**
+         * Checks whether the move was granted.
+         *
+         * @return {@code true} if the agent moved to the target, {@code false} otherwise or if
+         *         the intent was not resolved yet.
+         */
+        public boolean isMoved() {
+            return this.moved;
+        }
+    }
+
+    /**
+     * Proposes a move for the current tick.  An agent can propose a single move per tick: any
+     * further proposal fails.
+     *
+     * @param agent       the moving agent.
+     * @param target      the position the agent wants to reach.
+     * @param orientation the orientation of the agent once moved.
+     * @return the outcome of the move, to be read once the moves of the tick are resolved.
+     */
+    public BooleanSupplier propose(Agent agent, Vector2D target, Orientation orientation) {
+        if (!this.proposing.add(agent)) {
+            return () -> false;
+        }
+
+        Intent intent = new Intent(agent, target, orientation);
+        this.pending.add(intent);
+        return intent::isMoved;
+    }
+
+    /**
+     * Returns the intents proposed since the last call, which are then ready to be resolved.
+     *
+     * @return the proposed intents, in proposal order.
+     */
+    public List<Intent> drain() {
+        List<Intent> intents = new ArrayList<>(this.pending);
+        this.pending.clear();
+        this.proposing.clear();
+        return intents;
+    }
+
+    /**
+     * Resolves the given intents, marking the granted ones as moved.  The moving agents must not
+     * be on the map while the target cells are checked, so that a cell left by a moving agent is
+     * seen as free; whether the move into it is possible is decided here.
+     *
+     * @param intents  the intents of the tick, as returned by {@link #drain()}.
+     * @param canEnter checks whether an agent could enter a position if no moving agent were on
+     *                 the map.
+     */
+    public void resolve(List<Intent> intents, BiPredicate<Agent, Vector2D> canEnter) {
+        Map<Vector2D, Intent> byOrigin = new HashMap<>();
+        List<Intent> contenders = new ArrayList<>();
+
+        for (Intent intent : intents) {
+            intent.origin = intent.agent.getPose().getPosition();
+            intent.waited = this.waiting.getOrDefault(intent.agent, 0);
+            intent.moved = false;
+            byOrigin.put(intent.origin, intent);
+
+            if (!intent.target.equals(intent.origin) && canEnter.test(intent.agent, intent.target)) {
+                contenders.add(intent);
+            } else {
+                this.waiting.remove(intent.agent); // Blocked for good, not by a contest
+            }
+        }
+
+        // Each contended cell goes to a single winner
+        contenders.sort(PRIORITY);
+        Map<Vector2D, Intent> winners = new HashMap<>();
+        for (Intent intent : contenders) {
+            winners.putIfAbsent(intent.target, intent);
+        }
+
+        // Winners move if their target is free, or left by a moving agent, or closes a chain
+        Map<Intent, Boolean> outcomes = new HashMap<>();
+        for (Intent winner : winners.values()) {
+            List<Intent> path = new ArrayList<>();
+            Set<Intent> onPath = new HashSet<>();
+            Intent current = winner;
+            boolean moves;
+
+            while (true) {
+                Boolean known = outcomes.get(current);
+                if (known != null) {
+                    moves = known;
+                    break;
+                }
+                if (!onPath.add(current)) {
+                    moves = true; // Closed chain
+                    break;
+                }
+                path.add(current);
+
+                Intent occupant = byOrigin.get(current.target);
+                if (occupant == null) {
+                    moves = true;
+                    break;
+                }
+                if (winners.get(occupant.target) != occupant) {
+                    moves = false; // The occupant stays where it is
+                    break;
+                }
+                current = occupant;
+            }
+
+            for (Intent intent : path) {
+                outcomes.put(intent, moves);
+            }
+        }
+
+        for (Intent intent : contenders) {
+            intent.moved = outcomes.getOrDefault(intent, false);
+            if (intent.moved) {
+                this.waiting.remove(intent.agent);
+            } else {
+                this.waiting.merge(intent.agent, 1, Integer::sum);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package env.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free queue for many producers and a single consumer, backed by a ring buffer.
+ * <p>
+ * Every slot of the ring carries a sequence number telling whose turn it is: a producer claims
+ * the next position with a compare-and-set on the tail, writes the element and then publishes it
+ * by advancing the sequence of the slot; the consumer takes the element once the sequence says it
+ * was published and hands the slot back to the producers of the next lap.  Producers thus only
+ * contend on the tail, and never wait for each other to finish writing.
+ *
+ * @param <E> the type of the elements.
+ */
+public class MpscRingBuffer<E> {
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong(); // Next position claimed by the producers
+    private long head; // Next position taken by the consumer, only accessed by the consumer
+
+    /**
+     * Constructs an empty ring buffer.
+     *
+     * @param capacity the maximum number of elements, rounded up to a power of two.
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+
+        int rounded = 1;
+        while (rounded < capacity) {
+            rounded <<= 1;
+        }
+        this.capacity = rounded;
+        this.mask = this.capacity - 1;
+        this.elements = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Returns the maximum number of elements.
+     *
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Inserts an element, if there is room for it.  May be called by any thread.
+     *
+     * @param element the element, not {@code null}.
+     * @return {@code true} if the element was inserted, {@code false} if the buffer is full.
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("The ring buffer can't hold null elements.");
+        }
+
+        long position = this.tail.get();
+        int slot;
+        while (true) {
+            slot = (int) (position & this.mask);
+            long lag = this.sequences.get(slot) - position;
+            if (lag == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = this.tail.get();
+            } else if (lag < 0) {
+                return false; // The slot still holds an element of the previous lap
+            } else {
+                position = this.tail.get(); // Another producer claimed the position
+            }
+        }
+
+        this.elements.set(slot, element);
+        this.sequences.set(slot, position + 1); // Publishes the element to the consumer
+        return true;
+    }
+
+    /**
+     * Takes the oldest element.  Must only be called by the consumer thread.
+     *
+     * @return the element, or {@code null} if the buffer is empty.
+     */
+    public E poll() {
+        int slot = (int) (this.head & this.mask);
+        if (this.sequences.get(slot) != this.head + 1) {
+            return null;
+        }
+
+        E element = this.elements.get(slot);
+        this.elements.set(slot, null);
+        this.sequences.set(slot, this.head + this.capacity); // Hands the slot to the next lap
+        this.head++;
+        return element;
+    }
+
+    /**
+     * Checks whether the buffer is empty.  Must only be called by the consumer thread.
+     *
+     * @return {@code true} if there is no published element, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return this.sequences.get((int) (this.head & this.mask)) != this.head + 1;
+    }
+}
@@ -0,0 +1,62 @@
+package env.utils;
+
+import java.util.Objects;
+
+/**
+ * The last objective computed for an agent, together with the inputs it was computed from: the
+ * position and state of the agent, the item it was carrying and the version of the parts of the
+ * world relevant to its objectives at that time.  As long as none of them changed, the objective
+ * can be reused as is.
+ * <p>
+ * Instances are immutable, so they can be safely read by any thread.
+ */
+public class ObjectiveMemo {
+    private final Vector2D position;
+    private final String state;
+    private final Object carriedItem;
+    private final long objectiveVersion;
+    private final Pair<String, Vector2D> objective;
+
+    /**
+     * Constructs a new ObjectiveMemo.
+     *
+     * @param position         the position of the agent.
+     * @param state            the state of the agent.
+     * @param carriedItem      the item carried by the agent, or {@code null} if none.
+     * @param objectiveVersion the objective version of the agent's team and role it was computed on.
+     * @param objective        the computed objective.
+     */
+    public ObjectiveMemo(Vector2D position, String state, Object carriedItem, long objectiveVersion, Pair<String, Vector2D> objective) {
+        this.position = position;
+        this.state = state;
+        this.carriedItem = carriedItem;
+        this.objectiveVersion = objectiveVersion;
+        this.objective = objective;
+    }
+
+    /**
+     * Checks whether the memoized objective was computed from the given inputs.  The carried item
+     * is compared by identity.
+     *
+     * @param position         the current position of the agent.
+     * @param state            the current state of the agent.
+     * @param carriedItem      the item currently carried by the agent, or {@code null} if none.
+     * @param objectiveVersion the current objective version of the agent's team and role.
+     * @return {@code true} if the objective can be reused, {@code false} otherwise.
+     */
+    public boolean matches(Vector2D position, String state, Object carriedItem, long objectiveVersion) {
+        return this.objectiveVersion == objectiveVersion
+                && this.carriedItem == carriedItem
+                && this.position.equals(position)
+                && Objects.equals(this.state, state);
+    }
+
+    /**
+     * Returns the memoized objective.
+     *
+     * @return a {@code Pair} containing the state name and the target position.
+     */
+    public Pair<String, Vector2D> getObjective() {
+        return this.objective;
+    }
+}
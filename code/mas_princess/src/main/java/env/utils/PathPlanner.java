@@ -0,0 +1,328 @@
+package env.utils;
+
+import java.util.*;
+
+/**
+ * An A* path planner over the 4-connected grid of the game map.  Walkability is team dependent
+ * (see {@link DistanceFieldCache.TeamWalkability}) and the goal cell is always allowed as the last
+ * step, even when it is not walkable itself (e.g. a tree or an enemy gate to attack).
+ * <p>
+ * Computed paths are cached per (start, goal, team), up to {@link #MAX_CACHED_PATHS} entries
+ * evicted in least recently used order.  When the walkability of a cell changes only the affected
+ * entries are dropped:
+ * <ul>
+ *     <li>a cell becoming blocked drops the cached paths going through it;</li>
+ *     <li>a cell becoming walkable drops the entries that a detour through it could shorten,
+ *     i.e. those longer than the Manhattan distance from start to goal passing by that cell,
+ *     and the cached "no path" results.</li>
+ * </ul>
+ * This class is not thread-safe: callers are expected to guard it with the lock protecting the map.
+ */
+public class PathPlanner {
+    /**
+     * The maximum number of paths kept in the cache.
+     */
+    public static final int MAX_CACHED_PATHS = 256;
+
+    private static final int[][] STEPS = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}};
+    private static final List<Vector2D> NO_PATH = Collections.unmodifiableList(new ArrayList<>(0)); // Compared by identity
+
+    private final int width;
+    private final int height;
+    private final DistanceFieldCache.TeamWalkability walkability;
+    private final Map<Long, List<Vector2D>> paths = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<Vector2D>> eldest) {
+            if (size() > MAX_CACHED_PATHS) {
+                unindexPath(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+    private final Map<Integer, Set<Long>> pathsByCell = new HashMap<>();
+
+    private final int[] costs;
+    private final int[] parents;
+    private final int[] visits;
+    private int currentVisit = 0;
+
+    /**
+     * Constructs a new PathPlanner for a map of the given size.
+     *
+     * @param width       the width of the map.
+     * @param height      the height of the map.
+     * @param walkability the walkability of the cells of the map.
+     */
+    public PathPlanner(int width, int height, DistanceFieldCache.TeamWalkability walkability) {
+        this.width = width;
+        this.height = height;
+        this.walkability = walkability;
+        this.costs = new int[width * height];
+        this.parents = new int[width * height];
+        this.visits = new int[width * height];
+    }
+
+    /**
+     * Finds the shortest path between two positions for an agent of the given team.
+     *
+     * @param start the starting position.
+     * @param goal  the goal position.
+     * @param team  the team of the walking agent.
+     * @return an {@link Optional} containing the positions to walk through, from the first step
+     *         after {@code start} up to {@code goal} included (an empty list if start and goal
+     *         coincide), or an empty {@link Optional} if the goal can't be reached.
+     */
+    public Optional<List<Vector2D>> findPath(Vector2D start, Vector2D goal, boolean team) {
+        if (!this.isInside(start.getX(), start.getY()) || !this.isInside(goal.getX(), goal.getY())) {
+            return Optional.empty();
+        }
+
+        long key = this.key(start, goal, team);
+        List<Vector2D> path = this.paths.get(key);
+        if (path == null) {
+            path = this.search(start, goal, team);
+            this.paths.put(key, path);
+            this.indexPath(key, path);
+        }
+
+        if (path == NO_PATH) {
+            return Optional.empty();
+        }
+        return Optional.of(path);
+    }
+
+    /**
+     * Notifies that a cell became walkable or blocked for the given team, dropping the cached
+     * paths that could be affected.
+     *
+     * @param x      the x-coordinate of the cell.
+     * @param y      the y-coordinate of the cell.
+     * @param team   the team for which the walkability changed.
+     * @param opened {@code true} if the cell became walkable, {@code false} if it became blocked.
+     */
+    public void cellChanged(int x, int y, boolean team, boolean opened) {
+        if (opened) {
+            List<Long> affected = new ArrayList<>();
+            this.paths.forEach((key, path) -> {
+                if (this.teamOf(key) == team && (path == NO_PATH || this.canBeShortenedBy(key, path, x, y))) {
+                    affected.add(key);
+                }
+            });
+            affected.forEach(this::invalidate);
+        } else {
+            Set<Long> crossing = this.pathsByCell.get(this.index(x, y));
+            if (crossing != null) {
+                new ArrayList<>(crossing).stream()
+                        .filter(key -> this.teamOf(key) == team)
+                        .forEach(this::invalidate);
+            }
+        }
+    }
+
+    /**
+     * Runs A* with the Manhattan distance as heuristic.
+     *
+     * @param start the starting position.
+     * @param goal  the goal position.
+     * @param team  the team of the walking agent.
+     * @return the path found, or {@link #NO_PATH} if the goal can't be reached.
+     */
+    private List<Vector2D> search(Vector2D start, Vector2D goal, boolean team) {
+        int startIndex = this.index(start.getX(), start.getY());
+        int goalIndex = this.index(goal.getX(), goal.getY());
+        if (startIndex == goalIndex) {
+            return Collections.emptyList();
+        }
+
+        int visit = ++this.currentVisit;
+        PriorityQueue<long[]> open = new PriorityQueue<>(Comparator.<long[]>comparingLong(entry -> entry[0])
+                .thenComparingLong(entry -> entry[1]));
+
+        this.visits[startIndex] = visit;
+        this.costs[startIndex] = 0;
+        this.parents[startIndex] = -1;
+        open.add(new long[]{this.heuristic(startIndex, goalIndex), this.heuristic(startIndex, goalIndex), startIndex});
+
+        while (!open.isEmpty()) {
+            long[] entry = open.poll();
+            int current = (int) entry[2];
+            if (current == goalIndex) {
+                return this.rebuildPath(goalIndex);
+            }
+            if (entry[0] - entry[1] > this.costs[current]) {
+                continue; // Stale entry, a cheaper one was already expanded
+            }
+
+            int cx = current / this.height, cy = current % this.height;
+            int cost = this.costs[current] + 1;
+            for (int[] step : STEPS) {
+                int nx = cx + step[0], ny = cy + step[1];
+                if (!this.isInside(nx, ny)) {
+                    continue;
+                }
+                int neighbour = this.index(nx, ny);
+                if (neighbour != goalIndex && !this.walkability.isWalkable(nx, ny, team)) {
+                    continue;
+                }
+                if (this.visits[neighbour] != visit || cost < this.costs[neighbour]) {
+                    this.visits[neighbour] = visit;
+                    this.costs[neighbour] = cost;
+                    this.parents[neighbour] = current;
+                    int h = this.heuristic(neighbour, goalIndex);
+                    open.add(new long[]{cost + h, h, neighbour});
+                }
+            }
+        }
+
+        return NO_PATH;
+    }
+
+    /**
+     * Walks the parents back from the goal to rebuild the path found by the last search.
+     *
+     * @param goalIndex the index of the goal cell.
+     * @return the path, excluding the start and including the goal.
+     */
+    private List<Vector2D> rebuildPath(int goalIndex) {
+        LinkedList<Vector2D> path = new LinkedList<>();
+        for (int current = goalIndex; this.parents[current] != -1; current = this.parents[current]) {
+            path.addFirst(Vector2D.of(current / this.height, current % this.height));
+        }
+        return Collections.unmodifiableList(new ArrayList<>(path));
+    }
+
+    /**
+     * Checks whether opening the given cell could produce a path shorter than the cached one.
+     *
+     * @param key  the key of the cached path.
+     * @param path the cached path.
+     * @param x    the x-coordinate of the opened cell.
+     * @param y    the y-coordinate of the opened cell.
+     * @return {@code true} if the cached path could be shortened, {@code false} otherwise.
+     */
+    private boolean canBeShortenedBy(long key, List<Vector2D> path, int x, int y) {
+        int cell = this.index(x, y);
+        int detour = this.heuristic(this.startOf(key), cell) + this.heuristic(cell, this.goalOf(key));
+        return detour < path.size();
+    }
+
+    /**
+     * Removes a path from the cache.
+     *
+     * @param key the key of the path to remove.
+     */
+    private void invalidate(long key) {
+        List<Vector2D> path = this.paths.remove(key);
+        if (path != null) {
+            this.unindexPath(key, path);
+        }
+    }
+
+    /**
+     * Records the cells crossed by a cached path.
+     *
+     * @param key  the key of the path.
+     * @param path the path.
+     */
+    private void indexPath(long key, List<Vector2D> path) {
+        for (Vector2D position : path) {
+            this.pathsByCell.computeIfAbsent(this.index(position.getX(), position.getY()), cell -> new HashSet<>()).add(key);
+        }
+    }
+
+    /**
+     * Forgets the cells crossed by a path that is leaving the cache.
+     *
+     * @param key  the key of the path.
+     * @param path the path.
+     */
+    private void unindexPath(long key, List<Vector2D> path) {
+        for (Vector2D position : path) {
+            int cell = this.index(position.getX(), position.getY());
+            Set<Long> keys = this.pathsByCell.get(cell);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    this.pathsByCell.remove(cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the Manhattan distance between two cells.
+     *
+     * @param from the index of the first cell.
+     * @param to   the index of the second cell.
+     * @return the Manhattan distance.
+     */
+    private int heuristic(int from, int to) {
+        return Math.abs(from / this.height - to / this.height) + Math.abs(from % this.height - to % this.height);
+    }
+
+    /**
+     * Encodes the key of a cached path.
+     *
+     * @param start the starting position.
+     * @param goal  the goal position.
+     * @param team  the team of the walking agent.
+     * @return the key of the path.
+     */
+    private long key(Vector2D start, Vector2D goal, boolean team) {
+        long cells = (long) this.width * this.height;
+        return ((this.index(start.getX(), start.getY()) * cells) + this.index(goal.getX(), goal.getY())) * 2 + (team ? 1 : 0);
+    }
+
+    /**
+     * Decodes the index of the starting cell from the key of a cached path.
+     *
+     * @param key the key of the path.
+     * @return the index of the starting cell.
+     */
+    private int startOf(long key) {
+        return (int) ((key / 2) / ((long) this.width * this.height));
+    }
+
+    /**
+     * Decodes the index of the goal cell from the key of a cached path.
+     *
+     * @param key the key of the path.
+     * @return the index of the goal cell.
+     */
+    private int goalOf(long key) {
+        return (int) ((key / 2) % ((long) this.width * this.height));
+    }
+
+    /**
+     * Decodes the team of the walking agent from the key of a cached path.
+     *
+     * @param key the key of the path.
+     * @return the team the path was computed for.
+     */
+    private boolean teamOf(long key) {
+        return (key & 1) == 1;
+    }
+
+    /**
+     * Computes the array index of the given coordinates.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return the index of the cell.
+     */
+    private int index(int x, int y) {
+        return x * this.height + y;
+    }
+
+    /**
+     * Checks whether the given coordinates fall inside the map.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return {@code true} if the coordinates are inside the map, {@code false} otherwise.
+     */
+    private boolean isInside(int x, int y) {
+        return x >= 0 && y >= 0 && x < this.width && y < this.height;
+    }
+}
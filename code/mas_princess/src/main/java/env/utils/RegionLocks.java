@@ -0,0 +1,448 @@
+package env.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped locks over the regions of the game map.  The map is split into vertical stripes of
+ * {@code stripeWidth} columns, each guarded by its own lock, so that actions touching disjoint
+ * regions (e.g. two agents on opposite sides of the river) can run in parallel.
+ * <p>
+ * On top of the stripes, a world read-write lock separates the kinds of operations:
+ * <ul>
+ *     <li>regional operations ({@link #lock(String, Vector2D...)}) hold the world lock in shared mode
+ *     plus the stripes of the positions they touch;</li>
+ *     <li>global read-only operations ({@link #lockAllShared(String)}), which may read any part of
+ *     the map, hold the world lock and every stripe in shared mode, so they run in parallel with
+ *     each other and only exclude the operations writing the map;</li>
+ *     <li>global operations ({@link #lockAll(String)}), which may read or write any part of the map,
+ *     hold the world lock in exclusive mode and therefore exclude every other operation.</li>
+ * </ul>
+ * Stripes are always acquired in ascending order, which is the lock ordering that prevents
+ * deadlocks between moves crossing a stripe boundary.  A thread holding a regional lock must not
+ * acquire another region or the whole world until it releases it, and a thread reading the whole
+ * world must not lock it exclusively.
+ * <p>
+ * Stripes are {@link StampedLock}s, write-locked by every regional and global operation, so that
+ * read-only code (e.g. percept generation) can run through {@link #read(String, Supplier)} without
+ * blocking: it reads optimistically, validates the stamps of every stripe and retries only if a
+ * writer intervened in the meantime.
+ * <p>
+ * Operations are usually run through {@link #withRegion(String, Supplier, Supplier)},
+ * {@link #withAll(String, Supplier)} and {@link #withAllShared(String, Supplier)}, which release
+ * the locks once the operation completes; the held {@link Region}s can also be managed directly.
+ * <p>
+ * Every acquisition is made on behalf of a named operation, under which its wait and hold times
+ * are recorded in the {@link LockMetrics} of the locks.
+ */
+public class RegionLocks {
+    /**
+     * The default number of columns covered by each stripe.
+     */
+    public static final int DEFAULT_STRIPE_WIDTH = 8;
+    /**
+     * The number of optimistic attempts of {@link #read(String, Supplier)} before falling back to read locks.
+     */
+    public static final int MAX_OPTIMISTIC_ATTEMPTS = 4;
+
+    private static final ThreadLocal<Boolean> READING = ThreadLocal.withInitial(() -> false);
+
+    private final ThreadLocal<int[]> sharedHolds = ThreadLocal.withInitial(() -> new int[1]); // Nesting depth of lockAllShared
+
+    private final ReentrantReadWriteLock world = new ReentrantReadWriteLock();
+    private final StampedLock[] stripes;
+    private final long[] worldStamps; // The stripe stamps of the (single) thread holding the whole world
+    private final int stripeWidth;
+    private final LockMetrics metrics;
+
+    /**
+     * A set of held locks, released by {@link #close()}.  Meant to be used in a
+     * try-with-resources statement.
+     */
+    public final class Region implements AutoCloseable {
+        private final int[] heldStripes; // In ascending order, null for the whole world
+        private final long[] stamps;
+        private final boolean shared;
+        private final String operation;
+        private final long acquired;
+
+        /**
+         * Constructs a Region over the given stripes.
+         *
+         * @param heldStripes the stripes held, or {@code null} if the whole world is held.
+         * @param stamps      the stamps of the locks of the held stripes; for a shared hold of the
+         *                    whole world, the read stamps of every stripe, or {@code null} if the
+         *                    hold is nested in another one and took no lock.
+         * @param shared      whether the whole world is held in shared mode.
+         * @param operation   the operation holding the region.
+         * @param acquired    the acquisition instant, as returned by {@link LockMetrics#acquired(String, long)}.
+         */
+        private Region(int[] heldStripes, long[] stamps, boolean shared, String operation, long acquired) {
+            this.heldStripes = heldStripes;
+            this.stamps = stamps;
+            this.shared = shared;
+            this.operation = operation;
+            this.acquired = acquired;
+        }
+
+        /**
+         * Checks whether this region covers the given position, i.e. whether the position can be
+         * read or written while holding it.
+         *
+         * @param position the position to check.
+         * @return {@code true} if the position is covered, {@code false} otherwise.
+         */
+        public boolean covers(Vector2D position) {
+            return this.heldStripes == null
+                    || Arrays.binarySearch(this.heldStripes, RegionLocks.this.stripeOf(position.getX())) >= 0;
+        }
+
+        /**
+         * Releases the held locks, in the reverse order of acquisition.
+         */
+        @Override
+        public void close() {
+            RegionLocks.this.metrics.released(this.operation, this.acquired);
+            if (this.shared) {
+                RegionLocks.this.sharedHolds.get()[0]--;
+                if (this.stamps != null) {
+                    RegionLocks.this.unlockStripes(this.stamps, true);
+                    RegionLocks.this.world.readLock().unlock();
+                }
+                return;
+            }
+            if (this.heldStripes == null) {
+                if (RegionLocks.this.world.getWriteHoldCount() == 1) {
+                    RegionLocks.this.unlockStripes(RegionLocks.this.worldStamps, false);
+                }
+                RegionLocks.this.world.writeLock().unlock();
+                return;
+            }
+            for (int i = this.heldStripes.length - 1; i >= 0; i--) {
+                RegionLocks.this.stripes[this.heldStripes[i]].unlockWrite(this.stamps[i]);
+            }
+            RegionLocks.this.world.readLock().unlock();
+        }
+    }
+
+    /**
+     * Constructs the locks for a map of the given width.
+     *
+     * @param width       the width of the map.
+     * @param stripeWidth the number of columns covered by each stripe.
+     * @param metrics     the metrics receiving the waits and hold times of the operations.
+     */
+    public RegionLocks(int width, int stripeWidth, LockMetrics metrics) {
+        this.stripeWidth = stripeWidth;
+        this.metrics = metrics;
+        this.stripes = new StampedLock[Math.max(1, (width + stripeWidth - 1) / stripeWidth)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new StampedLock();
+        }
+        this.worldStamps = new long[this.stripes.length];
+    }
+
+    /**
+     * Locks the regions containing the given positions, waiting for any global operation to
+     * complete.
+     *
+     * @param operation the operation locking the regions.
+     * @param positions the positions that will be read or written.
+     * @return the held region.
+     */
+    public Region lock(String operation, Vector2D... positions) {
+        int[] held = Arrays.stream(positions)
+                .mapToInt(position -> this.stripeOf(position.getX()))
+                .sorted()
+                .distinct()
+                .toArray();
+
+        this.ensureNotReading();
+        long start = this.metrics.startAcquisition();
+        this.world.readLock().lock();
+        long[] stamps = new long[held.length];
+        for (int i = 0; i < held.length; i++) {
+            stamps[i] = this.stripes[held[i]].writeLock();
+        }
+        return new Region(held, stamps, false, operation, this.metrics.acquired(operation, start));
+    }
+
+    /**
+     * Locks the whole world, waiting for every regional and global operation in progress to
+     * complete.
+     *
+     * @param operation the operation locking the world.
+     * @return the held region, covering every position.
+     */
+    public Region lockAll(String operation) {
+        this.ensureNotReading();
+        long start = this.metrics.startAcquisition();
+        this.world.writeLock().lock();
+        if (this.world.getWriteHoldCount() == 1) {
+            for (int i = 0; i < this.stripes.length; i++) {
+                this.worldStamps[i] = this.stripes[i].writeLock(); // Invalidates the optimistic readers
+            }
+        }
+        return new Region(null, null, false, operation, this.metrics.acquired(operation, start));
+    }
+
+    /**
+     * Locks the whole world for reading, waiting for every operation writing the map to complete.
+     * Other readers, including the optimistic ones of {@link #read(String, Supplier)}, are not
+     * blocked.  The held region must only be used to read the map.
+     * <p>
+     * Nested calls, and calls made while holding the whole world or from a read-only computation,
+     * take no further lock, since the consistency is already ensured by the outer hold.
+     *
+     * @param operation the operation reading the world.
+     * @return the held region, covering every position.
+     * @throws IllegalStateException if the current thread holds a regional lock.
+     */
+    public Region lockAllShared(String operation) {
+        int[] holds = this.sharedHolds.get();
+        long start = this.metrics.startAcquisition();
+        long[] stamps = null;
+        if (holds[0] == 0 && !READING.get() && !this.world.isWriteLockedByCurrentThread()) {
+            if (this.world.getReadHoldCount() > 0) {
+                throw new IllegalStateException("The world can't be read as a whole while holding a region.");
+            }
+            this.world.readLock().lock();
+            stamps = new long[this.stripes.length];
+            for (int i = 0; i < this.stripes.length; i++) {
+                stamps[i] = this.stripes[i].readLock();
+            }
+        }
+        holds[0]++;
+        return new Region(null, stamps, true, operation, this.metrics.acquired(operation, start));
+    }
+
+    /**
+     * Runs an operation holding the regions containing the given positions.  The positions are
+     * computed again once the regions are held: if some of them fell out of the held regions in
+     * the meantime (e.g. the position of an agent that moved concurrently), the regions are
+     * released and locked again.
+     *
+     * @param operation the operation locking the regions.
+     * @param positions computes the positions that will be read or written.
+     * @param action    the operation.
+     * @param <T>       the type of the result.
+     * @return the result of the operation.
+     * @see #lock(String, Vector2D...)
+     */
+    public <T> T withRegion(String operation, Supplier<? extends Collection<Vector2D>> positions, Supplier<T> action) {
+        while (true) {
+            Region region = this.lock(operation, positions.get().toArray(new Vector2D[0]));
+            try {
+                if (positions.get().stream().allMatch(region::covers)) {
+                    return action.get();
+                }
+            } finally {
+                region.close();
+            }
+        }
+    }
+
+    /**
+     * Runs an operation holding the whole world.
+     *
+     * @param operation the operation locking the world.
+     * @param action    the operation.
+     * @param <T>       the type of the result.
+     * @return the result of the operation.
+     * @see #lockAll(String)
+     */
+    public <T> T withAll(String operation, Supplier<T> action) {
+        Region world = this.lockAll(operation);
+        try {
+            return action.get();
+        } finally {
+            world.close();
+        }
+    }
+
+    /**
+     * Runs an operation holding the whole world.
+     *
+     * @param operation the operation locking the world.
+     * @param action    the operation.
+     * @see #lockAll(String)
+     */
+    public void withAll(String operation, Runnable action) {
+        Region world = this.lockAll(operation);
+        try {
+            action.run();
+        } finally {
+            world.close();
+        }
+    }
+
+    /**
+     * Runs a read-only operation holding the whole world in shared mode.
+     *
+     * @param operation the operation reading the world.
+     * @param action    the read-only operation.
+     * @param <T>       the type of the result.
+     * @return the result of the operation.
+     * @throws IllegalStateException if the current thread holds a regional lock.
+     * @see #lockAllShared(String)
+     */
+    public <T> T withAllShared(String operation, Supplier<T> action) {
+        Region world = this.lockAllShared(operation);
+        try {
+            return action.get();
+        } finally {
+            world.close();
+        }
+    }
+
+    /**
+     * Runs a read-only computation over the map without blocking writers.  The computation is
+     * first run optimistically, up to {@link #MAX_OPTIMISTIC_ATTEMPTS} times, and its result is
+     * returned as soon as no stripe was written while it ran; exceptions thrown while a writer
+     * intervened are treated as a failed attempt, since the computation may have observed a
+     * half-written state.  If every attempt fails, the computation is run once more holding the
+     * read locks of every stripe.
+     * <p>
+     * Nested calls, and calls made while holding a region or the whole world (in either mode),
+     * simply run the computation, since the consistency is already ensured by the outer call or by the held locks.
+     * Their duration is recorded as the hold time of the operation, and the waits for the
+     * fallback read locks as its wait time.
+     *
+     * @param operation the operation reading the map.
+     * @param reader    the read-only computation, which may be run several times.
+     * @param <T>    the type of the result.
+     * @return the result of the computation.
+     */
+    public <T> T read(String operation, Supplier<T> reader) {
+        if (READING.get() || this.world.getReadHoldCount() > 0 || this.world.isWriteLockedByCurrentThread()) {
+            return reader.get();
+        }
+
+        READING.set(true);
+        long acquired = this.metrics.acquired(operation, this.metrics.startAcquisition());
+        try {
+            long[] stamps = new long[this.stripes.length];
+            for (int attempt = 0; attempt < MAX_OPTIMISTIC_ATTEMPTS; attempt++) {
+                if (attempt > 0) {
+                    this.metrics.optimisticRetry(operation);
+                }
+                if (!this.tryOptimisticRead(stamps)) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+
+                T result;
+                try {
+                    result = reader.get();
+                } catch (RuntimeException e) {
+                    if (this.validate(stamps)) {
+                        throw e;
+                    }
+                    continue;
+                }
+                if (this.validate(stamps)) {
+                    return result;
+                }
+            }
+
+            this.metrics.fallback(operation);
+            long start = this.metrics.startAcquisition();
+            this.world.readLock().lock();
+            try {
+                for (int i = 0; i < this.stripes.length; i++) {
+                    stamps[i] = this.stripes[i].readLock();
+                }
+                if (start != 0) {
+                    acquired = this.metrics.acquired(operation, start); // Records the wait, restarts the hold
+                }
+                try {
+                    return reader.get();
+                } finally {
+                    this.unlockStripes(stamps, true);
+                }
+            } finally {
+                this.world.readLock().unlock();
+            }
+        } finally {
+            this.metrics.released(operation, acquired);
+            READING.set(false);
+        }
+    }
+
+    /**
+     * Takes an optimistic read stamp on every stripe.
+     *
+     * @param stamps the array receiving the stamps.
+     * @return {@code true} if no stripe is currently write-locked, {@code false} otherwise.
+     */
+    private boolean tryOptimisticRead(long[] stamps) {
+        for (int i = 0; i < this.stripes.length; i++) {
+            stamps[i] = this.stripes[i].tryOptimisticRead();
+            if (stamps[i] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that no stripe was write-locked since the given optimistic stamps were taken.
+     *
+     * @param stamps the optimistic stamps.
+     * @return {@code true} if the stamps are still valid, {@code false} otherwise.
+     */
+    private boolean validate(long[] stamps) {
+        for (int i = 0; i < this.stripes.length; i++) {
+            if (!this.stripes[i].validate(stamps[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Releases the locks of every stripe, in descending order.
+     *
+     * @param stamps the stamps of the locks.
+     * @param read   {@code true} for read locks, {@code false} for write locks.
+     */
+    private void unlockStripes(long[] stamps, boolean read) {
+        for (int i = this.stripes.length - 1; i >= 0; i--) {
+            if (read) {
+                this.stripes[i].unlockRead(stamps[i]);
+            } else {
+                this.stripes[i].unlockWrite(stamps[i]);
+            }
+        }
+    }
+
+    /**
+     * Ensures that the current thread is not inside {@link #read(String, Supplier)} or
+     * {@link #lockAllShared(String)}, where taking a write lock would either deadlock or
+     * invalidate the read forever.
+     *
+     * @throws IllegalStateException if the current thread is reading.
+     */
+    private void ensureNotReading() {
+        if (READING.get()) {
+            throw new IllegalStateException("Map regions can't be locked from a read-only computation.");
+        }
+        if (this.sharedHolds.get()[0] > 0 && !this.world.isWriteLockedByCurrentThread()) {
+            throw new IllegalStateException("Map regions can't be locked while the world is read as a whole.");
+        }
+    }
+
+    /**
+     * Returns the stripe containing the given column.  Columns outside the map are assigned to
+     * the closest stripe.
+     *
+     * @param x the x-coordinate of the column.
+     * @return the index of the stripe.
+     */
+    private int stripeOf(int x) {
+        return Math.min(Math.max(x / this.stripeWidth, 0), this.stripes.length - 1);
+    }
+}
@@ -0,0 +1,171 @@
+package env.utils;
+
+import java.util.*;
+
+/**
+ * A uniform bucket grid used to index positioned entities (e.g. agents) on the map.
+ * The map is split into square buckets of a fixed size and every entity is stored in the
+ * bucket covering its current position, so that range queries only need to inspect the
+ * buckets overlapping the requested area instead of every indexed entity.
+ * <p>
+ * This class is not thread-safe: callers are expected to guard it with the same lock that
+ * protects the positions it mirrors.
+ *
+ * @param <T> the type of the indexed entities.
+ */
+public class SpatialGrid<T> {
+    private final int bucketSize;
+    private final int columns;
+    private final int rows;
+    private final List<Set<T>> buckets;
+    private final Map<T, Vector2D> positions = new HashMap<>();
+
+    /**
+     * Constructs a new SpatialGrid covering a map of the given size.
+     *
+     * @param width      the width of the indexed map.
+     * @param height     the height of the indexed map.
+     * @param bucketSize the side length of a single square bucket.
+     * @throws IllegalArgumentException if any of the parameters is not positive.
+     */
+    public SpatialGrid(int width, int height, int bucketSize) {
+        if (width <= 0 || height <= 0 || bucketSize <= 0) {
+            throw new IllegalArgumentException("Grid dimensions and bucket size must be positive.");
+        }
+        this.bucketSize = bucketSize;
+        this.columns = (width + bucketSize - 1) / bucketSize;
+        this.rows = (height + bucketSize - 1) / bucketSize;
+        this.buckets = new ArrayList<>(columns * rows);
+        for (int i = 0; i < columns * rows; i++) {
+            this.buckets.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Indexes an entity at the given position. If the entity is already indexed, it is moved
+     * from its previous bucket to the one covering the new position.
+     *
+     * @param item     the entity to index.
+     * @param position the current position of the entity.
+     */
+    public void put(T item, Vector2D position) {
+        Vector2D previous = this.positions.put(item, position);
+        int newBucket = bucketIndex(position.getX(), position.getY());
+
+        if (previous != null) {
+            int oldBucket = bucketIndex(previous.getX(), previous.getY());
+            if (oldBucket == newBucket) {
+                return;
+            }
+            this.buckets.get(oldBucket).remove(item);
+        }
+        this.buckets.get(newBucket).add(item);
+    }
+
+    /**
+     * Removes an entity from the index.
+     *
+     * @param item the entity to remove.
+     * @return {@code true} if the entity was indexed, {@code false} otherwise.
+     */
+    public boolean remove(T item) {
+        Vector2D previous = this.positions.remove(item);
+        if (previous == null) {
+            return false;
+        }
+        this.buckets.get(bucketIndex(previous.getX(), previous.getY())).remove(item);
+        return true;
+    }
+
+    /**
+     * Returns the position an entity is indexed at.
+     *
+     * @param item the entity to look up.
+     * @return the indexed position, or {@code null} if the entity is not indexed.
+     */
+    public Vector2D getPosition(T item) {
+        return this.positions.get(item);
+    }
+
+    /**
+     * Finds an entity indexed exactly at the given position.
+     *
+     * @param position the position to check.
+     * @return an {@link Optional} containing the entity, or empty if the position is free.
+     */
+    public Optional<T> findAt(Vector2D position) {
+        if (!isInsideGrid(position.getX(), position.getY())) {
+            return Optional.empty();
+        }
+        for (T item : this.buckets.get(bucketIndex(position.getX(), position.getY()))) {
+            if (position.equals(this.positions.get(item))) {
+                return Optional.of(item);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Retrieves the entities whose position lies within the given range of a center position
+     * (Chebyshev distance, i.e. a square of side {@code 2 * range + 1}). Only the buckets that
+     * overlap the square are inspected.
+     *
+     * @param center the center of the query.
+     * @param range  the maximum distance on each axis.
+     * @return a list of the entities in range, including any entity located at the center.
+     */
+    public List<T> queryRange(Vector2D center, int range) {
+        int minColumn = Math.max(0, Math.floorDiv(center.getX() - range, bucketSize));
+        int maxColumn = Math.min(columns - 1, Math.floorDiv(center.getX() + range, bucketSize));
+        int minRow = Math.max(0, Math.floorDiv(center.getY() - range, bucketSize));
+        int maxRow = Math.min(rows - 1, Math.floorDiv(center.getY() + range, bucketSize));
+
+        List<T> result = new ArrayList<>();
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                for (T item : this.buckets.get(row * columns + column)) {
+                    Vector2D position = this.positions.get(item);
+                    if (Math.abs(position.getX() - center.getX()) <= range
+                            && Math.abs(position.getY() - center.getY()) <= range) {
+                        result.add(item);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of indexed entities.
+     *
+     * @return the size of the index.
+     */
+    public int size() {
+        return this.positions.size();
+    }
+
+    /**
+     * Computes the index of the bucket covering the given coordinates. Coordinates outside the
+     * grid are clamped to the closest border bucket.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return the bucket index.
+     */
+    private int bucketIndex(int x, int y) {
+        int column = Math.min(columns - 1, Math.max(0, x / bucketSize));
+        int row = Math.min(rows - 1, Math.max(0, y / bucketSize));
+        return row * columns + column;
+    }
+
+    /**
+     * Checks whether the given coordinates fall inside the indexed area.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return {@code true} if the coordinates are inside the grid, {@code false} otherwise.
+     */
+    private boolean isInsideGrid(int x, int y) {
+        return x >= 0 && y >= 0 && x < columns * bucketSize && y < rows * bucketSize;
+    }
+}
@@ -0,0 +1,84 @@
+package env.utils;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The resources held by each team, currently wood.  Every operation is lock-free: deposits are
+ * atomic additions, while spending is a compare-and-set loop that withdraws the amount only if
+ * the team holds enough of it, so that two agents can never spend the same wood.  The ledger can
+ * therefore be read and updated by any thread without holding the locks of the map.
+ * <p>
+ * Teams are identified as in {@link env.agents.Agent#getTeam()}: {@code false} for blue and
+ * {@code true} for red.
+ */
+public class TeamLedger {
+    private final AtomicIntegerArray wood = new AtomicIntegerArray(2);
+
+    /**
+     * Returns the wood held by a team.
+     *
+     * @param team the team.
+     * @return the amount of wood.
+     */
+    public int getWood(boolean team) {
+        return this.wood.get(indexOf(team));
+    }
+
+    /**
+     * Checks whether a team holds at least the given amount of wood.  The answer may be stale as
+     * soon as it is returned: use {@link #trySpendWood(boolean, int)} to actually spend it.
+     *
+     * @param team   the team.
+     * @param amount the amount of wood.
+     * @return {@code true} if the team holds enough wood, {@code false} otherwise.
+     */
+    public boolean hasWood(boolean team, int amount) {
+        return this.getWood(team) >= amount;
+    }
+
+    /**
+     * Adds wood to a team, e.g. when a tree is cut down or when a spending is rolled back.
+     *
+     * @param team   the team.
+     * @param amount the amount of wood, not negative.
+     * @return the wood held by the team after the deposit.
+     */
+    public int depositWood(boolean team, int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Can't deposit a negative amount of wood: " + amount);
+        }
+        return this.wood.addAndGet(indexOf(team), amount);
+    }
+
+    /**
+     * Withdraws the given amount of wood from a team, if the team holds enough of it.
+     *
+     * @param team   the team.
+     * @param amount the amount of wood, not negative.
+     * @return {@code true} if the wood was withdrawn, {@code false} if the team doesn't hold
+     *         enough wood, in which case nothing changes.
+     */
+    public boolean trySpendWood(boolean team, int amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Can't spend a negative amount of wood: " + amount);
+        }
+
+        int index = indexOf(team);
+        for (int current = this.wood.get(index); current >= amount; current = this.wood.get(index)) {
+            if (this.wood.compareAndSet(index, current, current - amount)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of a team in the ledger.
+     *
+     * @param team the team.
+     * @return the index.
+     */
+    private static int indexOf(boolean team) {
+        return team ? 1 : 0;
+    }
+}
@@ -0,0 +1,136 @@
+package env.utils;
+
+/**
+ * The facts about the game that every agent of a team shares, as they were at a given version of
+ * these facts: whether one of the team's gates is destroyed, whether a princess is being carried,
+ * how much wood the team holds and whether the game is over.  They are computed once for both
+ * teams and read by all the agents, instead of being looked up again by every agent on every
+ * query.
+ * <p>
+ * Instances are immutable, so they can be safely read by any thread.  Teams are identified as in
+ * {@link env.agents.Agent#getTeam()}: {@code false} for blue and {@code true} for red.
+ */
+public class TeamSituation {
+    private final boolean team;
+    private final long version;
+    private final boolean gateDestroyed;
+    private final boolean anyPrincessCarried;
+    private final int wood;
+    private final int enoughWoodAmount;
+    private final Boolean win;
+
+    /**
+     * Constructs a new TeamSituation.
+     *
+     * @param team               the team.
+     * @param version            the version of the facts the situation was computed on.
+     * @param gateDestroyed      whether one of the gates of the team is destroyed.
+     * @param anyPrincessCarried whether a princess, of either team, is being carried.
+     * @param wood               the wood held by the team.
+     * @param enoughWoodAmount   the wood needed to repair a gate.
+     * @param win                the winning team, or {@code null} if the game is not over.
+     */
+    public TeamSituation(boolean team, long version, boolean gateDestroyed, boolean anyPrincessCarried,
+                         int wood, int enoughWoodAmount, Boolean win) {
+        this.team = team;
+        this.version = version;
+        this.gateDestroyed = gateDestroyed;
+        this.anyPrincessCarried = anyPrincessCarried;
+        this.wood = wood;
+        this.enoughWoodAmount = enoughWoodAmount;
+        this.win = win;
+    }
+
+    /**
+     * Returns the team.
+     *
+     * @return the team.
+     */
+    public boolean getTeam() {
+        return this.team;
+    }
+
+    /**
+     * Returns the version of the facts the situation was computed on, bumped by the map at
+     * every change of one of them.
+     *
+     * @return the version.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Checks whether one of the gates of the team is destroyed.
+     *
+     * @return {@code true} if a gate of the team is destroyed, {@code false} otherwise.
+     */
+    public boolean isGateDestroyed() {
+        return this.gateDestroyed;
+    }
+
+    /**
+     * Checks whether a princess, of either team, is being carried.
+     *
+     * @return {@code true} if a princess is carried, {@code false} otherwise.
+     */
+    public boolean isAnyPrincessCarried() {
+        return this.anyPrincessCarried;
+    }
+
+    /**
+     * Returns the wood held by the team.
+     *
+     * @return the amount of wood.
+     */
+    public int getWood() {
+        return this.wood;
+    }
+
+    /**
+     * Checks whether the team holds enough wood to repair a gate.
+     *
+     * @return {@code true} if the team has enough wood, {@code false} otherwise.
+     */
+    public boolean hasEnoughWood() {
+        return this.wood >= this.enoughWoodAmount;
+    }
+
+    /**
+     * Checks whether the team holds at least twice the wood needed to repair a gate, i.e. has
+     * wood to spare.
+     *
+     * @return {@code true} if the team has wood to spare, {@code false} otherwise.
+     */
+    public boolean hasDoubleWood() {
+        return this.wood >= 2 * this.enoughWoodAmount;
+    }
+
+    /**
+     * Checks whether the gatherers of the team should ignore the trees: while the team can repair
+     * a destroyed gate, while a princess is being carried and when the team has wood to spare.
+     *
+     * @return {@code true} if the trees should be ignored, {@code false} otherwise.
+     */
+    public boolean shouldIgnoreTrees() {
+        return (this.hasEnoughWood() && this.gateDestroyed) || this.anyPrincessCarried || this.hasDoubleWood();
+    }
+
+    /**
+     * Checks whether the team won the game.
+     *
+     * @return {@code true} if the team won, {@code false} otherwise.
+     */
+    public boolean hasWon() {
+        return this.win != null && this.win == this.team;
+    }
+
+    /**
+     * Checks whether the team lost the game.
+     *
+     * @return {@code true} if the team lost, {@code false} otherwise.
+     */
+    public boolean hasLost() {
+        return this.win != null && this.win != this.team;
+    }
+}
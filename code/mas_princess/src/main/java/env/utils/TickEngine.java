@@ -0,0 +1,293 @@
+package env.utils;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * A fixed-timestep simulation loop.  The actions submitted by the agents are not applied by the
+ * agent threads: they are collected during a tick and resolved together, in submission order, by
+ * the engine thread at the tick boundary.  Once the whole batch is resolved, the end of the tick
+ * is signalled (e.g. to publish a snapshot of the world and refresh the view) and only then the
+ * futures of the actions are completed, so that the agents perceive the effects of the tick as a
+ * whole.
+ * <p>
+ * Between the batch and the end of the tick, the engine runs its stages (see
+ * {@link #addStage(Runnable)}), which resolve together what the actions of the batch only
+ * proposed, such as simultaneous moves; the outcome of such actions is read after the stages.
+ * <p>
+ * Ticks last {@code tickMillis} milliseconds; with a duration of {@code 0} they run back to back,
+ * as fast as the CPU allows, whenever some action is pending.  When only timers are pending, such
+ * unthrottled ticks are instead run every {@link #IDLE_TICK_MILLIS} milliseconds, so that timers
+ * keep expiring while no agent acts without the engine spinning through empty ticks.  No thread
+ * ever sleeps on behalf of a single action.
+ */
+public class TickEngine {
+    /**
+     * The interval between the ticks run without any action, when the ticks are unthrottled and
+     * some timer is pending.
+     */
+    public static final long IDLE_TICK_MILLIS = 50;
+
+    private static final Logger LOGGER = Logger.getLogger(TickEngine.class.getName());
+
+    private final long tickNanos;
+    private final Runnable onTickEnd;
+    private final Queue<PendingAction> submitted = new ConcurrentLinkedQueue<>();
+    private final List<Runnable> stages = new ArrayList<>();
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>(); // Only accessed by the engine thread
+    private final Queue<Timer> newTimers = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running;
+    private volatile long tick;
+
+    /**
+     * An action waiting for the next tick boundary.
+     */
+    private static final class PendingAction {
+        private final Supplier<BooleanSupplier> action;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        /**
+         * Constructs a new PendingAction.
+         *
+         * @param action the action, returning the supplier of its outcome.
+         */
+        private PendingAction(Supplier<BooleanSupplier> action) {
+            this.action = action;
+        }
+    }
+
+    /**
+     * A future to complete at the end of a given tick.
+     */
+    private static final class Timer implements Comparable<Timer> {
+        private final int delay;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private long due; // Assigned by the engine thread when the timer is scheduled
+
+        /**
+         * Constructs a new Timer.
+         *
+         * @param delay the number of ticks to wait, counted from the first tick ending after the
+         *              timer is created.
+         */
+        private Timer(int delay) {
+            this.delay = delay;
+        }
+
+        @Override
+        public int compareTo(Timer other) {
+            return Long.compare(this.due, other.due);
+        }
+    }
+
+    /**
+     * Constructs a new TickEngine, which is not started yet.
+     *
+     * @param tickMillis the duration of a tick in milliseconds, or {@code 0} to run the ticks as
+     *                   fast as possible.
+     * @param onTickEnd  the task run by the engine thread at the end of every tick, after the
+     *                   actions of the tick are resolved and before their futures are completed.
+     */
+    public TickEngine(long tickMillis, Runnable onTickEnd) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, tickMillis));
+        this.onTickEnd = onTickEnd;
+        this.thread = new Thread(this::run, "tick-engine");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Adds a stage, run by the engine thread at every tick after the batch of actions and before
+     * their outcomes are read.  Stages run in the order they are added and must be added before
+     * the engine is started.
+     *
+     * @param stage the stage.
+     */
+    public void addStage(Runnable stage) {
+        this.stages.add(stage);
+    }
+
+    /**
+     * Starts the engine thread.
+     */
+    public void start() {
+        this.running = true;
+        this.thread.start();
+    }
+
+    /**
+     * Stops the engine thread after the current tick.  The actions still pending are never
+     * resolved and their futures are cancelled.
+     */
+    public void stop() {
+        this.running = false;
+        LockSupport.unpark(this.thread);
+    }
+
+    /**
+     * Submits an action to be resolved at the next tick boundary.  May be called by any thread,
+     * including the engine thread while resolving a tick, in which case the action is resolved at
+     * the following one.
+     *
+     * @param action the action, returning whether it succeeded; it is run by the engine thread.
+     * @return the future completed with the result of the action at the end of its tick.
+     */
+    public CompletableFuture<Boolean> submit(BooleanSupplier action) {
+        return this.submitDeferred(() -> {
+            boolean result = action.getAsBoolean();
+            return () -> result;
+        });
+    }
+
+    /**
+     * Submits an action whose outcome is only known once the stages of the tick have run, e.g. a
+     * move that is resolved together with the other moves of the tick.  The action is run with
+     * the batch, in submission order, and returns the supplier of its outcome, which is read after
+     * the stages.
+     *
+     * @param action the action, returning the supplier of whether it succeeded; both are run by
+     *               the engine thread.
+     * @return the future completed with the outcome of the action at the end of its tick.
+     */
+    public CompletableFuture<Boolean> submitDeferred(Supplier<BooleanSupplier> action) {
+        PendingAction pending = new PendingAction(action);
+        this.submitted.add(pending);
+        if (this.tickNanos == 0) {
+            LockSupport.unpark(this.thread);
+        }
+        return pending.result;
+    }
+
+    /**
+     * Returns a future completed by the engine thread at the end of the given number of ticks.
+     * A delay of {@code 1} completes at the end of the first tick ending after this call.
+     *
+     * @param ticks the number of ticks to wait.
+     * @return the future.
+     */
+    public CompletableFuture<Void> after(int ticks) {
+        Timer timer = new Timer(Math.max(1, ticks));
+        this.newTimers.add(timer);
+        if (this.tickNanos == 0) {
+            LockSupport.unpark(this.thread);
+        }
+        return timer.result;
+    }
+
+    /**
+     * Returns the number of ticks completed so far.
+     *
+     * @return the current tick.
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * The loop of the engine thread: waits for the tick boundary, resolves the batch of actions
+     * submitted during the tick, runs the stages, ends the tick and completes the futures.
+     */
+    private void run() {
+        long nextTick = System.nanoTime() + this.tickNanos;
+        List<PendingAction> batch = new ArrayList<>();
+        List<CompletableFuture<Void>> expired = new ArrayList<>();
+
+        while (this.running) {
+            this.awaitBoundary(nextTick);
+            if (!this.running) {
+                break;
+            }
+            nextTick = Math.max(nextTick + this.tickNanos, System.nanoTime()); // Ticks are skipped, not piled up, when late
+
+            for (PendingAction pending; (pending = this.submitted.poll()) != null; ) {
+                batch.add(pending);
+            }
+            for (Timer timer; (timer = this.newTimers.poll()) != null; ) {
+                timer.due = this.tick + timer.delay;
+                this.timers.add(timer);
+            }
+
+            BooleanSupplier[] outcomes = new BooleanSupplier[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    outcomes[i] = batch.get(i).action.get();
+                } catch (RuntimeException e) {
+                    LOGGER.warning("Action failed during tick " + this.tick + ": " + e);
+                }
+            }
+            if (!batch.isEmpty()) {
+                for (Runnable stage : this.stages) {
+                    try {
+                        stage.run();
+                    } catch (RuntimeException e) {
+                        LOGGER.warning("Stage failed during tick " + this.tick + ": " + e);
+                    }
+                }
+            }
+            boolean[] results = new boolean[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                results[i] = outcomes[i] != null && outcomes[i].getAsBoolean();
+            }
+            while (!this.timers.isEmpty() && this.timers.peek().due <= this.tick + 1) {
+                expired.add(this.timers.poll().result);
+            }
+
+            if (!batch.isEmpty() || !expired.isEmpty()) {
+                try {
+                    this.onTickEnd.run();
+                } catch (RuntimeException e) {
+                    LOGGER.warning("End of tick " + this.tick + " failed: " + e);
+                }
+            }
+            this.tick++;
+
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results[i]);
+            }
+            expired.forEach(timer -> timer.complete(null));
+            batch.clear();
+            expired.clear();
+        }
+
+        this.submitted.forEach(pending -> pending.result.cancel(false));
+        this.newTimers.forEach(timer -> timer.result.cancel(false));
+        this.timers.forEach(timer -> timer.result.cancel(false));
+    }
+
+    /**
+     * Waits for the next tick boundary: the given instant with a fixed duration, or otherwise the
+     * first submission, or {@link #IDLE_TICK_MILLIS} after some timer is found pending.
+     *
+     * @param nextTick the instant of the next boundary, as given by {@link System#nanoTime()}.
+     */
+    private void awaitBoundary(long nextTick) {
+        if (this.tickNanos == 0) {
+            long idleTick = 0;
+            while (this.running && this.submitted.isEmpty()) {
+                if (this.newTimers.isEmpty() && this.timers.isEmpty()) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                if (idleTick == 0) {
+                    idleTick = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(IDLE_TICK_MILLIS);
+                }
+                long remaining = idleTick - System.nanoTime();
+                if (remaining <= 0) {
+                    return;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+            return;
+        }
+
+        for (long remaining; this.running && (remaining = nextTick - System.nanoTime()) > 0; ) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package env.utils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A registry that keeps entities grouped by their concrete class and keyed by name, so that
+ * type-filtered lookups don't need to scan every registered entity.  The collections returned
+ * by this class are read-only live views of the registry and are never copied.
+ *
+ * @param <T> the base type of the registered entities.
+ */
+public class TypeRegistry<T> {
+    private final Map<Class<?>, Map<String, T>> entitiesByType = new ConcurrentHashMap<>();
+
+    /**
+     * Registers an entity under the given key.  Registering again an entity with an already
+     * used key replaces the previous entry of the same type.
+     *
+     * @param key    the key identifying the entity.
+     * @param entity the entity to register.
+     */
+    public void register(String key, T entity) {
+        this.entitiesByType
+                .computeIfAbsent(entity.getClass(), type -> new ConcurrentHashMap<>())
+                .put(key, entity);
+    }
+
+    /**
+     * Retrieves all the registered entities of the given class.  If entities of the exact class
+     * were registered, a live read-only view is returned; otherwise the entities of every
+     * registered subclass are gathered in a new read-only collection.
+     *
+     * @param type the class of the entities to retrieve.
+     * @param <S>  the type of the entities to retrieve.
+     * @return a read-only collection of the entities of the given class.
+     */
+    @SuppressWarnings("unchecked")
+    public <S extends T> Collection<S> getAll(Class<S> type) {
+        Map<String, T> entities = this.entitiesByType.get(type);
+        if (entities != null) {
+            return (Collection<S>) Collections.unmodifiableCollection(entities.values());
+        }
+
+        List<S> result = new ArrayList<>();
+        this.entitiesByType.forEach((registeredType, registered) -> {
+            if (type.isAssignableFrom(registeredType)) {
+                result.addAll((Collection<S>) registered.values());
+            }
+        });
+        return Collections.unmodifiableList(result);
+    }
+}
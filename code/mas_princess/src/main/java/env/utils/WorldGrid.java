@@ -0,0 +1,522 @@
+package env.utils;
+
+import env.agents.Agent;
+import env.objects.resources.Resource;
+import env.objects.structures.*;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The storage of the game map as a struct of arrays.  Instead of one heap object per cell, every
+ * property of the cells lives in a primitive array indexed as {@code y * width + x}:
+ * <ul>
+ *     <li>a {@code byte} zone code (the ordinal of the {@link Zone});</li>
+ *     <li>an {@code int} id for the structure, the resource and the agent in the cell, with
+ *     {@link #NONE} for an empty slot;</li>
+ *     <li>a {@code byte} of packed flags caching whether the cell is walkable for each team,
+ *     whether its structure is destroyed and the team it belongs to.</li>
+ * </ul>
+ * Objects placed in the grid are interned into dense ids on first use.  {@link Cell} instances
+ * are thin views over the arrays, created once per cell, so the existing cell based API keeps
+ * working unchanged.
+ * <p>
+ * The flags of a cell are recomputed whenever its zone or structure is replaced; a change of the
+ * state of a structure in place (a gate being destroyed, a tree respawning) must be reported
+ * with {@link #refresh(int, int)}.
+ * <p>
+ * Every write marks its row as dirty, so that {@link #freeze(Frozen)} can copy only the rows
+ * changed since the previous frozen copy and share the others with it.
+ * <p>
+ * Writes are expected to be guarded by the lock protecting the map.
+ */
+public class WorldGrid {
+    /**
+     * The id stored in the slots that contain no object.
+     */
+    public static final int NONE = 0;
+
+    private static final byte WALKABLE_BLUE = 1, WALKABLE_RED = 1 << 1, DESTROYED = 1 << 2, RED_TEAM = 1 << 3;
+    private static final Zone[] ZONES = Zone.values();
+
+    private final int width;
+    private final int height;
+    private final byte[] zones;
+    private final int[] structureIds;
+    private final int[] resourceIds;
+    private final int[] agentIds;
+    private final byte[] flags;
+    private final boolean[] dirtyRows; // Rows written since the last frozen copy
+    private final Cell[] cells;
+    private final Interner<MapStructure> structures = new Interner<>();
+    private final Interner<Resource> resources = new Interner<>();
+    private final Interner<Agent> agents = new Interner<>();
+
+    /**
+     * Constructs a new WorldGrid of the given size, with every cell out of the map and empty.
+     *
+     * @param width  the width of the map.
+     * @param height the height of the map.
+     */
+    public WorldGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.zones = new byte[width * height];
+        this.structureIds = new int[width * height];
+        this.resourceIds = new int[width * height];
+        this.agentIds = new int[width * height];
+        this.flags = new byte[width * height];
+        this.dirtyRows = new boolean[height];
+        this.cells = new Cell[width * height];
+
+        Arrays.fill(this.zones, (byte) Zone.OUT_OF_MAP.ordinal());
+        Arrays.fill(this.dirtyRows, true);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                this.cells[this.index(x, y)] = new Cell(this, x, y);
+            }
+        }
+    }
+
+    /**
+     * Returns the view of the cell at the given coordinates.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @return the cell.
+     */
+    public Cell getCell(int x, int y) {
+        return this.cells[this.index(x, y)];
+    }
+
+    /**
+     * Empties the cell at the given coordinates and assigns it a zone.
+     *
+     * @param x    the x-coordinate of the cell.
+     * @param y    the y-coordinate of the cell.
+     * @param zone the zone of the cell.
+     * @return the view of the cell.
+     */
+    public Cell reset(int x, int y, Zone zone) {
+        int index = this.index(x, y);
+        this.structureIds[index] = NONE;
+        this.resourceIds[index] = NONE;
+        this.agentIds[index] = NONE;
+        this.setZone(x, y, zone); // Marks the row as dirty
+        return this.cells[index];
+    }
+
+    /**
+     * Returns the zone of the cell at the given coordinates.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @return the zone of the cell.
+     */
+    public Zone getZone(int x, int y) {
+        return ZONES[this.zones[this.index(x, y)]];
+    }
+
+    /**
+     * Sets the zone of the cell at the given coordinates.
+     *
+     * @param x    the x-coordinate of the cell.
+     * @param y    the y-coordinate of the cell.
+     * @param zone the new zone.
+     */
+    public void setZone(int x, int y, Zone zone) {
+        int index = this.index(x, y);
+        this.zones[index] = (byte) zone.ordinal();
+        this.flags[index] = this.computeFlags(index);
+        this.dirtyRows[y] = true;
+    }
+
+    /**
+     * Returns the structure in the cell at the given coordinates.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @return the structure, or {@code null} if there is none.
+     */
+    public MapStructure getStructure(int x, int y) {
+        return this.structures.get(this.structureIds[this.index(x, y)]);
+    }
+
+    /**
+     * Sets the structure in the cell at the given coordinates.
+     *
+     * @param x         the x-coordinate of the cell.
+     * @param y         the y-coordinate of the cell.
+     * @param structure the new structure, or {@code null} to clear it.
+     */
+    public void setStructure(int x, int y, MapStructure structure) {
+        int index = this.index(x, y);
+        this.structureIds[index] = this.structures.idOf(structure);
+        this.flags[index] = this.computeFlags(index);
+        this.dirtyRows[y] = true;
+    }
+
+    /**
+     * Returns the resource in the cell at the given coordinates.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @return the resource, or {@code null} if there is none.
+     */
+    public Resource getResource(int x, int y) {
+        return this.resources.get(this.resourceIds[this.index(x, y)]);
+    }
+
+    /**
+     * Sets the resource in the cell at the given coordinates.
+     *
+     * @param x        the x-coordinate of the cell.
+     * @param y        the y-coordinate of the cell.
+     * @param resource the new resource, or {@code null} to clear it.
+     */
+    public void setResource(int x, int y, Resource resource) {
+        this.resourceIds[this.index(x, y)] = this.resources.idOf(resource);
+        this.dirtyRows[y] = true;
+    }
+
+    /**
+     * Returns the agent in the cell at the given coordinates.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @return the agent, or {@code null} if there is none.
+     */
+    public Agent getAgent(int x, int y) {
+        return this.agents.get(this.agentIds[this.index(x, y)]);
+    }
+
+    /**
+     * Sets the agent in the cell at the given coordinates.
+     *
+     * @param x     the x-coordinate of the cell.
+     * @param y     the y-coordinate of the cell.
+     * @param agent the new agent, or {@code null} to clear it.
+     */
+    public void setAgent(int x, int y, Agent agent) {
+        this.agentIds[this.index(x, y)] = this.agents.idOf(agent);
+        this.dirtyRows[y] = true;
+    }
+
+    /**
+     * Recomputes the flags of a cell after the state of its structure changed in place.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     */
+    public void refresh(int x, int y) {
+        int index = this.index(x, y);
+        this.flags[index] = this.computeFlags(index);
+        this.dirtyRows[y] = true;
+    }
+
+    /**
+     * Checks if the terrain of a cell can be walked through by an agent of the given team, with
+     * a single read of the cached flags.
+     *
+     * @param x    the x-coordinate of the cell.
+     * @param y    the y-coordinate of the cell.
+     * @param team the team of the walking agent ({@code false} for blue, {@code true} for red).
+     * @return {@code true} if the cell is walkable, {@code false} otherwise.
+     * @see Cell#isWalkableFor(boolean)
+     */
+    public boolean isWalkable(int x, int y, boolean team) {
+        return (this.flags[this.index(x, y)] & (team ? WALKABLE_RED : WALKABLE_BLUE)) != 0;
+    }
+
+    /**
+     * Checks if the structure of a cell is destroyed.
+     *
+     * @param x the x-coordinate of the cell.
+     * @param y the y-coordinate of the cell.
+     * @return {@code true} if the cell contains a destroyed structure, {@code false} otherwise.
+     */
+    public boolean isDestroyed(int x, int y) {
+        return (this.flags[this.index(x, y)] & DESTROYED) != 0;
+    }
+
+    /**
+     * Returns the width of the grid.
+     *
+     * @return the width.
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Returns the height of the grid.
+     *
+     * @return the height.
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Makes an immutable copy of the grid.  Only the rows written since {@code previous} was made
+     * are copied, the others are shared with it.  Must be called while no write is in progress,
+     * and always with the copy made last (or {@code null} for the first one).
+     *
+     * @param previous the copy made last, or {@code null} if there is none.
+     * @return the immutable copy of the grid.
+     */
+    public Frozen freeze(Frozen previous) {
+        byte[][] zones = new byte[this.height][], flags = new byte[this.height][];
+        int[][] structureIds = new int[this.height][], resourceIds = new int[this.height][], agentIds = new int[this.height][];
+
+        for (int y = 0; y < this.height; y++) {
+            if (previous != null && !this.dirtyRows[y]) {
+                zones[y] = previous.zones[y];
+                flags[y] = previous.flags[y];
+                structureIds[y] = previous.structureIds[y];
+                resourceIds[y] = previous.resourceIds[y];
+                agentIds[y] = previous.agentIds[y];
+                continue;
+            }
+
+            int from = this.index(0, y), to = from + this.width;
+            zones[y] = Arrays.copyOfRange(this.zones, from, to);
+            flags[y] = Arrays.copyOfRange(this.flags, from, to);
+            structureIds[y] = Arrays.copyOfRange(this.structureIds, from, to);
+            resourceIds[y] = Arrays.copyOfRange(this.resourceIds, from, to);
+            agentIds[y] = Arrays.copyOfRange(this.agentIds, from, to);
+            this.dirtyRows[y] = false;
+        }
+
+        return new Frozen(this.width, this.height, zones, flags, structureIds, resourceIds, agentIds,
+                this.structures.values, this.resources.values, this.agents.values);
+    }
+
+    /**
+     * An immutable copy of a {@link WorldGrid}, stored by rows so that unchanged rows can be
+     * shared between successive copies.  Objects are returned as the live instances placed in the
+     * grid: their identity and immutable properties can be read, their mutable state can't.
+     */
+    public static final class Frozen {
+        private final int width;
+        private final int height;
+        private final byte[][] zones;
+        private final byte[][] flags;
+        private final int[][] structureIds;
+        private final int[][] resourceIds;
+        private final int[][] agentIds;
+        private final Object[] structures;
+        private final Object[] resources;
+        private final Object[] agents;
+
+        /**
+         * Constructs a new Frozen grid from its rows and the id tables of the interned objects.
+         * The id tables are only ever appended to, so they can be shared with the live grid.
+         *
+         * @param width        the width of the grid.
+         * @param height       the height of the grid.
+         * @param zones        the rows of zone codes.
+         * @param flags        the rows of packed flags.
+         * @param structureIds the rows of structure ids.
+         * @param resourceIds  the rows of resource ids.
+         * @param agentIds     the rows of agent ids.
+         * @param structures   the structures, indexed by id.
+         * @param resources    the resources, indexed by id.
+         * @param agents       the agents, indexed by id.
+         */
+        private Frozen(int width, int height, byte[][] zones, byte[][] flags, int[][] structureIds, int[][] resourceIds,
+                       int[][] agentIds, Object[] structures, Object[] resources, Object[] agents) {
+            this.width = width;
+            this.height = height;
+            this.zones = zones;
+            this.flags = flags;
+            this.structureIds = structureIds;
+            this.resourceIds = resourceIds;
+            this.agentIds = agentIds;
+            this.structures = structures;
+            this.resources = resources;
+            this.agents = agents;
+        }
+
+        /**
+         * Returns the zone of the cell at the given coordinates.
+         *
+         * @param x the x-coordinate of the cell.
+         * @param y the y-coordinate of the cell.
+         * @return the zone of the cell.
+         */
+        public Zone getZone(int x, int y) {
+            return ZONES[this.zones[y][x]];
+        }
+
+        /**
+         * Returns the structure that was in the cell at the given coordinates.
+         *
+         * @param x the x-coordinate of the cell.
+         * @param y the y-coordinate of the cell.
+         * @return the structure, or {@code null} if there was none.
+         */
+        public MapStructure getStructure(int x, int y) {
+            return (MapStructure) this.structures[this.structureIds[y][x]];
+        }
+
+        /**
+         * Returns the resource that was in the cell at the given coordinates.
+         *
+         * @param x the x-coordinate of the cell.
+         * @param y the y-coordinate of the cell.
+         * @return the resource, or {@code null} if there was none.
+         */
+        public Resource getResource(int x, int y) {
+            return (Resource) this.resources[this.resourceIds[y][x]];
+        }
+
+        /**
+         * Returns the agent that was in the cell at the given coordinates.
+         *
+         * @param x the x-coordinate of the cell.
+         * @param y the y-coordinate of the cell.
+         * @return the agent, or {@code null} if there was none.
+         */
+        public Agent getAgent(int x, int y) {
+            return (Agent) this.agents[this.agentIds[y][x]];
+        }
+
+        /**
+         * Checks if the terrain of a cell was walkable for an agent of the given team.
+         *
+         * @param x    the x-coordinate of the cell.
+         * @param y    the y-coordinate of the cell.
+         * @param team the team of the walking agent ({@code false} for blue, {@code true} for red).
+         * @return {@code true} if the cell was walkable, {@code false} otherwise.
+         */
+        public boolean isWalkable(int x, int y, boolean team) {
+            return (this.flags[y][x] & (team ? WALKABLE_RED : WALKABLE_BLUE)) != 0;
+        }
+
+        /**
+         * Checks if the structure of a cell was destroyed.
+         *
+         * @param x the x-coordinate of the cell.
+         * @param y the y-coordinate of the cell.
+         * @return {@code true} if the cell contained a destroyed structure, {@code false} otherwise.
+         */
+        public boolean isDestroyed(int x, int y) {
+            return (this.flags[y][x] & DESTROYED) != 0;
+        }
+
+        /**
+         * Returns the width of the grid.
+         *
+         * @return the width.
+         */
+        public int getWidth() {
+            return this.width;
+        }
+
+        /**
+         * Returns the height of the grid.
+         *
+         * @return the height.
+         */
+        public int getHeight() {
+            return this.height;
+        }
+    }
+
+    /**
+     * Computes the packed flags of a cell from its zone and structure.  The walkability rules are
+     * those of the terrain: cells out of the map are never walkable, trees only once destroyed and
+     * gates for their own team or once destroyed.
+     *
+     * @param index the index of the cell.
+     * @return the flags of the cell.
+     */
+    private byte computeFlags(int index) {
+        MapStructure structure = this.structures.get(this.structureIds[index]);
+        boolean destroyed = structure instanceof BreakableStructure breakable && breakable.isDestroyed();
+        boolean red = structure != null && Boolean.TRUE.equals(structure.getTeam());
+
+        boolean walkableBlue, walkableRed;
+        if (this.zones[index] == Zone.OUT_OF_MAP.ordinal()) {
+            walkableBlue = walkableRed = false;
+        } else if (structure instanceof Tree) {
+            walkableBlue = walkableRed = destroyed;
+        } else if (structure instanceof Gate) {
+            walkableBlue = destroyed || !red;
+            walkableRed = destroyed || red;
+        } else {
+            walkableBlue = walkableRed = structure == null || structure.isWalkable();
+        }
+
+        return (byte) ((walkableBlue ? WALKABLE_BLUE : 0) | (walkableRed ? WALKABLE_RED : 0)
+                | (destroyed ? DESTROYED : 0) | (red ? RED_TEAM : 0));
+    }
+
+    /**
+     * Computes the array index of the given coordinates.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return the index of the cell.
+     */
+    private int index(int x, int y) {
+        return y * this.width + x;
+    }
+
+    /**
+     * Assigns dense ids to the objects placed in the grid, starting from 1 so that {@link #NONE}
+     * never refers to an object.  Objects are compared by identity and their id never changes.
+     *
+     * @param <T> the type of the interned objects.
+     */
+    private static final class Interner<T> {
+        private final Map<T, Integer> ids = new IdentityHashMap<>();
+        private volatile Object[] values = new Object[16];
+        private final ReentrantLock lock = new ReentrantLock(); // Does not pin virtual threads, unlike a monitor
+
+        /**
+         * Returns the id of an object, interning it if it is new.
+         *
+         * @param value the object, or {@code null}.
+         * @return the id of the object, or {@link #NONE} for {@code null}.
+         */
+        int idOf(T value) {
+            if (value == null) {
+                return NONE;
+            }
+
+            this.lock.lock();
+            try {
+                Integer id = this.ids.get(value);
+                if (id == null) {
+                    id = this.ids.size() + 1;
+                    this.ids.put(value, id);
+
+                    Object[] grown = this.values;
+                    if (id >= grown.length) {
+                        grown = Arrays.copyOf(grown, grown.length * 2);
+                    }
+                    grown[id] = value;
+                    this.values = grown; // Publishes the new entry to the readers
+                }
+                return id;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the object with the given id.
+         *
+         * @param id the id of the object.
+         * @return the object, or {@code null} for {@link #NONE}.
+         */
+        @SuppressWarnings("unchecked")
+        T get(int id) {
+            return (T) this.values[id];
+        }
+    }
+}
@@ -0,0 +1,547 @@
+package env.utils;
+
+import env.agents.Agent;
+import env.agents.Priest;
+import env.objects.resources.Princess;
+import env.objects.resources.Resource;
+import env.objects.structures.BreakableStructure;
+import env.objects.structures.Gate;
+import env.objects.structures.MapStructure;
+import env.objects.structures.Tree;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * An immutable picture of the world state at the end of a tick: the cells of the map, the state
+ * of every agent, structure and resource, the wood of both teams and the winner.  Snapshots are
+ * published by the map and can be read by any number of threads without any lock, and all the
+ * reads made on the same snapshot are mutually consistent.
+ * <p>
+ * Successive snapshots are structurally shared: the rows of the map that were not written during
+ * a tick (see {@link WorldGrid#freeze(WorldGrid.Frozen)}) and the states of the entities that did
+ * not change are reused from the previous snapshot instead of being copied again.
+ * <p>
+ * The states of the agents are also indexed by position in a {@link SpatialGrid}, so that the
+ * neighbours of an agent are found among the nearby agents only.
+ */
+public class WorldSnapshot {
+    private static final int AGENTS_INDEX_BUCKET_SIZE = 4;
+
+    private final long tick;
+    private final WorldGrid.Frozen grid;
+    private final Map<String, AgentState> agents;
+    private final SpatialGrid<AgentState> agentsIndex; // Never written once the snapshot is constructed
+    private final Map<String, StructureState> structures;
+    private final Map<String, ResourceState> resources;
+    private final int woodAmountBlue, woodAmountRed;
+    private final Boolean win;
+    private final TeamSituation blueSituation, redSituation;
+
+    /**
+     * The state of an agent at the time of a snapshot.
+     */
+    public static final class AgentState {
+        private final Agent agent;
+        private final int hp;
+        private final Pose pose;
+        private final Resource carriedItem;
+        private final String state;
+
+        /**
+         * Captures the current state of an agent.
+         *
+         * @param agent the agent.
+         */
+        private AgentState(Agent agent) {
+            this.agent = agent;
+            this.hp = agent.getHp();
+            this.pose = agent.getPose();
+            this.carriedItem = agent.getCarriedItem();
+            this.state = agent.getState();
+        }
+
+        /**
+         * Checks whether the agent is still in the captured state.
+         *
+         * @param agent the live agent.
+         * @return {@code true} if nothing changed, {@code false} otherwise.
+         */
+        private boolean isUnchanged(Agent agent) {
+            return this.agent == agent && this.hp == agent.getHp() && this.carriedItem == agent.getCarriedItem()
+                    && Objects.equals(this.pose, agent.getPose()) && Objects.equals(this.state, agent.getState());
+        }
+
+        /**
+         * Returns the agent, whose identity and immutable properties (name, team, type, ranges)
+         * can be read; its mutable state must be read from this object.
+         *
+         * @return the agent.
+         */
+        public Agent getAgent() {
+            return this.agent;
+        }
+
+        /**
+         * Returns the health points of the agent.
+         *
+         * @return the health points.
+         */
+        public int getHp() {
+            return this.hp;
+        }
+
+        /**
+         * Returns the pose of the agent.
+         *
+         * @return the pose.
+         */
+        public Pose getPose() {
+            return this.pose;
+        }
+
+        /**
+         * Returns the item carried by the agent.
+         *
+         * @return the carried item, or {@code null} if none.
+         */
+        public Resource getCarriedItem() {
+            return this.carriedItem;
+        }
+
+        /**
+         * Returns the state of the agent.
+         *
+         * @return the state.
+         */
+        public String getState() {
+            return this.state;
+        }
+    }
+
+    /**
+     * The state of a structure at the time of a snapshot.
+     */
+    public static final class StructureState {
+        private final MapStructure structure;
+        private final int hp;
+        private final boolean destroyed;
+
+        /**
+         * Captures the current state of a structure.
+         *
+         * @param structure the structure.
+         */
+        private StructureState(MapStructure structure) {
+            this.structure = structure;
+            this.hp = structure.getHp();
+            this.destroyed = structure instanceof BreakableStructure breakable && breakable.isDestroyed();
+        }
+
+        /**
+         * Checks whether the structure is still in the captured state.
+         *
+         * @param structure the live structure.
+         * @return {@code true} if nothing changed, {@code false} otherwise.
+         */
+        private boolean isUnchanged(MapStructure structure) {
+            return this.structure == structure && this.hp == structure.getHp()
+                    && this.destroyed == (structure instanceof BreakableStructure breakable && breakable.isDestroyed());
+        }
+
+        /**
+         * Returns the structure, whose identity and immutable properties can be read.
+         *
+         * @return the structure.
+         */
+        public MapStructure getStructure() {
+            return this.structure;
+        }
+
+        /**
+         * Returns the health points of the structure.
+         *
+         * @return the health points.
+         */
+        public int getHp() {
+            return this.hp;
+        }
+
+        /**
+         * Checks whether the structure is destroyed.
+         *
+         * @return {@code true} if the structure is destroyed, {@code false} otherwise.
+         */
+        public boolean isDestroyed() {
+            return this.destroyed;
+        }
+    }
+
+    /**
+     * The state of a resource at the time of a snapshot.
+     */
+    public static final class ResourceState {
+        private final Resource resource;
+        private final Pose pose;
+        private final boolean carried;
+
+        /**
+         * Captures the current state of a resource.
+         *
+         * @param resource the resource.
+         */
+        private ResourceState(Resource resource) {
+            this.resource = resource;
+            this.pose = resource.getPose();
+            this.carried = resource.isCarried();
+        }
+
+        /**
+         * Checks whether the resource is still in the captured state.
+         *
+         * @param resource the live resource.
+         * @return {@code true} if nothing changed, {@code false} otherwise.
+         */
+        private boolean isUnchanged(Resource resource) {
+            return this.resource == resource && this.carried == resource.isCarried()
+                    && Objects.equals(this.pose, resource.getPose());
+        }
+
+        /**
+         * Returns the resource, whose identity and immutable properties can be read.
+         *
+         * @return the resource.
+         */
+        public Resource getResource() {
+            return this.resource;
+        }
+
+        /**
+         * Returns the pose of the resource.
+         *
+         * @return the pose.
+         */
+        public Pose getPose() {
+            return this.pose;
+        }
+
+        /**
+         * Checks whether the resource is carried by an agent.
+         *
+         * @return {@code true} if the resource is carried, {@code false} otherwise.
+         */
+        public boolean isCarried() {
+            return this.carried;
+        }
+    }
+
+    /**
+     * Constructs a new WorldSnapshot from its already captured parts.
+     *
+     * @param tick             the number of the tick.
+     * @param grid             the frozen cells of the map.
+     * @param agents           the states of the agents, by name.
+     * @param agentsIndex      the states of the agents, by position.
+     * @param structures       the states of the structures, by key.
+     * @param resources        the states of the resources, by name.
+     * @param woodAmountBlue   the wood of the blue team.
+     * @param woodAmountRed    the wood of the red team.
+     * @param win              the winning team, or {@code null} if the game is not over.
+     * @param blueSituation    the situation of the blue team.
+     * @param redSituation     the situation of the red team.
+     */
+    private WorldSnapshot(long tick, WorldGrid.Frozen grid, Map<String, AgentState> agents, SpatialGrid<AgentState> agentsIndex,
+                          Map<String, StructureState> structures, Map<String, ResourceState> resources,
+                          int woodAmountBlue, int woodAmountRed, Boolean win,
+                          TeamSituation blueSituation, TeamSituation redSituation) {
+        this.tick = tick;
+        this.grid = grid;
+        this.agents = agents;
+        this.agentsIndex = agentsIndex;
+        this.structures = structures;
+        this.resources = resources;
+        this.woodAmountBlue = woodAmountBlue;
+        this.woodAmountRed = woodAmountRed;
+        this.win = win;
+        this.blueSituation = blueSituation;
+        this.redSituation = redSituation;
+    }
+
+    /**
+     * Captures the current state of the world, sharing everything that did not change with the
+     * previous snapshot.  Must be called while the world is not being modified.
+     *
+     * @param previous         the snapshot captured last, or {@code null} if there is none.
+     * @param grid             the grid of the map.
+     * @param agents           the agents in the map, by name.
+     * @param structures       the structures in the map, by key.
+     * @param resources        the resources in the map, by name.
+     * @param woodAmountBlue   the wood of the blue team.
+     * @param woodAmountRed    the wood of the red team.
+     * @param win              the winning team, or {@code null} if the game is not over.
+     * @param blueSituation    the situation of the blue team.
+     * @param redSituation     the situation of the red team.
+     * @return the new snapshot.
+     */
+    public static WorldSnapshot capture(WorldSnapshot previous, WorldGrid grid, Map<String, Agent> agents,
+                                        Map<String, MapStructure> structures, Map<String, Resource> resources,
+                                        int woodAmountBlue, int woodAmountRed, Boolean win,
+                                        TeamSituation blueSituation, TeamSituation redSituation) {
+        Map<String, AgentState> agentStates = capture(previous == null ? null : previous.agents, agents,
+                AgentState::isUnchanged, AgentState::new);
+
+        return new WorldSnapshot(
+                previous == null ? 0 : previous.tick + 1,
+                grid.freeze(previous == null ? null : previous.grid),
+                agentStates,
+                previous != null && previous.agents == agentStates
+                        ? previous.agentsIndex
+                        : index(agentStates.values(), grid.getWidth(), grid.getHeight()),
+                capture(previous == null ? null : previous.structures, structures, StructureState::isUnchanged, StructureState::new),
+                capture(previous == null ? null : previous.resources, resources, ResourceState::isUnchanged, ResourceState::new),
+                woodAmountBlue, woodAmountRed, win, blueSituation, redSituation
+        );
+    }
+
+    /**
+     * Indexes the states of the agents by their position.
+     *
+     * @param agents the states of the agents.
+     * @param width  the width of the map.
+     * @param height the height of the map.
+     * @return the index.
+     */
+    private static SpatialGrid<AgentState> index(Collection<AgentState> agents, int width, int height) {
+        SpatialGrid<AgentState> index = new SpatialGrid<>(width, height, AGENTS_INDEX_BUCKET_SIZE);
+        for (AgentState agent : agents) {
+            index.put(agent, agent.pose.getPosition());
+        }
+        return index;
+    }
+
+    /**
+     * Captures the states of a family of entities, reusing the previous state of the entities that
+     * did not change, and the whole previous map if no entity changed.
+     *
+     * @param previous  the previous states, or {@code null} if there are none.
+     * @param live      the live entities, by key.
+     * @param unchanged checks whether an entity is still in its previous state.
+     * @param capture   captures the state of an entity.
+     * @param <E>       the type of the entities.
+     * @param <S>       the type of the states.
+     * @return the unmodifiable map of the states, by key.
+     */
+    private static <E, S> Map<String, S> capture(Map<String, S> previous, Map<String, E> live,
+                                                 BiPredicate<S, E> unchanged, Function<E, S> capture) {
+        Map<String, S> states = new HashMap<>();
+        boolean changed = previous == null || previous.size() != live.size();
+
+        for (Map.Entry<String, E> entry : live.entrySet()) {
+            S state = previous == null ? null : previous.get(entry.getKey());
+            if (state == null || !unchanged.test(state, entry.getValue())) {
+                state = capture.apply(entry.getValue());
+                changed = true;
+            }
+            states.put(entry.getKey(), state);
+        }
+
+        return changed ? Collections.unmodifiableMap(states) : previous;
+    }
+
+    /**
+     * Returns the number of the tick this snapshot was captured at.
+     *
+     * @return the tick.
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Returns the frozen cells of the map.
+     *
+     * @return the grid.
+     */
+    public WorldGrid.Frozen getGrid() {
+        return this.grid;
+    }
+
+    /**
+     * Checks if a position is within the boundaries of the map.
+     *
+     * @param position the position.
+     * @return {@code true} if the position is inside the map, {@code false} otherwise.
+     */
+    public boolean isInside(Vector2D position) {
+        return position.getX() >= 0 && position.getX() < this.grid.getWidth()
+                && position.getY() >= 0 && position.getY() < this.grid.getHeight();
+    }
+
+    /**
+     * Returns the states of all the agents.
+     *
+     * @return the states of the agents.
+     */
+    public Collection<AgentState> getAgents() {
+        return this.agents.values();
+    }
+
+    /**
+     * Returns the state of an agent.
+     *
+     * @param agent the agent.
+     * @return the state of the agent, or {@code null} if it was not in the map.
+     */
+    public AgentState getAgent(Agent agent) {
+        AgentState state = agent == null ? null : this.agents.get(agent.getName());
+        return state != null && state.agent == agent ? state : null;
+    }
+
+    /**
+     * Returns the state of a structure.
+     *
+     * @param key the key of the structure.
+     * @return the state of the structure, or {@code null} if there is none.
+     */
+    public StructureState getStructure(String key) {
+        return this.structures.get(key);
+    }
+
+    /**
+     * Returns the state of a resource.
+     *
+     * @param name the name of the resource.
+     * @return the state of the resource, or {@code null} if there is none.
+     */
+    public ResourceState getResource(String name) {
+        return this.resources.get(name);
+    }
+
+    /**
+     * Returns the wood of the blue team.
+     *
+     * @return the wood amount.
+     */
+    public int getWoodAmountBlue() {
+        return this.woodAmountBlue;
+    }
+
+    /**
+     * Returns the wood of the red team.
+     *
+     * @return the wood amount.
+     */
+    public int getWoodAmountRed() {
+        return this.woodAmountRed;
+    }
+
+    /**
+     * Returns the winning team.
+     *
+     * @return {@code true} for red, {@code false} for blue, {@code null} if the game is not over.
+     */
+    public Boolean getWin() {
+        return this.win;
+    }
+
+    /**
+     * Returns the situation of a team at the time of the snapshot.
+     *
+     * @param team the team.
+     * @return the situation of the team.
+     */
+    public TeamSituation getTeamSituation(boolean team) {
+        return team ? this.redSituation : this.blueSituation;
+    }
+
+    /**
+     * Retrieves the agents within the given range of an agent, with the same rules as
+     * {@code BlackForestGameMap.getAgentNeighbours}.
+     *
+     * @param agent the reference agent.
+     * @param range the maximum distance on each axis.
+     * @return the states of the neighbouring agents.
+     */
+    public Set<AgentState> getAgentNeighbours(AgentState agent, int range) {
+        return this.agentsIndex.queryRange(agent.pose.getPosition(), range).stream()
+                .filter(other -> other.hp > 0 && other.agent != agent.agent)
+                .filter(other -> !(agent.agent instanceof Priest && agent.agent.getTeam() == other.agent.getTeam()
+                        && other.hp == other.agent.getMaxHp()))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Retrieves the gates within the given range of an agent, with the same rules as
+     * {@code BlackForestGameMap.getGateNeighbours}.
+     *
+     * @param agent the reference agent.
+     * @param team  the team filter ("enemy" or "ally").
+     * @param range the maximum distance on each axis.
+     * @return the states of the gates in range.
+     */
+    public Set<StructureState> getGateNeighbours(AgentState agent, String team, int range) {
+        boolean ownTeam = agent.agent.getTeam();
+        boolean hasEnoughWood = this.getTeamSituation(ownTeam).hasEnoughWood();
+
+        return this.structures.values().stream()
+                .filter(it -> it.structure instanceof Gate)
+                .filter(it -> !team.equals("enemy") || !it.structure.getTeam().equals(ownTeam))
+                .filter(it -> !team.equals("ally") || !hasEnoughWood || it.structure.getTeam().equals(ownTeam))
+                .filter(it -> isInRange(agent.pose.getPosition(), it.structure.getPose().getPosition(), range))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Retrieves the trees within the given range of an agent, with the same rules as
+     * {@code BlackForestGameMap.getTreeNeighbours}: trees are ignored while the team should rather
+     * repair its gates, while a princess is being carried and when the team has wood to spare.
+     *
+     * @param agent the reference agent.
+     * @param range the maximum distance on each axis.
+     * @return the states of the trees in range.
+     */
+    public Set<StructureState> getTreeNeighbours(AgentState agent, int range) {
+        if (this.getTeamSituation(agent.agent.getTeam()).shouldIgnoreTrees()) {
+            return Collections.emptySet();
+        }
+
+        return this.structures.values().stream()
+                .filter(it -> it.structure instanceof Tree)
+                .filter(it -> isInRange(agent.pose.getPosition(), it.structure.getPose().getPosition(), range))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Retrieves the princesses within the given range of an agent, with the same rules as
+     * {@code BlackForestGameMap.getPrincessNeighbours}.
+     *
+     * @param agent the reference agent.
+     * @param team  the team filter ("enemy" or "ally").
+     * @param range the maximum distance on each axis.
+     * @return the states of the princesses in range.
+     */
+    public Set<ResourceState> getPrincessNeighbours(AgentState agent, String team, int range) {
+        boolean ownTeam = agent.agent.getTeam();
+
+        return this.resources.values().stream()
+                .filter(it -> it.resource instanceof Princess && !it.carried)
+                .filter(it -> !team.equals("ally") || it.resource.getTeam() == ownTeam)
+                .filter(it -> !team.equals("enemy") || it.resource.getTeam() != ownTeam)
+                .filter(it -> isInRange(agent.pose.getPosition(), it.pose.getPosition(), range))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Checks whether two positions are within the given distance on each axis.
+     *
+     * @param a     the first position.
+     * @param b     the second position.
+     * @param range the maximum distance on each axis.
+     * @return {@code true} if the positions are in range, {@code false} otherwise.
+     */
+    private static boolean isInRange(Vector2D a, Vector2D b, int range) {
+        return Math.abs(a.getX() - b.getX()) <= range && Math.abs(a.getY() - b.getY()) <= range;
+    }
+}
@@ -0,0 +1,119 @@
+package env;
+
+import env.agents.Agent;
+import env.agents.Gatherer;
+import env.agents.Warrior;
+import env.objects.resources.Princess;
+import env.objects.structures.Gate;
+import env.utils.GameEvent;
+import env.utils.ObjectiveMemo;
+import env.utils.TeamSituation;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the game events published by {@link BlackForestGameMap} only invalidate the
+ * memoized objectives and team situations they can alter.
+ */
+public class BlackForestGameMapTest {
+    private BlackForestGameMap map;
+
+    @Before
+    public void setUp() {
+        this.map = new BlackForestGameMap(40, 15, null);
+    }
+
+    @Test
+    public void reusesSituationsUntilAnEventConcernsTheirTeam() {
+        TeamSituation blue = this.map.getTeamSituation(false);
+        TeamSituation red = this.map.getTeamSituation(true);
+        assertSame(blue, this.map.getTeamSituation(false));
+
+        this.map.getEventBus().publish(new GameEvent.WoodDeposited(true, 3));
+        assertSame(blue, this.map.getTeamSituation(false));
+        assertNotSame(red, this.map.getTeamSituation(true));
+
+        red = this.map.getTeamSituation(true);
+        Gate blueGate = this.map.getGateByName("gate_b1").orElseThrow();
+        this.map.getEventBus().publish(new GameEvent.GateDestroyed(blueGate));
+        assertNotSame(blue, this.map.getTeamSituation(false));
+        assertSame(red, this.map.getTeamSituation(true));
+    }
+
+    @Test
+    public void invalidatesBothSituationsWhenAPrincessIsPickedUp() {
+        TeamSituation blue = this.map.getTeamSituation(false);
+        TeamSituation red = this.map.getTeamSituation(true);
+
+        Princess princess = this.map.getPrincessByName("princess_b").orElseThrow();
+        this.map.getEventBus().publish(new GameEvent.PrincessPickedUp(princess, null));
+
+        assertNotSame(blue, this.map.getTeamSituation(false));
+        assertNotSame(red, this.map.getTeamSituation(true));
+    }
+
+    @Test
+    public void keepsSituationsWhenAgentsMove() {
+        TeamSituation blue = this.map.getTeamSituation(false);
+
+        this.map.getEventBus().publish(new GameEvent.AgentMoved(null, null, null));
+
+        assertSame(blue, this.map.getTeamSituation(false));
+    }
+
+    @Test
+    public void invalidatesTheObjectivesOfTheGatherersOfTheDepositingTeam() {
+        Agent blueGatherer = this.spawn(new Gatherer("gatherer_b", false));
+        Agent redGatherer = this.spawn(new Gatherer("gatherer_r", true));
+        Agent redWarrior = this.spawn(new Warrior("warrior_r", true));
+        ObjectiveMemo blueGathererMemo = this.memoize(blueGatherer);
+        ObjectiveMemo redGathererMemo = this.memoize(redGatherer);
+        ObjectiveMemo redWarriorMemo = this.memoize(redWarrior);
+
+        this.map.getEventBus().publish(new GameEvent.WoodDeposited(true, 3));
+
+        assertSame(blueGathererMemo, this.memoize(blueGatherer));
+        assertNotSame(redGathererMemo, this.memoize(redGatherer));
+        assertSame(redWarriorMemo, this.memoize(redWarrior));
+    }
+
+    @Test
+    public void invalidatesEveryObjectiveWhenAGateIsDestroyed() {
+        Agent blueGatherer = this.spawn(new Gatherer("gatherer_b", false));
+        Agent redWarrior = this.spawn(new Warrior("warrior_r", true));
+        ObjectiveMemo blueGathererMemo = this.memoize(blueGatherer);
+        ObjectiveMemo redWarriorMemo = this.memoize(redWarrior);
+
+        Gate blueGate = this.map.getGateByName("gate_b1").orElseThrow();
+        this.map.getEventBus().publish(new GameEvent.GateDestroyed(blueGate));
+
+        assertNotSame(blueGathererMemo, this.memoize(blueGatherer));
+        assertNotSame(redWarriorMemo, this.memoize(redWarrior));
+    }
+
+    /**
+     * Spawns an agent in its base, in a state whose objective is memoized.
+     *
+     * @param agent the agent.
+     * @return the spawned agent.
+     */
+    private Agent spawn(Agent agent) {
+        assertTrue(this.map.spawnAgent(agent));
+        return agent;
+    }
+
+    /**
+     * Looks up the closest objective of an agent and returns the memo it is kept in.
+     *
+     * @param agent the agent.
+     * @return the memo of the objective.
+     */
+    private ObjectiveMemo memoize(Agent agent) {
+        assertNotNull(this.map.getClosestObjective(agent));
+        ObjectiveMemo memo = agent.getObjectiveMemo();
+        assertNotNull(memo);
+        return memo;
+    }
+}
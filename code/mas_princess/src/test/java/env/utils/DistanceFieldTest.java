@@ -0,0 +1,195 @@
+package env.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link DistanceField} and the incremental updates of {@link DistanceFieldCache}, which
+ * must always agree with a field computed from scratch.
+ */
+public class DistanceFieldTest {
+    private static final int WIDTH = 12;
+    private static final int HEIGHT = 8;
+
+    private boolean[][] blocked;
+
+    @Before
+    public void setUp() {
+        this.blocked = new boolean[WIDTH][HEIGHT];
+    }
+
+    @Test
+    public void measuresWalkingDistances() {
+        for (int y = 0; y < HEIGHT - 1; y++) {
+            this.blocked[5][y] = true; // A wall with a single opening at the bottom
+        }
+        DistanceField field = this.compute(List.of(Vector2D.of(0, 0)));
+
+        assertEquals(0, field.getDistance(0, 0));
+        assertEquals(4, field.getDistance(4, 0));
+        assertEquals(4 + 7 + 2 + 7, field.getDistance(6, 0));
+        assertEquals(DistanceField.UNREACHABLE, field.getDistance(5, 0));
+        assertEquals(DistanceField.UNREACHABLE, field.getDistance(-1, 0));
+    }
+
+    @Test
+    public void expandsSourcesThatAreNotWalkable() {
+        this.blocked[3][3] = true; // E.g. a tree
+        DistanceField field = this.compute(List.of(Vector2D.of(3, 3)));
+
+        assertEquals(0, field.getDistance(3, 3));
+        assertEquals(1, field.getDistance(3, 4));
+        assertEquals(Vector2D.of(3, 3), field.getNearestSource(Vector2D.of(0, 0)));
+    }
+
+    @Test
+    public void findsTheNearestSource() {
+        DistanceField field = this.compute(List.of(Vector2D.of(0, 0), Vector2D.of(11, 7)));
+
+        assertEquals(Vector2D.of(0, 0), field.getNearestSource(Vector2D.of(2, 2)));
+        assertEquals(Vector2D.of(11, 7), field.getNearestSource(Vector2D.of(9, 6)));
+        assertEquals(Vector2D.of(0, 0), field.getNearestSource(Vector2D.of(9, 0))); // A tie goes to the first source
+    }
+
+    @Test
+    public void findsTheNearestSourceFromAnUnwalkablePosition() {
+        this.blocked[6][4] = true; // E.g. a gate the agent stands on
+        DistanceField field = this.compute(List.of(Vector2D.of(11, 4)));
+
+        assertEquals(DistanceField.UNREACHABLE, field.getDistance(6, 4));
+        assertEquals(Vector2D.of(11, 4), field.getNearestSource(Vector2D.of(6, 4)));
+    }
+
+    @Test
+    public void findsNoSourceWhenUnreachable() {
+        for (int y = 0; y < HEIGHT; y++) {
+            this.blocked[5][y] = true;
+        }
+        DistanceField field = this.compute(List.of(Vector2D.of(0, 0)));
+
+        assertNull(field.getNearestSource(Vector2D.of(8, 3)));
+        assertNull(field.getNearestSource(Vector2D.of(-1, 3)));
+    }
+
+    @Test
+    public void opensCellsIncrementally() {
+        for (int y = 0; y < HEIGHT; y++) {
+            this.blocked[5][y] = true;
+        }
+        List<Vector2D> sources = List.of(Vector2D.of(0, 0), Vector2D.of(2, 7));
+        DistanceField field = this.compute(sources);
+        assertEquals(DistanceField.UNREACHABLE, field.getDistance(11, 0));
+
+        this.blocked[5][3] = false;
+        field.openCell(5, 3, this::isWalkable);
+        this.assertSameField(this.compute(sources), field);
+
+        this.blocked[5][6] = false;
+        field.openCell(5, 6, this::isWalkable);
+        this.assertSameField(this.compute(sources), field);
+    }
+
+    @Test
+    public void opensRandomCellsIncrementally() {
+        Random random = new Random(7);
+        for (int i = 0; i < WIDTH * HEIGHT / 2; i++) {
+            this.blocked[random.nextInt(WIDTH)][random.nextInt(HEIGHT)] = true;
+        }
+        List<Vector2D> sources = List.of(Vector2D.of(1, 1), Vector2D.of(10, 6));
+        DistanceField field = this.compute(sources);
+
+        for (int i = 0; i < 40; i++) {
+            int x = random.nextInt(WIDTH), y = random.nextInt(HEIGHT);
+            if (this.blocked[x][y]) {
+                this.blocked[x][y] = false;
+                field.openCell(x, y, this::isWalkable);
+                this.assertSameField(this.compute(sources), field);
+            }
+        }
+    }
+
+    @Test
+    public void recomputesOnlyWhenBlockingACrossedCell() {
+        for (int y = 0; y < HEIGHT; y++) {
+            this.blocked[5][y] = true;
+        }
+        DistanceField field = this.compute(List.of(Vector2D.of(0, 0)));
+
+        assertTrue(field.isAffectedByBlocking(2, 2));
+        assertFalse(field.isAffectedByBlocking(0, 0)); // The source
+        assertFalse(field.isAffectedByBlocking(8, 2)); // Beyond the wall
+        assertFalse(field.isAffectedByBlocking(-1, 2));
+    }
+
+    @Test
+    public void keepsCachedFieldsInSyncWithTheMap() {
+        DistanceFieldCache cache = new DistanceFieldCache(WIDTH, HEIGHT, (x, y, team) -> team || this.isWalkable(x, y));
+        cache.registerObjective("goal", () -> List.of(Vector2D.of(11, 0)));
+        DistanceField blue = cache.get("goal", false);
+        DistanceField red = cache.get("goal", true);
+        assertSame(blue, cache.get("goal", false));
+
+        this.blocked[10][0] = true;
+        cache.cellBlocked(10, 0, false);
+        DistanceField recomputed = cache.get("goal", false);
+        assertNotSame(blue, recomputed);
+        assertEquals(DistanceField.UNREACHABLE, recomputed.getDistance(10, 0));
+        assertEquals(4, recomputed.getDistance(9, 0));
+        assertSame(red, cache.get("goal", true)); // Only blue can't walk through
+
+        this.blocked[10][0] = false;
+        cache.cellOpened(10, 0, false);
+        assertSame(recomputed, cache.get("goal", false));
+        assertEquals(1, recomputed.getDistance(10, 0));
+        assertEquals(2, recomputed.getDistance(9, 0));
+
+        cache.invalidateObjective("goal");
+        assertNotSame(red, cache.get("goal", true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownObjectives() {
+        new DistanceFieldCache(WIDTH, HEIGHT, (x, y, team) -> true).get("unknown", true);
+    }
+
+    /**
+     * Computes a field from scratch over the current walkability.
+     *
+     * @param sources the positions of the sources.
+     * @return the field.
+     */
+    private DistanceField compute(List<Vector2D> sources) {
+        DistanceField field = new DistanceField(WIDTH, HEIGHT);
+        field.compute(sources, this::isWalkable);
+        return field;
+    }
+
+    private boolean isWalkable(int x, int y) {
+        return !this.blocked[x][y];
+    }
+
+    /**
+     * Asserts that two fields hold the same distances, and that the nearest source of every
+     * reachable cell is at that distance (ties may be broken differently).
+     *
+     * @param expected the field computed from scratch.
+     * @param actual   the field updated incrementally.
+     */
+    private void assertSameField(DistanceField expected, DistanceField actual) {
+        for (int x = 0; x < WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                assertEquals("Distance of " + Vector2D.of(x, y), expected.getDistance(x, y), actual.getDistance(x, y));
+                if (actual.getDistance(x, y) != DistanceField.UNREACHABLE) {
+                    Vector2D source = actual.getNearestSource(Vector2D.of(x, y));
+                    assertEquals("Nearest source of " + Vector2D.of(x, y),
+                            actual.getDistance(x, y), this.compute(List.of(source)).getDistance(x, y));
+                }
+            }
+        }
+    }
+}
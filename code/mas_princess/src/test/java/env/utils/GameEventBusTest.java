@@ -0,0 +1,94 @@
+package env.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the delivery of the events published on a {@link GameEventBus}.
+ */
+public class GameEventBusTest {
+    private GameEventBus bus;
+    private List<String> received;
+
+    @Before
+    public void setUp() {
+        this.bus = new GameEventBus();
+        this.received = new ArrayList<>();
+    }
+
+    @Test
+    public void deliversEventsOfTheSubscribedType() {
+        this.bus.subscribe(GameEvent.WoodDeposited.class, event -> this.received.add("wood " + event.getWood()));
+
+        this.bus.publish(new GameEvent.WoodDeposited(true, 4));
+        this.bus.publish(new GameEvent.GameWon(true));
+
+        assertEquals(List.of("wood 4"), this.received);
+    }
+
+    @Test
+    public void deliversSubtypesTheMostSpecificFirst() {
+        this.bus.subscribe(GameEvent.class, event -> this.received.add("any"));
+        this.bus.subscribe(GameEvent.PrincessEvent.class, event -> this.received.add("princess"));
+        this.bus.subscribe(GameEvent.PrincessMoved.class, event -> this.received.add("moved " + event.getPosition()));
+
+        this.bus.publish(new GameEvent.PrincessMoved(null, Vector2D.of(1, 2)));
+        this.bus.publish(new GameEvent.GameWon(false));
+
+        assertEquals(List.of("moved " + Vector2D.of(1, 2), "princess", "any", "any"), this.received);
+    }
+
+    @Test
+    public void deliversInSubscriptionOrder() {
+        for (int i = 0; i < 5; i++) {
+            int consumer = i;
+            this.bus.subscribe(GameEvent.GameWon.class, event -> this.received.add("consumer " + consumer));
+        }
+
+        this.bus.publish(new GameEvent.GameWon(true));
+
+        assertEquals(List.of("consumer 0", "consumer 1", "consumer 2", "consumer 3", "consumer 4"), this.received);
+    }
+
+    @Test
+    public void stopsDeliveringOnceUnsubscribed() {
+        Runnable subscription = this.bus.subscribe(GameEvent.GameWon.class, event -> this.received.add("first"));
+        this.bus.subscribe(GameEvent.GameWon.class, event -> this.received.add("second"));
+
+        subscription.run();
+        this.bus.publish(new GameEvent.GameWon(true));
+
+        assertEquals(List.of("second"), this.received);
+    }
+
+    @Test
+    public void keepsDeliveringWhenAConsumerFails() {
+        this.bus.subscribe(GameEvent.GameWon.class, event -> {
+            throw new IllegalStateException("Failing consumer");
+        });
+        this.bus.subscribe(GameEvent.GameWon.class, event -> this.received.add("delivered"));
+
+        this.bus.publish(new GameEvent.GameWon(true));
+
+        assertEquals(List.of("delivered"), this.received);
+    }
+
+    @Test
+    public void allowsUnsubscribingWhileDelivering() {
+        Runnable[] subscription = new Runnable[1];
+        subscription[0] = this.bus.subscribe(GameEvent.GameWon.class, event -> {
+            this.received.add("once");
+            subscription[0].run();
+        });
+
+        this.bus.publish(new GameEvent.GameWon(true));
+        this.bus.publish(new GameEvent.GameWon(true));
+
+        assertEquals(List.of("once"), this.received);
+    }
+}
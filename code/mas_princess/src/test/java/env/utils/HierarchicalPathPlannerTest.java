@@ -0,0 +1,123 @@
+package env.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the routes of {@link HierarchicalPathPlanner}, followed one step at a time as the agents
+ * do on large maps.
+ */
+public class HierarchicalPathPlannerTest {
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 30;
+    private static final int CLUSTER_SIZE = 10;
+
+    private boolean[][] blocked;
+    private HierarchicalPathPlanner planner;
+
+    @Before
+    public void setUp() {
+        this.blocked = new boolean[WIDTH][HEIGHT];
+        for (int y = 0; y < HEIGHT - 3; y++) {
+            this.blocked[15][y] = true; // A wall crossing three clusters, open at the bottom
+        }
+        this.planner = new HierarchicalPathPlanner(WIDTH, HEIGHT, CLUSTER_SIZE, (x, y, team) -> !this.blocked[x][y]);
+    }
+
+    @Test
+    public void followsARouteStepByStepToTheGoal() {
+        Vector2D start = Vector2D.of(2, 2), goal = Vector2D.of(35, 4);
+        HierarchicalPathPlanner.Route route = this.planner.findRoute(start, goal, false).orElseThrow();
+        assertEquals(goal, route.getGoal());
+
+        int steps = 0;
+        for (Vector2D position = start; !position.equals(goal); steps++) {
+            Vector2D next = route.nextStep(position).orElseThrow();
+            assertEquals(1, Math.abs(next.getX() - position.getX()) + Math.abs(next.getY() - position.getY()));
+            assertFalse(this.blocked[next.getX()][next.getY()]);
+            position = next;
+        }
+
+        assertTrue(steps >= this.distance(start, goal));
+        assertTrue(steps <= this.distance(start, goal) * 11 / 10); // Close to the shortest path
+        assertEquals(Optional.empty(), route.nextStep(goal));
+    }
+
+    @Test
+    public void waitsOnTheReachedCellWhenTheAgentDidNotMove() {
+        Vector2D start = Vector2D.of(2, 2);
+        HierarchicalPathPlanner.Route route = this.planner.findRoute(start, Vector2D.of(35, 4), false).orElseThrow();
+
+        Vector2D next = route.nextStep(start).orElseThrow();
+
+        assertEquals(next, route.nextStep(start).orElseThrow()); // E.g. the move was blocked by another agent
+        assertNotEquals(next, route.nextStep(next).orElseThrow());
+    }
+
+    @Test
+    public void reportsAgentsThatLeftTheRoute() {
+        HierarchicalPathPlanner.Route route = this.planner.findRoute(Vector2D.of(2, 2), Vector2D.of(35, 4), false).orElseThrow();
+        route.nextStep(Vector2D.of(2, 2));
+
+        assertEquals(Optional.empty(), route.nextStep(Vector2D.of(30, 20)));
+    }
+
+    @Test
+    public void outdatesTheRoutesOfATeamWhenACellChanges() {
+        HierarchicalPathPlanner.Route blue = this.planner.findRoute(Vector2D.of(2, 2), Vector2D.of(35, 4), false).orElseThrow();
+        HierarchicalPathPlanner.Route red = this.planner.findRoute(Vector2D.of(2, 2), Vector2D.of(35, 4), true).orElseThrow();
+        long version = this.planner.getVersion(false);
+        assertTrue(blue.isCurrent());
+
+        this.blocked[15][HEIGHT - 1] = true;
+        this.planner.cellChanged(15, HEIGHT - 1, false);
+
+        assertFalse(blue.isCurrent());
+        assertTrue(red.isCurrent());
+        assertNotEquals(version, this.planner.getVersion(false));
+        assertTrue(this.planner.findRoute(Vector2D.of(2, 2), Vector2D.of(35, 4), false).orElseThrow().isCurrent());
+    }
+
+    @Test
+    public void findsNoRouteToAnEnclosedGoal() {
+        for (int y = HEIGHT - 3; y < HEIGHT; y++) {
+            this.blocked[15][y] = true;
+            this.planner.cellChanged(15, y, false);
+        }
+
+        assertEquals(Optional.empty(), this.planner.findRoute(Vector2D.of(2, 2), Vector2D.of(35, 4), false));
+    }
+
+    /**
+     * Computes the walking distance between two cells with a BFS over the whole map.
+     *
+     * @param from the starting cell.
+     * @param to   the goal cell.
+     * @return the distance, or {@code -1} if the goal can't be reached.
+     */
+    private int distance(Vector2D from, Vector2D to) {
+        int[][] distances = new int[WIDTH][HEIGHT];
+        Arrays.stream(distances).forEach(column -> Arrays.fill(column, -1));
+        Queue<Vector2D> queue = new ArrayDeque<>(List.of(from));
+        distances[from.getX()][from.getY()] = 0;
+        while (!queue.isEmpty()) {
+            Vector2D cell = queue.poll();
+            for (int[] step : new int[][]{{0, -1}, {0, 1}, {-1, 0}, {1, 0}}) {
+                int x = cell.getX() + step[0], y = cell.getY() + step[1];
+                if (x >= 0 && y >= 0 && x < WIDTH && y < HEIGHT && !this.blocked[x][y] && distances[x][y] == -1) {
+                    distances[x][y] = distances[cell.getX()][cell.getY()] + 1;
+                    queue.add(Vector2D.of(x, y));
+                }
+            }
+        }
+        return distances[to.getX()][to.getY()];
+    }
+}
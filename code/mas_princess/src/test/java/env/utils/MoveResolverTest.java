@@ -0,0 +1,367 @@
+package env.utils;
+
+import env.agents.Agent;
+import env.agents.Warrior;
+import env.objects.resources.Princess;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the rules by which {@link MoveResolver} resolves the moves of a tick.
+ */
+public class MoveResolverTest {
+    private static final BiPredicate<Agent, Vector2D> ANYWHERE = (agent, position) -> true;
+
+    private MoveResolver resolver;
+
+    @Before
+    public void setUp() {
+        this.resolver = new MoveResolver();
+    }
+
+    @Test
+    public void movesIntoFreeCell() {
+        Agent a = warriorAt("a", 0, 0);
+
+        BooleanSupplier moved = this.resolver.propose(a, Vector2D.of(1, 0), Orientation.EAST);
+        this.resolveAndApply(ANYWHERE);
+
+        assertTrue(moved.getAsBoolean());
+        assertEquals(Vector2D.of(1, 0), a.getPose().getPosition());
+        assertEquals(Orientation.EAST, a.getPose().getOrientation());
+    }
+
+    @Test
+    public void failsWhenTargetCannotBeEntered() {
+        Agent a = warriorAt("a", 0, 0);
+        Vector2D wall = Vector2D.of(1, 0);
+
+        BooleanSupplier moved = this.resolver.propose(a, wall, Orientation.EAST);
+        this.resolveAndApply((agent, position) -> !position.equals(wall));
+
+        assertFalse(moved.getAsBoolean());
+        assertEquals(Vector2D.of(0, 0), a.getPose().getPosition());
+    }
+
+    @Test
+    public void rejectsSecondProposalOfTheSameTick() {
+        Agent a = warriorAt("a", 0, 0);
+
+        BooleanSupplier first = this.resolver.propose(a, Vector2D.of(1, 0), Orientation.EAST);
+        BooleanSupplier second = this.resolver.propose(a, Vector2D.of(0, 1), Orientation.SOUTH);
+        this.resolveAndApply(ANYWHERE);
+
+        assertTrue(first.getAsBoolean());
+        assertFalse(second.getAsBoolean());
+        assertEquals(Vector2D.of(1, 0), a.getPose().getPosition());
+    }
+
+    @Test
+    public void contestGoesToLowestNameByDefault() {
+        Agent a = warriorAt("a", 0, 1);
+        Agent b = warriorAt("b", 2, 1);
+        Vector2D target = Vector2D.of(1, 1);
+
+        BooleanSupplier bMoved = this.resolver.propose(b, target, Orientation.WEST);
+        BooleanSupplier aMoved = this.resolver.propose(a, target, Orientation.EAST);
+        this.resolveAndApply(ANYWHERE);
+
+        assertTrue(aMoved.getAsBoolean());
+        assertFalse(bMoved.getAsBoolean());
+        assertEquals(target, a.getPose().getPosition());
+        assertEquals(Vector2D.of(2, 1), b.getPose().getPosition());
+    }
+
+    @Test
+    public void carrierWinsContest() {
+        Agent a = warriorAt("a", 0, 1);
+        Agent z = warriorAt("z", 2, 1);
+        z.startCarrying(new Princess("princess", true, z.getPose()));
+        Vector2D target = Vector2D.of(1, 1);
+
+        BooleanSupplier aMoved = this.resolver.propose(a, target, Orientation.EAST);
+        BooleanSupplier zMoved = this.resolver.propose(z, target, Orientation.WEST);
+        this.resolveAndApply(ANYWHERE);
+
+        assertFalse(aMoved.getAsBoolean());
+        assertTrue(zMoved.getAsBoolean());
+        assertEquals(target, z.getPose().getPosition());
+    }
+
+    @Test
+    public void carrierWinsOverAgentThatLostContests() {
+        Agent a = warriorAt("a", 0, 1);
+        Agent b = warriorAt("b", 2, 1);
+        Vector2D target = Vector2D.of(1, 1);
+
+        this.resolver.propose(a, target, Orientation.EAST);
+        this.resolver.propose(b, target, Orientation.WEST);
+        this.resolveAndApply(ANYWHERE); // b loses once
+        a.setPose(new Pose(Vector2D.of(0, 1), Orientation.EAST));
+
+        Agent z = warriorAt("z", 1, 0);
+        z.startCarrying(new Princess("princess", true, z.getPose()));
+        BooleanSupplier bMoved = this.resolver.propose(b, target, Orientation.WEST);
+        BooleanSupplier zMoved = this.resolver.propose(z, target, Orientation.SOUTH);
+        this.resolveAndApply(ANYWHERE);
+
+        assertFalse(bMoved.getAsBoolean());
+        assertTrue(zMoved.getAsBoolean());
+    }
+
+    @Test
+    public void agentThatLostContestWinsTheNextOne() {
+        Agent a = warriorAt("a", 0, 1);
+        Agent b = warriorAt("b", 2, 1);
+        Vector2D target = Vector2D.of(1, 1);
+
+        this.resolver.propose(a, target, Orientation.EAST);
+        BooleanSupplier lost = this.resolver.propose(b, target, Orientation.WEST);
+        this.resolveAndApply(ANYWHERE);
+        assertFalse(lost.getAsBoolean());
+        a.setPose(new Pose(Vector2D.of(0, 1), Orientation.EAST)); // The cell is free again
+
+        BooleanSupplier aMoved = this.resolver.propose(a, target, Orientation.EAST);
+        BooleanSupplier bMoved = this.resolver.propose(b, target, Orientation.WEST);
+        this.resolveAndApply(ANYWHERE);
+
+        assertFalse(aMoved.getAsBoolean());
+        assertTrue(bMoved.getAsBoolean());
+        assertEquals(target, b.getPose().getPosition());
+    }
+
+    @Test
+    public void lostContestsAreForgottenOnceMoved() {
+        Agent a = warriorAt("a", 0, 1);
+        Agent b = warriorAt("b", 2, 1);
+        Vector2D target = Vector2D.of(1, 1);
+
+        this.resolver.propose(a, target, Orientation.EAST);
+        this.resolver.propose(b, target, Orientation.WEST);
+        this.resolveAndApply(ANYWHERE); // b loses
+        a.setPose(new Pose(Vector2D.of(0, 1), Orientation.EAST));
+
+        this.resolver.propose(a, target, Orientation.EAST);
+        this.resolver.propose(b, target, Orientation.WEST);
+        this.resolveAndApply(ANYWHERE); // b wins, a loses
+        b.setPose(new Pose(Vector2D.of(2, 1), Orientation.WEST));
+
+        BooleanSupplier aMoved = this.resolver.propose(a, target, Orientation.EAST);
+        BooleanSupplier bMoved = this.resolver.propose(b, target, Orientation.WEST);
+        this.resolveAndApply(ANYWHERE);
+
+        assertTrue(aMoved.getAsBoolean());
+        assertFalse(bMoved.getAsBoolean());
+    }
+
+    @Test
+    public void lostContestsAreForgottenWhenBlocked() {
+        Agent a = warriorAt("a", 0, 1);
+        Agent b = warriorAt("b", 2, 1);
+        Vector2D target = Vector2D.of(1, 1);
+
+        this.resolver.propose(a, target, Orientation.EAST);
+        this.resolver.propose(b, target, Orientation.WEST);
+        this.resolveAndApply(ANYWHERE); // b loses
+        a.setPose(new Pose(Vector2D.of(0, 1), Orientation.EAST));
+
+        this.resolver.propose(b, Vector2D.of(3, 1), Orientation.EAST);
+        this.resolveAndApply((agent, position) -> false); // b is blocked by the terrain
+
+        BooleanSupplier aMoved = this.resolver.propose(a, target, Orientation.EAST);
+        BooleanSupplier bMoved = this.resolver.propose(b, target, Orientation.WEST);
+        this.resolveAndApply(ANYWHERE);
+
+        assertTrue(aMoved.getAsBoolean());
+        assertFalse(bMoved.getAsBoolean());
+    }
+
+    @Test
+    public void queueFollowsItsLeader() {
+        Agent a = warriorAt("a", 0, 0);
+        Agent b = warriorAt("b", 1, 0);
+        Agent c = warriorAt("c", 2, 0);
+
+        BooleanSupplier aMoved = this.resolver.propose(a, Vector2D.of(1, 0), Orientation.EAST);
+        BooleanSupplier bMoved = this.resolver.propose(b, Vector2D.of(2, 0), Orientation.EAST);
+        BooleanSupplier cMoved = this.resolver.propose(c, Vector2D.of(3, 0), Orientation.EAST);
+        this.resolveAndApply(ANYWHERE);
+
+        assertTrue(aMoved.getAsBoolean());
+        assertTrue(bMoved.getAsBoolean());
+        assertTrue(cMoved.getAsBoolean());
+        assertEquals(Vector2D.of(1, 0), a.getPose().getPosition());
+        assertEquals(Vector2D.of(2, 0), b.getPose().getPosition());
+        assertEquals(Vector2D.of(3, 0), c.getPose().getPosition());
+    }
+
+    @Test
+    public void queueStopsBehindBlockedLeader() {
+        Agent a = warriorAt("a", 0, 0);
+        Agent b = warriorAt("b", 1, 0);
+        Agent c = warriorAt("c", 2, 0);
+        Vector2D wall = Vector2D.of(3, 0);
+
+        BooleanSupplier aMoved = this.resolver.propose(a, Vector2D.of(1, 0), Orientation.EAST);
+        BooleanSupplier bMoved = this.resolver.propose(b, Vector2D.of(2, 0), Orientation.EAST);
+        BooleanSupplier cMoved = this.resolver.propose(c, wall, Orientation.EAST);
+        this.resolveAndApply((agent, position) -> !position.equals(wall));
+
+        assertFalse(aMoved.getAsBoolean());
+        assertFalse(bMoved.getAsBoolean());
+        assertFalse(cMoved.getAsBoolean());
+        assertEquals(Vector2D.of(0, 0), a.getPose().getPosition());
+        assertEquals(Vector2D.of(1, 0), b.getPose().getPosition());
+        assertEquals(Vector2D.of(2, 0), c.getPose().getPosition());
+    }
+
+    @Test
+    public void queueStopsBehindIdleAgent() {
+        Agent a = warriorAt("a", 0, 0);
+        warriorAt("b", 1, 0); // Proposes nothing
+
+        BooleanSupplier aMoved = this.resolver.propose(a, Vector2D.of(1, 0), Orientation.EAST);
+        this.resolveAndApply((agent, position) -> !position.equals(Vector2D.of(1, 0)));
+
+        assertFalse(aMoved.getAsBoolean());
+        assertEquals(Vector2D.of(0, 0), a.getPose().getPosition());
+    }
+
+    @Test
+    public void queueStopsBehindLeaderThatLostContest() {
+        Agent a = warriorAt("a", 1, 1);
+        Agent b = warriorAt("b", 3, 1);
+        Agent c = warriorAt("c", 4, 1);
+
+        BooleanSupplier aMoved = this.resolver.propose(a, Vector2D.of(2, 1), Orientation.EAST);
+        BooleanSupplier bMoved = this.resolver.propose(b, Vector2D.of(2, 1), Orientation.WEST);
+        BooleanSupplier cMoved = this.resolver.propose(c, Vector2D.of(3, 1), Orientation.WEST);
+        this.resolveAndApply(ANYWHERE);
+
+        assertTrue(aMoved.getAsBoolean());
+        assertFalse(bMoved.getAsBoolean());
+        assertFalse(cMoved.getAsBoolean());
+        assertEquals(Vector2D.of(3, 1), b.getPose().getPosition());
+        assertEquals(Vector2D.of(4, 1), c.getPose().getPosition());
+    }
+
+    @Test
+    public void swapMovesBothAgents() {
+        Agent a = warriorAt("a", 0, 0);
+        Agent b = warriorAt("b", 1, 0);
+
+        BooleanSupplier aMoved = this.resolver.propose(a, Vector2D.of(1, 0), Orientation.EAST);
+        BooleanSupplier bMoved = this.resolver.propose(b, Vector2D.of(0, 0), Orientation.WEST);
+        this.resolveAndApply(ANYWHERE);
+
+        assertTrue(aMoved.getAsBoolean());
+        assertTrue(bMoved.getAsBoolean());
+        assertEquals(Vector2D.of(1, 0), a.getPose().getPosition());
+        assertEquals(Vector2D.of(0, 0), b.getPose().getPosition());
+    }
+
+    @Test
+    public void rotationMovesAllAgents() {
+        Agent a = warriorAt("a", 0, 0);
+        Agent b = warriorAt("b", 1, 0);
+        Agent c = warriorAt("c", 1, 1);
+        Agent d = warriorAt("d", 0, 1);
+
+        BooleanSupplier aMoved = this.resolver.propose(a, Vector2D.of(1, 0), Orientation.EAST);
+        BooleanSupplier bMoved = this.resolver.propose(b, Vector2D.of(1, 1), Orientation.SOUTH);
+        BooleanSupplier cMoved = this.resolver.propose(c, Vector2D.of(0, 1), Orientation.WEST);
+        BooleanSupplier dMoved = this.resolver.propose(d, Vector2D.of(0, 0), Orientation.NORTH);
+        this.resolveAndApply(ANYWHERE);
+
+        assertTrue(aMoved.getAsBoolean());
+        assertTrue(bMoved.getAsBoolean());
+        assertTrue(cMoved.getAsBoolean());
+        assertTrue(dMoved.getAsBoolean());
+        assertEquals(Vector2D.of(1, 0), a.getPose().getPosition());
+        assertEquals(Vector2D.of(1, 1), b.getPose().getPosition());
+        assertEquals(Vector2D.of(0, 1), c.getPose().getPosition());
+        assertEquals(Vector2D.of(0, 0), d.getPose().getPosition());
+    }
+
+    @Test
+    public void rotationMovesWhileOutsiderLosesContest() {
+        Agent a = warriorAt("a", 0, 0);
+        Agent b = warriorAt("b", 1, 0);
+        Agent c = warriorAt("c", 1, 1);
+        Agent d = warriorAt("d", 0, 1);
+        Agent e = warriorAt("e", 2, 0); // Contends for the cell b moves into, and loses by name
+
+        BooleanSupplier aMoved = this.resolver.propose(a, Vector2D.of(1, 0), Orientation.EAST);
+        BooleanSupplier bMoved = this.resolver.propose(b, Vector2D.of(1, 1), Orientation.SOUTH);
+        BooleanSupplier cMoved = this.resolver.propose(c, Vector2D.of(0, 1), Orientation.WEST);
+        BooleanSupplier dMoved = this.resolver.propose(d, Vector2D.of(0, 0), Orientation.NORTH);
+        BooleanSupplier eMoved = this.resolver.propose(e, Vector2D.of(1, 1), Orientation.SOUTH);
+        this.resolveAndApply(ANYWHERE);
+
+        assertTrue(aMoved.getAsBoolean());
+        assertTrue(bMoved.getAsBoolean());
+        assertTrue(cMoved.getAsBoolean());
+        assertTrue(dMoved.getAsBoolean());
+        assertFalse(eMoved.getAsBoolean());
+        assertEquals(Vector2D.of(2, 0), e.getPose().getPosition());
+    }
+
+    @Test
+    public void outcomeDoesNotDependOnProposalOrder() {
+        Agent a = warriorAt("a", 0, 1);
+        Agent b = warriorAt("b", 2, 1);
+        Vector2D target = Vector2D.of(1, 1);
+
+        BooleanSupplier aMoved = this.resolver.propose(a, target, Orientation.EAST);
+        BooleanSupplier bMoved = this.resolver.propose(b, target, Orientation.WEST);
+        this.resolveAndApply(ANYWHERE);
+        boolean aFirst = aMoved.getAsBoolean();
+        boolean bFirst = bMoved.getAsBoolean();
+
+        MoveResolver reversed = new MoveResolver();
+        a.setPose(new Pose(Vector2D.of(0, 1), Orientation.EAST));
+        b.setPose(new Pose(Vector2D.of(2, 1), Orientation.WEST));
+        bMoved = reversed.propose(b, target, Orientation.WEST);
+        aMoved = reversed.propose(a, target, Orientation.EAST);
+        reversed.resolve(reversed.drain(), ANYWHERE);
+
+        assertEquals(aFirst, aMoved.getAsBoolean());
+        assertEquals(bFirst, bMoved.getAsBoolean());
+    }
+
+    /**
+     * Creates a warrior of the blue team at the given position.
+     *
+     * @param name the name of the warrior.
+     * @param x    the x coordinate.
+     * @param y    the y coordinate.
+     * @return the warrior.
+     */
+    private static Agent warriorAt(String name, int x, int y) {
+        Agent agent = new Warrior(name, false);
+        agent.setPose(new Pose(Vector2D.of(x, y), Orientation.NORTH));
+        return agent;
+    }
+
+    /**
+     * Resolves the intents proposed so far and moves the agents whose move was granted, as the
+     * map would.
+     *
+     * @param canEnter checks whether an agent could enter a position.
+     */
+    private void resolveAndApply(BiPredicate<Agent, Vector2D> canEnter) {
+        List<MoveResolver.Intent> intents = this.resolver.drain();
+        this.resolver.resolve(intents, canEnter);
+        for (MoveResolver.Intent intent : intents) {
+            if (intent.isMoved()) {
+                intent.getAgent().setPose(new Pose(intent.getTarget(), intent.getOrientation()));
+            }
+        }
+    }
+}
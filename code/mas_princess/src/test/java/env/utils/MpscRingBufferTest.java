@@ -0,0 +1,146 @@
+package env.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link MpscRingBuffer}, including its wrap-around and its behaviour when full.
+ */
+public class MpscRingBufferTest {
+
+    @Test
+    public void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(1, new MpscRingBuffer<>(1).getCapacity());
+        assertEquals(8, new MpscRingBuffer<>(5).getCapacity());
+        assertEquals(8, new MpscRingBuffer<>(8).getCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveCapacity() {
+        new MpscRingBuffer<>(0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void rejectsNullElements() {
+        new MpscRingBuffer<String>(4).offer(null);
+    }
+
+    @Test
+    public void pollsInInsertionOrder() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.poll());
+
+        assertTrue(buffer.offer(1));
+        assertTrue(buffer.offer(2));
+        assertTrue(buffer.offer(3));
+        assertFalse(buffer.isEmpty());
+
+        assertEquals(Integer.valueOf(1), buffer.poll());
+        assertEquals(Integer.valueOf(2), buffer.poll());
+        assertEquals(Integer.valueOf(3), buffer.poll());
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void rejectsOfferWhenFull() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+
+        assertFalse(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Integer.valueOf(i), buffer.poll()); // The rejected elements left no trace
+        }
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void acceptsOfferOnceSlotIsFreed() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(2);
+        assertTrue(buffer.offer(0));
+        assertTrue(buffer.offer(1));
+        assertFalse(buffer.offer(2));
+
+        assertEquals(Integer.valueOf(0), buffer.poll());
+        assertTrue(buffer.offer(2));
+        assertFalse(buffer.offer(3));
+
+        assertEquals(Integer.valueOf(1), buffer.poll());
+        assertEquals(Integer.valueOf(2), buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void wrapsAroundManyLaps() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+
+        // Three elements in flight, so that every lap starts at a different slot
+        for (int lap = 0; lap < 100; lap++) {
+            while (buffer.offer(next)) {
+                next++;
+            }
+            assertEquals(4, next - expected);
+            for (int i = 0; i < 3; i++) {
+                assertEquals(Integer.valueOf(expected++), buffer.poll());
+            }
+        }
+
+        while (!buffer.isEmpty()) {
+            assertEquals(Integer.valueOf(expected++), buffer.poll());
+        }
+        assertEquals(next, expected);
+    }
+
+    @Test
+    public void keepsOrderOfEachProducer() throws InterruptedException {
+        MpscRingBuffer<int[]> buffer = new MpscRingBuffer<>(16);
+        int producers = 4;
+        int perProducer = 20000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(new int[]{producer, i})) {
+                        Thread.yield(); // Full: wait for the consumer
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        int[] last = new int[producers];
+        Arrays.fill(last, -1);
+        long deadline = System.currentTimeMillis() + 30000;
+        for (int received = 0; received < producers * perProducer; ) {
+            assertTrue("The producers stalled", System.currentTimeMillis() < deadline);
+            int[] element = buffer.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            assertEquals(last[element[0]] + 1, element[1]);
+            last[element[0]] = element[1];
+            received++;
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(buffer.isEmpty());
+    }
+}
@@ -0,0 +1,133 @@
+package env.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link PathPlanner}, in particular that only the cached paths affected by a change of
+ * walkability are planned again.
+ */
+public class PathPlannerTest {
+    private static final int WIDTH = 10;
+    private static final int HEIGHT = 6;
+
+    private boolean[][] blocked;
+    private PathPlanner planner;
+
+    @Before
+    public void setUp() {
+        this.blocked = new boolean[WIDTH][HEIGHT];
+        this.planner = new PathPlanner(WIDTH, HEIGHT, (x, y, team) -> !team || !this.blocked[x][y]); // Only red is blocked
+    }
+
+    @Test
+    public void findsShortestPaths() {
+        List<Vector2D> path = this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(3, 2), true).orElseThrow();
+
+        assertEquals(5, path.size());
+        assertEquals(Vector2D.of(3, 2), path.get(path.size() - 1));
+        assertEquals(List.of(), this.planner.findPath(Vector2D.of(1, 1), Vector2D.of(1, 1), true).orElseThrow());
+        assertEquals(Optional.empty(), this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(WIDTH, 0), true));
+    }
+
+    @Test
+    public void entersAnUnwalkableGoal() {
+        this.blocked[3][0] = true; // E.g. a tree to chop
+
+        assertEquals(List.of(Vector2D.of(1, 0), Vector2D.of(2, 0), Vector2D.of(3, 0)),
+                this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(3, 0), true).orElseThrow());
+    }
+
+    @Test
+    public void reusesCachedPaths() {
+        List<Vector2D> path = this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(9, 5), true).orElseThrow();
+
+        assertSame(path, this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(9, 5), true).orElseThrow());
+    }
+
+    @Test
+    public void replansPathsCrossingABlockedCell() {
+        List<Vector2D> path = this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(5, 0), true).orElseThrow();
+        Vector2D crossed = path.get(1);
+
+        this.block(crossed.getX(), crossed.getY(), true);
+        List<Vector2D> replanned = this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(5, 0), true).orElseThrow();
+
+        assertNotSame(path, replanned);
+        assertFalse(replanned.contains(crossed));
+    }
+
+    @Test
+    public void keepsPathsNotCrossingABlockedCell() {
+        List<Vector2D> path = this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(5, 0), true).orElseThrow();
+
+        this.block(5, 5, true);
+
+        assertSame(path, this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(5, 0), true).orElseThrow());
+    }
+
+    @Test
+    public void keepsPathsOfTheOtherTeam() {
+        List<Vector2D> blue = this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(5, 0), false).orElseThrow();
+
+        this.planner.cellChanged(2, 0, true, false);
+
+        assertSame(blue, this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(5, 0), false).orElseThrow());
+    }
+
+    @Test
+    public void replansPathsAnOpenedCellCanShorten() {
+        for (int y = 0; y < HEIGHT - 1; y++) {
+            this.blocked[4][y] = true; // A wall with a single opening at the bottom
+        }
+        List<Vector2D> detour = this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(8, 0), true).orElseThrow();
+        List<Vector2D> straight = this.planner.findPath(Vector2D.of(0, 5), Vector2D.of(8, 5), true).orElseThrow();
+        assertEquals(8 + 2 * 5, detour.size());
+
+        this.open(4, 0, true);
+
+        assertEquals(8, this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(8, 0), true).orElseThrow().size());
+        assertSame(straight, this.planner.findPath(Vector2D.of(0, 5), Vector2D.of(8, 5), true).orElseThrow());
+    }
+
+    @Test
+    public void forgetsUnreachableGoalsOnceACellOpens() {
+        for (int y = 0; y < HEIGHT; y++) {
+            this.blocked[4][y] = true;
+        }
+        assertEquals(Optional.empty(), this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(8, 0), true));
+
+        this.open(4, 5, true);
+
+        assertEquals(8 + 2 * 5, this.planner.findPath(Vector2D.of(0, 0), Vector2D.of(8, 0), true).orElseThrow().size());
+    }
+
+    /**
+     * Blocks a cell and notifies the planner.
+     *
+     * @param x    the x-coordinate of the cell.
+     * @param y    the y-coordinate of the cell.
+     * @param team the team for which the cell is blocked.
+     */
+    private void block(int x, int y, boolean team) {
+        this.blocked[x][y] = true;
+        this.planner.cellChanged(x, y, team, false);
+    }
+
+    /**
+     * Opens a cell and notifies the planner.
+     *
+     * @param x    the x-coordinate of the cell.
+     * @param y    the y-coordinate of the cell.
+     * @param team the team for which the cell is opened.
+     */
+    private void open(int x, int y, boolean team) {
+        this.blocked[x][y] = false;
+        this.planner.cellChanged(x, y, team, true);
+    }
+}
@@ -0,0 +1,354 @@
+package env.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the exclusion rules of {@link RegionLocks}, its lock ordering and its optimistic reads.
+ */
+public class RegionLocksTest {
+    private static final int WIDTH = 32;
+    private static final int STRIPE_WIDTH = 8;
+    private static final long BLOCKED_MILLIS = 100;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private LockMetrics metrics;
+    private RegionLocks locks;
+
+    @Before
+    public void setUp() {
+        this.metrics = new LockMetrics();
+        this.metrics.setEnabled(true);
+        this.locks = new RegionLocks(WIDTH, STRIPE_WIDTH, this.metrics);
+    }
+
+    @Test
+    public void coversOnlyTheLockedStripes() {
+        RegionLocks.Region region = this.locks.lock("op", Vector2D.of(1, 0), Vector2D.of(17, 3));
+        try {
+            assertTrue(region.covers(Vector2D.of(7, 5)));
+            assertTrue(region.covers(Vector2D.of(16, 0)));
+            assertFalse(region.covers(Vector2D.of(8, 0)));
+            assertFalse(region.covers(Vector2D.of(24, 0)));
+        } finally {
+            region.close();
+        }
+
+        region = this.locks.lock("op", Vector2D.of(-3, 0), Vector2D.of(WIDTH + 5, 0)); // Outside the map
+        try {
+            assertTrue(region.covers(Vector2D.of(0, 0)));
+            assertTrue(region.covers(Vector2D.of(WIDTH - 1, 0)));
+        } finally {
+            region.close();
+        }
+    }
+
+    @Test
+    public void runsDisjointRegionsInParallel() throws InterruptedException {
+        Holder holder = new Holder(() -> this.locks.lock("first", Vector2D.of(0, 0)));
+        holder.assertAcquired();
+
+        RegionLocks.Region region = this.locks.lock("second", Vector2D.of(WIDTH - 1, 0));
+        region.close();
+        holder.release();
+    }
+
+    @Test
+    public void excludesOverlappingRegions() throws InterruptedException {
+        Holder holder = new Holder(() -> this.locks.lock("first", Vector2D.of(0, 0), Vector2D.of(20, 0)));
+        holder.assertAcquired();
+
+        Holder waiting = new Holder(() -> this.locks.lock("second", Vector2D.of(22, 5)));
+        waiting.assertBlocked();
+        holder.release();
+        waiting.assertAcquired();
+        waiting.release();
+    }
+
+    @Test
+    public void excludesRegionsFromTheWholeWorld() throws InterruptedException {
+        Holder holder = new Holder(() -> this.locks.lock("region", Vector2D.of(0, 0)));
+        holder.assertAcquired();
+
+        Holder waiting = new Holder(() -> this.locks.lockAll("world"));
+        waiting.assertBlocked();
+        holder.release();
+        waiting.assertAcquired();
+
+        Holder region = new Holder(() -> this.locks.lock("region", Vector2D.of(WIDTH - 1, 0)));
+        region.assertBlocked();
+        waiting.release();
+        region.assertAcquired();
+        region.release();
+    }
+
+    @Test
+    public void neverDeadlocksOnRegionsLockedInOppositeOrders() throws InterruptedException {
+        int iterations = 2000;
+        int[] counters = new int[WIDTH / STRIPE_WIDTH]; // Incremented without atomics, under the stripe locks
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            boolean ascending = t % 2 == 0;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    Vector2D left = Vector2D.of(i % STRIPE_WIDTH, 0);
+                    Vector2D right = Vector2D.of(WIDTH - 1 - i % STRIPE_WIDTH, 0);
+                    RegionLocks.Region region = ascending ? this.locks.lock("move", left, right) : this.locks.lock("move", right, left);
+                    try {
+                        counters[0]++;
+                        counters[counters.length - 1]++;
+                    } finally {
+                        region.close();
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+            assertFalse("The threads deadlocked", thread.isAlive());
+        }
+        assertEquals(4 * iterations, counters[0]);
+        assertEquals(4 * iterations, counters[counters.length - 1]);
+    }
+
+    @Test
+    public void readsOptimisticallyWithoutRetryingWhenUndisturbed() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertEquals("read", this.locks.read("percept", () -> {
+            attempts.incrementAndGet();
+            return "read";
+        }));
+        assertEquals(1, attempts.get());
+        assertEquals(0, this.metrics.getStats("percept").getOptimisticRetries());
+        assertEquals(0, this.metrics.getStats("percept").getFallbacks());
+    }
+
+    @Test
+    public void retriesAReadWhenAWriterIntervenes() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        int result = this.locks.read("percept", () -> {
+            int attempt = attempts.incrementAndGet();
+            if (attempt == 1) {
+                this.writeFromAnotherThread();
+            }
+            return attempt;
+        });
+
+        assertEquals(2, result);
+        assertEquals(1, this.metrics.getStats("percept").getOptimisticRetries());
+        assertEquals(0, this.metrics.getStats("percept").getFallbacks());
+    }
+
+    @Test
+    public void fallsBackToReadLocksWhenWritersKeepIntervening() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        int result = this.locks.read("percept", () -> {
+            int attempt = attempts.incrementAndGet();
+            if (attempt <= RegionLocks.MAX_OPTIMISTIC_ATTEMPTS) {
+                this.writeFromAnotherThread();
+            }
+            return attempt;
+        });
+
+        assertEquals(RegionLocks.MAX_OPTIMISTIC_ATTEMPTS + 1, result);
+        assertEquals(1, this.metrics.getStats("percept").getFallbacks());
+    }
+
+    @Test
+    public void discardsFailuresCausedByAWriter() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        int result = this.locks.read("percept", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                this.writeFromAnotherThread();
+                throw new IllegalStateException("Half-written state");
+            }
+            return attempts.get();
+        });
+
+        assertEquals(2, result);
+    }
+
+    @Test
+    public void runsNestedReadsDirectly() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        this.locks.read("outer", () -> this.locks.read("inner", attempts::incrementAndGet));
+        this.locks.withAll("world", () -> this.locks.read("inner", attempts::incrementAndGet));
+
+        assertEquals(2, attempts.get());
+        assertEquals(0, this.metrics.getStats("inner").getOptimisticRetries());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsLockingFromARead() {
+        this.locks.read("percept", () -> this.locks.lock("move", Vector2D.of(0, 0)));
+    }
+
+    @Test
+    public void sharesTheWholeWorldAmongReaders() throws InterruptedException {
+        Holder reader = new Holder(() -> this.locks.lockAllShared("reader"));
+        reader.assertAcquired();
+
+        assertEquals("read", this.locks.withAllShared("other reader", () -> "read"));
+        assertEquals("read", this.locks.read("percept", () -> "read"));
+
+        Holder writer = new Holder(() -> this.locks.lock("writer", Vector2D.of(WIDTH - 1, 0)));
+        writer.assertBlocked();
+        reader.release();
+        writer.assertAcquired();
+        writer.release();
+    }
+
+    @Test
+    public void keepsTheWorldSharedUntilTheOutermostHoldIsReleased() throws InterruptedException {
+        CountDownLatch innerReleased = new CountDownLatch(1);
+        Holder reader = new Holder(() -> {
+            RegionLocks.Region outer = this.locks.lockAllShared("outer");
+            this.locks.withAllShared("inner", () -> true);
+            innerReleased.countDown();
+            return outer;
+        });
+        assertTrue(innerReleased.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        Holder writer = new Holder(() -> this.locks.lockAll("writer"));
+        writer.assertBlocked();
+        reader.release();
+        writer.assertAcquired();
+        writer.release();
+    }
+
+    @Test
+    public void readsTheWorldWhileHoldingItExclusively() {
+        assertEquals("read", this.locks.withAll("world", () -> this.locks.withAllShared("nested", () -> "read")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsLockingARegionWhileReadingTheWorld() {
+        this.locks.withAllShared("reader", () -> this.locks.lock("move", Vector2D.of(0, 0)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsReadingTheWorldWhileHoldingARegion() {
+        this.locks.withRegion("move", () -> List.of(Vector2D.of(0, 0)), () -> this.locks.lockAllShared("reader"));
+    }
+
+    @Test
+    public void locksAgainWhenThePositionsMovedMeanwhile() {
+        AtomicInteger computed = new AtomicInteger();
+        AtomicInteger runs = new AtomicInteger();
+
+        this.locks.withRegion("move", () -> computed.incrementAndGet() == 1
+                ? List.of(Vector2D.of(0, 0)) // Moved to another stripe once the region is held
+                : List.of(Vector2D.of(WIDTH - 1, 0)), runs::incrementAndGet);
+
+        assertEquals(1, runs.get());
+        assertEquals(4, computed.get()); // Locked and checked twice
+    }
+
+    @Test
+    public void releasesTheWorldWhenAnOperationFails() throws InterruptedException {
+        try {
+            this.locks.withAll("failing", () -> {
+                throw new IllegalStateException("Failing operation");
+            });
+            fail("The failure was swallowed");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        Holder writer = new Holder(() -> this.locks.lockAll("writer"));
+        writer.assertAcquired();
+        writer.release();
+    }
+
+    /**
+     * Locks and releases the whole world from another thread, invalidating the optimistic reads
+     * in progress.
+     */
+    private void writeFromAnotherThread() {
+        Thread writer = new Thread(() -> this.locks.withAll("write", () -> { }));
+        writer.start();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A thread acquiring a region and holding it until released.
+     */
+    private static final class Holder {
+        private final CountDownLatch acquired = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final Thread thread;
+
+        /**
+         * Starts a thread acquiring a region.
+         *
+         * @param acquisition acquires the region.
+         */
+        private Holder(Supplier<RegionLocks.Region> acquisition) {
+            this.thread = new Thread(() -> {
+                RegionLocks.Region region = acquisition.get();
+                this.acquired.countDown();
+                try {
+                    this.release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    region.close();
+                }
+            });
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        /**
+         * Asserts that the region is still being waited for.
+         *
+         * @throws InterruptedException if interrupted while waiting.
+         */
+        private void assertBlocked() throws InterruptedException {
+            assertFalse("The region was acquired", this.acquired.await(BLOCKED_MILLIS, TimeUnit.MILLISECONDS));
+        }
+
+        /**
+         * Asserts that the region is acquired.
+         *
+         * @throws InterruptedException if interrupted while waiting.
+         */
+        private void assertAcquired() throws InterruptedException {
+            assertTrue("The region was not acquired", this.acquired.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+
+        /**
+         * Releases the region, once acquired, and waits for the thread to end.
+         *
+         * @throws InterruptedException if interrupted while waiting.
+         */
+        private void release() throws InterruptedException {
+            this.assertAcquired();
+            this.release.countDown();
+            this.thread.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+            assertFalse("The region was not released", this.thread.isAlive());
+        }
+    }
+}
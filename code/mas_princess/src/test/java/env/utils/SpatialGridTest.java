@@ -0,0 +1,117 @@
+package env.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link SpatialGrid}, in particular that its range queries match a scan of every entity.
+ */
+public class SpatialGridTest {
+    private SpatialGrid<String> grid;
+
+    @Before
+    public void setUp() {
+        this.grid = new SpatialGrid<>(20, 12, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveBucketSize() {
+        new SpatialGrid<String>(10, 10, 0);
+    }
+
+    @Test
+    public void findsEntitiesAtTheirPosition() {
+        this.grid.put("a", Vector2D.of(3, 5));
+        this.grid.put("b", Vector2D.of(4, 5));
+
+        assertEquals(Optional.of("a"), this.grid.findAt(Vector2D.of(3, 5)));
+        assertEquals(Optional.of("b"), this.grid.findAt(Vector2D.of(4, 5)));
+        assertEquals(Optional.empty(), this.grid.findAt(Vector2D.of(5, 5)));
+        assertEquals(Optional.empty(), this.grid.findAt(Vector2D.of(-1, 5)));
+        assertEquals(Vector2D.of(3, 5), this.grid.getPosition("a"));
+        assertEquals(2, this.grid.size());
+    }
+
+    @Test
+    public void movesEntitiesAcrossBuckets() {
+        this.grid.put("a", Vector2D.of(1, 1));
+        this.grid.put("a", Vector2D.of(2, 1)); // Same bucket
+        this.grid.put("a", Vector2D.of(17, 10)); // Another bucket
+
+        assertEquals(Optional.empty(), this.grid.findAt(Vector2D.of(1, 1)));
+        assertEquals(Optional.empty(), this.grid.findAt(Vector2D.of(2, 1)));
+        assertEquals(Optional.of("a"), this.grid.findAt(Vector2D.of(17, 10)));
+        assertTrue(this.grid.queryRange(Vector2D.of(1, 1), 2).isEmpty());
+        assertEquals(List.of("a"), this.grid.queryRange(Vector2D.of(18, 11), 1));
+        assertEquals(1, this.grid.size());
+    }
+
+    @Test
+    public void removesEntities() {
+        this.grid.put("a", Vector2D.of(6, 6));
+
+        assertTrue(this.grid.remove("a"));
+        assertFalse(this.grid.remove("a"));
+        assertNull(this.grid.getPosition("a"));
+        assertEquals(Optional.empty(), this.grid.findAt(Vector2D.of(6, 6)));
+        assertTrue(this.grid.queryRange(Vector2D.of(6, 6), 3).isEmpty());
+        assertEquals(0, this.grid.size());
+    }
+
+    @Test
+    public void queriesASquareIncludingTheCenter() {
+        this.grid.put("center", Vector2D.of(8, 6));
+        this.grid.put("corner", Vector2D.of(10, 8));
+        this.grid.put("outside", Vector2D.of(11, 6));
+
+        assertEquals(Set.of("center", "corner"), new HashSet<>(this.grid.queryRange(Vector2D.of(8, 6), 2)));
+        assertEquals(List.of("center"), this.grid.queryRange(Vector2D.of(8, 6), 0));
+    }
+
+    @Test
+    public void queriesCentersOutsideTheMap() {
+        this.grid.put("a", Vector2D.of(0, 0));
+        this.grid.put("b", Vector2D.of(19, 11));
+
+        assertEquals(List.of("a"), this.grid.queryRange(Vector2D.of(-2, -1), 2));
+        assertEquals(List.of("b"), this.grid.queryRange(Vector2D.of(21, 12), 2));
+        assertTrue(this.grid.queryRange(Vector2D.of(-5, 0), 2).isEmpty());
+    }
+
+    @Test
+    public void matchesAScanOfEveryEntity() {
+        Random random = new Random(42);
+        for (int i = 0; i < 60; i++) {
+            this.grid.put("e" + i, Vector2D.of(random.nextInt(20), random.nextInt(12)));
+        }
+        for (int i = 0; i < 30; i++) {
+            this.grid.put("e" + random.nextInt(60), Vector2D.of(random.nextInt(20), random.nextInt(12)));
+            this.grid.remove("e" + random.nextInt(60));
+        }
+
+        for (int query = 0; query < 200; query++) {
+            Vector2D center = Vector2D.of(random.nextInt(24) - 2, random.nextInt(16) - 2);
+            int range = random.nextInt(7);
+
+            Set<String> expected = new HashSet<>();
+            for (int i = 0; i < 60; i++) {
+                Vector2D position = this.grid.getPosition("e" + i);
+                if (position != null && Math.abs(position.getX() - center.getX()) <= range
+                        && Math.abs(position.getY() - center.getY()) <= range) {
+                    expected.add("e" + i);
+                }
+            }
+            List<String> found = this.grid.queryRange(center, range);
+            assertEquals(expected.size(), found.size());
+            assertEquals(expected, new HashSet<>(found));
+        }
+    }
+}
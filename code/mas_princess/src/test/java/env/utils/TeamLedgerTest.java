@@ -0,0 +1,133 @@
+package env.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link TeamLedger}, in particular that wood is never overspent.
+ */
+public class TeamLedgerTest {
+
+    @Test
+    public void startsEmpty() {
+        TeamLedger ledger = new TeamLedger();
+
+        assertEquals(0, ledger.getWood(false));
+        assertEquals(0, ledger.getWood(true));
+        assertTrue(ledger.hasWood(true, 0));
+        assertFalse(ledger.hasWood(true, 1));
+    }
+
+    @Test
+    public void keepsTeamsApart() {
+        TeamLedger ledger = new TeamLedger();
+
+        assertEquals(3, ledger.depositWood(true, 3));
+        assertEquals(3, ledger.getWood(true));
+        assertEquals(0, ledger.getWood(false));
+        assertFalse(ledger.trySpendWood(false, 1));
+    }
+
+    @Test
+    public void spendsWoodWhenEnough() {
+        TeamLedger ledger = new TeamLedger();
+        ledger.depositWood(false, 5);
+
+        assertTrue(ledger.trySpendWood(false, 3));
+        assertEquals(2, ledger.getWood(false));
+        assertTrue(ledger.trySpendWood(false, 2));
+        assertEquals(0, ledger.getWood(false));
+    }
+
+    @Test
+    public void leavesWoodUntouchedWhenNotEnough() {
+        TeamLedger ledger = new TeamLedger();
+        ledger.depositWood(true, 2);
+
+        assertFalse(ledger.trySpendWood(true, 3));
+        assertEquals(2, ledger.getWood(true));
+    }
+
+    @Test
+    public void spendsNothingForFree() {
+        TeamLedger ledger = new TeamLedger();
+
+        assertTrue(ledger.trySpendWood(true, 0));
+        assertEquals(0, ledger.getWood(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeSpending() {
+        new TeamLedger().trySpendWood(true, -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeDeposit() {
+        new TeamLedger().depositWood(true, -1);
+    }
+
+    @Test
+    public void neverOverspendsUnderContention() throws InterruptedException {
+        TeamLedger ledger = new TeamLedger();
+        int initial = 1000;
+        int amount = 3;
+        ledger.depositWood(true, initial);
+
+        AtomicInteger spent = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                while (ledger.trySpendWood(true, amount)) {
+                    spent.addAndGet(amount);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(initial - initial % amount, spent.get());
+        assertEquals(initial % amount, ledger.getWood(true));
+    }
+
+    @Test
+    public void balancesDepositsAndSpendingsUnderContention() throws InterruptedException {
+        TeamLedger ledger = new TeamLedger();
+        AtomicInteger deposited = new AtomicInteger();
+        AtomicInteger spent = new AtomicInteger();
+        AtomicInteger negative = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            boolean depositing = t % 2 == 0;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    if (depositing) {
+                        ledger.depositWood(false, 1);
+                        deposited.incrementAndGet();
+                    } else if (ledger.trySpendWood(false, 5)) {
+                        spent.addAndGet(5);
+                    }
+                    if (ledger.getWood(false) < 0) {
+                        negative.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, negative.get());
+        assertEquals(deposited.get() - spent.get(), ledger.getWood(false));
+    }
+}
@@ -0,0 +1,215 @@
+package env.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests how {@link TickEngine} batches the actions, expires its timers and stops.
+ */
+public class TickEngineTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    private TickEngine engine;
+
+    @After
+    public void tearDown() {
+        if (this.engine != null) {
+            this.engine.stop();
+        }
+    }
+
+    @Test
+    public void resolvesTheActionsOfATickInSubmissionOrder() throws Exception {
+        this.engine = new TickEngine(20, () -> this.events.add("end"));
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        List<Long> ticks = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 3; i++) {
+            int action = i;
+            results.add(this.engine.submit(() -> {
+                ticks.add(this.engine.getTick());
+                this.events.add("action " + action);
+                return action != 1;
+            }));
+        }
+        this.engine.start();
+
+        assertTrue(await(results.get(0)));
+        assertFalse(await(results.get(1)));
+        assertTrue(await(results.get(2)));
+        assertEquals(List.of("action 0", "action 1", "action 2", "end"), this.events.subList(0, 4));
+        assertEquals(1, ticks.stream().distinct().count());
+    }
+
+    @Test
+    public void completesTheFuturesOnceTheTickEnded() throws Exception {
+        AtomicBoolean completedBeforeTheEnd = new AtomicBoolean();
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        this.engine = new TickEngine(0, () -> completedBeforeTheEnd.set(results.get(0).isDone()));
+        results.add(this.engine.submit(() -> true));
+
+        this.engine.start();
+
+        assertTrue(await(results.get(0)));
+        assertFalse(completedBeforeTheEnd.get());
+    }
+
+    @Test
+    public void failsOnlyTheActionThatThrows() throws Exception {
+        this.engine = new TickEngine(0, () -> { });
+        this.engine.start();
+
+        CompletableFuture<Boolean> failing = this.engine.submit(() -> {
+            throw new IllegalStateException("Failing action");
+        });
+        CompletableFuture<Boolean> succeeding = this.engine.submit(() -> true);
+
+        assertFalse(await(failing));
+        assertTrue(await(succeeding));
+        assertTrue(await(this.engine.submit(() -> true))); // The engine is still running
+    }
+
+    @Test
+    public void resolvesActionsSubmittedDuringATickAtTheNextOne() throws Exception {
+        this.engine = new TickEngine(0, () -> { });
+        this.engine.start();
+        AtomicLong outerTick = new AtomicLong();
+        CompletableFuture<Long> innerTick = new CompletableFuture<>();
+
+        await(this.engine.submit(() -> {
+            outerTick.set(this.engine.getTick());
+            this.engine.submit(() -> innerTick.complete(this.engine.getTick()));
+            return true;
+        }));
+
+        assertEquals(outerTick.get() + 1, (long) await(innerTick));
+    }
+
+    @Test
+    public void readsDeferredOutcomesAfterTheStages() throws Exception {
+        AtomicBoolean resolved = new AtomicBoolean();
+        this.engine = new TickEngine(0, () -> this.events.add("end"));
+        this.engine.addStage(() -> {
+            this.events.add("stage");
+            resolved.set(true);
+        });
+        this.engine.start();
+
+        CompletableFuture<Boolean> result = this.engine.submitDeferred(() -> {
+            this.events.add("action");
+            return resolved::get;
+        });
+
+        assertTrue(await(result));
+        assertEquals(List.of("action", "stage", "end"), this.events);
+    }
+
+    @Test
+    public void expiresTimersAfterTheirTicks() throws Exception {
+        this.engine = new TickEngine(5, () -> { });
+        this.engine.start();
+
+        long start = this.engine.getTick();
+        await(this.engine.after(3));
+        assertTrue(this.engine.getTick() >= start + 3);
+
+        start = this.engine.getTick();
+        await(this.engine.after(0)); // Waits for at least one tick
+        assertTrue(this.engine.getTick() >= start + 1);
+    }
+
+    @Test
+    public void doesNotTickWhileIdle() throws InterruptedException {
+        this.engine = new TickEngine(0, () -> this.events.add("end"));
+        this.engine.start();
+
+        Thread.sleep(100);
+
+        assertEquals(0, this.engine.getTick());
+        assertTrue(this.events.isEmpty());
+    }
+
+    @Test
+    public void pacesTheTicksRunOnlyForTimers() throws Exception {
+        this.engine = new TickEngine(0, () -> { });
+        this.engine.start();
+
+        long start = System.nanoTime();
+        await(this.engine.after(2));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("Ran " + this.engine.getTick() + " ticks", this.engine.getTick() <= 3);
+        assertTrue("Expired after " + elapsed + " ms", elapsed >= TickEngine.IDLE_TICK_MILLIS);
+    }
+
+    @Test
+    public void runsUnthrottledTicksWithoutWaitingForPendingTimers() throws Exception {
+        this.engine = new TickEngine(0, () -> { });
+        this.engine.start();
+        this.engine.after(1000);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            await(this.engine.submit(() -> true));
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("Took " + elapsed + " ms", elapsed < 20 * TickEngine.IDLE_TICK_MILLIS);
+    }
+
+    @Test
+    public void cancelsWhatIsPendingWhenStopped() throws Exception {
+        this.engine = new TickEngine(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS * 10), () -> { });
+        this.engine.start();
+        CompletableFuture<Boolean> action = this.engine.submit(() -> true);
+        CompletableFuture<Void> timer = this.engine.after(1);
+
+        this.engine.stop();
+
+        assertCancelled(action);
+        assertCancelled(timer);
+        assertEquals(0, this.engine.getTick());
+    }
+
+    /**
+     * Waits for a future to complete.
+     *
+     * @param future the future.
+     * @param <T>    the type of its result.
+     * @return the result.
+     * @throws Exception if the future failed or didn't complete in time.
+     */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Asserts that a future gets cancelled.
+     *
+     * @param future the future.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private static void assertCancelled(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail("The future completed");
+        } catch (CancellationException e) {
+            // Expected
+        } catch (ExecutionException | TimeoutException e) {
+            fail("The future was not cancelled: " + e);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package env.utils;
+
+import env.agents.Agent;
+import env.agents.Warrior;
+import env.objects.structures.Gate;
+import env.objects.structures.Tree;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link WorldGrid}, in particular the walkability cached in its flags and the frozen
+ * copies sharing the unchanged rows.
+ */
+public class WorldGridTest {
+    private static final int WIDTH = 6;
+    private static final int HEIGHT = 4;
+
+    private WorldGrid grid;
+
+    @Before
+    public void setUp() {
+        this.grid = new WorldGrid(WIDTH, HEIGHT);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                this.grid.reset(x, y, Zone.BATTLEFIELD);
+            }
+        }
+    }
+
+    @Test
+    public void startsOutOfTheMap() {
+        WorldGrid empty = new WorldGrid(WIDTH, HEIGHT);
+
+        assertEquals(Zone.OUT_OF_MAP, empty.getZone(2, 1));
+        assertFalse(empty.isWalkable(2, 1, false));
+        assertFalse(empty.isWalkable(2, 1, true));
+        assertNull(empty.getStructure(2, 1));
+        assertNull(empty.getAgent(2, 1));
+    }
+
+    @Test
+    public void storesTheContentOfEachCell() {
+        Agent agent = new Warrior("warrior", true);
+        Gate gate = new Gate("gate", 10, false, pose(4, 3));
+
+        this.grid.setAgent(1, 2, agent);
+        this.grid.setStructure(4, 3, gate);
+        this.grid.setZone(0, 0, Zone.RBASE);
+
+        assertSame(agent, this.grid.getAgent(1, 2));
+        assertSame(gate, this.grid.getStructure(4, 3));
+        assertEquals(Zone.RBASE, this.grid.getZone(0, 0));
+        assertNull(this.grid.getAgent(2, 1)); // Cells are indexed by row, not by column
+
+        this.grid.setAgent(1, 2, null);
+        assertNull(this.grid.getAgent(1, 2));
+    }
+
+    @Test
+    public void resetsCells() {
+        this.grid.setAgent(3, 1, new Warrior("warrior", false));
+        this.grid.setStructure(3, 1, new Gate("gate", 10, true, pose(3, 1)));
+
+        this.grid.reset(3, 1, Zone.OUT_OF_MAP);
+
+        assertNull(this.grid.getAgent(3, 1));
+        assertNull(this.grid.getStructure(3, 1));
+        assertEquals(Zone.OUT_OF_MAP, this.grid.getZone(3, 1));
+        assertFalse(this.grid.isWalkable(3, 1, true));
+    }
+
+    @Test
+    public void letsOnlyTheOwnTeamThroughItsGates() {
+        this.grid.setStructure(2, 2, new Gate("gate_b", 10, false, pose(2, 2)));
+        this.grid.setStructure(3, 2, new Gate("gate_r", 10, true, pose(3, 2)));
+
+        assertTrue(this.grid.isWalkable(2, 2, false));
+        assertFalse(this.grid.isWalkable(2, 2, true));
+        assertFalse(this.grid.isWalkable(3, 2, false));
+        assertTrue(this.grid.isWalkable(3, 2, true));
+    }
+
+    @Test
+    public void letsEveryoneThroughDestroyedStructuresOnceRefreshed() {
+        Gate gate = new Gate("gate_r", 10, true, pose(3, 2));
+        this.grid.setStructure(3, 2, gate);
+
+        gate.takeDamage(10);
+        assertFalse(this.grid.isDestroyed(3, 2)); // Not refreshed yet
+        this.grid.refresh(3, 2);
+
+        assertTrue(this.grid.isDestroyed(3, 2));
+        assertTrue(this.grid.isWalkable(3, 2, false));
+
+        gate.repair();
+        this.grid.refresh(3, 2);
+        assertFalse(this.grid.isDestroyed(3, 2));
+        assertFalse(this.grid.isWalkable(3, 2, false));
+    }
+
+    @Test
+    public void blocksStandingTrees() {
+        this.grid.setStructure(1, 1, new Tree("tree", 10, 60000, pose(1, 1)));
+
+        assertFalse(this.grid.isWalkable(1, 1, false));
+        assertFalse(this.grid.isWalkable(1, 1, true));
+        assertFalse(this.grid.isDestroyed(1, 1));
+    }
+
+    @Test
+    public void keepsAgentsOutOfTheWalkability() {
+        this.grid.setAgent(1, 1, new Warrior("warrior", true));
+
+        assertTrue(this.grid.isWalkable(1, 1, false));
+    }
+
+    @Test
+    public void freezesTheCurrentContent() {
+        Agent agent = new Warrior("warrior", false);
+        this.grid.setAgent(2, 3, agent);
+        this.grid.setZone(5, 0, Zone.BBASE);
+
+        WorldGrid.Frozen frozen = this.grid.freeze(null);
+
+        assertEquals(WIDTH, frozen.getWidth());
+        assertEquals(HEIGHT, frozen.getHeight());
+        assertSame(agent, frozen.getAgent(2, 3));
+        assertNull(frozen.getAgent(3, 2));
+        assertEquals(Zone.BBASE, frozen.getZone(5, 0));
+        assertTrue(frozen.isWalkable(2, 3, true));
+    }
+
+    @Test
+    public void keepsFrozenCopiesUnchanged() {
+        Gate gate = new Gate("gate_r", 10, true, pose(3, 2));
+        this.grid.setStructure(3, 2, gate);
+        WorldGrid.Frozen before = this.grid.freeze(null);
+
+        this.grid.setAgent(0, 2, new Warrior("warrior", true));
+        gate.takeDamage(10);
+        this.grid.refresh(3, 2);
+        WorldGrid.Frozen after = this.grid.freeze(before);
+
+        assertNull(before.getAgent(0, 2));
+        assertFalse(before.isDestroyed(3, 2));
+        assertFalse(before.isWalkable(3, 2, false));
+        assertNotNull(after.getAgent(0, 2));
+        assertTrue(after.isDestroyed(3, 2));
+        assertTrue(after.isWalkable(3, 2, false));
+    }
+
+    @Test
+    public void sharesTheRowsNotWrittenSinceThePreviousCopy() {
+        Agent agent = new Warrior("warrior", true);
+        this.grid.setAgent(4, 0, agent);
+        WorldGrid.Frozen first = this.grid.freeze(null);
+
+        this.grid.setAgent(1, 3, new Warrior("other", false));
+        WorldGrid.Frozen second = this.grid.freeze(first);
+        WorldGrid.Frozen third = this.grid.freeze(second); // Nothing written in between
+
+        assertSame(agent, second.getAgent(4, 0)); // Row 0 comes from the first copy
+        assertNotNull(second.getAgent(1, 3));
+        assertNull(first.getAgent(1, 3));
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertSame(second.getAgent(x, y), third.getAgent(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void matchesTheLiveGridAfterEveryFreeze() {
+        Random random = new Random(11);
+        Agent[] agents = new Agent[4];
+        for (int i = 0; i < agents.length; i++) {
+            agents[i] = new Warrior("warrior" + i, i % 2 == 0);
+        }
+
+        WorldGrid.Frozen frozen = null;
+        for (int round = 0; round < 50; round++) {
+            for (int write = random.nextInt(4); write > 0; write--) {
+                int x = random.nextInt(WIDTH), y = random.nextInt(HEIGHT);
+                switch (random.nextInt(3)) {
+                    case 0 -> this.grid.setAgent(x, y, random.nextBoolean() ? agents[random.nextInt(agents.length)] : null);
+                    case 1 -> this.grid.setZone(x, y, Zone.values()[random.nextInt(Zone.values().length)]);
+                    default -> this.grid.setStructure(x, y, random.nextBoolean() ? new Gate("gate", 10, random.nextBoolean(), pose(x, y)) : null);
+                }
+            }
+            frozen = this.grid.freeze(frozen);
+
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    assertSame(this.grid.getAgent(x, y), frozen.getAgent(x, y));
+                    assertSame(this.grid.getStructure(x, y), frozen.getStructure(x, y));
+                    assertEquals(this.grid.getZone(x, y), frozen.getZone(x, y));
+                    assertEquals(this.grid.isWalkable(x, y, false), frozen.isWalkable(x, y, false));
+                    assertEquals(this.grid.isWalkable(x, y, true), frozen.isWalkable(x, y, true));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a pose at the given position.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @return the pose.
+     */
+    private static Pose pose(int x, int y) {
+        return new Pose(Vector2D.of(x, y), Orientation.NORTH);
+    }
+}